@@ -0,0 +1,186 @@
+package com.safetynet.alerts.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache borné en nombre d'entrées, à admission de type W-TinyLFU.
+ * <p>
+ * Trois segments LRU :
+ * <ul>
+ *   <li>fenêtre (1 % de la capacité) : toute nouvelle entrée y entre, ce qui laisse une chance aux rafales ;</li>
+ *   <li>probatoire (20 % du reste) : entrées admises dans le cache principal, pas encore relues ;</li>
+ *   <li>protégé (80 % du reste) : entrées relues au moins une fois depuis leur admission.</li>
+ * </ul>
+ * Quand la fenêtre déborde, son entrée la plus ancienne n'est admise dans le cache principal plein que si sa
+ * fréquence récente ({@link FrequencySketch}) dépasse celle de la victime désignée (LRU du segment probatoire) :
+ * un balayage de clés vues une seule fois ne chasse pas les entrées populaires.
+ * <p>
+ * Thread-safety : les lectures ne prennent pas de verrou. La valeur est lue dans une {@link ConcurrentHashMap}
+ * (union des trois segments) et l'accès est déposé dans un {@link ReadBuffer} à perte ; la politique (segments,
+ * sketch) n'est modifiée que sous verrou, par les écritures qui rejouent d'abord les accès en attente, ou par
+ * la lecture qui trouve son tampon plein (si le verrou est libre). Compteurs en {@link LongAdder}.
+ *
+ * @param <K> type des clés
+ * @param <V> type des valeurs
+ */
+public class BoundedCache<K, V> {
+
+    /** Compteurs cumulés depuis la création. */
+    public record Stats(int size, int maximumSize, long hits, long misses, long evictions, long rejections,
+                        long invalidations) {
+        /** Part des lectures servies par le cache (0 si aucune lecture). */
+        public double hitRate() {
+            final long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+
+    private final int maximumSize;
+    private final int windowMax;
+    private final int mainMax;
+    private final int protectedMax;
+    private final FrequencySketch sketch;
+
+    // LinkedHashMap en ordre d'insertion : on replace en queue à chaque accès (LRU en tête)
+    private final LinkedHashMap<K, V> window = new LinkedHashMap<>();
+    private final LinkedHashMap<K, V> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<>();
+
+    // Lectures sans verrou : mêmes entrées que les trois segments (tenue à jour sous le verrou)
+    private final ConcurrentHashMap<K, V> data = new ConcurrentHashMap<>();
+    // Accès pas encore appliqués à la politique
+    private final ReadBuffer<K> reads = new ReadBuffer<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public BoundedCache(int maximumSize) {
+        if (maximumSize < 1) throw new IllegalArgumentException("maximumSize doit être >= 1 : " + maximumSize);
+        this.maximumSize = maximumSize;
+        this.windowMax = Math.max(1, maximumSize / 100);
+        this.mainMax = maximumSize - windowMax;
+        this.protectedMax = mainMax * 4 / 5;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /** Valeur associée à {@code key}, ou {@code null} ; compte un succès ou un échec. Sans verrou. */
+    public V get(K key) {
+        final V v = data.get(key);
+        if (v == null) misses.increment(); else hits.increment();
+        if (reads.offer(key) && lock.tryLock()) {
+            try {
+                drainReads();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return v;
+    }
+
+    /** Associe {@code value} à {@code key} (remplace une valeur présente sans changer de segment). */
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            drainReads();
+            data.put(key, value);
+            if (window.containsKey(key)) { window.put(key, value); return; }
+            if (probation.containsKey(key)) { probation.put(key, value); return; }
+            if (protectedSegment.containsKey(key)) { protectedSegment.put(key, value); return; }
+            window.put(key, value);
+            if (window.size() > windowMax) admitFromWindow();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Retire {@code key} (entrée périmée) ; sans effet si absente. */
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            if (window.remove(key) != null || probation.remove(key) != null || protectedSegment.remove(key) != null) {
+                data.remove(key);
+                invalidations.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Vide le cache (les compteurs sont conservés). */
+    public void clear() {
+        lock.lock();
+        try {
+            drainReads();
+            window.clear();
+            probation.clear();
+            protectedSegment.clear();
+            data.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() { return data.size(); }
+
+    public Stats stats() {
+        return new Stats(size(), maximumSize, hits.sum(), misses.sum(), evictions.sum(), rejections.sum(), invalidations.sum());
+    }
+
+    // Sous verrou : applique les accès déposés par les lectures (fréquence, puis ordre LRU / promotion)
+    private void drainReads() {
+        reads.drain(this::onAccess);
+    }
+
+    private void onAccess(K key) {
+        sketch.increment(key);
+        V v = window.remove(key);
+        if (v != null) {
+            window.put(key, v);
+        } else if ((v = probation.remove(key)) != null) {
+            promote(key, v); // relue : passe en segment protégé
+        } else if ((v = protectedSegment.remove(key)) != null) {
+            protectedSegment.put(key, v);
+        }
+    }
+
+    private void promote(K key, V value) {
+        protectedSegment.put(key, value);
+        if (protectedSegment.size() > protectedMax) {
+            // Le protégé déborde : son LRU redescend en probatoire (il devra être relu pour remonter)
+            Map.Entry<K, V> demoted = protectedSegment.pollFirstEntry();
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+    }
+
+    private void admitFromWindow() {
+        final Map.Entry<K, V> candidate = window.pollFirstEntry();
+        if (probation.size() + protectedSegment.size() < mainMax) {
+            probation.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+        if (mainMax == 0) { // capacité 1 : fenêtre seule
+            data.remove(candidate.getKey());
+            evictions.increment();
+            return;
+        }
+        final LinkedHashMap<K, V> victims = probation.isEmpty() ? protectedSegment : probation;
+        final K victim = victims.firstEntry().getKey();
+        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim)) {
+            victims.remove(victim);
+            data.remove(victim);
+            evictions.increment();
+            probation.put(candidate.getKey(), candidate.getValue());
+        } else {
+            data.remove(candidate.getKey());
+            rejections.increment(); // le candidat, moins demandé, n'entre pas
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.safetynet.alerts.cache;
+
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.ObservedDataRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Numéros de version des données, par étiquette : une adresse, une caserne, un nom de famille ou une ville.
+ * <p>
+ * Tenues par le dépôt lui-même ({@link ObservedDataRepository}) : chaque écriture, d'où qu'elle vienne (services,
+ * rechargement complet ou différentiel, rejeu du journal), incrémente les étiquettes touchées, valeurs d'avant et
+ * d'après comprises (déménagement, changement de caserne). Un chargement incrémente la version globale, qui
+ * périme tout. Un résultat calculé relève d'abord l'empreinte ({@link #stamp}) des étiquettes dont il dépend ; il
+ * reste valide tant que {@link #isCurrent} le confirme. Les versions étant incrémentées avant que l'écriture ne
+ * soit visible puis de nouveau après, une donnée modifiée ne garde jamais son ancien ETag, et un calcul
+ * concurrent de l'écriture voit son empreinte périmée : au pire un recalcul de trop, jamais une donnée ancienne
+ * servie comme à jour.
+ * <p>
+ * Étiquettes normalisées ({@code trim} + minuscules) comme les index du dépôt. Seules les étiquettes déjà
+ * modifiées occupent de la mémoire : une étiquette jamais touchée est en version 0.
+ * <p>
+ * Une empreinte se condense en ETag ({@link #etag}). Les versions repartant de 0 à chaque démarrage, l'ETag
+ * inclut un identifiant tiré au lancement : un ETag d'avant redémarrage (ou d'une autre instance) ne correspond
+ * jamais, au prix d'une réponse complète.
+ */
+@Component
+public class DataVersions implements ObservedDataRepository.Observer {
+
+    /** Versions relevées avant un calcul : version globale puis une version par étiquette. */
+    public record Stamp(long global, String[] tags, long[] versions) {}
+
+    private final long epoch = ThreadLocalRandom.current().nextLong();
+    private final AtomicLong global = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> tags = new ConcurrentHashMap<>();
+
+    public static String address(String address) { return "a:" + norm(address); }
+    public static String station(String station) { return "s:" + norm(station); }
+    public static String lastName(String lastName) { return "l:" + norm(lastName); }
+    public static String city(String city) { return "c:" + norm(city); }
+
+    /** Relève les versions courantes de {@code tagNames}. */
+    public Stamp stamp(Collection<String> tagNames) {
+        final long g = global.get();
+        final String[] names = tagNames.toArray(String[]::new);
+        final long[] versions = new long[names.length];
+        for (int i = 0; i < names.length; i++) versions[i] = version(names[i]);
+        return new Stamp(g, names, versions);
+    }
+
+    /** Complète {@code stamp} avec les versions courantes de {@code tagNames} (dépendances découvertes en cours de relevé). */
+    public Stamp extend(Stamp stamp, Collection<String> tagNames) {
+        final int n = stamp.tags().length;
+        final String[] names = Arrays.copyOf(stamp.tags(), n + tagNames.size());
+        final long[] versions = Arrays.copyOf(stamp.versions(), names.length);
+        int i = n;
+        for (String t : tagNames) {
+            names[i] = t;
+            versions[i++] = version(t);
+        }
+        return new Stamp(stamp.global(), names, versions);
+    }
+
+    /**
+     * Empreinte d'un rapport par caserne : les casernes, puis les adresses qu'elles desservent. La version des
+     * casernes est relevée avant la lecture de leurs adresses : un changement de mapping entre les deux périme
+     * donc l'empreinte.
+     */
+    public Stamp stampStations(Collection<String> stations, Function<String, ? extends Collection<String>> addressesOf) {
+        final List<String> stationTags = new ArrayList<>(stations.size());
+        for (String s : stations) stationTags.add(station(s));
+        final Stamp head = stamp(stationTags);
+        final List<String> addressTags = new ArrayList<>();
+        for (String s : stations) {
+            for (String a : addressesOf.apply(s)) addressTags.add(address(a));
+        }
+        return extend(head, addressTags);
+    }
+
+    /**
+     * ETag fort (guillemets compris) d'un rapport d'empreinte {@code stamp}, calculé le jour {@code day}
+     * (âges). Indépendant de l'ordre des étiquettes ; change dès qu'une version, le jour ou le démarrage change.
+     */
+    public String etag(Stamp stamp, long day) {
+        long tags = 0;
+        for (int i = 0; i < stamp.tags().length; i++) {
+            tags += mix((stamp.tags()[i].hashCode() & 0xFFFFFFFFL) ^ (stamp.versions()[i] << 32));
+        }
+        final long h = (mix(epoch ^ mix(stamp.global())) * 31 + mix(day)) * 31 + tags;
+        return '"' + Long.toHexString(h) + '"';
+    }
+
+    /** Vrai si aucune étiquette de l'empreinte n'a changé depuis son relevé. */
+    public boolean isCurrent(Stamp stamp) {
+        if (stamp.global() != global.get()) return false;
+        for (int i = 0; i < stamp.tags().length; i++) {
+            if (version(stamp.tags()[i]) != stamp.versions()[i]) return false;
+        }
+        return true;
+    }
+
+    /** Version globale (incrémentée à chaque rechargement). */
+    public long global() { return global.get(); }
+
+    public long version(String tag) {
+        final AtomicLong v = tags.get(tag);
+        return v == null ? 0 : v.get();
+    }
+
+    @Override
+    public void personChanged(Person before, Person after) {
+        if (before != null) bumpPerson(before);
+        if (after != null) bumpPerson(after);
+    }
+
+    @Override
+    public void medicalRecordChanged(String firstName, String lastName, String address) {
+        bump(lastName(lastName));
+        if (address != null) bump(address(address));
+    }
+
+    @Override
+    public void mappingChanged(String address, String stationBefore, String stationAfter) {
+        bump(address(address));
+        if (stationBefore != null) bump(station(stationBefore));
+        if (stationAfter != null) bump(station(stationAfter));
+    }
+
+    @Override
+    public void dataSetReplaced() { global.incrementAndGet(); }
+
+    private void bumpPerson(Person p) {
+        bump(address(p.getAddress()));
+        bump(city(p.getCity()));
+        bump(lastName(p.getLastName()));
+    }
+
+    private void bump(String tag) {
+        tags.computeIfAbsent(tag, t -> new AtomicLong()).incrementAndGet();
+    }
+
+    // Finaliseur SplitMix64 : deux entrées proches donnent des sorties sans rapport
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+
+    private static String norm(String s) { return s == null ? "" : s.trim().toLowerCase(Locale.ROOT); }
+}
@@ -0,0 +1,74 @@
+package com.safetynet.alerts.cache;
+
+/**
+ * Estimation approchée de la fréquence d'accès récente d'une clé (Count-Min Sketch à compteurs de 4 bits).
+ * <p>
+ * Chaque clé est projetée sur 4 compteurs ; sa fréquence est le plus petit d'entre eux (une collision ne peut
+ * que surestimer). Les compteurs saturent à 15. Vieillissement : après {@code 10 × taille maximale} incréments,
+ * tous les compteurs sont divisés par deux, pour que l'historique ancien pèse de moins en moins.
+ * <p>
+ * Non thread-safe : appelé sous le verrou de {@link BoundedCache}.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        final int capacity = Math.max(16, maximumSize);
+        this.table = new long[Integer.highestOneBit(capacity - 1) << 1];
+        this.sampleSize = 10 * capacity;
+    }
+
+    /** Fréquence estimée, de 0 à 15. */
+    int frequency(Object key) {
+        final int h = spread(key.hashCode());
+        int min = 15;
+        for (int i = 0; i < 4; i++) {
+            final long x = mix(h, i);
+            min = Math.min(min, (int) ((table[slot(x)] >>> shift(x)) & 0xF));
+        }
+        return min;
+    }
+
+    /** Compte un accès à {@code key}. */
+    void increment(Object key) {
+        final int h = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            final long x = mix(h, i);
+            final int slot = slot(x), shift = shift(x);
+            if (((table[slot] >>> shift) & 0xF) < 15) {
+                table[slot] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) reset();
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) table[i] = (table[i] >>> 1) & RESET_MASK;
+        additions >>>= 1;
+    }
+
+    private long mix(int h, int i) {
+        long x = (h + SEEDS[i]) * SEEDS[i];
+        return x ^ (x >>> 32);
+    }
+
+    private int slot(long x) { return (int) x & (table.length - 1); }
+
+    // Un des 16 compteurs de 4 bits du mot
+    private static int shift(long x) { return (int) ((x >>> 40) & 0xF) << 2; }
+
+    private static int spread(int h) {
+        h ^= (h >>> 16);
+        h *= 0x45d9f3b;
+        return h ^ (h >>> 16);
+    }
+}
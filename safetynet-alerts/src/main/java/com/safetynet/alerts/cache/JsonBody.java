@@ -0,0 +1,57 @@
+package com.safetynet.alerts.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Corps de réponse JSON déjà sérialisé (UTF-8), prêt à être écrit tel quel sur la réponse HTTP.
+ * <p>
+ * La variante gzip est calculée à la première demande puis conservée ; en dessous de {@link #GZIP_MIN_BYTES}
+ * l'en-tête gzip coûte plus qu'il ne rapporte et seul le corps brut est servi.
+ * Immuable vu de l'extérieur : les tableaux renvoyés sont partagés, à ne pas modifier.
+ */
+public final class JsonBody {
+
+    /** Taille en dessous de laquelle le corps n'est pas compressé. */
+    public static final int GZIP_MIN_BYTES = 1024;
+
+    private final byte[] utf8;
+    private volatile byte[] gzip; // calcul idempotent : une course ne fait que compresser deux fois
+
+    private JsonBody(byte[] utf8) { this.utf8 = utf8; }
+
+    /** Sérialise {@code value} avec l'ObjectMapper de l'application (même sortie que les convertisseurs MVC). */
+    public static JsonBody of(ObjectMapper om, Object value) {
+        try {
+            return new JsonBody(om.writeValueAsBytes(value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sérialisation JSON impossible : " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    public byte[] utf8() { return utf8; }
+
+    public boolean compressible() { return utf8.length >= GZIP_MIN_BYTES; }
+
+    /** Corps compressé gzip (calculé une fois). */
+    public byte[] gzip() {
+        byte[] g = gzip;
+        if (g == null) gzip = g = compress(utf8);
+        return g;
+    }
+
+    private static byte[] compress(byte[] raw) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 32);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // flux mémoire : ne se produit pas
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,76 @@
+package com.safetynet.alerts.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Tampon d'accès « à perte » : une lecture du cache y dépose la clé lue sans prendre de verrou, et le détenteur
+ * du verrou rejoue les accès par lots sur la politique d'éviction ({@link BoundedCache}).
+ * <p>
+ * Un anneau de {@value #SIZE} cases par bande, la bande étant choisie par l'identifiant du thread : des lecteurs
+ * concurrents se disputent rarement la même case. Un accès qui trouve son anneau plein (ou perd la course pour
+ * une case) est abandonné : fréquences et ordre LRU ne sont qu'approchés, la valeur lue reste exacte.
+ * <p>
+ * Thread-safe pour les déposants ; {@link #drain(Consumer)} doit être appelé sous un verrou exclusif.
+ *
+ * @param <E> type des éléments déposés
+ */
+final class ReadBuffer<E> {
+
+    static final int SIZE = 16;
+    private static final int MASK = SIZE - 1;
+
+    private static final class Stripe<E> {
+        final AtomicReferenceArray<E> slots = new AtomicReferenceArray<>(SIZE);
+        final AtomicLong tail = new AtomicLong(); // prochaine case à remplir (déposants)
+        volatile long head;                       // prochaine case à rejouer (vidage, sous verrou)
+    }
+
+    private final Stripe<E>[] stripes;
+
+    /** Dimensionnement : 4 bandes par cœur, au moins 4 (cf. StripedLocks). */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ReadBuffer() {
+        final int n = Integer.highestOneBit(Math.max(4, Runtime.getRuntime().availableProcessors() * 4) - 1) << 1;
+        this.stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) stripes[i] = new Stripe<>();
+    }
+
+    /**
+     * Dépose {@code e} dans la bande du thread courant.
+     *
+     * @return {@code true} si la bande est pleine : l'appelant devrait tenter un vidage
+     */
+    boolean offer(E e) {
+        final Stripe<E> s = stripes[stripeOf(Thread.currentThread().threadId())];
+        final long head = s.head;
+        final long tail = s.tail.get();
+        final long size = tail - head;
+        if (size >= SIZE) return true; // plein : accès abandonné
+        if (!s.tail.compareAndSet(tail, tail + 1)) return false; // course perdue : accès abandonné
+        s.slots.setRelease((int) (tail & MASK), e);
+        return size + 1 >= SIZE;
+    }
+
+    /** Rejoue (et retire) les éléments déposés, bande par bande dans l'ordre de dépôt. Sous verrou exclusif. */
+    void drain(Consumer<? super E> consumer) {
+        for (Stripe<E> s : stripes) {
+            long head = s.head;
+            final long tail = s.tail.get();
+            while (head != tail) {
+                final int i = (int) (head & MASK);
+                final E e = s.slots.getAcquire(i);
+                if (e == null) break; // case réservée, pas encore écrite : reprise au prochain vidage
+                s.slots.setRelease(i, null);
+                consumer.accept(e);
+                head++;
+            }
+            s.head = head;
+        }
+    }
+
+    private int stripeOf(long threadId) {
+        return (int) ((threadId * 0x9E3779B97F4A7C15L) >>> 32) & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,49 @@
+package com.safetynet.alerts.cache;
+
+import com.safetynet.alerts.repository.DataRepository;
+import com.safetynet.alerts.time.AgeCalculator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ETags des rapports interrogés en boucle par les consoles (/firestation, /flood/stations, /fire), et des
+ * rapports paginés (/personInfo, /communityEmail), dont les curseurs portent l'ETag de la première page.
+ * <p>
+ * Calculés à partir des versions ({@link DataVersions}) des données dont dépend chaque rapport, et du jour
+ * courant (les rapports contiennent des âges) : aucun rapport n'est construit pour répondre 304.
+ * L'ETag est relevé avant le calcul du rapport : une écriture concurrente donne au pire un ETag plus ancien que
+ * le corps, donc un 200 de trop au prochain appel, jamais un 304 sur des données périmées.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReportETags {
+
+    private final DataRepository repo;
+    private final DataVersions versions;
+    private final AgeCalculator ages;
+
+    public String firestation(String stationNumber) { return forStations(Set.of(stationNumber)); }
+
+    public String flood(Set<String> stations) { return forStations(stations); }
+
+    public String fire(String address) {
+        return versions.etag(versions.stamp(List.of(DataVersions.address(address))), ages.today());
+    }
+
+    public String personInfo(String lastName) {
+        return versions.etag(versions.stamp(List.of(DataVersions.lastName(lastName))), ages.today());
+    }
+
+    // Emails sans âge : l'ETag ne change pas avec le jour
+    public String communityEmail(String city) {
+        return versions.etag(versions.stamp(List.of(DataVersions.city(city))), 0);
+    }
+
+    private String forStations(Collection<String> stations) {
+        return versions.etag(versions.stampStations(stations, repo::findAddressesByStation), ages.today());
+    }
+}
@@ -0,0 +1,33 @@
+package com.safetynet.alerts.config;
+
+import com.safetynet.alerts.repository.DataRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Passage de jour des compteurs adultes/enfants du dépôt ({@link DataRepository#rolloverAges()}).
+ * <p>
+ * Chaque nuit (safetynet.ages.rollover-cron, minuit par défaut, dans le fuseau safetynet.time.zone), les personnes
+ * qui fêtent leur 19e anniversaire passent d'enfant à adulte sans attendre la prochaine lecture. Les lectures de
+ * compteurs déclenchent de toute façon le passage si le jour a changé : ce planificateur ne fait qu'en sortir le coût
+ * du chemin des requêtes.
+ */
+@Slf4j
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "safetynet.ages", name = "rollover-enabled", havingValue = "true", matchIfMissing = true)
+public class AgeRolloverScheduler {
+
+    private final DataRepository repo;
+
+    public AgeRolloverScheduler(DataRepository repo) { this.repo = repo; }
+
+    @Scheduled(cron = "${safetynet.ages.rollover-cron:0 0 0 * * *}", zone = "${safetynet.time.zone:}")
+    void rollover() {
+        int changed = repo.rolloverAges();
+        log.debug("Passage de jour des compteurs d'âge : {} personne(s) reclassée(s)", changed);
+    }
+}
@@ -0,0 +1,23 @@
+package com.safetynet.alerts.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.ZoneId;
+
+/**
+ * Horloge de l'application : date du jour des calculs d'âge et minuit des compteurs adultes/enfants.
+ * <p>
+ * Le fuseau vient de safetynet.time.zone (ex. {@code America/Los_Angeles}) ; vide, c'est celui de la JVM.
+ * Les tests remplacent ce bean par une horloge fixe.
+ */
+@Configuration
+public class ClockConfig {
+
+    @Bean
+    public Clock clock(@Value("${safetynet.time.zone:}") String zone) {
+        return zone.isBlank() ? Clock.systemDefaultZone() : Clock.system(ZoneId.of(zone));
+    }
+}
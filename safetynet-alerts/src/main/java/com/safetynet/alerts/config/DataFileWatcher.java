@@ -0,0 +1,102 @@
+package com.safetynet.alerts.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/**
+ * DataFileWatcher
+ * ---------------------------
+ * - Surveille le fichier de données externe (safetynet.data.path) et déclenche {@link DataLoader#reload()} à chaque modification.
+ * - On surveille le répertoire parent : un export qui écrit un fichier temporaire puis le renomme (ENTRY_CREATE)
+ *   est détecté comme une écriture en place (ENTRY_MODIFY).
+ * - Les rafales d'événements sont regroupées (safetynet.data.watch-debounce-ms sans nouvel événement) :
+ *   un seul rechargement par écriture, sur un fichier complet.
+ * - Un rechargement en échec est journalisé ; le dépôt garde alors son état précédent.
+ * - Désactivé par défaut (safetynet.data.watch=false) ; sans effet si les données viennent du classpath.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "safetynet.data", name = "watch", havingValue = "true")
+public class DataFileWatcher {
+
+    private final DataLoader loader;
+    private final long debounceMs;
+    private WatchService watcher;
+    private Thread thread;
+
+    public DataFileWatcher(DataLoader loader, @Value("${safetynet.data.watch-debounce-ms:500}") long debounceMs) {
+        this.loader = loader;
+        this.debounceMs = debounceMs;
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (loader.dataPath().isEmpty()) {
+            log.warn("safetynet.data.watch ignoré : aucun fichier externe (safetynet.data.path) à surveiller");
+            return;
+        }
+        final Path file = Path.of(loader.dataPath()).toAbsolutePath();
+        watcher = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watcher, ENTRY_CREATE, ENTRY_MODIFY);
+        thread = Thread.ofPlatform().name("data-file-watcher").daemon().start(() -> watch(file.getFileName()));
+        log.info("Surveillance de {} activée (regroupement {} ms)", file, debounceMs);
+    }
+
+    private void watch(Path fileName) {
+        try {
+            while (true) {
+                if (!drain(watcher.take(), fileName)) continue;
+                // Regroupement : on attend que le fichier ne bouge plus pendant debounceMs
+                WatchKey key;
+                while ((key = watcher.poll(debounceMs, TimeUnit.MILLISECONDS)) != null) drain(key, fileName);
+                reload();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            log.debug("Surveillance du fichier de données arrêtée");
+        }
+    }
+
+    // Consomme les événements d'une clé ; vrai si l'un d'eux concerne le fichier surveillé
+    private static boolean drain(WatchKey key, Path fileName) {
+        boolean hit = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (fileName.equals(event.context())) hit = true;
+        }
+        key.reset();
+        return hit;
+    }
+
+    private void reload() {
+        try {
+            DataLoader.Loaded loaded = loader.reload();
+            log.info("Rechargement à chaud de {} : persons={}, firestations={}, medicalrecords={} en {} ms{}",
+                    loaded.source(), loaded.persons(), loaded.firestations(), loaded.medicalRecords(), loaded.durationMs(),
+                    loaded.changes() == null ? "" : " (" + loaded.changes().total() + " changements)");
+        } catch (RuntimeException e) {
+            log.error("Rechargement à chaud en échec, données précédentes conservées", e);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        if (watcher == null) return;
+        watcher.close(); // débloque take()/poll() avec ClosedWatchServiceException
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+}
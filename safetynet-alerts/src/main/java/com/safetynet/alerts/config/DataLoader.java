@@ -2,52 +2,200 @@ package com.safetynet.alerts.config;                       // Déclare le packag
 
 import com.fasterxml.jackson.databind.ObjectMapper;       // Import Jackson pour convertir JSON ↔ objets Java
 import com.safetynet.alerts.model.DataSet;                // Modèle racine qui correspond à la structure de data.json
+import com.safetynet.alerts.repository.BinarySnapshotStore; // Snapshot binaire (enregistrements + index précalculés)
+import com.safetynet.alerts.repository.ChangeSummary;      // Bilan d'un rechargement différentiel
 import com.safetynet.alerts.repository.DataRepository;    // Contrat du dépôt en mémoire (stockage + index)
+import com.safetynet.alerts.repository.StringDictionaries; // Dictionnaires de chaînes (adresse, ville, zip, caserne)
+import com.safetynet.alerts.service.DataChangedEvent;      // Signalé après un rechargement (abonnés applicatifs)
 import jakarta.annotation.PostConstruct;                  // Annotation pour exécuter une méthode après l’injection des dépendances
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.stereotype.Component;          // Marque la classe comme bean géré par Spring (détection de composants)
 import org.springframework.boot.autoconfigure.condition.ConditionalOnResource;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
+import java.util.zip.GZIPInputStream;
 
 
 /**
  * DataLoader
  * ---------------------------
  * - Au démarrage de l'application, charge le fichier "data.json" le convertit en DataSet, puis initialise le dépôt en mémoire.
+ * - Si un snapshot binaire activé et plus récent que data.json existe, il est rechargé à la place (sans parsing JSON) ;
+ *   un snapshot illisible ou incompatible est ignoré au profit de data.json.
+ * - Source : classpath:/data.json, ou un fichier externe (safetynet.data.path) ; une entrée gzip est décompressée à la volée.
+ * - Mode flux (safetynet.data.streaming) : le JSON est lu élément par élément et versé au dépôt par lots
+ *   (repo.initIncremental), sans jamais matérialiser le DataSet complet.
+ * - Rechargement à chaud (reload) : relit la source et remplace l'état du dépôt d'un bloc, sur demande
+ *   (POST /admin/reload) ou à chaque modification du fichier externe (DataFileWatcher).
+ * - Rechargement différentiel (safetynet.data.reload-mode=diff) : seules les différences avec l'état courant
+ *   sont appliquées (repo.reconcile), un bilan insertions / mises à jour / suppressions est renvoyé.
+ * - Chaque rechargement réussi publie un {@link DataChangedEvent.Reloaded}.
  * - Objectif : disposer des données (pas de BDD ici, tout est en mémoire).
  */
 @Slf4j
 @Component
 @ConditionalOnResource(resources = "classpath:/data.json")
 
-public class DataLoader {
+public class DataLoader implements ApplicationEventPublisherAware {
     private final DataRepository repo;
     private final ObjectMapper om;
+    private final StringDictionaries dictionaries;
+    private final BinarySnapshotStore snapshots; // null : pas de snapshot binaire
+    private final String dataPath;               // vide : classpath:/data.json
+    private final boolean streaming;
+    private final int batchSize;
+    private final boolean diffReload;
+    private ApplicationEventPublisher events;    // null hors contexte Spring
     private static final String PATH = "/data.json";
+    private static final int GZIP_MAGIC = 0x8b1f;
+
+    /** Bilan d'un chargement de la source ; {@code changes} n'est renseigné qu'en rechargement différentiel. */
+    public record Loaded(String source, int persons, int firestations, int medicalRecords, long durationMs, ChangeSummary changes) {}
 
     public DataLoader(DataRepository repo, ObjectMapper om)
-    { this.repo = repo; this.om = om; }
+    { this(repo, om, new StringDictionaries()); }
+
+    public DataLoader(DataRepository repo, ObjectMapper om, StringDictionaries dictionaries)
+    { this(repo, om, dictionaries, null); }
+
+    public DataLoader(DataRepository repo, ObjectMapper om, StringDictionaries dictionaries, BinarySnapshotStore snapshots)
+    { this(repo, om, dictionaries, snapshots, "", false, 1, "full"); }
+
+    @Autowired
+    public DataLoader(DataRepository repo, ObjectMapper om, StringDictionaries dictionaries, BinarySnapshotStore snapshots,
+                      @Value("${safetynet.data.path:}") String dataPath,
+                      @Value("${safetynet.data.streaming:true}") boolean streaming,
+                      @Value("${safetynet.data.batch-size:1000}") int batchSize,
+                      @Value("${safetynet.data.reload-mode:full}") String reloadMode)
+    {
+        this.repo = repo; this.om = om; this.dictionaries = dictionaries; this.snapshots = snapshots;
+        this.dataPath = dataPath == null ? "" : dataPath.trim();
+        this.streaming = streaming;
+        this.batchSize = batchSize;
+        this.diffReload = "diff".equalsIgnoreCase(reloadMode == null ? "" : reloadMode.trim());
+    }
 
     @PostConstruct // indique à Spring d’appeler la méthode load() automatiquement une fois le bean construit et toutes ses dépendances injectées, mais avant que l’application ne commence réellement à l’utiliser.
 
     void load() {
-        try (InputStream is = getClass().getResourceAsStream(PATH))
+        if (repo.isRestored()) { // moteur persistant déjà peuplé : pas de re-parsing du JSON
+            log.info("Dépôt restauré depuis son stockage persistant, {} ignoré", source());
+            return;
+        }
+        if (snapshots != null && snapshots.isNewerThan(sourceLastModified()) && snapshots.restore()) {
+            return; // snapshot binaire plus récent que data.json : index rechargés tels quels
+        }
+        read(false);
+    }
+
+    /**
+     * Relit la source (classpath ou fichier externe) et réinitialise le dépôt avec son contenu.
+     * <p>
+     * Le moteur construit le nouvel état à l'écart et le publie d'un bloc (moteurs {@code memory} et
+     * {@code snapshot}) : les lectures concurrentes voient l'ancien jeu de données complet, puis le nouveau,
+     * jamais un mélange. Une source illisible laisse l'état courant en place. Les rechargements sont sérialisés.
+     * Avec le journal ({@code safetynet.wal.enabled}), le fichier rechargé devient la base du journal, sans rejeu
+     * par-dessus, et les écritures CRUD concurrentes attendent la fin du rechargement pour s'appliquer au nouvel état.
+     * En mode {@code diff}, seules les différences sont appliquées (coût proportionnel aux changements).
+     *
+     * @return le bilan du chargement
+     * @throws IllegalStateException si la source ne peut pas être lue ou convertie
+     */
+    public synchronized Loaded reload() {
+        Loaded loaded = read(diffReload);
+        if (events != null) events.publishEvent(new DataChangedEvent.Reloaded());
+        return loaded;
+    }
+
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher publisher) { this.events = publisher; }
+
+    private Loaded read(boolean diff) {
+        final long start = System.nanoTime();
+        final Loaded loaded;
+        try (InputStream is = open())
         {
-            if (is == null) throw new IllegalStateException("data.json introuvable sur le classpath");
-            DataSet ds = om.readValue(is, DataSet.class);
-            repo.init(ds);
-            log.info("Dataset chargé (persons={}, firestations={}, medicalrecords={})",
-                    size(ds.getPersons()), size(ds.getFirestations()), size(ds.getMedicalrecords()));
+            if (diff) {
+                DataSet ds = om.readValue(is, DataSet.class);
+                ChangeSummary changes = repo.reconcile(ds); // le dépôt déduplique les chaînes lui-même
+                loaded = new Loaded(source(), size(ds.getPersons()), size(ds.getFirestations()), size(ds.getMedicalrecords()), elapsedMs(start), changes);
+                log.info("Dataset réconcilié (persons {}, medicalrecords {}, firestations {})",
+                        changes.persons(), changes.medicalRecords(), changes.mappings());
+            } else if (streaming) {
+                StreamingDataSetReader reader = new StreamingDataSetReader(om, is, batchSize, dictionaries);
+                repo.initIncremental(reader); // lots dédupliqués par le lecteur, indexés au fil de l'eau
+                loaded = new Loaded(source(), reader.persons(), reader.firestations(), reader.medicalRecords(), elapsedMs(start), null);
+                log.info("Dataset chargé en flux (persons={}, firestations={}, medicalrecords={}, lots de {})",
+                        reader.persons(), reader.firestations(), reader.medicalRecords(), batchSize);
+            } else {
+                DataSet ds = om.readValue(is, DataSet.class);
+                dictionaries.intern(ds); // une seule instance par adresse/ville/zip/caserne avant indexation
+                repo.init(ds);
+                loaded = new Loaded(source(), size(ds.getPersons()), size(ds.getFirestations()), size(ds.getMedicalrecords()), elapsedMs(start), null);
+                log.info("Dataset chargé (persons={}, firestations={}, medicalrecords={})",
+                        size(ds.getPersons()), size(ds.getFirestations()), size(ds.getMedicalrecords()));
+            }
+            dictionaries.stats().forEach(st -> log.info("Dictionnaire {}: valeurs distinctes={}, lookups={}, octets économisés≈{}",
+                    st.name(), st.cardinality(), st.lookups(), st.savedBytes()));
+            return loaded;
         }
 
         catch (Exception e)
         {
-            log.error("Échec chargement {}", PATH, e);
-            throw new IllegalStateException("Impossible de charger " + PATH, e);
+            log.error("Échec chargement {}", source(), e);
+            throw new IllegalStateException("Impossible de charger " + source(), e);
+        }
+    }
+
+    /** Chemin du fichier externe surveillable, vide si les données viennent du classpath. */
+    public String dataPath()
+    { return dataPath; }
+
+    private String source()
+    { return dataPath.isEmpty() ? PATH : dataPath; }
+
+    private static long elapsedMs(long start)
+    { return (System.nanoTime() - start) / 1_000_000; }
+
+    // Ouvre la source (classpath ou fichier externe) ; décompresse si elle commence par l'en-tête gzip
+    private InputStream open() throws IOException {
+        InputStream raw = dataPath.isEmpty() ? getClass().getResourceAsStream(PATH) : Files.newInputStream(Path.of(dataPath));
+        if (raw == null) throw new IllegalStateException("data.json introuvable sur le classpath");
+        BufferedInputStream in = new BufferedInputStream(raw, 1 << 16);
+        in.mark(2);
+        int magic = in.read() | (in.read() << 8);
+        in.reset();
+        return (magic == GZIP_MAGIC) ? new GZIPInputStream(in, 1 << 16) : in;
+    }
+
+    private long sourceLastModified() {
+        if (dataPath.isEmpty()) return lastModified(getClass().getResource(PATH));
+        try {
+            return Files.getLastModifiedTime(Path.of(dataPath)).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    // Date de modification de data.json (0 si inconnue : tout snapshot présent est alors jugé plus récent)
+    private static long lastModified(URL resource) {
+        if (resource == null) return 0L;
+        try {
+            return resource.openConnection().getLastModified();
+        } catch (IOException e) {
+            return 0L;
         }
     }
 
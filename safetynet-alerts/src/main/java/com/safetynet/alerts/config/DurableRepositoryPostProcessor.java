@@ -0,0 +1,68 @@
+package com.safetynet.alerts.config;
+
+import com.safetynet.alerts.repository.DataRepository;
+import com.safetynet.alerts.repository.DurableDataRepository;
+import com.safetynet.alerts.repository.WriteAheadLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Rend durables les écritures du dépôt : le moteur {@link DataRepository} configuré est enveloppé dans un
+ * {@link DurableDataRepository} adossé à un {@link WriteAheadLog}. Services, chargeur et snapshots reçoivent
+ * ainsi la version journalisée sans connaître le moteur.
+ * <p>
+ * Propriétés :
+ * <ul>
+ *   <li>{@code safetynet.wal.enabled} : active le journal (désactivé par défaut) ;</li>
+ *   <li>{@code safetynet.wal.dir} : répertoire des segments ({@code data/wal}) ;</li>
+ *   <li>{@code safetynet.wal.fsync} : force chaque groupe sur disque avant d'acquitter ({@code true}) ;</li>
+ *   <li>{@code safetynet.wal.segment-bytes} : taille d'un segment avant scellement et compaction (64 Mo).</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "safetynet.wal", name = "enabled", havingValue = "true")
+public class DurableRepositoryPostProcessor implements BeanPostProcessor, EnvironmentAware, DisposableBean {
+
+    private Environment env;
+    private WriteAheadLog wal;
+
+    @Override
+    public void setEnvironment(Environment environment) { this.env = environment; }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataRepository repo && !(bean instanceof DurableDataRepository)) {
+            log.info("Écritures du dépôt {} journalisées (WAL)", beanName);
+            return DurableDataRepository.wrap(repo, wal());
+        }
+        return bean;
+    }
+
+    private synchronized WriteAheadLog wal() {
+        if (wal == null) {
+            Path dir = Path.of(env.getProperty("safetynet.wal.dir", "data/wal"));
+            boolean fsync = env.getProperty("safetynet.wal.fsync", Boolean.class, true);
+            long segmentBytes = env.getProperty("safetynet.wal.segment-bytes", Long.class, 64L << 20);
+            try {
+                wal = new WriteAheadLog(dir, fsync, segmentBytes);
+            } catch (IOException e) {
+                throw new IllegalStateException("Impossible d'ouvrir le journal " + dir, e);
+            }
+        }
+        return wal;
+    }
+
+    @Override
+    public synchronized void destroy() throws IOException {
+        if (wal != null) wal.close();
+    }
+}
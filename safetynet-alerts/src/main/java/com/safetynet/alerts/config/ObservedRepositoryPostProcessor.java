@@ -0,0 +1,43 @@
+package com.safetynet.alerts.config;
+
+import com.safetynet.alerts.repository.DataRepository;
+import com.safetynet.alerts.repository.ObservedDataRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+/**
+ * Signale toutes les écritures du dépôt aux versions des données : le moteur {@link DataRepository} configuré
+ * est enveloppé dans un {@link ObservedDataRepository} relié à l'{@link ObservedDataRepository.Observer} de
+ * l'application ({@code DataVersions}). Sans observateur (tranches de test), le moteur est laissé tel quel.
+ * <p>
+ * Ordonné, donc appliqué avant {@link DurableRepositoryPostProcessor} : le décorateur durable enveloppe celui-ci,
+ * et les mutations rejouées depuis le journal sont signalées comme les autres.
+ */
+@Slf4j
+@Component
+public class ObservedRepositoryPostProcessor implements BeanPostProcessor, Ordered {
+
+    private final ObjectProvider<ObservedDataRepository.Observer> observer;
+
+    // Résolu à l'enveloppement seulement : un post-processeur ne doit pas forcer la création de beans au démarrage
+    public ObservedRepositoryPostProcessor(ObjectProvider<ObservedDataRepository.Observer> observer) {
+        this.observer = observer;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataRepository repo && !(bean instanceof ObservedDataRepository)) {
+            ObservedDataRepository.Observer o = observer.getIfUnique();
+            if (o == null) return bean;
+            log.info("Écritures du dépôt {} signalées aux versions des données", beanName);
+            return ObservedDataRepository.wrap(repo, o);
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() { return Ordered.LOWEST_PRECEDENCE; }
+}
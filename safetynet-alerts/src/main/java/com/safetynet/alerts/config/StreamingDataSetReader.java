@@ -0,0 +1,88 @@
+package com.safetynet.alerts.config;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.model.FirestationMapping;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.DataSetSink;
+import com.safetynet.alerts.repository.DataSetSource;
+import com.safetynet.alerts.repository.StringDictionaries;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Lecture en flux de data.json avec le {@link JsonParser} de Jackson : seuls les éléments du lot en cours
+ * sont en mémoire, jamais les trois listes complètes.
+ * <p>
+ * Chaque élément des tableaux {@code persons}, {@code firestations} et {@code medicalrecords} est lié
+ * individuellement ({@code ObjectMapper.readValue(parser, type)}), dédupliqué par les dictionnaires, puis
+ * remis au {@link DataSetSink} par lots de {@code batchSize}. Les champs racine inconnus sont ignorés.
+ */
+final class StreamingDataSetReader implements DataSetSource {
+
+    private final ObjectMapper om;
+    private final InputStream in;
+    private final int batchSize;
+    private final StringDictionaries dictionaries;
+
+    private int persons;
+    private int firestations;
+    private int medicalRecords;
+
+    StreamingDataSetReader(ObjectMapper om, InputStream in, int batchSize, StringDictionaries dictionaries) {
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize doit être positif");
+        this.om = om;
+        this.in = in;
+        this.batchSize = batchSize;
+        this.dictionaries = dictionaries;
+    }
+
+    int persons() { return persons; }
+    int firestations() { return firestations; }
+    int medicalRecords() { return medicalRecords; }
+
+    @Override
+    public void feed(DataSetSink sink) throws IOException {
+        try (JsonParser p = om.getFactory().createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Objet JSON racine attendu, trouvé " + p.currentToken());
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = p.currentName();
+                p.nextToken();
+                switch (field) {
+                    case "persons" -> persons += readArray(p, Person.class, dictionaries::intern, sink::persons);
+                    case "firestations" -> firestations += readArray(p, FirestationMapping.class, dictionaries::intern, sink::firestations);
+                    case "medicalrecords" -> medicalRecords += readArray(p, MedicalRecord.class, UnaryOperator.identity(), sink::medicalRecords);
+                    default -> p.skipChildren();
+                }
+            }
+        }
+    }
+
+    private <T> int readArray(JsonParser p, Class<T> type, UnaryOperator<T> intern, Consumer<List<T>> sink) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) return 0;
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            throw new IOException("Tableau attendu pour " + type.getSimpleName() + ", trouvé " + p.currentToken());
+        }
+        int count = 0;
+        List<T> batch = new ArrayList<>(batchSize);
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            batch.add(intern.apply(om.readValue(p, type)));
+            count++;
+            if (batch.size() == batchSize) {
+                sink.accept(batch);
+                batch = new ArrayList<>(batchSize); // le lot remis appartient désormais au dépôt
+            }
+        }
+        if (!batch.isEmpty()) sink.accept(batch);
+        return count;
+    }
+}
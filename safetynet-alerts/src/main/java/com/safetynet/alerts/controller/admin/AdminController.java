@@ -0,0 +1,55 @@
+package com.safetynet.alerts.controller.admin;
+
+import com.safetynet.alerts.config.DataLoader;
+import com.safetynet.alerts.dto.admin.ChangeCountsDto;
+import com.safetynet.alerts.dto.admin.ReloadResponseDto;
+import com.safetynet.alerts.dto.admin.SnapshotResponseDto;
+import com.safetynet.alerts.exception.ConflictExeption;
+import com.safetynet.alerts.repository.BinarySnapshotStore;
+import com.safetynet.alerts.repository.ChangeSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController //endpoints REST d'exploitation
+@RequestMapping(path = "/admin", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final BinarySnapshotStore snapshots;
+    private final DataLoader loader;
+
+    // Contrat HTTP:
+    // - écrit à la demande un snapshot binaire de l'état courant du dépôt
+    // - renvoie 200 OK + chemin, taille et date du fichier
+    // - 409 Conflict si le moteur configuré ne sait pas produire de snapshot
+    @PostMapping("/snapshot")
+    public ResponseEntity<SnapshotResponseDto> snapshot() {
+        if (!snapshots.supported()) {
+            throw new ConflictExeption("Le moteur de dépôt configuré ne prend pas en charge les snapshots binaires");
+        }
+        BinarySnapshotStore.Written w = snapshots.write();
+        return ResponseEntity.ok(new SnapshotResponseDto(w.path().toString(), w.bytes(), w.createdAt()));
+    }
+
+    // Contrat HTTP:
+    // - relit le fichier de données et remplace l'état du dépôt d'un bloc (les requêtes en cours finissent sur l'ancien)
+    // - renvoie 200 OK + source et volumes chargés (+ insertions / mises à jour / suppressions en mode diff)
+    // - fichier illisible : erreur propagée, l'état précédent est conservé
+    @PostMapping("/reload")
+    public ResponseEntity<ReloadResponseDto> reload() {
+        DataLoader.Loaded l = loader.reload();
+        ChangeSummary c = l.changes();
+        return ResponseEntity.ok(new ReloadResponseDto(l.source(), l.persons(), l.firestations(), l.medicalRecords(), l.durationMs(),
+                c == null ? null : toDto(c.persons()),
+                c == null ? null : toDto(c.mappings()),
+                c == null ? null : toDto(c.medicalRecords())));
+    }
+
+    private static ChangeCountsDto toDto(ChangeSummary.Counts counts) {
+        return new ChangeCountsDto(counts.inserted(), counts.updated(), counts.deleted());
+    }
+}
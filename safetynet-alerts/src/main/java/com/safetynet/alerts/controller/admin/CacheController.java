@@ -0,0 +1,30 @@
+package com.safetynet.alerts.controller.admin;
+
+import com.safetynet.alerts.cache.BoundedCache;
+import com.safetynet.alerts.dto.admin.CacheStatsDto;
+import com.safetynet.alerts.service.impl.CachedReportingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController //métriques du cache des rapports
+@RequestMapping(path = "/admin", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "safetynet.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CacheController {
+
+    private final CachedReportingService cache;
+
+    // Contrat HTTP:
+    // - renvoie 200 OK + taille, succès / échecs, taux de succès, évictions, candidats refusés à l'admission
+    //   entrées périmées par une écriture et appels regroupés sur un calcul déjà en cours
+    @GetMapping("/cache")
+    public CacheStatsDto stats() {
+        BoundedCache.Stats s = cache.stats();
+        return new CacheStatsDto(s.size(), s.maximumSize(), s.hits(), s.misses(), s.hitRate(),
+                s.evictions(), s.rejections(), s.invalidations(), cache.coalesced());
+    }
+}
@@ -0,0 +1,80 @@
+package com.safetynet.alerts.controller.reporting;
+
+import com.safetynet.alerts.exception.BadRequestExeption;
+import com.safetynet.alerts.exception.ConflictExeption;
+import com.safetynet.alerts.repository.KeyedPage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Curseurs opaques des rapports paginés ({@code ?limit=&cursor=}).
+ * <p>
+ * Un curseur porte la requête qui l'a produit (endpoint + paramètres), l'ETag du rapport à la première page et la
+ * clé du dernier élément servi : la page suivante reprend l'index trié du dépôt juste après cette clé, sans relire
+ * les précédentes. Toutes les pages d'un parcours viennent donc de la même version des données : si l'ETag a changé
+ * depuis la première page (écriture, rechargement, changement de jour), le curseur est refusé (409) et le client
+ * recommence sans curseur.
+ * <p>
+ * Encodage Base64 URL sans remplissage : à passer tel quel dans l'URL, sans en interpréter le contenu.
+ */
+final class ReportCursor {
+
+    private static final int FORMAT = 1;
+
+    private ReportCursor() {}
+
+    /**
+     * Curseur de la page qui suit {@code page}, {@code null} si c'est la dernière.
+     *
+     * @param scope endpoint + paramètres de la requête
+     * @param etag  ETag relevé à la première page
+     */
+    static String next(KeyedPage<?> page, String scope, String etag) {
+        if (!page.hasNext()) return null;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeUTF(scope);
+            out.writeUTF(Objects.toString(etag, ""));
+            out.writeUTF(page.next());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Clé de départ désignée par {@code cursor} ({@code null} : première page).
+     *
+     * @param scope endpoint + paramètres de la requête courante
+     * @param etag  ETag courant du rapport
+     * @throws BadRequestExeption si le curseur est illisible ou vient d'une autre requête
+     * @throws ConflictExeption   si les données ont changé depuis la première page
+     */
+    static String after(String cursor, String scope, String etag) {
+        if (cursor == null || cursor.isEmpty()) return null;
+        final String cursorScope;
+        final String cursorEtag;
+        final String after;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+            if (in.readByte() != FORMAT) throw new BadRequestExeption("Invalid cursor");
+            cursorScope = in.readUTF();
+            cursorEtag = in.readUTF();
+            after = in.readUTF();
+        } catch (IllegalArgumentException | IOException e) {
+            throw new BadRequestExeption("Invalid cursor");
+        }
+        if (!cursorScope.equals(scope)) throw new BadRequestExeption("Cursor does not belong to this request");
+        if (!cursorEtag.equals(Objects.toString(etag, ""))) {
+            throw new ConflictExeption("Data changed since the first page: restart without cursor");
+        }
+        return after;
+    }
+}
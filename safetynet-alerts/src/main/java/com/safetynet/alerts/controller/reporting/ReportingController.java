@@ -1,34 +1,82 @@
 package com.safetynet.alerts.controller.reporting;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.safetynet.alerts.cache.JsonBody;
+import com.safetynet.alerts.cache.ReportETags;
 import com.safetynet.alerts.dto.reporting.*;
 
 import com.safetynet.alerts.dto.reporting.*;
+import com.safetynet.alerts.exception.BadRequestExeption;
+import com.safetynet.alerts.exception.ConflictExeption;
+import com.safetynet.alerts.repository.AgeCounts;
+import com.safetynet.alerts.repository.KeyedPage;
+import com.safetynet.alerts.repository.StationCoverage;
 import com.safetynet.alerts.service.ReportingService;
+import com.safetynet.alerts.service.SerializedReportingService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.stream.Stream;
 
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 public class ReportingController {
 
+    /** Taille maximale d'une page (?limit= au-delà est ramené à cette valeur). */
+    static final int MAX_PAGE_SIZE = 1000;
+
     private final ReportingService reporting;
-    /** /firestation?stationNumber= */
+    /** Corps JSON pré-sérialisés de /fire et /childAlert ; absent si le cache est désactivé. */
+    private final Optional<SerializedReportingService> serialized;
+    /** ETags des rapports interrogés en boucle : 304 sans construire le rapport. */
+    private final ReportETags etags;
+    /** ObjectMapper de l'application : réponses en flux identiques à celles des convertisseurs MVC. */
+    private final ObjectMapper om;
 
+    /** /firestation?stationNumber= */
     @GetMapping("/firestation")
-    public FirestationCoverageDto firestation(@RequestParam String stationNumber) {
+    public FirestationCoverageDto firestation(@RequestParam String stationNumber, WebRequest request) {
         log.debug("HTTP IN /firestation stationNumber={}", stationNumber);
+        if (request.checkNotModified(etags.firestation(stationNumber))) return null; // 304, ETag posé sinon
         return reporting.getPersonsByStation(stationNumber);
     }
 
+    /** /firestation?stationNumber=&limit=[&cursor=] — habitants par identité croissante, totaux de toute la caserne */
+    @GetMapping(value = "/firestation", params = "limit")
+    public FirestationCoveragePageDto firestationPage(@RequestParam String stationNumber, @RequestParam int limit,
+                                                      @RequestParam(required = false) String cursor, WebRequest request) {
+        log.debug("HTTP IN /firestation stationNumber={} limit={} cursor={}", stationNumber, limit, cursor);
+        String etag = etags.firestation(stationNumber);
+        if (request.checkNotModified(etag)) return null;
+        String scope = "firestation|" + stationNumber;
+        // Page et totaux lus ensemble : les totaux décomptent le même état que la page
+        StationCoverage<KeyedPage<PersonSummaryDto>> coverage = reporting.pagePersonsByStation(stationNumber, ReportCursor.after(cursor, scope, etag), pageSize(limit));
+        KeyedPage<PersonSummaryDto> page = coverage.residents();
+        AgeCounts counts = coverage.counts();
+        requireUnchanged(etag, etags.firestation(stationNumber));
+        return new FirestationCoveragePageDto(page.items(), counts.adults(), counts.children(), ReportCursor.next(page, scope, etag));
+    }
+
     /** /childAlert?address= */
     @GetMapping("/childAlert")
-    public List<ChildAlertDto> childAlert(@RequestParam String address) {
+    public ResponseEntity<?> childAlert(@RequestParam String address,
+                                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                        HttpServletResponse response) {
         log.debug("HTTP IN /childAlert address={}", address);
-        return reporting.getChildAlert(address);
+        if (serialized.isEmpty()) return ResponseEntity.ok(reporting.getChildAlert(address));
+        return send(serialized.get().getChildAlertJson(address), negotiateGzip(acceptEncoding, response));
     }
 
     /** /phoneAlert?firestation= */
@@ -40,16 +88,55 @@ public class ReportingController {
 
     /** /fire?address= */
     @GetMapping("/fire")
-    public FireAddressDto fire(@RequestParam String address) {
+    public ResponseEntity<?> fire(@RequestParam String address,
+                                  @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                  WebRequest request, HttpServletResponse response) {
         log.debug("HTTP IN /fire address={}", address);
-        return reporting.getFireInfo(address);
+        if (serialized.isEmpty()) {
+            if (request.checkNotModified(etags.fire(address))) return null;
+            return ResponseEntity.ok(reporting.getFireInfo(address));
+        }
+        // La variante gzip est une autre représentation : ETag distinct
+        boolean gzip = negotiateGzip(acceptEncoding, response);
+        String etag = etags.fire(address);
+        if (request.checkNotModified(gzip ? gzipVariant(etag) : etag)) return null;
+        return send(serialized.get().getFireInfoJson(address), gzip);
     }
 
-    /** /flood/stations?stations=1,2,3 */
+    /** /flood/stations?stations=1,2,3 — écrit en flux, un foyer à la fois */
     @GetMapping("/flood/stations")
-    public Map<String, List<ResidentMedicalDto>> flood(@RequestParam Set<String> stations) {
+    public void flood(@RequestParam Set<String> stations, WebRequest request, HttpServletResponse response) throws IOException {
         log.debug("HTTP IN /flood/stations stations={}", stations);
-        return reporting.getFloodByStations(stations);
+        if (request.checkNotModified(etags.flood(stations))) return;
+        // Un bloc par foyer, sans flush après chacun : le tampon part quand il est plein
+        ObjectWriter blockWriter = om.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator gen = startJson(response);
+        try (Stream<Map.Entry<String, List<ResidentMedicalDto>>> blocks = reporting.streamFloodByStations(stations)) {
+            gen.writeStartObject();
+            for (Iterator<Map.Entry<String, List<ResidentMedicalDto>>> it = blocks.iterator(); it.hasNext(); ) {
+                Map.Entry<String, List<ResidentMedicalDto>> block = it.next();
+                gen.writeFieldName(block.getKey());
+                blockWriter.writeValue(gen, block.getValue());
+            }
+            gen.writeEndObject();
+        }
+        gen.close();
+    }
+
+    /** /flood/stations?stations=1,2,3&limit=[&cursor=] — foyers par adresse croissante */
+    @GetMapping(value = "/flood/stations", params = "limit")
+    public FloodPageDto floodPage(@RequestParam Set<String> stations, @RequestParam int limit,
+                                  @RequestParam(required = false) String cursor, WebRequest request) {
+        log.debug("HTTP IN /flood/stations stations={} limit={} cursor={}", stations, limit, cursor);
+        String etag = etags.flood(stations);
+        if (request.checkNotModified(etag)) return null;
+        String scope = "flood|" + String.join(",", new TreeSet<>(stations));
+        KeyedPage<Map.Entry<String, List<ResidentMedicalDto>>> page =
+                reporting.pageFloodByStations(stations, ReportCursor.after(cursor, scope, etag), pageSize(limit));
+        requireUnchanged(etag, etags.flood(stations));
+        Map<String, List<ResidentMedicalDto>> households = new LinkedHashMap<>();
+        for (Map.Entry<String, List<ResidentMedicalDto>> block : page.items()) households.put(block.getKey(), block.getValue());
+        return new FloodPageDto(households, ReportCursor.next(page, scope, etag));
     }
 
     /** /personInfo?lastName= */
@@ -59,10 +146,109 @@ public class ReportingController {
         return reporting.getPersonInfoByLastName(lastName);
     }
 
-    /** /communityEmail?city= */
+    /** /personInfo?lastName=&limit=[&cursor=] — personnes par identité croissante */
+    @GetMapping(value = "/personInfo", params = "limit")
+    public PageDto<PersonInfoDto> personInfoPage(@RequestParam String lastName, @RequestParam int limit,
+                                                 @RequestParam(required = false) String cursor, WebRequest request) {
+        log.debug("HTTP IN /personInfo lastName={} limit={} cursor={}", lastName, limit, cursor);
+        String etag = etags.personInfo(lastName);
+        if (request.checkNotModified(etag)) return null;
+        String scope = "personInfo|" + lastName;
+        KeyedPage<PersonInfoDto> page = reporting.pagePersonInfoByLastName(lastName, ReportCursor.after(cursor, scope, etag), pageSize(limit));
+        requireUnchanged(etag, etags.personInfo(lastName));
+        return new PageDto<>(page.items(), ReportCursor.next(page, scope, etag));
+    }
+
+    /** /communityEmail?city= — écrit en flux, un email à la fois */
     @GetMapping("/communityEmail")
-    public Set<String> communityEmail(@RequestParam String city) {
+    public void communityEmail(@RequestParam String city, HttpServletResponse response) throws IOException {
         log.debug("HTTP IN /communityEmail city={}", city);
-        return reporting.getCommunityEmails(city);
+        JsonGenerator gen = startJson(response);
+        try (Stream<String> emails = reporting.streamCommunityEmails(city)) {
+            gen.writeStartArray();
+            for (Iterator<String> it = emails.iterator(); it.hasNext(); ) gen.writeString(it.next());
+            gen.writeEndArray();
+        }
+        gen.close();
+    }
+
+    /** /communityEmail?city=&limit=[&cursor=] — emails par ordre croissant */
+    @GetMapping(value = "/communityEmail", params = "limit")
+    public PageDto<String> communityEmailPage(@RequestParam String city, @RequestParam int limit,
+                                              @RequestParam(required = false) String cursor, WebRequest request) {
+        log.debug("HTTP IN /communityEmail city={} limit={} cursor={}", city, limit, cursor);
+        String etag = etags.communityEmail(city);
+        if (request.checkNotModified(etag)) return null;
+        String scope = "communityEmail|" + city;
+        KeyedPage<String> page = reporting.pageCommunityEmails(city, ReportCursor.after(cursor, scope, etag), pageSize(limit));
+        requireUnchanged(etag, etags.communityEmail(city));
+        return new PageDto<>(page.items(), ReportCursor.next(page, scope, etag));
+    }
+
+    private static int pageSize(int limit) {
+        if (limit < 1) throw new BadRequestExeption("limit must be >= 1");
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    // ETag relu après la page : une écriture pendant sa lecture la rend incohérente avec le curseur, à refaire
+    private static void requireUnchanged(String etag, String current) {
+        if (!Objects.equals(etag, current)) {
+            throw new ConflictExeption("Data changed while reading the page: restart without cursor");
+        }
+    }
+
+    // Générateur sur le flux de la réponse : le tampon de Jackson (~8 Ko) puis celui du conteneur partent en
+    // chunks au fil de l'écriture, sans que la réponse entière soit jamais construite en mémoire.
+    // Fermé seulement en fin d'écriture : sur exception, le tampon non vidé est abandonné et, tant que rien
+    // n'est parti, Spring peut encore répondre une erreur au lieu d'un JSON tronqué.
+    private JsonGenerator startJson(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        return om.getFactory().createGenerator(response.getOutputStream());
+    }
+
+    // Octets écrits tels quels (ByteArrayHttpMessageConverter) ; gzip si le client l'accepte et que le corps s'y prête
+    private static ResponseEntity<byte[]> send(JsonBody body, boolean gzip) {
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (gzip && body.compressible()) {
+            return ok.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return ok.body(body.utf8());
+    }
+
+    // La réponse dépend d'Accept-Encoding : Vary posé avant tout 304
+    private static boolean negotiateGzip(String acceptEncoding, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        return acceptsGzip(acceptEncoding);
+    }
+
+    private static String gzipVariant(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    // gzip accepté si Accept-Encoding le cite (ou "*" à défaut) avec q > 0
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        double gzip = quality(acceptEncoding, "gzip");
+        return gzip >= 0 ? gzip > 0 : quality(acceptEncoding, "*") > 0;
+    }
+
+    // Poids q du codage dans l'en-tête, -1 s'il n'est pas cité
+    private static double quality(String acceptEncoding, String coding) {
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.split(";");
+            if (!tokens[0].trim().equalsIgnoreCase(coding)) continue;
+            for (int i = 1; i < tokens.length; i++) {
+                String p = tokens[i].trim();
+                if (p.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(p.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+            return 1;
+        }
+        return -1;
     }
 }
@@ -0,0 +1,14 @@
+package com.safetynet.alerts.dto.admin;
+
+/** Compteurs du cache des rapports depuis le démarrage. */
+public record CacheStatsDto(
+        int size,
+        int maximumSize,
+        long hits,
+        long misses,
+        double hitRate,
+        long evictions,
+        long rejections,
+        long invalidations,
+        long coalesced
+) {}
@@ -0,0 +1,8 @@
+package com.safetynet.alerts.dto.admin;
+
+/** Insertions, mises à jour et suppressions appliquées à une section lors d'un rechargement différentiel. */
+public record ChangeCountsDto(
+        int inserted,
+        int updated,
+        int deleted
+) {}
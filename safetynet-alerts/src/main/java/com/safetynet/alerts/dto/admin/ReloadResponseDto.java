@@ -0,0 +1,16 @@
+package com.safetynet.alerts.dto.admin;
+
+/**
+ * Réponse à un rechargement à chaud du fichier de données.
+ * Les compteurs de changements ne sont renseignés qu'en rechargement différentiel (null sinon).
+ */
+public record ReloadResponseDto(
+        String source,
+        int persons,
+        int firestations,
+        int medicalRecords,
+        long durationMs,
+        ChangeCountsDto personChanges,
+        ChangeCountsDto firestationChanges,
+        ChangeCountsDto medicalRecordChanges
+) {}
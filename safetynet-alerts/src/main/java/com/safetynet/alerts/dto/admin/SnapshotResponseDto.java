@@ -0,0 +1,10 @@
+package com.safetynet.alerts.dto.admin;
+
+import java.time.Instant;
+
+/** Réponse à l'écriture d'un snapshot binaire du dépôt. */
+public record SnapshotResponseDto(
+        String path,
+        long bytes,
+        Instant createdAt
+) {}
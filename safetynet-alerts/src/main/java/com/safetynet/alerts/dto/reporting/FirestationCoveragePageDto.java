@@ -0,0 +1,10 @@
+package com.safetynet.alerts.dto.reporting;
+
+import java.util.List;
+
+public record FirestationCoveragePageDto(
+        List<PersonSummaryDto> persons,
+        int adults,
+        int children,
+        String nextCursor
+) {}
@@ -0,0 +1,9 @@
+package com.safetynet.alerts.dto.reporting;
+
+import java.util.List;
+import java.util.Map;
+
+public record FloodPageDto(
+        Map<String, List<ResidentMedicalDto>> households,
+        String nextCursor
+) {}
@@ -0,0 +1,8 @@
+package com.safetynet.alerts.dto.reporting;
+
+import java.util.List;
+
+public record PageDto<T>(
+        List<T> items,
+        String nextCursor
+) {}
@@ -0,0 +1,8 @@
+package com.safetynet.alerts.exception;
+
+public class BadRequestExeption extends RuntimeException {
+    public BadRequestExeption(String message) {
+        super(message);
+    }
+
+}
\ No newline at end of file
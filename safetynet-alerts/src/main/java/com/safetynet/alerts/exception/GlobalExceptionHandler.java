@@ -64,6 +64,12 @@ public class GlobalExceptionHandler {
                 .body(buildBody(HttpStatus.CONFLICT, "Conflict", ex.getMessage(), request));
     }
 
+    @ExceptionHandler(BadRequestExeption.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(BadRequestExeption ex, WebRequest request) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(buildBody(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage(), request));
+    }
+
     @ExceptionHandler(NotFoundExeption.class)
     public ResponseEntity<Map<String, Object>> handleNotFound(NotFoundExeption ex, WebRequest request) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND)
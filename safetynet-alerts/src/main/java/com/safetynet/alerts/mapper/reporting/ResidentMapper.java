@@ -6,21 +6,19 @@ import com.safetynet.alerts.model.MedicalRecord;
 import com.safetynet.alerts.model.Person;
 
 import com.safetynet.alerts.time.AgeCalculator;
+import org.mapstruct.Context;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.springframework.lang.Nullable;
 
-@Mapper(
-        config = CentralMapperConfig.class,
-        imports = AgeCalculator.class
-)
+@Mapper(config = CentralMapperConfig.class)
 public interface ResidentMapper {
     @Mapping(target="firstName", source="p.firstName")
     @Mapping(target="lastName",  source="p.lastName")
     @Mapping(target="phone",     source="p.phone")
     @Mapping(target="age",
-            expression = "java(AgeCalculator.computeAge(rec != null ? rec.getBirthdate() : null))")
+            expression = "java(rec != null ? ages.computeAge(rec.getBirthEpochDay()) : -1)")
     @Mapping(target="medications", source="rec.medications")
     @Mapping(target="allergies",   source="rec.allergies")
-    ResidentMedicalDto toResident(Person p, @Nullable MedicalRecord rec);
+    ResidentMedicalDto toResident(Person p, @Nullable MedicalRecord rec, @Context AgeCalculator ages);
 }
@@ -1,6 +1,8 @@
 package com.safetynet.alerts.model;
 
 
+import com.safetynet.alerts.time.AgeCalculator;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
@@ -19,6 +21,8 @@ import java.util.List;
  *  - birthdate : date de naissance (format MM/dd/yyyy)
  *  - medications : liste des médicaments
  *  - allergies   : liste des allergies
+ * La date de naissance est analysée une seule fois, à l'affectation : {@link #getBirthEpochDay()}
+ * permet ensuite de calculer l'âge sans nouvelle analyse (cf. {@link AgeCalculator#computeAge(long)}).
  * Identité métier : (firstName, lastName)
  */
 
@@ -34,6 +38,10 @@ public class MedicalRecord {
     private String lastName;
     /** Date de naissance au format MM/dd/yyyy. */
     private String birthdate;
+    /** Date de naissance en numéro de jour ({@link AgeCalculator#NO_DATE} si absente ou invalide), dérivée de {@link #birthdate}. */
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private long birthEpochDay = AgeCalculator.NO_DATE;
     /** Liste des médicaments. */
     private List<String> medications = new ArrayList<>();
     /** Liste des allergies. */
@@ -42,5 +50,11 @@ public class MedicalRecord {
 
     public MedicalRecord() {}
 
+    /** Affecte la date de naissance et met à jour {@link #birthEpochDay}. */
+    public void setBirthdate(String birthdate) {
+        this.birthdate = birthdate;
+        this.birthEpochDay = AgeCalculator.parseEpochDay(birthdate);
+    }
+
 
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.time.AgeCalculator;
+import com.safetynet.alerts.time.BulkAgeClassifier;
+
+import java.util.Collection;
+
+/**
+ * Nombre d'adultes et d'enfants (0 à 18 ans révolus, cf. {@link AgeCalculator#isChild(String)}) d'un ensemble
+ * d'habitants. Une personne sans dossier médical ou sans date de naissance exploitable compte comme adulte.
+ */
+public record AgeCounts(int adults, int children) {
+
+    public static final AgeCounts NONE = new AgeCounts(0, 0);
+
+    public int total() { return adults + children; }
+
+    /**
+     * Décompte à la volée : une lecture de dossier médical par habitant, puis classification du lot en une
+     * passe ({@link BulkAgeClassifier}).
+     *
+     * @param todayEpochDay jour de référence ({@link DataRepository#today()}), dans le fuseau de l'horloge injectée
+     */
+    static AgeCounts tally(Collection<Person> persons, DataRepository repo, long todayEpochDay) {
+        final long[] birthEpochDays = new long[persons.size()];
+        int n = 0;
+        for (Person p : persons) {
+            birthEpochDays[n++] = repo.findMedicalRecord(p.getFirstName(), p.getLastName())
+                    .map(MedicalRecord::getBirthEpochDay).orElse(AgeCalculator.NO_DATE);
+        }
+        return classify(birthEpochDays, n, todayEpochDay);
+    }
+
+    /**
+     * Décompte d'habitants déjà joints à leur dossier médical : aucune relecture du dépôt.
+     *
+     * @param todayEpochDay jour de référence ({@link DataRepository#today()})
+     */
+    static AgeCounts tallyResidents(Collection<Resident> residents, long todayEpochDay) {
+        final long[] birthEpochDays = new long[residents.size()];
+        int n = 0;
+        for (Resident r : residents) {
+            birthEpochDays[n++] = (r.record() == null) ? AgeCalculator.NO_DATE : r.record().getBirthEpochDay();
+        }
+        return classify(birthEpochDays, n, todayEpochDay);
+    }
+
+    /** Classe en une passe les {@code n} premières dates de naissance ({@link AgeCalculator#NO_DATE} : adulte). */
+    static AgeCounts classify(long[] birthEpochDays, int n, long todayEpochDay) {
+        final int children = BulkAgeClassifier.countChildren(birthEpochDays, n, todayEpochDay);
+        return new AgeCounts(n - children, children);
+    }
+}
@@ -0,0 +1,38 @@
+package com.safetynet.alerts.repository;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Moteur de {@link DataRepository} capable de s'exporter et de se recharger au format binaire
+ * de {@link BinarySnapshotStore}, index précalculés compris.
+ * <p>
+ * Le corps écrit par {@link #writeSnapshot(DataOutput)} est propre au moteur ; l'en-tête (version,
+ * moteur, date) et la somme de contrôle sont gérés par {@link BinarySnapshotStore}.
+ */
+public interface BinarySnapshotCapable {
+
+    /**
+     * Écrit un état cohérent du dépôt (enregistrements et index).
+     *
+     * @param out flux de destination
+     */
+    void writeSnapshot(DataOutput out) throws IOException;
+
+    /**
+     * Remplace intégralement l'état du dépôt par celui lu dans le flux, sans recalcul des index.
+     *
+     * @param in flux produit par {@link #writeSnapshot(DataOutput)}
+     */
+    void readSnapshot(DataInput in) throws IOException;
+
+    /** Identifiant du format de corps, vérifié à la relecture (par défaut : la classe du moteur). */
+    default String snapshotEngine() { return getClass().getName(); }
+
+    /**
+     * Appelé une fois le snapshot produit par le dernier {@link #writeSnapshot(DataOutput)} rendu durable
+     * (ex. compaction d'un journal d'écriture désormais couvert). Sans effet par défaut.
+     */
+    default void snapshotWritten() throws IOException {}
+}
@@ -0,0 +1,183 @@
+package com.safetynet.alerts.repository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Fichier de snapshot binaire du dépôt : alternative rapide au re-parsing de data.json au démarrage.
+ * <p>
+ * Format (version {@value #VERSION}) :
+ * <pre>
+ * magic(int) | version(int) | moteur(UTF) | créé le(long, epoch ms) | corps du moteur | CRC32 de tout ce qui précède(long)
+ * </pre>
+ * Le corps contient les enregistrements ET les index déjà construits ({@link BinarySnapshotCapable}).
+ * L'écriture passe par un fichier temporaire forcé sur disque puis renommé atomiquement (répertoire forcé à son
+ * tour) : un snapshot lisible est toujours complet, y compris après une coupure de courant.
+ * À la lecture, la somme de contrôle est vérifiée avant de toucher au dépôt ; un fichier d'une autre version
+ * ou d'un autre moteur est ignoré.
+ * <p>
+ * Activé par {@code safetynet.snapshot.enabled=true} : le chargeur le préfère alors à data.json s'il est plus
+ * récent, et un snapshot est écrit à l'arrêt. L'écriture à la demande ({@link #write()}) reste toujours possible.
+ */
+@Slf4j
+@Component
+public class BinarySnapshotStore {
+
+    static final int MAGIC = 0x534E5331; // "SNS1"
+    static final int VERSION = 2; // 2 : emails par ville à compteurs de références (moteur memory)
+    private static final int TRAILER = Long.BYTES;
+
+    /** Résultat d'une écriture. */
+    public record Written(Path path, long bytes, Instant createdAt) {}
+
+    private final DataRepository repo;
+    private final Path path;
+    private final boolean enabled;
+
+    public BinarySnapshotStore(DataRepository repo,
+                               @Value("${safetynet.snapshot.path:data/safetynet.snap}") String path,
+                               @Value("${safetynet.snapshot.enabled:false}") boolean enabled) {
+        this.repo = repo;
+        this.path = Path.of(path);
+        this.enabled = enabled;
+    }
+
+    /** Vrai si le moteur courant sait produire et relire un snapshot binaire. */
+    public boolean supported() { return repo instanceof BinarySnapshotCapable; }
+
+    public Path path() { return path; }
+
+    /**
+     * Vrai si le snapshot est activé, pris en charge, présent et plus récent que {@code epochMillis}.
+     *
+     * @param epochMillis date de dernière modification de la source concurrente (data.json)
+     */
+    public boolean isNewerThan(long epochMillis) {
+        if (!enabled || !supported() || !Files.isRegularFile(path)) return false;
+        try {
+            return Files.getLastModifiedTime(path).toMillis() > epochMillis;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Recharge le dépôt depuis le snapshot.
+     *
+     * @return {@code false} (sans modifier le dépôt) si le fichier est absent, corrompu, d'une autre version
+     *         ou d'un autre moteur
+     */
+    public boolean restore() {
+        if (!(repo instanceof BinarySnapshotCapable capable) || !Files.isRegularFile(path)) return false;
+        final long start = System.nanoTime();
+        try {
+            if (!checksumMatches()) {
+                log.warn("Snapshot {} ignoré : somme de contrôle invalide", path);
+                return false;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    log.warn("Snapshot {} ignoré : format ou version non reconnu", path);
+                    return false;
+                }
+                final String engine = in.readUTF();
+                if (!engine.equals(engineName())) {
+                    log.warn("Snapshot {} ignoré : produit par {} (moteur courant {})", path, engine, engineName());
+                    return false;
+                }
+                final Instant createdAt = Instant.ofEpochMilli(in.readLong());
+                capable.readSnapshot(in);
+                log.info("Dépôt restauré depuis {} (créé le {}) en {} ms", path, createdAt, (System.nanoTime() - start) / 1_000_000);
+                return true;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Snapshot {} illisible, retour à data.json", path, e);
+            return false;
+        }
+    }
+
+    /**
+     * Écrit un snapshot de l'état courant (remplace atomiquement le précédent).
+     *
+     * @throws IllegalStateException si le moteur ne prend pas en charge les snapshots ou en cas d'erreur d'E/S
+     */
+    public synchronized Written write() {
+        if (!(repo instanceof BinarySnapshotCapable capable)) {
+            throw new IllegalStateException("Le moteur " + engineName() + " ne prend pas en charge les snapshots binaires");
+        }
+        final Instant createdAt = Instant.now();
+        final Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            final CRC32 crc = new CRC32();
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                         new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 16), crc))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(engineName());
+                out.writeLong(createdAt.toEpochMilli());
+                capable.writeSnapshot(out);
+                out.flush();
+                out.writeLong(crc.getValue()); // valeur figée avant l'écriture du trailer
+                out.flush();
+                ch.force(true);
+            }
+            // Fichier puis répertoire sur disque : snapshotWritten() peut compacter ce que le snapshot couvre
+            DurableFiles.replace(tmp, path);
+            capable.snapshotWritten();
+            final long bytes = Files.size(path);
+            log.info("Snapshot écrit: {} ({} octets)", path, bytes);
+            return new Written(path, bytes, createdAt);
+        } catch (IOException e) {
+            throw new IllegalStateException("Écriture du snapshot " + path + " impossible", e);
+        }
+    }
+
+    /** Écrit un snapshot à l'arrêt de l'application (si activé) ; une erreur est journalisée sans bloquer l'arrêt. */
+    @PreDestroy
+    void writeOnShutdown() {
+        if (!enabled || !supported()) return;
+        try {
+            write();
+        } catch (RuntimeException e) {
+            log.error("Snapshot d'arrêt non écrit", e);
+        }
+    }
+
+    // Format du moteur (par défaut sa classe), sans suffixe de proxy éventuel ("$$SpringCGLIB$$0")
+    private String engineName() {
+        final String name = (repo instanceof BinarySnapshotCapable capable) ? capable.snapshotEngine() : repo.getClass().getName();
+        final int proxy = name.indexOf("$$");
+        return (proxy < 0) ? name : name.substring(0, proxy);
+    }
+
+    private boolean checksumMatches() throws IOException {
+        final long size = Files.size(path);
+        if (size < TRAILER) return false;
+        final CRC32 crc = new CRC32();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+            byte[] buf = new byte[1 << 16];
+            long remaining = size - TRAILER;
+            while (remaining > 0) {
+                int r = in.read(buf, 0, (int) Math.min(buf.length, remaining));
+                if (r < 0) return false;
+                crc.update(buf, 0, r);
+                remaining -= r;
+            }
+            return new DataInputStream(in).readLong() == crc.getValue();
+        }
+    }
+}
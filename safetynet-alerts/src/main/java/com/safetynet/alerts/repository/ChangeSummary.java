@@ -0,0 +1,27 @@
+package com.safetynet.alerts.repository;
+
+/**
+ * Bilan d'une réconciliation du dépôt avec un nouveau jeu de données ({@link DataRepository#reconcile}).
+ * <p>
+ * Chaque section compte les insertions, mises à jour (contenu différent pour une même identité) et
+ * suppressions appliquées ; les enregistrements identiques ne sont pas réécrits. {@code incremental}
+ * vaut {@code false} quand le moteur a dû tout réinitialiser (les compteurs sont alors vides).
+ */
+public record ChangeSummary(Counts persons, Counts medicalRecords, Counts mappings, boolean incremental) {
+
+    /** Compteurs d'une section. */
+    public record Counts(int inserted, int updated, int deleted) {
+
+        public static final Counts NONE = new Counts(0, 0, 0);
+
+        public int total() { return inserted + updated + deleted; }
+    }
+
+    /** Réinitialisation complète : aucun compteur disponible. */
+    public static ChangeSummary full() {
+        return new ChangeSummary(Counts.NONE, Counts.NONE, Counts.NONE, false);
+    }
+
+    /** Nombre total d'écritures appliquées. */
+    public int total() { return persons.total() + medicalRecords.total() + mappings.total(); }
+}
@@ -0,0 +1,361 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.model.FirestationMapping;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.safetynet.alerts.repository.RepositoryKeys.key;
+import static com.safetynet.alerts.repository.RepositoryKeys.norm;
+
+/**
+ * Moteur de stockage colonnaire pour les gros volumes (comté entier, millions d'habitants).
+ * <p>
+ * Chaque personne reçoit un identifiant entier dense ; ses attributs sont rangés dans une colonne
+ * par champ ({@link PersonColumns}). Les index par adresse et par nom ne contiennent plus des
+ * {@code List<Person>} mais des {@link IntPostingList} ({@code int[]}), ce qui divise l'empreinte
+ * mémoire et rend les parcours contigus.
+ * <p>
+ * Les requêtes par caserne ({@link #findPersonsByStation(String)}, {@link #findPhonesByStation(String)})
+ * parcourent directement les colonnes, sans passer par une liste intermédiaire par adresse.
+ * Les {@link Person} renvoyés sont matérialisés à la lecture : ce sont des copies détachées.
+ * <p>
+ * Concurrence : un verrou lecture/écriture protège colonnes et index (lectures parallèles, écritures exclusives).
+ * Activé par {@code safetynet.repository.engine=columnar}.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(prefix = "safetynet.repository", name = "engine", havingValue = "columnar")
+public class ColumnarDataRepository implements DataRepository {
+
+    private final PersonColumns columns = new PersonColumns(1024);
+
+    // ---------- Index (identifiants de lignes) ----------
+    private final Map<String, Integer>        idByKey           = new HashMap<>();
+    private final Map<String, IntPostingList> idsByAddress      = new HashMap<>();
+    private final Map<String, IntPostingList> idsByLastName     = new HashMap<>();
+    private final Map<String, IntPostingList> idsByCity         = new HashMap<>();
+
+    // ---------- Mapping et dossiers (inchangés) ----------
+    private final Map<String, Set<String>>    addressesByStation       = new HashMap<>();
+    private final Map<String, String>         stationByAddress         = new HashMap<>();
+    private final Map<String, MedicalRecord>  medicalRecordByPersonKey = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Date du jour pour la classification adulte/enfant
+    private final Clock clock;
+
+    public ColumnarDataRepository() { this(Clock.systemDefaultZone()); }
+
+    @Autowired
+    public ColumnarDataRepository(Clock clock) { this.clock = clock; }
+
+    // -------------------- Init --------------------
+    @Override
+    public void init(final DataSet dataSet) {
+        Objects.requireNonNull(dataSet, "dataSet must not be null");
+
+        lock.writeLock().lock();
+        try {
+            columns.clear();
+            idByKey.clear();
+            idsByAddress.clear();
+            idsByLastName.clear();
+            idsByCity.clear();
+            addressesByStation.clear();
+            stationByAddress.clear();
+            medicalRecordByPersonKey.clear();
+
+            Optional.ofNullable(dataSet.getPersons()).orElseGet(List::of).forEach(this::upsert);
+            for (FirestationMapping m : Optional.ofNullable(dataSet.getFirestations()).orElseGet(List::of)) {
+                if (!stationByAddress.containsKey(norm(m.getAddress()))) putMapping(m.getAddress(), m.getStation()); // first-wins
+            }
+            Optional.ofNullable(dataSet.getMedicalrecords()).orElseGet(List::of)
+                    .forEach(mr -> medicalRecordByPersonKey.put(key(mr.getFirstName(), mr.getLastName()), mr)); // last-wins
+
+            log.info("Repo init (columnar): persons={}, addresses={}, stations={}, records={}",
+                    columns.size(), idsByAddress.size(), addressesByStation.size(), medicalRecordByPersonKey.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // -------------------- Maintenance des index (sous verrou d'écriture) --------------------
+    private void upsert(Person p) {
+        final String k = key(p.getFirstName(), p.getLastName());
+        final Integer existing = idByKey.get(k);
+        if (existing != null) {
+            unindex(existing);
+            columns.set(existing, p);
+            index(existing);
+        } else {
+            final int id = columns.add(p);
+            idByKey.put(k, id);
+            index(id);
+        }
+    }
+
+    private void index(int id) {
+        posting(idsByAddress, norm(columns.address(id))).add(id);
+        posting(idsByLastName, norm(columns.lastName(id))).add(id);
+        posting(idsByCity, norm(columns.city(id))).add(id);
+    }
+
+    private void unindex(int id) {
+        unpost(idsByAddress, norm(columns.address(id)), id);
+        unpost(idsByLastName, norm(columns.lastName(id)), id);
+        unpost(idsByCity, norm(columns.city(id)), id);
+    }
+
+    private static IntPostingList posting(Map<String, IntPostingList> index, String k) {
+        return index.computeIfAbsent(k, kk -> new IntPostingList());
+    }
+
+    private static void unpost(Map<String, IntPostingList> index, String k, int id) {
+        IntPostingList list = index.get(k);
+        if (list != null && list.remove(id) && list.isEmpty()) index.remove(k);
+    }
+
+    private void putMapping(String address, String station) {
+        final String a = norm(address);
+        final String s = norm(station);
+        final String previous = stationByAddress.put(a, s);
+        if (previous != null) removeAddress(previous, a);
+        Set<String> set = addressesByStation.computeIfAbsent(s, st -> new LinkedHashSet<>());
+        set.removeIf(x -> norm(x).equals(a));
+        set.add(address); // on conserve la casse d'origine en sortie
+    }
+
+    private void removeAddress(String station, String normalizedAddress) {
+        Set<String> set = addressesByStation.get(station);
+        if (set == null) return;
+        set.removeIf(x -> norm(x).equals(normalizedAddress));
+        if (set.isEmpty()) addressesByStation.remove(station);
+    }
+
+    private List<Person> materialize(IntPostingList ids) {
+        if (ids == null || ids.isEmpty()) return List.of();
+        Person[] out = new Person[ids.size()];
+        for (int i = 0; i < out.length; i++) out[i] = columns.materialize(ids.get(i));
+        return List.of(out);
+    }
+
+    // -------------------- Requêtes (lecture) --------------------
+    @Override
+    public Set<String> findAddressesByStation(String stationNumber) {
+        if (stationNumber == null) return Set.of();
+        lock.readLock().lock();
+        try {
+            Set<String> set = addressesByStation.get(norm(stationNumber));
+            return (set == null) ? Set.of() : Set.copyOf(set);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Person> findPersonsByAddress(String address) {
+        if (address == null) return List.of();
+        lock.readLock().lock();
+        try {
+            return materialize(idsByAddress.get(norm(address)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<String> findStationByAddress(String address) {
+        if (address == null) return Optional.empty();
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(stationByAddress.get(norm(address)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<MedicalRecord> findMedicalRecord(String firstName, String lastName) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(medicalRecordByPersonKey.get(key(firstName, lastName)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Person> findPersonsByLastName(String lastName) {
+        if (lastName == null) return List.of();
+        lock.readLock().lock();
+        try {
+            return materialize(idsByLastName.get(norm(lastName)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<String> findEmailsByCity(String city) {
+        if (city == null) return Set.of();
+        lock.readLock().lock();
+        try {
+            IntPostingList ids = idsByCity.get(norm(city));
+            if (ids == null) return Set.of();
+            // scan de la seule colonne email pour les lignes de la ville
+            Set<String> emails = new LinkedHashSet<>();
+            for (int i = 0; i < ids.size(); i++) {
+                String e = columns.email(ids.get(i));
+                if (e != null) emails.add(e);
+            }
+            return Collections.unmodifiableSet(emails);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Person> findAllPersons() {
+        lock.readLock().lock();
+        try {
+            List<Person> all = new ArrayList<>(idByKey.size());
+            idByKey.values().forEach(id -> all.add(columns.materialize(id)));
+            return Collections.unmodifiableList(all);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Person> findPerson(String firstName, String lastName) {
+        lock.readLock().lock();
+        try {
+            Integer id = idByKey.get(key(firstName, lastName));
+            return (id == null) ? Optional.empty() : Optional.of(columns.materialize(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Person> findPersonsByStation(String stationNumber) {
+        if (stationNumber == null) return List.of();
+        lock.readLock().lock();
+        try {
+            Set<String> addresses = addressesByStation.get(norm(stationNumber));
+            if (addresses == null) return List.of();
+            List<Person> out = new ArrayList<>();
+            for (String a : addresses) {
+                IntPostingList ids = idsByAddress.get(norm(a));
+                if (ids != null) ids.forEach(id -> out.add(columns.materialize(id)));
+            }
+            return Collections.unmodifiableList(out);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<String> findPhonesByStation(String stationNumber) {
+        if (stationNumber == null) return Set.of();
+        lock.readLock().lock();
+        try {
+            Set<String> addresses = addressesByStation.get(norm(stationNumber));
+            if (addresses == null) return Set.of();
+            // scan de la seule colonne phone : aucune Person n'est matérialisée
+            Set<String> phones = new LinkedHashSet<>();
+            for (String a : addresses) {
+                IntPostingList ids = idsByAddress.get(norm(a));
+                if (ids == null) continue;
+                for (int i = 0; i < ids.size(); i++) {
+                    String phone = columns.phone(ids.get(i));
+                    if (phone != null) phones.add(phone);
+                }
+            }
+            return Collections.unmodifiableSet(phones);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public LocalDate today() { return LocalDate.now(clock); }
+
+    // -------------------- Écritures (CRUD) --------------------
+    @Override
+    public void savePerson(Person person) {
+        lock.writeLock().lock();
+        try {
+            upsert(person);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deletePerson(String firstName, String lastName) {
+        lock.writeLock().lock();
+        try {
+            Integer id = idByKey.remove(key(firstName, lastName));
+            if (id == null) return; // idempotent
+            unindex(id);
+            columns.release(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveMedicalRecord(MedicalRecord mr) {
+        lock.writeLock().lock();
+        try {
+            medicalRecordByPersonKey.put(key(mr.getFirstName(), mr.getLastName()), mr);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteMedicalRecord(String firstName, String lastName) {
+        lock.writeLock().lock();
+        try {
+            medicalRecordByPersonKey.remove(key(firstName, lastName));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveMapping(String address, String station) {
+        lock.writeLock().lock();
+        try {
+            putMapping(address, station);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteMapping(String address) {
+        lock.writeLock().lock();
+        try {
+            final String a = norm(address);
+            final String previous = stationByAddress.remove(a);
+            if (previous != null) removeAddress(previous, a);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.safetynet.alerts.repository;
 
 import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.model.FirestationMapping;
 import com.safetynet.alerts.model.MedicalRecord;
 import com.safetynet.alerts.model.Person;
 
 
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Contrat d'accès aux données de l'application (persons, medicalrecords, firestations).
@@ -20,7 +25,8 @@ import java.util.*;
  * <ul>
  *   <li>L'identité métier d'une personne et d'un dossier médical est le couple (firstName, lastName).</li>
  *   <li>Les méthodes de lecture renvoient des collections vides plutôt que null. Les absences ponctuelles sont encapsulées dans {@link Optional}.</li>
- *   <li>{@link #findAllPersons()} doit retourner un « snapshot » défensif (copie) pour éviter toute modification externe de l'état interne.</li>
+ *   <li>{@link #findAllPersons()} doit retourner un « snapshot » défensif pour éviter toute modification externe de l'état interne :
+ *       copie, ou liste immuable partagée entre appelants qu'aucune écriture ultérieure ne modifie.</li>
  * </ul>
  */
 public interface DataRepository {
@@ -35,6 +41,62 @@ public interface DataRepository {
      */
     void init(DataSet dataSet);
 
+    /**
+     * Initialise intégralement le dépôt à partir d'une source qui livre le jeu de données par lots,
+     * sans jamais le matérialiser en entier (chargement en flux d'un gros data.json).
+     * <p>
+     * Mêmes règles que {@link #init(DataSet)} : état précédent remplacé, mapping first-wins, personnes
+     * et dossiers last-wins. Implémentation par défaut : vidage par {@code init} d'un jeu vide puis
+     * application de chaque lot via les écritures CRUD ; un moteur peut la surcharger pour indexer
+     * ses lots plus directement.
+     *
+     * @param source émetteur des lots (persons, firestations, medicalrecords)
+     * @throws IOException si la source ne peut pas être lue
+     */
+    default void initIncremental(DataSetSource source) throws IOException {
+        init(new DataSet());
+        source.feed(new DataSetSink() {
+            @Override
+            public void persons(List<Person> batch) { batch.forEach(DataRepository.this::savePerson); }
+
+            @Override
+            public void firestations(List<FirestationMapping> batch) {
+                for (FirestationMapping m : batch) {
+                    if (findStationByAddress(m.getAddress()).isEmpty()) saveMapping(m.getAddress(), m.getStation()); // first-wins
+                }
+            }
+
+            @Override
+            public void medicalRecords(List<MedicalRecord> batch) { batch.forEach(DataRepository.this::saveMedicalRecord); }
+        });
+    }
+
+    /**
+     * Indique si le dépôt a déjà été peuplé au démarrage depuis son propre stockage persistant
+     * (le chargement de data.json peut alors être évité). Faux par défaut : un dépôt purement
+     * en mémoire démarre toujours vide.
+     *
+     * @return {@code true} si l'état courant provient d'un stockage persistant
+     */
+    default boolean isRestored() { return false; }
+
+    /**
+     * Aligne le dépôt sur un nouveau jeu de données en n'appliquant que les différences, par identité
+     * ({@code first|last} pour les personnes et dossiers, adresse pour le mapping) : insertions, mises à jour
+     * et suppressions passent par les écritures CRUD, les enregistrements inchangés ne sont pas touchés.
+     * Mêmes règles de doublons que {@link #init(DataSet)} (mapping first-wins, personnes et dossiers last-wins).
+     * <p>
+     * Implémentation par défaut : le contrat ne permet pas d'énumérer dossiers et mappings, on se rabat donc
+     * sur {@link #init(DataSet)} et un bilan {@link ChangeSummary#full()}.
+     *
+     * @param dataSet jeu de données complet (persons, firestations, medicalrecords)
+     * @return le bilan des écritures appliquées
+     */
+    default ChangeSummary reconcile(DataSet dataSet) {
+        init(dataSet);
+        return ChangeSummary.full();
+    }
+
     // -------- Lectures (reporting) --------
 
     /**
@@ -88,9 +150,10 @@ public interface DataRepository {
 
     /**
      * Retourne un instantané défensif de toutes les personnes connues.
-     * L'appelant ne doit pas pouvoir modifier l'état interne du dépôt via cette liste.
+     * L'appelant ne doit pas pouvoir modifier l'état interne du dépôt via cette liste, et une écriture
+     * ultérieure ne doit pas la modifier (un moteur peut donc renvoyer la même liste immuable à plusieurs appelants).
      *
-     * @return copie de la liste des personnes, jamais null (éventuellement vide)
+     * @return liste non modifiable des personnes, jamais null (éventuellement vide)
      */
     List<Person> findAllPersons();
 
@@ -103,6 +166,224 @@ public interface DataRepository {
      */
     Optional<Person> findPerson(String firstName, String lastName);
 
+    // -------- Lectures agrégées par caserne --------
+
+    /**
+     * Retourne les habitants de toutes les adresses desservies par une caserne.
+     * <p>
+     * Implémentation par défaut : {@link #findAddressesByStation(String)} puis
+     * {@link #findPersonsByAddress(String)} pour chaque adresse. Un moteur peut la surcharger
+     * pour parcourir directement ses propres index.
+     *
+     * @param stationNumber numéro de caserne (ex. "1")
+     * @return personnes couvertes par la caserne, jamais null (éventuellement vide)
+     */
+    default List<Person> findPersonsByStation(String stationNumber) {
+        return findAddressesByStation(stationNumber).stream()
+                .flatMap(addr -> findPersonsByAddress(addr).stream())
+                .toList();
+    }
+
+    /**
+     * Retourne les numéros de téléphone (dédupliqués, ordre de parcours stable) des habitants
+     * couverts par une caserne.
+     *
+     * @param stationNumber numéro de caserne (ex. "1")
+     * @return ensemble de téléphones, jamais null (éventuellement vide)
+     */
+    default Set<String> findPhonesByStation(String stationNumber) {
+        Set<String> phones = findPersonsByStation(stationNumber).stream()
+                .map(Person::getPhone)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return Collections.unmodifiableSet(phones);
+    }
+
+    /**
+     * Compte les adultes et les enfants couverts par une caserne (endpoint /firestation).
+     * <p>
+     * Implémentation par défaut : décompte à la volée sur {@link #findPersonsByStation(String)}. Un moteur
+     * peut la surcharger avec des compteurs maintenus au fil des écritures.
+     *
+     * @param stationNumber numéro de caserne (ex. "1")
+     * @return adultes / enfants, jamais null
+     */
+    default AgeCounts countAgesByStation(String stationNumber) {
+        return AgeCounts.tally(findPersonsByStation(stationNumber), this, today().toEpochDay());
+    }
+
+    /**
+     * Compte les adultes et les enfants d'un foyer.
+     *
+     * @param address adresse du foyer
+     * @return adultes / enfants, jamais null
+     */
+    default AgeCounts countAgesByAddress(String address) {
+        return AgeCounts.tally(findPersonsByAddress(address), this, today().toEpochDay());
+    }
+
+    /**
+     * Retourne les habitants d'une caserne ET leurs totaux adultes / enfants, lus sur un même état (endpoint
+     * /firestation) : {@link #findPersonsByStation(String)} puis {@link #countAgesByStation(String)} sont deux
+     * lectures entre lesquelles une écriture peut s'intercaler (totaux qui ne correspondent plus à la liste).
+     * <p>
+     * Implémentation par défaut : une lecture {@link #findResidentsByStation(String)}, décomptée sur place. Un
+     * moteur la surcharge si cette lecture ne porte pas sur un seul état.
+     *
+     * @param stationNumber numéro de caserne (ex. "1")
+     * @return habitants et totaux, jamais null
+     */
+    default StationCoverage<List<Person>> findCoverageByStation(String stationNumber) {
+        final List<Resident> residents = findResidentsByStation(stationNumber);
+        return new StationCoverage<>(residents.stream().map(Resident::person).toList(),
+                AgeCounts.tallyResidents(residents, today().toEpochDay()));
+    }
+
+    /**
+     * Jour de référence de la classification adulte/enfant.
+     * <p>
+     * Par défaut, jour courant du fuseau de la JVM ; les moteurs le surchargent avec la {@link Clock} injectée
+     * (bean de {@code ClockConfig}, {@code safetynet.time.zone}) pour s'accorder avec l'{@code AgeCalculator}.
+     */
+    default LocalDate today() { return LocalDate.now(); }
+
+    /**
+     * Fait passer dans la bonne catégorie les personnes dont le statut enfant/adulte a changé depuis le
+     * dernier appel (19e anniversaire, naissance). Sans effet pour un moteur qui compte à la volée.
+     *
+     * @return nombre de personnes reclassées
+     */
+    default int rolloverAges() { return 0; }
+
+    // -------- Lectures jointes (habitant + dossier médical) --------
+
+    /**
+     * Retourne les habitants d'une adresse, chacun joint à son dossier médical.
+     * <p>
+     * Implémentation par défaut : {@link #findPersonsByAddress(String)} puis une recherche
+     * {@link #findMedicalRecord(String, String)} par habitant. Un moteur peut la surcharger pour
+     * réutiliser la clé d'identité déjà portée par ses index.
+     *
+     * @param address adresse postale exacte
+     * @return habitants et dossiers (dossier {@code null} si absent), jamais null (éventuellement vide)
+     */
+    default List<Resident> findResidentsByAddress(String address) {
+        return join(findPersonsByAddress(address));
+    }
+
+    /**
+     * Retourne les habitants couverts par une caserne, chacun joint à son dossier médical.
+     *
+     * @param stationNumber numéro de caserne (ex. "1")
+     * @return habitants et dossiers (dossier {@code null} si absent), jamais null (éventuellement vide)
+     * @see #findResidentsByAddress(String)
+     */
+    default List<Resident> findResidentsByStation(String stationNumber) {
+        return join(findPersonsByStation(stationNumber));
+    }
+
+    /**
+     * Retourne les personnes portant un nom de famille, chacune jointe à son dossier médical.
+     *
+     * @param lastName nom de famille
+     * @return personnes et dossiers (dossier {@code null} si absent), jamais null (éventuellement vide)
+     * @see #findResidentsByAddress(String)
+     */
+    default List<Resident> findResidentsByLastName(String lastName) {
+        return join(findPersonsByLastName(lastName));
+    }
+
+    private List<Resident> join(List<Person> persons) {
+        List<Resident> out = new ArrayList<>(persons.size());
+        for (Person p : persons) {
+            out.add(new Resident(p, findMedicalRecord(p.getFirstName(), p.getLastName()).orElse(null)));
+        }
+        return Collections.unmodifiableList(out);
+    }
+
+    // -------- Lectures paginées (ordre des clés) --------
+
+    /**
+     * Retourne une page des habitants d'une caserne joints à leur dossier médical, dans l'ordre de leur clé
+     * d'identité normalisée {@code first|last} : ceux dont la clé suit strictement {@code after}.
+     * <p>
+     * Implémentation par défaut : {@link #findResidentsByStation(String)} trié à chaque page. Un moteur peut la
+     * surcharger pour parcourir un index déjà trié, sans relire les pages précédentes.
+     *
+     * @param stationNumber numéro de caserne (ex. "1")
+     * @param after         clé d'identité exclusive de départ ({@link KeyedPage#next()} de la page précédente),
+     *                      {@code null} pour la première page
+     * @param limit         taille maximale de la page (au moins 1)
+     * @return page d'habitants, jamais null
+     * @throws IllegalArgumentException si {@code limit < 1}
+     */
+    default KeyedPage<Resident> pageResidentsByStation(String stationNumber, String after, int limit) {
+        return KeyedPage.sorted(findResidentsByStation(stationNumber), DataRepository::identityOf, after, limit);
+    }
+
+    /**
+     * Retourne une page des habitants d'une caserne ({@link #pageResidentsByStation(String, String, int)}) avec
+     * les totaux adultes / enfants de toute la caserne, lus sur le même état que la page.
+     *
+     * @param stationNumber numéro de caserne (ex. "1")
+     * @param after         clé d'identité exclusive de départ, {@code null} pour la première page
+     * @param limit         taille maximale de la page (au moins 1)
+     * @return page d'habitants et totaux de la caserne, jamais null
+     * @throws IllegalArgumentException si {@code limit < 1}
+     * @see #findCoverageByStation(String)
+     */
+    default StationCoverage<KeyedPage<Resident>> pageCoverageByStation(String stationNumber, String after, int limit) {
+        final List<Resident> residents = findResidentsByStation(stationNumber);
+        return new StationCoverage<>(KeyedPage.sorted(residents, DataRepository::identityOf, after, limit),
+                AgeCounts.tallyResidents(residents, today().toEpochDay()));
+    }
+
+    /**
+     * Retourne une page des personnes portant un nom de famille, jointes à leur dossier médical, dans l'ordre
+     * de leur clé d'identité normalisée {@code first|last}.
+     *
+     * @param lastName nom de famille
+     * @param after    clé d'identité exclusive de départ, {@code null} pour la première page
+     * @param limit    taille maximale de la page (au moins 1)
+     * @return page de personnes, jamais null
+     * @throws IllegalArgumentException si {@code limit < 1}
+     * @see #pageResidentsByStation(String, String, int)
+     */
+    default KeyedPage<Resident> pageResidentsByLastName(String lastName, String after, int limit) {
+        return KeyedPage.sorted(findResidentsByLastName(lastName), DataRepository::identityOf, after, limit);
+    }
+
+    /**
+     * Retourne une page des emails d'une ville, dans l'ordre des emails (qui servent de clé).
+     *
+     * @param city  ville
+     * @param after email exclusif de départ, {@code null} pour la première page
+     * @param limit taille maximale de la page (au moins 1)
+     * @return page d'emails, jamais null
+     * @throws IllegalArgumentException si {@code limit < 1}
+     * @see #pageResidentsByStation(String, String, int)
+     */
+    default KeyedPage<String> pageEmailsByCity(String city, String after, int limit) {
+        return KeyedPage.sorted(findEmailsByCity(city), e -> e, after, limit);
+    }
+
+    /**
+     * Parcourt les emails (dédupliqués) d'une ville un à un, pour écrire une réponse au fil de la lecture.
+     * <p>
+     * Implémentation par défaut : itérateur de {@link #findEmailsByCity(String)}. Un moteur dont l'index se
+     * parcourt sans copie la surcharge ; le parcours peut alors refléter ou non une écriture concurrente.
+     *
+     * @param city ville
+     * @return itérateur d'emails (sans {@code remove}), jamais null
+     */
+    default Iterator<String> iterateEmailsByCity(String city) {
+        return Collections.unmodifiableSet(findEmailsByCity(city)).iterator();
+    }
+
+    private static String identityOf(Resident r) {
+        return RepositoryKeys.key(r.person().getFirstName(), r.person().getLastName());
+    }
+
     // -------- Écritures (CRUD) --------
 
     /**
@@ -0,0 +1,120 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.model.FirestationMapping;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Empreinte (SHA-256) du contenu d'un jeu de données : identifie la base à laquelle s'applique le
+ * {@link WriteAheadLog}. Chaque section est condensée séparément, dans l'ordre du fichier : l'empreinte ne
+ * dépend pas de l'entrelacement des lots, elle est donc la même pour un chargement complet
+ * ({@link #of(DataSet)}) et un chargement en flux ({@link #sink(DataSetSink)}).
+ */
+final class DataSetFingerprint {
+
+    private final Section persons = new Section();
+    private final Section firestations = new Section();
+    private final Section medicalRecords = new Section();
+
+    static String of(DataSet ds) {
+        DataSetFingerprint f = new DataSetFingerprint();
+        f.persons(ds.getPersons());
+        f.firestations(ds.getFirestations());
+        f.medicalRecords(ds.getMedicalrecords());
+        return f.value();
+    }
+
+    /** Relais vers {@code target} qui condense chaque lot au passage. */
+    DataSetSink sink(DataSetSink target) {
+        return new DataSetSink() {
+            @Override
+            public void persons(List<Person> batch) {
+                DataSetFingerprint.this.persons(batch);
+                target.persons(batch);
+            }
+
+            @Override
+            public void firestations(List<FirestationMapping> batch) {
+                DataSetFingerprint.this.firestations(batch);
+                target.firestations(batch);
+            }
+
+            @Override
+            public void medicalRecords(List<MedicalRecord> batch) {
+                DataSetFingerprint.this.medicalRecords(batch);
+                target.medicalRecords(batch);
+            }
+        };
+    }
+
+    private void persons(List<Person> batch) {
+        if (batch == null) return;
+        try {
+            for (Person p : batch) RecordCodec.writePerson(persons.out, p);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void firestations(List<FirestationMapping> batch) {
+        if (batch == null) return;
+        try {
+            for (FirestationMapping m : batch) RecordCodec.writeMapping(firestations.out, m);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void medicalRecords(List<MedicalRecord> batch) {
+        if (batch == null) return;
+        try {
+            for (MedicalRecord mr : batch) RecordCodec.writeMedicalRecord(medicalRecords.out, mr);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Empreinte hexadécimale des trois sections. */
+    String value() {
+        MessageDigest all = sha256();
+        all.update(persons.finish());
+        all.update(firestations.finish());
+        all.update(medicalRecords.finish());
+        return HexFormat.of().formatHex(all.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e); // garanti par toute JVM
+        }
+    }
+
+    private static final class Section {
+        final MessageDigest digest = sha256();
+        final DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest), 1 << 13));
+
+        byte[] finish() {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return digest.digest();
+        }
+    }
+}
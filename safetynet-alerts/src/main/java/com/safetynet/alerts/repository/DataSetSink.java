@@ -0,0 +1,21 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.FirestationMapping;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+
+import java.util.List;
+
+/**
+ * Destination d'un chargement incrémental ({@link DataRepository#initIncremental(DataSetSource)}) :
+ * reçoit le jeu de données par lots, les trois sections pouvant arriver dans n'importe quel ordre.
+ * Les lots sont remis au dépôt qui peut les conserver : l'émetteur ne doit plus les modifier.
+ */
+public interface DataSetSink {
+
+    void persons(List<Person> batch);
+
+    void firestations(List<FirestationMapping> batch);
+
+    void medicalRecords(List<MedicalRecord> batch);
+}
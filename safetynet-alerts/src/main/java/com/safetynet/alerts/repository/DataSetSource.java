@@ -0,0 +1,13 @@
+package com.safetynet.alerts.repository;
+
+import java.io.IOException;
+
+/**
+ * Source d'un chargement incrémental : pousse le jeu de données, lot par lot, dans un {@link DataSetSink}
+ * (ex. lecture en flux de data.json).
+ */
+@FunctionalInterface
+public interface DataSetSource {
+
+    void feed(DataSetSink sink) throws IOException;
+}
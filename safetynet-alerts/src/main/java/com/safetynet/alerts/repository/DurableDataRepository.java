@@ -0,0 +1,316 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Décorateur durable d'un moteur de {@link DataRepository} : chaque écriture est d'abord journalisée dans le
+ * {@link WriteAheadLog} (validation groupée) puis appliquée au moteur ; les lectures vont directement au moteur.
+ * Les écritures d'une même entité sont sérialisées du journal jusqu'au moteur : l'état en mémoire est celui que
+ * le rejeu reconstruit.
+ * <p>
+ * Reprise : le journal s'applique à la version de data.json chargée en dernier (sa base, identifiée par
+ * {@link DataSetFingerprint}). Au démarrage, si data.json est resté le même, le journal est rejoué par-dessus,
+ * avant que l'application ne serve ; s'il a changé entre-temps, le nouvel export fait foi et le journal repart
+ * vide ({@link WriteAheadLog#checkpoint(String)}). Un rechargement à chaud fait toujours du fichier rechargé la
+ * nouvelle base : il remplace l'état, rien n'est rejoué par-dessus. Après un snapshot binaire, le journal est
+ * rejoué sur l'état restauré. Les mutations étant des remplacements complets, un rejeu partiel ou répété est
+ * sans danger.
+ * <p>
+ * Un chargement (démarrage, rechargement à chaud, snapshot) suspend les écrivains jusqu'à ce que l'état et la
+ * base du journal soient fixés : une écriture concurrente s'applique après, au nouvel état, et reste dans le
+ * journal de sa base. Les lectures ne sont pas bloquées ; elles voient l'ancien état puis le nouveau.
+ * <p>
+ * Point de reprise : si le moteur sait produire un snapshot binaire ({@link Snapshottable}), l'écriture du
+ * snapshot scelle le segment courant du journal ; une fois le fichier durable, les segments scellés sont
+ * compactés (dernière mutation par clé), jamais supprimés : le snapshot n'est pas la seule base de reprise
+ * (redémarrage sur le même data.json, snapshot désactivé au démarrage), et chacune doit retrouver toutes
+ * les écritures acquittées depuis la base. Rejouées sur le snapshot, elles sont sans effet. Seuls les écrivains sont
+ * suspendus, le temps de sceller le segment.
+ * <p>
+ * Instancié par {@link #wrap(DataRepository, WriteAheadLog)} ; activé par {@code safetynet.wal.enabled=true}.
+ */
+@Slf4j
+public class DurableDataRepository implements DataRepository {
+
+    protected final DataRepository delegate;
+    protected final WriteAheadLog wal;
+
+    // Écrivains : verrou partagé (journal + application) ; chargement et scellement du point de reprise :
+    // verrou exclusif.
+    protected final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    // Par clé d'entité (Mutation.compactionKey()) : deux écritures sur la même clé sont journalisées et
+    // appliquées dans le même ordre ; les mutations de clés différentes commutent.
+    private final StripedLocks keyLocks = StripedLocks.forAvailableProcessors();
+    // Faux jusqu'au premier chargement (démarrage) ; les suivants sont des rechargements à chaud.
+    // Sous checkpointLock exclusif.
+    protected boolean loaded;
+
+    protected DurableDataRepository(DataRepository delegate, WriteAheadLog wal) {
+        this.delegate = delegate;
+        this.wal = wal;
+    }
+
+    /** Décore {@code delegate}, en conservant la prise en charge des snapshots binaires s'il l'offre. */
+    public static DurableDataRepository wrap(DataRepository delegate, WriteAheadLog wal) {
+        DurableDataRepository durable = (delegate instanceof BinarySnapshotCapable)
+                ? new Snapshottable(delegate, wal)
+                : new DurableDataRepository(delegate, wal);
+        if (delegate.isRestored()) { // moteur persistant : pas d'init, on rejoue tout de suite
+            durable.recover();
+            durable.loaded = true;
+        }
+        return durable;
+    }
+
+    public DataRepository delegate() { return delegate; }
+
+    /** Rejoue le journal sur le moteur (sans re-journaliser). */
+    protected void recover() {
+        final AtomicLong replayed = new AtomicLong();
+        try {
+            wal.replay(m -> {
+                m.applyTo(delegate);
+                replayed.incrementAndGet();
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Rejeu du journal impossible", e);
+        }
+        log.info("Journal rejoué: {} mutation(s)", replayed.get());
+    }
+
+    private void log(Mutation m) {
+        checkpointLock.readLock().lock();
+        try (var held = keyLocks.lock(m.compactionKey())) {
+            wal.append(m);
+            m.applyTo(delegate);
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    /** Ferme le moteur décoré s'il détient des ressources (ses propres callbacks d'arrêt ne sont plus appelés). */
+    @PreDestroy
+    public void close() throws IOException {
+        if (delegate instanceof Closeable c) c.close();
+    }
+
+    // -------------------- Init / reprise --------------------
+    /**
+     * Après chargement du fichier d'empreinte {@code base} : au démarrage sur la base du journal (ou sur un
+     * journal antérieur à son suivi), rejoue le journal ; sinon, fait du fichier la nouvelle base.
+     */
+    private void rebase(String base) {
+        final boolean startup = !loaded;
+        loaded = true;
+        final Optional<String> logged = wal.base();
+        try {
+            if (startup && logged.map(base::equals).orElse(true)) {
+                recover();
+                if (logged.isEmpty()) wal.adopt(base);
+            } else {
+                wal.checkpoint(base);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Changement de base du journal impossible", e);
+        }
+    }
+
+    @Override
+    public void init(DataSet dataSet) {
+        final String base = DataSetFingerprint.of(dataSet);
+        checkpointLock.writeLock().lock();
+        try {
+            delegate.init(dataSet);
+            rebase(base);
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void initIncremental(DataSetSource source) throws IOException {
+        final DataSetFingerprint fingerprint = new DataSetFingerprint();
+        checkpointLock.writeLock().lock();
+        try {
+            delegate.initIncremental(sink -> source.feed(fingerprint.sink(sink)));
+            rebase(fingerprint.value());
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rechargement différentiel : le fichier devient la base du journal, qui n'est pas rejoué. Le bilan du
+     * moteur décrit donc exactement l'état laissé, écritures CRUD antérieures écrasées comprises.
+     */
+    @Override
+    public ChangeSummary reconcile(DataSet dataSet) {
+        final String base = DataSetFingerprint.of(dataSet);
+        checkpointLock.writeLock().lock();
+        try {
+            final ChangeSummary changes = delegate.reconcile(dataSet);
+            loaded = true; // toujours un rechargement, même sans init préalable
+            rebase(base);
+            return changes;
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isRestored() { return delegate.isRestored(); }
+
+    // -------------------- Lectures (directes) --------------------
+    @Override
+    public Set<String> findAddressesByStation(String stationNumber) { return delegate.findAddressesByStation(stationNumber); }
+
+    @Override
+    public List<Person> findPersonsByAddress(String address) { return delegate.findPersonsByAddress(address); }
+
+    @Override
+    public Optional<String> findStationByAddress(String address) { return delegate.findStationByAddress(address); }
+
+    @Override
+    public Optional<MedicalRecord> findMedicalRecord(String firstName, String lastName) { return delegate.findMedicalRecord(firstName, lastName); }
+
+    @Override
+    public List<Person> findPersonsByLastName(String lastName) { return delegate.findPersonsByLastName(lastName); }
+
+    @Override
+    public Set<String> findEmailsByCity(String city) { return delegate.findEmailsByCity(city); }
+
+    @Override
+    public Iterator<String> iterateEmailsByCity(String city) { return delegate.iterateEmailsByCity(city); }
+
+    @Override
+    public List<Person> findAllPersons() { return delegate.findAllPersons(); }
+
+    @Override
+    public Optional<Person> findPerson(String firstName, String lastName) { return delegate.findPerson(firstName, lastName); }
+
+    @Override
+    public List<Person> findPersonsByStation(String stationNumber) { return delegate.findPersonsByStation(stationNumber); }
+
+    @Override
+    public Set<String> findPhonesByStation(String stationNumber) { return delegate.findPhonesByStation(stationNumber); }
+
+    @Override
+    public AgeCounts countAgesByStation(String stationNumber) { return delegate.countAgesByStation(stationNumber); }
+
+    @Override
+    public AgeCounts countAgesByAddress(String address) { return delegate.countAgesByAddress(address); }
+
+    @Override
+    public StationCoverage<List<Person>> findCoverageByStation(String stationNumber) { return delegate.findCoverageByStation(stationNumber); }
+
+    @Override
+    public LocalDate today() { return delegate.today(); }
+
+    @Override
+    public List<Resident> findResidentsByAddress(String address) { return delegate.findResidentsByAddress(address); }
+
+    @Override
+    public List<Resident> findResidentsByStation(String stationNumber) { return delegate.findResidentsByStation(stationNumber); }
+
+    @Override
+    public List<Resident> findResidentsByLastName(String lastName) { return delegate.findResidentsByLastName(lastName); }
+
+    @Override
+    public KeyedPage<Resident> pageResidentsByStation(String stationNumber, String after, int limit) {
+        return delegate.pageResidentsByStation(stationNumber, after, limit);
+    }
+
+    @Override
+    public StationCoverage<KeyedPage<Resident>> pageCoverageByStation(String stationNumber, String after, int limit) {
+        return delegate.pageCoverageByStation(stationNumber, after, limit);
+    }
+
+    @Override
+    public KeyedPage<Resident> pageResidentsByLastName(String lastName, String after, int limit) {
+        return delegate.pageResidentsByLastName(lastName, after, limit);
+    }
+
+    @Override
+    public KeyedPage<String> pageEmailsByCity(String city, String after, int limit) { return delegate.pageEmailsByCity(city, after, limit); }
+
+    @Override
+    public int rolloverAges() { return delegate.rolloverAges(); }
+
+    // -------------------- Écritures (journalisées) --------------------
+    @Override
+    public void savePerson(Person person) { log(new Mutation.SavePerson(person)); }
+
+    @Override
+    public void deletePerson(String firstName, String lastName) { log(new Mutation.DeletePerson(firstName, lastName)); }
+
+    @Override
+    public void saveMedicalRecord(MedicalRecord mr) { log(new Mutation.SaveMedicalRecord(mr)); }
+
+    @Override
+    public void deleteMedicalRecord(String firstName, String lastName) { log(new Mutation.DeleteMedicalRecord(firstName, lastName)); }
+
+    @Override
+    public void saveMapping(String address, String station) { log(new Mutation.SaveMapping(address, station)); }
+
+    @Override
+    public void deleteMapping(String address) { log(new Mutation.DeleteMapping(address)); }
+
+    /** Variante pour un moteur {@link BinarySnapshotCapable} : snapshot = point de reprise du journal. */
+    static final class Snapshottable extends DurableDataRepository implements BinarySnapshotCapable {
+
+        private Snapshottable(DataRepository delegate, WriteAheadLog wal) { super(delegate, wal); }
+
+        private BinarySnapshotCapable capable() { return (BinarySnapshotCapable) delegate; }
+
+        @Override
+        public void writeSnapshot(DataOutput out) throws IOException {
+            // Sceller le segment sous verrou exclusif : toute mutation qu'il contient est déjà appliquée
+            // au moteur, donc présente dans le snapshot qui suit.
+            checkpointLock.writeLock().lock();
+            try {
+                wal.rotate();
+            } finally {
+                checkpointLock.writeLock().unlock();
+            }
+            capable().writeSnapshot(out);
+        }
+
+        @Override
+        public void readSnapshot(DataInput in) throws IOException {
+            checkpointLock.writeLock().lock();
+            try {
+                capable().readSnapshot(in);
+                recover();
+                loaded = true;
+            } finally {
+                checkpointLock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public String snapshotEngine() { return capable().snapshotEngine(); }
+
+        @Override
+        public void snapshotWritten() {
+            wal.compactAsync();
+        }
+    }
+}
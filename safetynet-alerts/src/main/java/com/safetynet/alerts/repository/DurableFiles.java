@@ -0,0 +1,49 @@
+package com.safetynet.alerts.repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Remplacement durable d'un fichier : le contenu du fichier temporaire doit être forcé sur disque AVANT le
+ * renommage atomique, et le répertoire parent APRÈS. Sans le premier, une coupure peut laisser un fichier
+ * renommé mais vide ou tronqué ; sans le second, le renommage lui-même peut être perdu alors que l'appelant
+ * a déjà agi en conséquence (ex. supprimé ce que le nouveau fichier remplace).
+ */
+@Slf4j
+final class DurableFiles {
+
+    private DurableFiles() {}
+
+    /**
+     * Renomme atomiquement {@code tmp} en {@code target} (remplacé s'il existe) puis force le répertoire.
+     * Le contenu de {@code tmp} doit déjà avoir été forcé ({@link FileChannel#force(boolean)}).
+     */
+    static void replace(Path tmp, Path target) throws IOException {
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(target.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Force l'entrée de répertoire (création, renommage, suppression) sur disque. Sans effet là où le système
+     * ne permet pas d'ouvrir un répertoire (Windows) : le renommage y est déjà journalisé par le système de fichiers.
+     */
+    static void forceDirectory(Path dir) throws IOException {
+        if (dir == null) return;
+        final FileChannel ch;
+        try {
+            ch = FileChannel.open(dir, StandardOpenOption.READ);
+        } catch (IOException | UnsupportedOperationException e) {
+            log.debug("fsync du répertoire {} non pris en charge", dir, e);
+            return;
+        }
+        try (ch) {
+            ch.force(true);
+        }
+    }
+}
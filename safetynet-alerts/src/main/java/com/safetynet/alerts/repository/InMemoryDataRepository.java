@@ -4,225 +4,935 @@ import com.safetynet.alerts.model.DataSet;
 import com.safetynet.alerts.model.FirestationMapping;
 import com.safetynet.alerts.model.MedicalRecord;
 import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.time.AgeCalculator;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Repository
-public class InMemoryDataRepository implements DataRepository {
+@ConditionalOnProperty(prefix = "safetynet.repository", name = "engine", havingValue = "memory", matchIfMissing = true)
+public class InMemoryDataRepository implements DataRepository, BinarySnapshotCapable {
 
     // ---------- Index ----------
-    private final ConcurrentMap<String, List<Person>>  personsByAddress         = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, Set<String>>   addressesByStation       = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, String>        stationByAddress         = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, MedicalRecord> medicalRecordByPersonKey = new ConcurrentHashMap<>();
+    // Tous les index vivent dans un State publié par une référence volatile : init(), readSnapshot() et
+    // initIncremental() construisent un State complet à l'écart puis l'échangent d'un coup (publish).
+    // Une lecture prend la référence une fois et ne voit donc jamais un jeu de données partiel ; l'ancien
+    // State est libéré par le GC dès que les requêtes qui le lisaient encore sont terminées.
+    private static final class State {
+        // Les « listes » de personnes sont des seaux identité -> personne : ajout/retrait en O(1), sans removeIf,
+        // et liste immuable partagée par les lectures tant que le seau ne change pas (PersonBucket).
+        final ConcurrentMap<String, PersonBucket>  personsByAddress         = new ConcurrentHashMap<>();
+        final ConcurrentMap<String, Set<String>>   addressesByStation       = new ConcurrentHashMap<>();
+        // Vue matérialisée pour /firestation et /phoneAlert : caserne -> (identité -> habitant), tenue à jour
+        // par les écritures personne et mapping. Une adresse peut figurer sous plusieurs casernes (doublons de
+        // data.json) : stationsByAddress est l'inverse multi-valué de addressesByStation.
+        final ConcurrentMap<String, PersonBucket>  residentsByStation       = new ConcurrentHashMap<>();
+        final ConcurrentMap<String, Set<String>>   stationsByAddress        = new ConcurrentHashMap<>();
 
-    // Pour /personInfo & /communityEmail
-    private final ConcurrentMap<String, List<Person>>  personsByLastName        = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, Set<String>>   emailsByCity             = new ConcurrentHashMap<>();
+        // Compteurs adultes/enfants par adresse et par caserne, empaquetés dans un long (adultes << 32 | enfants)
+        // pour une lecture cohérente en O(1). childKeys : identités classées « enfant » au jour countedOn.
+        // ageTransitions : file ordonnée des prochains changements de classe (naissance, 19e anniversaire),
+        // date -> identités ; le passage d'un jour ne reclasse que les personnes concernées, sans rescan.
+        final ConcurrentMap<String, AtomicLong> agesByAddress = new ConcurrentHashMap<>();
+        final ConcurrentMap<String, AtomicLong> agesByStation = new ConcurrentHashMap<>();
+        final Set<String> childKeys = ConcurrentHashMap.newKeySet();
+        final ConcurrentSkipListMap<LocalDate, Set<String>> ageTransitions = new ConcurrentSkipListMap<>();
+        volatile LocalDate countedOn = LocalDate.MIN; // modifié sous lockAll()
+        final ConcurrentMap<String, String>        stationByAddress         = new ConcurrentHashMap<>();
+        final ConcurrentMap<String, MedicalRecord> medicalRecordByPersonKey = new ConcurrentHashMap<>();
 
-    // Snapshot global & accès direct par identité
-    private final List<Person> persons = new ArrayList<>();
-    private final ConcurrentMap<String, Person> personsByKey = new ConcurrentHashMap<>();
+        // Pour /personInfo & /communityEmail
+        final ConcurrentMap<String, PersonBucket>  personsByLastName        = new ConcurrentHashMap<>();
+        // ville -> (email -> nombre de personnes de la ville qui le partagent) : multiset à compteurs,
+        // ajout/retrait en O(1) ; l'email disparaît quand son compteur retombe à zéro.
+        final ConcurrentMap<String, Map<String, Integer>> emailsByCity      = new ConcurrentHashMap<>();
+        // ville -> emails triés (/communityEmail paginé), créés à la première lecture et invalidés après chaque
+        // écriture sur les emails de la ville
+        final ConcurrentMap<String, SharedView<SortedRun<String>>> sortedEmailsByCity = new ConcurrentHashMap<>();
+
+        // Accès direct par identité (sert aussi de snapshot global)
+        final ConcurrentMap<String, Person> personsByKey = new ConcurrentHashMap<>();
+        // Copie immuable de personsByKey servie par findAllPersons(), refaite seulement après une écriture personne
+        final SharedView<List<Person>> allPersons = new SharedView<>();
+
+        // Clés d'index sous lesquelles chaque personne a été indexée. Le service met à jour l'instance
+        // renvoyée par findPerson() AVANT savePerson() : on ne peut donc pas relire l'ancienne adresse
+        // sur le bean pour le désindexer.
+        final ConcurrentMap<String, Indexed> indexedByKey = new ConcurrentHashMap<>();
+    }
+
+    private record Indexed(String address, String lastName, String city, String email) {}
+
+    private volatile State state = new State();
+
+    // Écritures sérialisées par foyer (adresse), nom de famille, ville et identité ; lectures sans verrou.
+    // Un échange de State se fait sous lockAll() : un écrivain qui détient ses verrous voit un State stable.
+    private final StripedLocks locks = StripedLocks.forAvailableProcessors();
+
+    // Valeurs répétées (adresse, ville, zip, caserne) dédupliquées, avec forme normalisée précalculée.
+    private final StringDictionaries dictionaries;
+
+    // Date du jour pour la classification adulte/enfant
+    private final Clock clock;
+
+    public InMemoryDataRepository() { this(new StringDictionaries()); }
+
+    public InMemoryDataRepository(StringDictionaries dictionaries) { this(dictionaries, Clock.systemDefaultZone()); }
+
+    @Autowired
+    public InMemoryDataRepository(StringDictionaries dictionaries, Clock clock) {
+        this.dictionaries = dictionaries;
+        this.clock = clock;
+        this.state.countedOn = LocalDate.now(clock); // dépôt vide alimenté par CRUD seul
+    }
 
     // -------------------- Helpers --------------------
-    private static String norm(String s) { return (s == null) ? "" : s.trim().toLowerCase(Locale.ROOT); }
-    private static String key(String first, String last) { return norm(first) + "|" + norm(last); }
-    private static boolean samePerson(Person a, Person b) {
-        return norm(a.getFirstName()).equals(norm(b.getFirstName()))
-                && norm(a.getLastName()).equals(norm(b.getLastName()));
+    private static String norm(String s) { return RepositoryKeys.norm(s); }
+    private static String key(String first, String last) { return RepositoryKeys.key(first, last); }
+
+    private String addressKey(String address) { return dictionaries.address().normalized(address); }
+    private String cityKey(String city) { return dictionaries.city().normalized(city); }
+    private String stationKey(String station) { return dictionaries.station().normalized(station); }
+
+    // À appeler sur une personne déjà passée par dictionaries.intern(...).
+    private Indexed indexed(Person p) {
+        return new Indexed(addressKey(p.getAddress()), norm(p.getLastName()), cityKey(p.getCity()), p.getEmail());
+    }
+
+    // Verrous couvrant l'ancienne ET la nouvelle version d'une personne.
+    private static String[] personStripes(String k, Indexed previous, Indexed next) {
+        List<String> keys = new ArrayList<>(7);
+        keys.add("p:" + k);
+        for (Indexed ix : new Indexed[]{previous, next}) {
+            if (ix == null) continue;
+            keys.add("a:" + ix.address());
+            keys.add("n:" + ix.lastName());
+            keys.add("c:" + ix.city());
+        }
+        return keys.toArray(String[]::new);
+    }
+
+    // Publication atomique d'un State construit à l'écart : attend la fin des écritures en cours
+    // (qui recommenceront sur le nouveau State, cf. contrôle « state != s » des boucles d'écriture).
+    private void publish(State next) {
+        try (var held = locks.lockAll()) {
+            state = next;
+        }
     }
 
     // ÉCRITURES -> COHÉRENCE DES INDEX
     // Cette méthode (ré)indexe une personne dans TOUS les index dérivés.
     // Invariant maintenu: après savePerson(), les vues par adresse, nom, ville/email et le snapshot global sont alignés.
-    private void indexPerson(Person p) {
+    // Appelée sous les verrous de personStripes() (ou sur un State pas encore publié).
+    private static void indexPerson(State st, String k, Person p, Indexed ix) {
         // index principal
-        personsByKey.put(key(p.getFirstName(), p.getLastName()), p);
+        st.personsByKey.put(k, p);
+        st.indexedByKey.put(k, ix);
+        st.allPersons.invalidate();
 
         // adresse -> personnes
-        personsByAddress.compute(norm(p.getAddress()), (addr, list) -> {
-            if (list == null) list = new ArrayList<>();
-            list.removeIf(old -> samePerson(old, p));
-            list.add(p);
-            return list;
-        });
+        st.personsByAddress.computeIfAbsent(ix.address(), a -> new PersonBucket()).put(k, p);
 
         // nom -> personnes
-        personsByLastName.compute(norm(p.getLastName()), (ln, list) -> {
-            if (list == null) list = new ArrayList<>();
-            list.removeIf(old -> samePerson(old, p));
-            list.add(p);
-            return list;
-        });
+        st.personsByLastName.computeIfAbsent(ix.lastName(), ln -> new PersonBucket()).put(k, p);
+
+        // city -> emails (+1 référence)
+        if (ix.email() != null) {
+            st.emailsByCity.computeIfAbsent(ix.city(), c -> new ConcurrentHashMap<>()).merge(ix.email(), 1, Integer::sum);
+            invalidateEmails(st, ix.city());
+        }
 
-        // city -> emails
-        if (p.getEmail() != null) {
-            emailsByCity.compute(norm(p.getCity()), (c, set) -> {
-                if (set == null) set = ConcurrentHashMap.newKeySet();
-                set.add(p.getEmail());
-                return set;
+        // caserne(s) du foyer -> habitants
+        for (String station : st.stationsByAddress.getOrDefault(ix.address(), Set.of())) {
+            addResidents(st, station, Map.of(k, p));
+        }
+
+        // adultes / enfants du foyer et de ses casernes
+        countPerson(st, ix.address(), st.childKeys.contains(k), +1);
+    }
+
+    private static void deindexPerson(State st, String k, Indexed ix) {
+        st.personsByKey.remove(k);
+        st.indexedByKey.remove(k);
+        st.allPersons.invalidate();
+
+        st.personsByAddress.computeIfPresent(ix.address(), (a, b) -> { b.remove(k); return b.isEmpty() ? null : b; });
+        st.personsByLastName.computeIfPresent(ix.lastName(), (ln, b) -> { b.remove(k); return b.isEmpty() ? null : b; });
+
+        // city -> emails (-1 référence ; verrou de la ville détenu : aucun autre écrivain sur cette ville)
+        if (ix.email() != null) {
+            st.emailsByCity.computeIfPresent(ix.city(), (c, m) -> {
+                m.computeIfPresent(ix.email(), (e, n) -> n == 1 ? null : n - 1);
+                return m.isEmpty() ? null : m;
             });
+            invalidateEmails(st, ix.city());
         }
 
-        // snapshot global
-        persons.removeIf(old -> samePerson(old, p));
-        persons.add(p);
+        for (String station : st.stationsByAddress.getOrDefault(ix.address(), Set.of())) {
+            removeResidents(st, station, Set.of(k));
+        }
+
+        countPerson(st, ix.address(), st.childKeys.contains(k), -1);
+    }
+
+    // Après l'écriture : une vue créée plus tard lit déjà les emails à jour
+    private static void invalidateEmails(State st, String city) {
+        final SharedView<SortedRun<String>> v = st.sortedEmailsByCity.get(city);
+        if (v != null) v.invalidate();
+    }
+
+    // Un même seau de caserne reçoit les habitants de plusieurs adresses (verrous d'adresse différents) :
+    // ajout et retrait passent par compute(), atomique sur la caserne, pour ne jamais écrire dans un seau détaché.
+    private static void addResidents(State st, String station, Map<String, Person> residents) {
+        if (residents.isEmpty()) return;
+        st.residentsByStation.compute(station, (s, b) -> {
+            if (b == null) b = new PersonBucket();
+            b.putAll(residents);
+            return b;
+        });
+    }
+
+    private static void removeResidents(State st, String station, Set<String> keys) {
+        st.residentsByStation.computeIfPresent(station, (s, b) -> {
+            b.removeAll(keys);
+            return b.isEmpty() ? null : b;
+        });
     }
 
-    private void deindexPerson(Person p) {
-        personsByKey.remove(key(p.getFirstName(), p.getLastName()));
+    // Habitants d'un foyer (identité -> personne), vide si l'adresse n'a aucun habitant
+    private static Map<String, Person> household(State st, String address) {
+        final PersonBucket b = st.personsByAddress.get(address);
+        return (b == null) ? Map.of() : b.byIdentity();
+    }
 
-        personsByAddress.computeIfPresent(norm(p.getAddress()), (a, list) -> { list.removeIf(old -> samePerson(old, p)); return list; });
-        personsByLastName.computeIfPresent(norm(p.getLastName()), (ln, list) -> { list.removeIf(old -> samePerson(old, p)); return list; });
+    // Vues par caserne et compteurs d'âge reconstruits à partir des index de base
+    // (après init, flux ou snapshot, State non publié).
+    private void materializeStationViews(State st) {
+        st.addressesByStation.forEach((station, addresses) -> {
+            for (String address : addresses) {
+                final String a = addressKey(address);
+                st.stationsByAddress.computeIfAbsent(a, x -> ConcurrentHashMap.newKeySet()).add(station);
+                addResidents(st, station, household(st, a));
+            }
+        });
 
-        // recalcul léger des emails pour la ville concernée
-        emailsByCity.compute(norm(p.getCity()), (c, set) -> {
-            Set<String> recompute = persons.stream()
-                    .filter(x -> norm(x.getCity()).equals(norm(p.getCity())))
-                    .map(Person::getEmail).filter(Objects::nonNull)
-                    .collect(Collectors.toCollection(ConcurrentHashMap::newKeySet));
-            return recompute.isEmpty() ? null : recompute;
+        // Le chargement en flux a pu compter des personnes avant l'arrivée des dossiers et mappings : on repart de zéro.
+        st.agesByAddress.clear();
+        st.agesByStation.clear();
+        st.childKeys.clear();
+        st.ageTransitions.clear();
+        st.countedOn = LocalDate.now(clock);
+        st.medicalRecordByPersonKey.forEach((k, mr) -> {
+            final LocalDate dob = birthdateOf(mr);
+            if (AgeCalculator.isChild(dob, st.countedOn)) st.childKeys.add(k);
+            scheduleAgeTransition(st, k, dob);
         });
+        st.indexedByKey.forEach((k, ix) -> countPerson(st, ix.address(), st.childKeys.contains(k), +1));
+    }
+
+    // -------------------- Compteurs adultes / enfants --------------------
+    private static long ageDelta(boolean child, int sign) { return child ? sign : ((long) sign << 32); }
 
-        persons.removeIf(old -> samePerson(old, p));
+    private static AgeCounts unpack(AtomicLong packed) {
+        if (packed == null) return AgeCounts.NONE;
+        final long v = packed.get();
+        return new AgeCounts((int) (v >>> 32), (int) v);
+    }
+
+    private static void addAges(ConcurrentMap<String, AtomicLong> counters, String key, long delta) {
+        if (delta != 0) counters.computeIfAbsent(key, x -> new AtomicLong()).addAndGet(delta);
+    }
+
+    // Compte (+1) ou décompte (-1) une personne dans son foyer et les casernes qui le desservent
+    // (verrou de l'adresse détenu : rattachements de l'adresse stables).
+    private static void countPerson(State st, String address, boolean child, int sign) {
+        final long delta = ageDelta(child, sign);
+        addAges(st.agesByAddress, address, delta);
+        for (String station : st.stationsByAddress.getOrDefault(address, Set.of())) addAges(st.agesByStation, station, delta);
+    }
+
+    private static LocalDate birthdateOf(MedicalRecord mr) {
+        return mr == null || mr.getBirthEpochDay() == AgeCalculator.NO_DATE ? null : LocalDate.ofEpochDay(mr.getBirthEpochDay());
+    }
+
+    private static void scheduleAgeTransition(State st, String k, LocalDate dob) {
+        final LocalDate next = AgeCalculator.nextChildStatusChange(dob, st.countedOn);
+        if (next != null) st.ageTransitions.computeIfAbsent(next, d -> ConcurrentHashMap.newKeySet()).add(k);
+    }
+
+    // Réévalue la classe d'une identité d'après son dossier (verrous identité + adresse détenus).
+    // Les entrées périmées de la file (dossier modifié depuis) se réévaluent simplement sans effet.
+    private static boolean reclassify(State st, String k, Indexed ix) {
+        final LocalDate dob = birthdateOf(st.medicalRecordByPersonKey.get(k));
+        final boolean child = AgeCalculator.isChild(dob, st.countedOn);
+        scheduleAgeTransition(st, k, dob);
+        if (child == st.childKeys.contains(k)) return false;
+        if (child) st.childKeys.add(k); else st.childKeys.remove(k);
+        if (ix != null) {
+            countPerson(st, ix.address(), !child, -1);
+            countPerson(st, ix.address(), child, +1);
+        }
+        return true;
+    }
+
+    // Prend les verrous identité + adresse courante de k ; recommence si la personne a déménagé entre-temps.
+    // Renvoie false (sans rien faire) si le State a été remplacé.
+    private boolean withPersonLocked(State st, String k, Runnable write) {
+        while (true) {
+            final Indexed ix = st.indexedByKey.get(k);
+            try (var held = (ix == null) ? locks.lock("p:" + k) : locks.lock("p:" + k, "a:" + ix.address())) {
+                if (state != st) return false;
+                if (st.indexedByKey.get(k) != ix) continue;
+                write.run();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Passage de jour : reclasse les seules personnes dont la date de changement (19e anniversaire, naissance)
+     * est atteinte, en dépilant la file ordonnée par date. Planifié à minuit (AgeRolloverScheduler) et déclenché
+     * paresseusement par les lectures de compteurs si le jour a changé entre-temps.
+     */
+    @Override
+    public synchronized int rolloverAges() {
+        final State st = state;
+        final LocalDate today = LocalDate.now(clock);
+        if (!today.isAfter(st.countedOn)) return 0;
+        // Sous lockAll : une écriture en cours a planifié sa transition avant, une écriture suivante voit le nouveau jour.
+        try (var held = locks.lockAll()) {
+            if (state != st) return 0;
+            st.countedOn = today;
+        }
+        int changed = 0;
+        Map.Entry<LocalDate, Set<String>> due;
+        while ((due = st.ageTransitions.firstEntry()) != null && !due.getKey().isAfter(today)) {
+            st.ageTransitions.remove(due.getKey());
+            for (String k : due.getValue()) {
+                final boolean[] moved = {false};
+                if (!withPersonLocked(st, k, () -> moved[0] = reclassify(st, k, st.indexedByKey.get(k)))) return changed;
+                if (moved[0]) changed++;
+            }
+        }
+        if (changed > 0) log.info("Passage au {} : {} personne(s) reclassée(s) adulte/enfant", today, changed);
+        return changed;
+    }
+
+    private void rolloverIfDue() {
+        if (LocalDate.now(clock).isAfter(state.countedOn)) rolloverAges();
     }
 
     // -------------------- Init (idempotent) --------------------
+    // En dessous de ce volume, les flux parallèles coûtent plus qu'ils ne rapportent.
+    static final int PARALLEL_THRESHOLD = 10_000;
+
+    // Construction fork/join : chaque index est une tâche indépendante (exécutées en parallèle), et chaque tâche
+    // partitionne elle-même ses données (flux parallèle) puis fusionne les résultats partiels dans l'ordre
+    // d'origine, ce qui conserve les règles first-wins / last-wins de la version séquentielle.
+    // Le nouveau State n'est publié qu'une fois complet : les lectures continuent sur l'ancien pendant la construction.
     @Override
     public void init(final DataSet dataSet) {
         Objects.requireNonNull(dataSet, "dataSet must not be null");
 
-        // Reset
-        personsByAddress.clear();
-        addressesByStation.clear();
-        stationByAddress.clear();
-        medicalRecordByPersonKey.clear();
-        personsByLastName.clear();
-        emailsByCity.clear();
-        personsByKey.clear();
-        persons.clear();
-
-        // -------- Persons --------
-        final List<Person> ps = Optional.ofNullable(dataSet.getPersons()).orElseGet(List::of);
-        if (!ps.isEmpty()) {
-            persons.addAll(ps);
-            ps.forEach(p -> personsByKey.put(key(p.getFirstName(), p.getLastName()), p));
-
-            // adresse -> personnes
-            personsByAddress.putAll(
-                    (Map<? extends String, ? extends List<Person>>) ps.stream().collect(Collectors.groupingBy(
-                            p -> norm(p.getAddress()),
-                            ConcurrentHashMap::new,
-                            Collectors.toList()))
-            );
-
-            // lastName -> personnes
-            personsByLastName.putAll(
-                    (Map<? extends String, ? extends List<Person>>) ps.stream().collect(Collectors.groupingBy(
-                            p -> norm(p.getLastName()),
-                            ConcurrentHashMap::new,
-                            Collectors.toList()))
-            );
-
-            // city -> emails
-            emailsByCity.putAll(
-                    (Map<? extends String, ? extends Set<String>>) ps.stream()
-                            .filter(p -> p.getEmail() != null)
-                            .collect(Collectors.groupingBy(
-                                    p -> norm(p.getCity()),
-                                    ConcurrentHashMap::new,
-                                    Collectors.mapping(Person::getEmail, Collectors.toCollection(ConcurrentHashMap::newKeySet))))
-            );
-        }
-
-        // -------- Firestations --------
-        final List<FirestationMapping> fs = Optional.ofNullable(dataSet.getFirestations()).orElseGet(List::of);
-        if (!fs.isEmpty()) {
-            // station -> adresses
-            addressesByStation.putAll(
-                    (Map<? extends String, ? extends Set<String>>) fs.stream().collect(Collectors.groupingBy(
-                            m -> norm(m.getStation()),
-                            ConcurrentHashMap::new,
-                            Collectors.mapping(FirestationMapping::getAddress, Collectors.toCollection(ConcurrentHashMap::newKeySet))))
-            );
-            // adresse -> station (first-wins)
-            stationByAddress.putAll(
-                    fs.stream().collect(Collectors.toMap(
-                            m -> norm(m.getAddress()),
-                            m -> norm(m.getStation()),
-                            (first, second) -> first))
-            );
-        }
-
-        // -------- Medical records --------
-        final List<MedicalRecord> mrs = Optional.ofNullable(dataSet.getMedicalrecords()).orElseGet(List::of);
-        if (!mrs.isEmpty()) {
-            medicalRecordByPersonKey.putAll(
-                    mrs.stream().collect(Collectors.toMap(
-                            mr -> key(mr.getFirstName(), mr.getLastName()),
-                            mr -> mr,
-                            (a, b) -> b)) // last-wins
-            );
-        }
-
-        log.info("Repo init: persons={}, addresses={}, stations={}, records={}",
-                persons.size(), personsByAddress.size(), addressesByStation.size(), medicalRecordByPersonKey.size());
+        final Map<String, Long> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+        final long start = System.nanoTime();
+        final State next = new State();
+        try {
+            // Déduplication des chaînes répétées (no-op si DataLoader l'a déjà fait)
+            timed(timings, "intern", () -> dictionaries.intern(dataSet));
+
+            final List<Person> ps = Optional.ofNullable(dataSet.getPersons()).orElseGet(List::of);
+            final List<FirestationMapping> fs = Optional.ofNullable(dataSet.getFirestations()).orElseGet(List::of);
+            final List<MedicalRecord> mrs = Optional.ofNullable(dataSet.getMedicalrecords()).orElseGet(List::of);
+
+            CompletableFuture.allOf(
+                    // -------- Persons --------
+                    task(timings, "byKey", () -> {
+                        Map<String, Person> byKey = stream(ps).collect(Collectors.toMap(
+                                p -> key(p.getFirstName(), p.getLastName()), p -> p, (a, b) -> b, HashMap::new));
+                        byKey.forEach((k, p) -> {
+                            next.personsByKey.put(k, p);
+                            next.indexedByKey.put(k, indexed(p));
+                        });
+                    }),
+                    // adresse -> personnes
+                    task(timings, "byAddress", () -> next.personsByAddress.putAll(groupByIdentity(ps, p -> addressKey(p.getAddress())))),
+                    // lastName -> personnes
+                    task(timings, "byLastName", () -> next.personsByLastName.putAll(groupByIdentity(ps, p -> norm(p.getLastName())))),
+                    // city -> emails (compteurs calculés sur les personnes retenues, doublons d'identité exclus)
+                    task(timings, "emailsByCity", () -> {
+                        Map<String, Map<String, Integer>> byCity = stream(latestByIdentity(ps))
+                                .filter(p -> p.getEmail() != null)
+                                .collect(Collectors.groupingBy(
+                                        p -> cityKey(p.getCity()),
+                                        HashMap::new,
+                                        Collectors.toMap(Person::getEmail, p -> 1, Integer::sum, ConcurrentHashMap::new)));
+                        next.emailsByCity.putAll(byCity);
+                    }),
+
+                    // -------- Firestations --------
+                    // station -> adresses
+                    task(timings, "addressesByStation", () -> {
+                        Map<String, Set<String>> byStation = stream(fs)
+                                .collect(Collectors.groupingBy(
+                                        m -> stationKey(m.getStation()),
+                                        HashMap::new,
+                                        Collectors.mapping(FirestationMapping::getAddress, Collectors.toCollection(ConcurrentHashMap::newKeySet))));
+                        next.addressesByStation.putAll(byStation);
+                    }),
+                    // adresse -> station (first-wins)
+                    task(timings, "stationByAddress", () -> {
+                        Map<String, String> byAddress = stream(fs)
+                                .collect(Collectors.toMap(
+                                        m -> addressKey(m.getAddress()),
+                                        m -> stationKey(m.getStation()),
+                                        (first, second) -> first,
+                                        HashMap::new));
+                        next.stationByAddress.putAll(byAddress);
+                    }),
+
+                    // -------- Medical records --------
+                    task(timings, "records", () -> {
+                        Map<String, MedicalRecord> byKey = stream(mrs)
+                                .collect(Collectors.toMap(
+                                        mr -> key(mr.getFirstName(), mr.getLastName()),
+                                        mr -> mr,
+                                        (a, b) -> b, // last-wins
+                                        HashMap::new));
+                        next.medicalRecordByPersonKey.putAll(byKey);
+                    })
+            ).join();
+            timed(timings, "residentsByStation", () -> materializeStationViews(next));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+        publish(next);
+
+        log.info("Repo init: persons={}, addresses={}, stations={}, records={}, timings(ms)={}, total={} ms, parallelism={}",
+                next.personsByKey.size(), next.personsByAddress.size(), next.addressesByStation.size(), next.medicalRecordByPersonKey.size(),
+                timings, (System.nanoTime() - start) / 1_000_000, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    // Chargement par lots : les lots sont indexés dans un State privé (sans verrou), publié à la fin du flux.
+    // Une source qui échoue en cours de lecture laisse donc l'état courant intact.
+    @Override
+    public void initIncremental(DataSetSource source) throws IOException {
+        final long start = System.nanoTime();
+        final State next = new State();
+        source.feed(new DataSetSink() {
+            @Override
+            public void persons(List<Person> batch) {
+                for (Person p : batch) {
+                    final Person person = dictionaries.intern(p);
+                    final String k = key(person.getFirstName(), person.getLastName());
+                    final Indexed previous = next.indexedByKey.get(k);
+                    if (previous != null) deindexPerson(next, k, previous); // last-wins
+                    indexPerson(next, k, person, indexed(person));
+                }
+            }
+
+            @Override
+            public void firestations(List<FirestationMapping> batch) {
+                for (FirestationMapping m : batch) {
+                    final String canonical = dictionaries.address().intern(m.getAddress());
+                    final String s = stationKey(dictionaries.station().intern(m.getStation()));
+                    if (next.stationByAddress.putIfAbsent(addressKey(canonical), s) == null) { // first-wins
+                        next.addressesByStation.computeIfAbsent(s, st -> ConcurrentHashMap.newKeySet()).add(canonical);
+                    }
+                }
+            }
+
+            @Override
+            public void medicalRecords(List<MedicalRecord> batch) {
+                for (MedicalRecord mr : batch) next.medicalRecordByPersonKey.put(key(mr.getFirstName(), mr.getLastName()), mr);
+            }
+        });
+        materializeStationViews(next); // personnes et mappings peuvent arriver dans n'importe quel ordre
+        publish(next);
+
+        log.info("Repo init (flux): persons={}, addresses={}, stations={}, records={}, total={} ms",
+                next.personsByKey.size(), next.personsByAddress.size(), next.addressesByStation.size(),
+                next.medicalRecordByPersonKey.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // -------------------- Réconciliation (rechargement différentiel) --------------------
+    // Diff par identité contre l'état publié : seules les entrées absentes, différentes ou disparues sont
+    // écrites, via les chemins CRUD habituels (verrous striés, maintenance des index). Le coût suit donc le
+    // nombre de changements, plus une passe de comparaison sans allocation d'index.
+    @Override
+    public ChangeSummary reconcile(final DataSet dataSet) {
+        Objects.requireNonNull(dataSet, "dataSet must not be null");
+        final long start = System.nanoTime();
+        dictionaries.intern(dataSet);
+        final State st = state;
+
+        // -------- Persons (last-wins) --------
+        final Map<String, Person> persons = new LinkedHashMap<>();
+        for (Person p : Optional.ofNullable(dataSet.getPersons()).orElseGet(List::of)) {
+            persons.put(key(p.getFirstName(), p.getLastName()), p);
+        }
+        int inserted = 0, updated = 0, deleted = 0;
+        for (Map.Entry<String, Person> e : persons.entrySet()) {
+            final Person current = st.personsByKey.get(e.getKey());
+            if (current == null) inserted++;
+            else if (sameContent(current, e.getValue())) continue;
+            else updated++;
+            savePerson(e.getValue());
+        }
+        for (Person current : List.copyOf(st.personsByKey.values())) {
+            if (persons.containsKey(key(current.getFirstName(), current.getLastName()))) continue;
+            deletePerson(current.getFirstName(), current.getLastName());
+            deleted++;
+        }
+        final ChangeSummary.Counts personCounts = new ChangeSummary.Counts(inserted, updated, deleted);
+
+        // -------- Medical records (last-wins) --------
+        final Map<String, MedicalRecord> records = new LinkedHashMap<>();
+        for (MedicalRecord mr : Optional.ofNullable(dataSet.getMedicalrecords()).orElseGet(List::of)) {
+            records.put(key(mr.getFirstName(), mr.getLastName()), mr);
+        }
+        inserted = updated = deleted = 0;
+        for (Map.Entry<String, MedicalRecord> e : records.entrySet()) {
+            final MedicalRecord current = st.medicalRecordByPersonKey.get(e.getKey());
+            if (current == null) inserted++;
+            else if (sameContent(current, e.getValue())) continue;
+            else updated++;
+            saveMedicalRecord(e.getValue());
+        }
+        for (MedicalRecord current : List.copyOf(st.medicalRecordByPersonKey.values())) {
+            if (records.containsKey(key(current.getFirstName(), current.getLastName()))) continue;
+            deleteMedicalRecord(current.getFirstName(), current.getLastName());
+            deleted++;
+        }
+        final ChangeSummary.Counts recordCounts = new ChangeSummary.Counts(inserted, updated, deleted);
+
+        // -------- Firestations (first-wins) --------
+        final Map<String, FirestationMapping> mappings = new LinkedHashMap<>();
+        for (FirestationMapping m : Optional.ofNullable(dataSet.getFirestations()).orElseGet(List::of)) {
+            mappings.putIfAbsent(addressKey(m.getAddress()), m);
+        }
+        inserted = updated = deleted = 0;
+        for (Map.Entry<String, FirestationMapping> e : mappings.entrySet()) {
+            final String current = st.stationByAddress.get(e.getKey());
+            if (current == null) inserted++;
+            else if (current.equals(stationKey(e.getValue().getStation()))) continue;
+            else updated++;
+            saveMapping(e.getValue().getAddress(), e.getValue().getStation());
+        }
+        for (String address : List.copyOf(st.stationByAddress.keySet())) {
+            if (mappings.containsKey(address)) continue;
+            deleteMapping(address);
+            deleted++;
+        }
+        final ChangeSummary.Counts mappingCounts = new ChangeSummary.Counts(inserted, updated, deleted);
+
+        final ChangeSummary changes = new ChangeSummary(personCounts, recordCounts, mappingCounts, true);
+        log.info("Repo reconcile: persons={}, records={}, mappings={}, total={} ms",
+                personCounts, recordCounts, mappingCounts, (System.nanoTime() - start) / 1_000_000);
+        return changes;
+    }
+
+    // Person.equals ne compare que l'identité : ici on compare tout le contenu exposé.
+    private static boolean sameContent(Person a, Person b) {
+        return Objects.equals(a.getAddress(), b.getAddress())
+                && Objects.equals(a.getCity(), b.getCity())
+                && Objects.equals(a.getZip(), b.getZip())
+                && Objects.equals(a.getPhone(), b.getPhone())
+                && Objects.equals(a.getEmail(), b.getEmail())
+                && Objects.equals(a.getFirstName(), b.getFirstName())
+                && Objects.equals(a.getLastName(), b.getLastName());
+    }
+
+    private static boolean sameContent(MedicalRecord a, MedicalRecord b) {
+        return Objects.equals(a.getBirthdate(), b.getBirthdate())
+                && Objects.equals(a.getMedications(), b.getMedications())
+                && Objects.equals(a.getAllergies(), b.getAllergies())
+                && Objects.equals(a.getFirstName(), b.getFirstName())
+                && Objects.equals(a.getLastName(), b.getLastName());
+    }
+
+    private static <T> Stream<T> stream(List<T> list) {
+        return list.size() >= PARALLEL_THRESHOLD ? list.parallelStream() : list.stream();
+    }
+
+    private static CompletableFuture<Void> task(Map<String, Long> timings, String index, Runnable build) {
+        return CompletableFuture.runAsync(() -> timed(timings, index, build), ForkJoinPool.commonPool());
+    }
+
+    private static void timed(Map<String, Long> timings, String index, Runnable build) {
+        final long t0 = System.nanoTime();
+        build.run();
+        timings.put(index, (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    // Dernière version de chaque identité (last-wins), dans l'ordre de la liste
+    private static List<Person> latestByIdentity(List<Person> ps) {
+        return List.copyOf(stream(ps).collect(Collectors.toMap(
+                p -> key(p.getFirstName(), p.getLastName()), p -> p, (a, b) -> b, LinkedHashMap::new)).values());
+    }
+
+    // clé d'index -> (identité -> personne), last-wins sur une même identité
+    // (groupingBy non concurrent : les partitions sont fusionnées dans l'ordre de la liste)
+    private static Map<String, PersonBucket> groupByIdentity(List<Person> ps, java.util.function.Function<Person, String> indexKey) {
+        return stream(ps).collect(Collectors.groupingBy(
+                indexKey,
+                HashMap::new,
+                Collectors.collectingAndThen(
+                        Collectors.toMap(p -> key(p.getFirstName(), p.getLastName()), p -> p, (a, b) -> b, HashMap::new),
+                        m -> {
+                            PersonBucket bucket = new PersonBucket(Math.max(16, m.size() * 2));
+                            bucket.putAll(m);
+                            return bucket;
+                        })));
+    }
+
+    // -------------------- Snapshot binaire --------------------
+    // Corps : personnes, puis chaque index sous sa forme construite (clé normalisée -> positions / valeurs).
+    // Les index personne référencent les positions dans la section personnes : aucune normalisation ni
+    // regroupement n'est refait à la lecture.
+    @Override
+    public void writeSnapshot(DataOutput out) throws IOException {
+        try (var held = locks.lockAll()) {
+            final State st = state;
+            final Map<String, Integer> position = new HashMap<>(st.personsByKey.size() * 2);
+            out.writeInt(st.personsByKey.size());
+            for (Map.Entry<String, Person> e : st.personsByKey.entrySet()) {
+                position.put(e.getKey(), position.size());
+                RecordCodec.writePerson(out, e.getValue());
+            }
+            writePostings(out, st.personsByAddress, position);
+            writePostings(out, st.personsByLastName, position);
+            writeCounts(out, st.emailsByCity);
+            writeStringSets(out, st.addressesByStation);
+            out.writeInt(st.stationByAddress.size());
+            for (Map.Entry<String, String> e : st.stationByAddress.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeUTF(e.getValue());
+            }
+            out.writeInt(st.medicalRecordByPersonKey.size());
+            for (MedicalRecord mr : st.medicalRecordByPersonKey.values()) RecordCodec.writeMedicalRecord(out, mr);
+        }
+    }
+
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+        final State next = new State();
+        final int n = in.readInt();
+        final Person[] ps = new Person[n];
+        final String[] keys = new String[n];
+        for (int i = 0; i < n; i++) {
+            Person p = dictionaries.intern(RecordCodec.readPerson(in));
+            ps[i] = p;
+            keys[i] = key(p.getFirstName(), p.getLastName());
+            next.personsByKey.put(keys[i], p);
+            next.indexedByKey.put(keys[i], indexed(p));
+        }
+        readPostings(in, next.personsByAddress, ps, keys);
+        readPostings(in, next.personsByLastName, ps, keys);
+        readCounts(in, next.emailsByCity);
+        readStringSets(in, next.addressesByStation, dictionaries.address()::intern);
+        for (int i = in.readInt(); i > 0; i--) next.stationByAddress.put(in.readUTF(), in.readUTF());
+        for (int i = in.readInt(); i > 0; i--) {
+            MedicalRecord mr = RecordCodec.readMedicalRecord(in);
+            next.medicalRecordByPersonKey.put(key(mr.getFirstName(), mr.getLastName()), mr);
+        }
+        materializeStationViews(next);
+        publish(next); // un snapshot tronqué ou corrompu lève avant publication : l'état courant reste intact
+
+        log.info("Repo init (snapshot binaire): persons={}, addresses={}, stations={}, records={}",
+                next.personsByKey.size(), next.personsByAddress.size(), next.addressesByStation.size(), next.medicalRecordByPersonKey.size());
+    }
+
+    private static void writePostings(DataOutput out, Map<String, PersonBucket> index, Map<String, Integer> position) throws IOException {
+        out.writeInt(index.size());
+        for (Map.Entry<String, PersonBucket> e : index.entrySet()) {
+            final Set<String> identities = e.getValue().byIdentity().keySet();
+            out.writeUTF(e.getKey());
+            out.writeInt(identities.size());
+            for (String k : identities) out.writeInt(position.get(k));
+        }
+    }
+
+    private static void readPostings(DataInput in, Map<String, PersonBucket> index, Person[] ps, String[] keys) throws IOException {
+        for (int i = in.readInt(); i > 0; i--) {
+            final String indexKey = in.readUTF();
+            final int size = in.readInt();
+            final PersonBucket bucket = new PersonBucket(Math.max(16, size * 2));
+            for (int j = 0; j < size; j++) {
+                int pos = in.readInt();
+                bucket.put(keys[pos], ps[pos]);
+            }
+            index.put(indexKey, bucket);
+        }
+    }
+
+    private static void writeStringSets(DataOutput out, Map<String, Set<String>> index) throws IOException {
+        out.writeInt(index.size());
+        for (Map.Entry<String, Set<String>> e : index.entrySet()) {
+            out.writeUTF(e.getKey());
+            out.writeInt(e.getValue().size());
+            for (String v : e.getValue()) out.writeUTF(v);
+        }
+    }
+
+    private static void writeCounts(DataOutput out, Map<String, Map<String, Integer>> index) throws IOException {
+        out.writeInt(index.size());
+        for (Map.Entry<String, Map<String, Integer>> e : index.entrySet()) {
+            out.writeUTF(e.getKey());
+            out.writeInt(e.getValue().size());
+            for (Map.Entry<String, Integer> c : e.getValue().entrySet()) {
+                out.writeUTF(c.getKey());
+                out.writeInt(c.getValue());
+            }
+        }
+    }
+
+    private static void readCounts(DataInput in, Map<String, Map<String, Integer>> index) throws IOException {
+        for (int i = in.readInt(); i > 0; i--) {
+            final String indexKey = in.readUTF();
+            final int size = in.readInt();
+            final Map<String, Integer> counts = new ConcurrentHashMap<>(Math.max(16, size * 2));
+            for (int j = 0; j < size; j++) counts.put(in.readUTF(), in.readInt());
+            index.put(indexKey, counts);
+        }
+    }
+
+    private static void readStringSets(DataInput in, Map<String, Set<String>> index, java.util.function.UnaryOperator<String> canonical) throws IOException {
+        for (int i = in.readInt(); i > 0; i--) {
+            final String indexKey = in.readUTF();
+            final int size = in.readInt();
+            final Set<String> set = ConcurrentHashMap.newKeySet(size);
+            for (int j = 0; j < size; j++) set.add(canonical.apply(in.readUTF()));
+            index.put(indexKey, set);
+        }
     }
 
     // -------------------- Requêtes (lecture) --------------------
     @Override
     public Set<String> findAddressesByStation(String stationNumber) {
         if (stationNumber == null) return Set.of();
-        Set<String> set = addressesByStation.get(norm(stationNumber));
+        Set<String> set = state.addressesByStation.get(stationKey(stationNumber));
         return (set == null || set.isEmpty()) ? Set.of() : Set.copyOf(set);
     }
 
+    // Listes immuables partagées (PersonBucket) : aucune copie tant que le seau n'a pas été modifié.
     @Override
     public List<Person> findPersonsByAddress(String address) {
         if (address == null) return List.of();
-        List<Person> list = personsByAddress.get(norm(address));
-        return (list == null || list.isEmpty()) ? List.of() : List.copyOf(list);
+        return persons(state.personsByAddress.get(addressKey(address)));
     }
 
     @Override
     public Optional<String> findStationByAddress(String address) {
         if (address == null) return Optional.empty();
-        return Optional.ofNullable(stationByAddress.get(norm(address)));
+        return Optional.ofNullable(state.stationByAddress.get(addressKey(address)));
     }
 
     @Override
     public Optional<MedicalRecord> findMedicalRecord(String firstName, String lastName) {
-        return Optional.ofNullable(medicalRecordByPersonKey.get(key(firstName, lastName)));
+        return Optional.ofNullable(state.medicalRecordByPersonKey.get(key(firstName, lastName)));
     }
 
     @Override
     public List<Person> findPersonsByLastName(String lastName) {
         if (lastName == null) return List.of();
-        List<Person> list = personsByLastName.get(norm(lastName));
-        return (list == null || list.isEmpty()) ? List.of() : List.copyOf(list);
+        return persons(state.personsByLastName.get(norm(lastName)));
     }
 
     @Override
     public Set<String> findEmailsByCity(String city) {
         if (city == null) return Set.of();
-        Set<String> set = emailsByCity.get(norm(city));
-        return (set == null || set.isEmpty()) ? Set.of() : Set.copyOf(set);
+        Map<String, Integer> counts = state.emailsByCity.get(cityKey(city));
+        return (counts == null || counts.isEmpty()) ? Set.of() : Set.copyOf(counts.keySet());
+    }
+
+    // Parcours direct de l'index de la ville, sans la copie de findEmailsByCity (faiblement cohérent)
+    @Override
+    public Iterator<String> iterateEmailsByCity(String city) {
+        if (city == null) return Collections.emptyIterator();
+        Map<String, Integer> counts = state.emailsByCity.get(cityKey(city));
+        return counts == null ? Collections.emptyIterator() : Collections.unmodifiableSet(counts.keySet()).iterator();
+    }
+
+    // Une seule lecture d'index (vue matérialisée) au lieu d'une recherche et d'une copie par adresse.
+    @Override
+    public List<Person> findPersonsByStation(String stationNumber) {
+        if (stationNumber == null) return List.of();
+        return persons(state.residentsByStation.get(stationKey(stationNumber)));
     }
 
+    @Override
+    public Set<String> findPhonesByStation(String stationNumber) {
+        if (stationNumber == null) return Set.of();
+        List<Person> residents = persons(state.residentsByStation.get(stationKey(stationNumber)));
+        if (residents.isEmpty()) return Set.of();
+        Set<String> phones = new LinkedHashSet<>();
+        for (Person p : residents) {
+            if (p.getPhone() != null) phones.add(p.getPhone());
+        }
+        return Collections.unmodifiableSet(phones);
+    }
+
+    // Compteurs maintenus au fil des écritures : lecture O(1), sans analyse de dates.
+    @Override
+    public AgeCounts countAgesByStation(String stationNumber) {
+        if (stationNumber == null) return AgeCounts.NONE;
+        rolloverIfDue();
+        return unpack(state.agesByStation.get(stationKey(stationNumber)));
+    }
+
+    @Override
+    public AgeCounts countAgesByAddress(String address) {
+        if (address == null) return AgeCounts.NONE;
+        rolloverIfDue();
+        return unpack(state.agesByAddress.get(addressKey(address)));
+    }
+
+    @Override
+    public LocalDate today() { return LocalDate.now(clock); }
+
+    // Jointure par la clé d'identité déjà portée par l'index : ni normalisation ni concaténation par habitant.
+    @Override
+    public List<Resident> findResidentsByAddress(String address) {
+        if (address == null) return List.of();
+        final State st = state;
+        return join(st, st.personsByAddress.get(addressKey(address)));
+    }
+
+    @Override
+    public List<Resident> findResidentsByStation(String stationNumber) {
+        if (stationNumber == null) return List.of();
+        final State st = state;
+        return join(st, st.residentsByStation.get(stationKey(stationNumber)));
+    }
+
+    @Override
+    public List<Resident> findResidentsByLastName(String lastName) {
+        if (lastName == null) return List.of();
+        final State st = state;
+        return join(st, st.personsByLastName.get(norm(lastName)));
+    }
+
+    private static List<Resident> join(State st, PersonBucket bucket) {
+        if (bucket == null || bucket.isEmpty()) return List.of();
+        final List<Resident> out = new ArrayList<>(bucket.size());
+        for (Map.Entry<String, Person> e : bucket.byIdentity().entrySet()) {
+            out.add(new Resident(e.getValue(), st.medicalRecordByPersonKey.get(e.getKey())));
+        }
+        return Collections.unmodifiableList(out);
+    }
+
+    // Index triés partagés jusqu'à la prochaine écriture : une page coûte une recherche dichotomique et sa propre
+    // taille, quel que soit son rang.
+    @Override
+    public KeyedPage<Resident> pageResidentsByStation(String stationNumber, String after, int limit) {
+        KeyedPage.requireLimit(limit);
+        if (stationNumber == null) return KeyedPage.empty();
+        final State st = state;
+        return page(st, st.residentsByStation.get(stationKey(stationNumber)), after, limit);
+    }
+
+    // Habitants et totaux tirés de la même copie triée du seau : les totaux décomptent exactement les habitants
+    // servis, là où les compteurs maintenus (countAgesByStation) sont une seconde lecture qu'une écriture peut
+    // séparer de la liste. Prix : une classification O(habitants de la caserne) sur des jours epoch, sans parsing.
+    @Override
+    public StationCoverage<List<Person>> findCoverageByStation(String stationNumber) {
+        if (stationNumber == null) return new StationCoverage<>(List.of(), AgeCounts.NONE);
+        final State st = state;
+        final SortedRun<Person> run = sorted(st.residentsByStation.get(stationKey(stationNumber)));
+        return new StationCoverage<>(run.values(), tally(st, run));
+    }
+
+    @Override
+    public StationCoverage<KeyedPage<Resident>> pageCoverageByStation(String stationNumber, String after, int limit) {
+        KeyedPage.requireLimit(limit);
+        if (stationNumber == null) return new StationCoverage<>(KeyedPage.empty(), AgeCounts.NONE);
+        final State st = state;
+        final SortedRun<Person> run = sorted(st.residentsByStation.get(stationKey(stationNumber)));
+        return new StationCoverage<>(page(st, run, after, limit), tally(st, run));
+    }
+
+    private static SortedRun<Person> sorted(PersonBucket bucket) {
+        return (bucket == null) ? SortedRun.of(Map.of()) : bucket.sorted();
+    }
+
+    private AgeCounts tally(State st, SortedRun<Person> run) {
+        final long[] birthEpochDays = new long[run.size()];
+        for (int i = 0; i < birthEpochDays.length; i++) {
+            final MedicalRecord mr = st.medicalRecordByPersonKey.get(run.key(i));
+            birthEpochDays[i] = (mr == null) ? AgeCalculator.NO_DATE : mr.getBirthEpochDay();
+        }
+        return AgeCounts.classify(birthEpochDays, birthEpochDays.length, today().toEpochDay());
+    }
+
+    @Override
+    public KeyedPage<Resident> pageResidentsByLastName(String lastName, String after, int limit) {
+        KeyedPage.requireLimit(limit);
+        if (lastName == null) return KeyedPage.empty();
+        final State st = state;
+        return page(st, st.personsByLastName.get(norm(lastName)), after, limit);
+    }
+
+    @Override
+    public KeyedPage<String> pageEmailsByCity(String city, String after, int limit) {
+        KeyedPage.requireLimit(limit);
+        if (city == null) return KeyedPage.empty();
+        final State st = state;
+        final String c = cityKey(city);
+        final SortedRun<String> emails = st.sortedEmailsByCity.computeIfAbsent(c, x -> new SharedView<>())
+                .get(() -> SortedRun.ofKeys(st.emailsByCity.getOrDefault(c, Map.of()).keySet()));
+        return emails.page(after, limit);
+    }
+
+    private static KeyedPage<Resident> page(State st, PersonBucket bucket, String after, int limit) {
+        if (bucket == null || bucket.isEmpty()) return KeyedPage.empty();
+        return page(st, bucket.sorted(), after, limit);
+    }
+
+    private static KeyedPage<Resident> page(State st, SortedRun<Person> run, String after, int limit) {
+        if (run.size() == 0) return KeyedPage.empty();
+        final int from = run.indexAfter(after);
+        final int to = (int) Math.min((long) from + limit, run.size());
+        final List<Resident> out = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            out.add(new Resident(run.value(i), st.medicalRecordByPersonKey.get(run.key(i))));
+        }
+        return new KeyedPage<>(Collections.unmodifiableList(out), to < run.size() ? run.key(to - 1) : null);
+    }
+
+    private static List<Person> persons(PersonBucket bucket) {
+        return (bucket == null) ? List.of() : bucket.persons();
+    }
+
+    // Instantané immuable partagé : recopié une fois après chaque écriture personne, pas à chaque appel.
     @Override
     public List<Person> findAllPersons() {
-        return List.copyOf(persons);
+        final State st = state;
+        return st.allPersons.get(() -> List.copyOf(st.personsByKey.values()));
     }
 
     @Override
     public Optional<Person> findPerson(String firstName, String lastName) {
-        return Optional.ofNullable(personsByKey.get(key(firstName, lastName)));
+        return Optional.ofNullable(state.personsByKey.get(key(firstName, lastName)));
     }
 
     // -------------------- Écritures (CRUD) --------------------
@@ -230,59 +940,129 @@ public class InMemoryDataRepository implements DataRepository {
     @Override
     public void savePerson(Person person) {
         // ÉCRITURE COHÉRENTE :
-        // 1) si une version existe, on la retire de TOUS les index (deindexPerson),
-        // 2) on (ré)indexe la nouvelle version dans TOUS les index (indexPerson).
-        findPerson(person.getFirstName(), person.getLastName()).ifPresent(this::deindexPerson);
-        indexPerson(person);
+        // 1) verrouille identité + ancien/nouveau foyer, nom et ville,
+        // 2) si une version existe, on la retire de TOUS les index (deindexPerson),
+        // 3) on (ré)indexe la nouvelle version dans TOUS les index (indexPerson).
+        // Si une écriture concurrente a changé l'ancienne version entre la lecture et le verrouillage,
+        // les verrous ne couvrent peut-être plus les bons index : on recommence.
+        final String k = key(person.getFirstName(), person.getLastName());
+        final Indexed next = indexed(dictionaries.intern(person));
+        while (true) {
+            final State st = state;
+            final Indexed previous = st.indexedByKey.get(k);
+            try (var held = locks.lock(personStripes(k, previous, next))) {
+                if (state != st || st.indexedByKey.get(k) != previous) continue;
+                if (previous != null) deindexPerson(st, k, previous);
+                indexPerson(st, k, person, next);
+                return;
+            }
+        }
     }
 
     @Override
     public void deletePerson(String firstName, String lastName) {
         // ÉCRITURE COHÉRENTE (DELETE): on désindexe proprement partout si présent (idempotent).
-        findPerson(firstName, lastName).ifPresent(this::deindexPerson);
+        final String k = key(firstName, lastName);
+        while (true) {
+            final State st = state;
+            final Indexed previous = st.indexedByKey.get(k);
+            if (previous == null) return;
+            try (var held = locks.lock(personStripes(k, previous, null))) {
+                if (state != st || st.indexedByKey.get(k) != previous) continue;
+                deindexPerson(st, k, previous);
+                return;
+            }
+        }
     }
 
     // MedicalRecord
     @Override
     public void saveMedicalRecord(MedicalRecord mr) {
         // ÉCRITURE COHÉRENTE: clé logique "first|last" normalisée → remplacement complet.
-        medicalRecordByPersonKey.put(key(mr.getFirstName(), mr.getLastName()), mr);
+        // Verrous identité + adresse : pas d'écriture perdue dans un State en cours de remplacement,
+        // et compteurs d'âge du foyer mis à jour sans course avec un déménagement ou un remappage.
+        final String k = key(mr.getFirstName(), mr.getLastName());
+        while (true) {
+            final State st = state;
+            if (withPersonLocked(st, k, () -> {
+                st.medicalRecordByPersonKey.put(k, mr);
+                reclassify(st, k, st.indexedByKey.get(k));
+            })) return;
+        }
     }
 
     @Override
     public void deleteMedicalRecord(String firstName, String lastName) {
-        medicalRecordByPersonKey.remove(key(firstName, lastName));
+        final String k = key(firstName, lastName);
+        while (true) {
+            final State st = state;
+            if (withPersonLocked(st, k, () -> {
+                st.medicalRecordByPersonKey.remove(k);
+                reclassify(st, k, st.indexedByKey.get(k));
+            })) return;
+        }
     }
 
     // Firestation mapping
     @Override
     public void saveMapping(String address, String station) {
-        // ÉCRITURE COHÉRENTE DU MAPPING:
+        // ÉCRITURE COHÉRENTE DU MAPPING (sous verrous adresse + ancienne/nouvelle station):
         // - met à jour stationByAddress[address],
         // - si la station a changé, enlève l'adresse de l'ancien ensemble addressesByStation[old],
         // - ajoute l'adresse dans le nouvel ensemble addressesByStation[new].
-        final String a = norm(address);
-        final String s = norm(station);
-
-        // retirer ancienne station si elle change
-        String previous = stationByAddress.put(a, s);
-        if (previous != null && !previous.equals(s)) {
-            addressesByStation.computeIfPresent(previous, (st, set) -> { set.remove(address); return set; });
-        }
-        // ajouter dans l’index inverse
-        addressesByStation.compute(s, (st, set) -> {
-            if (set == null) set = ConcurrentHashMap.newKeySet();
-            set.add(address); // on conserve la casse d’origine en sortie
-            return set;
-        });
+        final String canonical = dictionaries.address().intern(address);
+        final String a = addressKey(canonical);
+        final String s = stationKey(dictionaries.station().intern(station));
+
+        while (true) {
+            final State st = state;
+            final String previous = st.stationByAddress.get(a);
+            try (var held = locks.lock("a:" + a, "s:" + s, "s:" + Objects.requireNonNullElse(previous, s))) {
+                if (state != st || !Objects.equals(st.stationByAddress.get(a), previous)) continue;
+
+                st.stationByAddress.put(a, s);
+                // retirer ancienne station si elle change
+                if (previous != null && !previous.equals(s)) removeAddress(st, previous, a);
+                // ajouter dans l’index inverse
+                Set<String> set = st.addressesByStation.computeIfAbsent(s, sk -> ConcurrentHashMap.newKeySet());
+                set.removeIf(x -> addressKey(x).equals(a));
+                set.add(canonical); // on conserve la casse d’origine en sortie
+                // habitants et compteurs de l'adresse -> nouvelle caserne (no-op si déjà rattachée)
+                if (st.stationsByAddress.computeIfAbsent(a, x -> ConcurrentHashMap.newKeySet()).add(s)) {
+                    addResidents(st, s, household(st, a));
+                    addAges(st.agesByStation, s, Optional.ofNullable(st.agesByAddress.get(a)).map(AtomicLong::get).orElse(0L));
+                }
+                return;
+            }
+        }
     }
 
     @Override
     public void deleteMapping(String address) {
-        final String a = norm(address);
-        String st = stationByAddress.remove(a);
-        if (st != null) {
-            addressesByStation.computeIfPresent(st, (key, set) -> { set.remove(address); return set; });
+        final String a = addressKey(address);
+        while (true) {
+            final State st = state;
+            final String previous = st.stationByAddress.get(a);
+            if (previous == null) return;
+            try (var held = locks.lock("a:" + a, "s:" + previous)) {
+                if (state != st || !previous.equals(st.stationByAddress.get(a))) continue;
+                st.stationByAddress.remove(a);
+                removeAddress(st, previous, a);
+                return;
+            }
         }
     }
+
+    // Détache l'adresse d'une caserne, habitants compris (verrou de l'adresse détenu : foyer stable).
+    private void removeAddress(State st, String station, String normalizedAddress) {
+        st.addressesByStation.computeIfPresent(station, (sk, set) -> {
+            set.removeIf(x -> addressKey(x).equals(normalizedAddress));
+            return set.isEmpty() ? null : set;
+        });
+        final Set<String> stations = st.stationsByAddress.get(normalizedAddress);
+        if (stations == null || !stations.remove(station)) return;
+        if (stations.isEmpty()) st.stationsByAddress.remove(normalizedAddress);
+        removeResidents(st, station, household(st, normalizedAddress).keySet());
+        addAges(st.agesByStation, station, -Optional.ofNullable(st.agesByAddress.get(normalizedAddress)).map(AtomicLong::get).orElse(0L));
+    }
 }
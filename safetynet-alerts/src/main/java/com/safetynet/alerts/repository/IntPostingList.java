@@ -0,0 +1,47 @@
+package com.safetynet.alerts.repository;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Liste d'identifiants entiers (« posting list ») utilisée par les index du moteur colonnaire :
+ * un tableau {@code int[]} contigu qui remplace une {@code List<Person>}.
+ * <p>
+ * Ordre d'insertion conservé ; non thread-safe (protégée par le verrou du dépôt).
+ */
+final class IntPostingList {
+
+    private int[] ids;
+    private int size;
+
+    IntPostingList() { this.ids = new int[2]; }
+
+    int size() { return size; }
+
+    boolean isEmpty() { return size == 0; }
+
+    int get(int i) { return ids[i]; }
+
+    void add(int id) {
+        if (size == ids.length) ids = Arrays.copyOf(ids, ids.length * 2);
+        ids[size++] = id;
+    }
+
+    /** Retire la première occurrence de {@code id} (en conservant l'ordre) ; sans effet si absent. */
+    boolean remove(int id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) action.accept(ids[i]);
+    }
+
+    int[] toArray() { return Arrays.copyOf(ids, size); }
+}
@@ -0,0 +1,58 @@
+package com.safetynet.alerts.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page d'une lecture ordonnée de {@link DataRepository} ({@code page*}) : les éléments dont la clé suit
+ * strictement la clé de départ, dans l'ordre croissant des clés ({@link String#compareTo}).
+ * <p>
+ * La page suivante se lit en repartant de {@link #next()} : aucune page précédente n'est relue ni recomptée.
+ *
+ * @param items éléments de la page, liste immuable (au plus la taille demandée)
+ * @param next  clé du dernier élément de la page s'il en reste d'autres, {@code null} sur la dernière page
+ * @param <T>   type des éléments
+ */
+public record KeyedPage<T>(List<T> items, String next) {
+
+    public static <T> KeyedPage<T> empty() { return new KeyedPage<>(List.of(), null); }
+
+    public boolean hasNext() { return next != null; }
+
+    /** Même page (même position suivante), éléments transformés par {@code f}. */
+    public <R> KeyedPage<R> map(Function<? super T, ? extends R> f) {
+        final List<R> out = new ArrayList<>(items.size());
+        for (T t : items) out.add(f.apply(t));
+        return new KeyedPage<>(Collections.unmodifiableList(out), next);
+    }
+
+    /**
+     * Page calculée par tri (implémentations par défaut) : O(n log n) sur la collection entière. Un moteur qui
+     * tient ses index triés la surcharge par une recherche dichotomique.
+     *
+     * @param all   éléments à paginer, clés uniques
+     * @param keyOf clé d'ordre d'un élément
+     * @param after clé exclusive de départ, {@code null} pour la première page
+     * @param limit taille maximale de la page (au moins 1)
+     * @throws IllegalArgumentException si {@code limit < 1}
+     */
+    public static <T> KeyedPage<T> sorted(Collection<T> all, Function<T, String> keyOf, String after, int limit) {
+        requireLimit(limit);
+        final List<T> rest = new ArrayList<>(all.size());
+        for (T t : all) {
+            if (after == null || keyOf.apply(t).compareTo(after) > 0) rest.add(t);
+        }
+        rest.sort(Comparator.comparing(keyOf));
+        if (rest.size() <= limit) return new KeyedPage<>(Collections.unmodifiableList(rest), null);
+        final List<T> items = List.copyOf(rest.subList(0, limit));
+        return new KeyedPage<>(items, keyOf.apply(items.get(limit - 1)));
+    }
+
+    static void requireLimit(int limit) {
+        if (limit < 1) throw new IllegalArgumentException("page size must be >= 1: " + limit);
+    }
+}
@@ -0,0 +1,500 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.model.FirestationMapping;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.safetynet.alerts.repository.RepositoryKeys.key;
+import static com.safetynet.alerts.repository.RepositoryKeys.norm;
+
+/**
+ * Moteur de stockage hors tas : personnes et dossiers médicaux vivent dans un fichier projeté en mémoire
+ * ({@link MappedRecordStore}), le tas Java ne contenant que des index compacts vers des offsets.
+ * <p>
+ * Chaque personne occupe un emplacement entier dense ; {@code offsetBySlot[slot]} pointe vers sa dernière
+ * version dans le fichier. Les index par adresse, nom et ville sont des {@link IntPostingList} d'emplacements,
+ * les dossiers médicaux sont indexés par clé d'identité vers leur offset. Le mapping adresse→caserne, de
+ * faible volume, reste sur le tas (il est néanmoins journalisé dans le fichier).
+ * <p>
+ * Le fichier est en ajout seul : une mise à jour écrit une nouvelle version, une suppression écrit une
+ * pierre tombale. Au démarrage, si le fichier existe, les index sont reconstruits par un simple parcours
+ * séquentiel (sans JSON) et {@link #isRestored()} indique au chargeur qu'il peut ignorer data.json.
+ * {@link #init(DataSet)} repart d'un fichier vide, ce qui récupère l'espace des versions obsolètes.
+ * <p>
+ * Les {@link Person} et {@link MedicalRecord} renvoyés sont décodés à la lecture : ce sont des copies détachées.
+ * Concurrence : un verrou lecture/écriture, comme le moteur colonnaire.
+ * Activé par {@code safetynet.repository.engine=mapped} ; fichier : {@code safetynet.repository.mapped.path}.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(prefix = "safetynet.repository", name = "engine", havingValue = "mapped")
+public class MappedDataRepository implements DataRepository, Closeable {
+
+    static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    // ---------- Types d'enregistrement ----------
+    static final byte PERSON = 1;
+    static final byte PERSON_DELETED = 2;
+    static final byte MEDICAL_RECORD = 3;
+    static final byte MEDICAL_RECORD_DELETED = 4;
+    static final byte MAPPING = 5;
+    static final byte MAPPING_DELETED = 6;
+
+    private final MappedRecordStore store;
+    private final boolean restored;
+
+    // ---------- Index (emplacements → offsets) ----------
+    private long[] offsetBySlot = new long[1024];
+    private int slotCount;
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final Map<String, Integer>        slotByKey         = new HashMap<>();
+    private final Map<String, IntPostingList> slotsByAddress    = new HashMap<>();
+    private final Map<String, IntPostingList> slotsByLastName   = new HashMap<>();
+    private final Map<String, IntPostingList> slotsByCity       = new HashMap<>();
+    private final Map<String, Long>           recordOffsetByKey = new HashMap<>();
+
+    // ---------- Mapping (sur le tas) ----------
+    private final Map<String, Set<String>> addressesByStation = new HashMap<>();
+    private final Map<String, String>      stationByAddress   = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Date du jour pour la classification adulte/enfant
+    private final Clock clock;
+
+    @Autowired
+    public MappedDataRepository(@Value("${safetynet.repository.mapped.path:data/safetynet-store.bin}") String path, Clock clock) {
+        this(Path.of(path), DEFAULT_SEGMENT_SIZE, clock);
+    }
+
+    MappedDataRepository(Path path, int segmentSize) { this(path, segmentSize, Clock.systemDefaultZone()); }
+
+    MappedDataRepository(Path path, int segmentSize, Clock clock) {
+        this.clock = clock;
+        try {
+            this.store = new MappedRecordStore(path, segmentSize);
+        } catch (IOException e) {
+            throw new IllegalStateException("Impossible d'ouvrir le fichier " + path, e);
+        }
+        this.restored = store.reopened();
+        if (restored) {
+            store.scan(this::replay);
+            log.info("Repo restauré (mapped) depuis {}: persons={}, records={}, stations={}, octets={}",
+                    path, slotByKey.size(), recordOffsetByKey.size(), addressesByStation.size(), store.size());
+        }
+    }
+
+    @Override
+    public boolean isRestored() { return restored; }
+
+    /** Force l'écriture des pages sur disque et ferme le fichier. */
+    @PreDestroy
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            store.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // -------------------- Init --------------------
+    @Override
+    public void init(final DataSet dataSet) {
+        Objects.requireNonNull(dataSet, "dataSet must not be null");
+
+        lock.writeLock().lock();
+        try {
+            store.truncate();
+            Arrays.fill(offsetBySlot, 0, slotCount, 0L);
+            slotCount = 0;
+            freeSlots.clear();
+            slotByKey.clear();
+            slotsByAddress.clear();
+            slotsByLastName.clear();
+            slotsByCity.clear();
+            recordOffsetByKey.clear();
+            addressesByStation.clear();
+            stationByAddress.clear();
+
+            Optional.ofNullable(dataSet.getPersons()).orElseGet(List::of).forEach(this::writePerson);
+            for (FirestationMapping m : Optional.ofNullable(dataSet.getFirestations()).orElseGet(List::of)) {
+                if (!stationByAddress.containsKey(norm(m.getAddress()))) writeMapping(m.getAddress(), m.getStation()); // first-wins
+            }
+            Optional.ofNullable(dataSet.getMedicalrecords()).orElseGet(List::of).forEach(this::writeMedicalRecord); // last-wins
+
+            log.info("Repo init (mapped): persons={}, addresses={}, stations={}, records={}, octets={}",
+                    slotByKey.size(), slotsByAddress.size(), addressesByStation.size(), recordOffsetByKey.size(), store.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // -------------------- Écriture dans le fichier puis indexation (sous verrou d'écriture) --------------------
+    private void writePerson(Person p) {
+        applyPerson(store.append(PERSON, encode(out -> RecordCodec.writePerson(out, p))), p);
+    }
+
+    private void writeMedicalRecord(MedicalRecord mr) {
+        long offset = store.append(MEDICAL_RECORD, encode(out -> RecordCodec.writeMedicalRecord(out, mr)));
+        recordOffsetByKey.put(key(mr.getFirstName(), mr.getLastName()), offset);
+    }
+
+    private void writeMapping(String address, String station) {
+        store.append(MAPPING, encode(out -> RecordCodec.writeMapping(out, new FirestationMapping(address, station))));
+        putMapping(address, station);
+    }
+
+    /** Rejoue un enregistrement du fichier lors de la restauration. */
+    private void replay(MappedRecordStore.Entry e) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(e.payload()))) {
+            switch (e.type()) {
+                case PERSON -> applyPerson(e.offset(), RecordCodec.readPerson(in));
+                case PERSON_DELETED -> removePerson(key(RecordCodec.readString(in), RecordCodec.readString(in)));
+                case MEDICAL_RECORD -> {
+                    MedicalRecord mr = RecordCodec.readMedicalRecord(in);
+                    recordOffsetByKey.put(key(mr.getFirstName(), mr.getLastName()), e.offset());
+                }
+                case MEDICAL_RECORD_DELETED -> recordOffsetByKey.remove(key(RecordCodec.readString(in), RecordCodec.readString(in)));
+                case MAPPING -> {
+                    FirestationMapping m = RecordCodec.readMapping(in);
+                    putMapping(m.getAddress(), m.getStation());
+                }
+                case MAPPING_DELETED -> removeMapping(RecordCodec.readString(in));
+                default -> throw new IllegalStateException("Type d'enregistrement inconnu " + e.type() + " à l'offset " + e.offset());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void applyPerson(long offset, Person p) {
+        final String k = key(p.getFirstName(), p.getLastName());
+        final Integer existing = slotByKey.get(k);
+        if (existing != null) {
+            unindex(existing, readPerson(offsetBySlot[existing]));
+            offsetBySlot[existing] = offset;
+            index(existing, p);
+        } else {
+            final int slot = allocate(offset);
+            slotByKey.put(k, slot);
+            index(slot, p);
+        }
+    }
+
+    private boolean removePerson(String k) {
+        Integer slot = slotByKey.remove(k);
+        if (slot == null) return false;
+        unindex(slot, readPerson(offsetBySlot[slot]));
+        offsetBySlot[slot] = 0L;
+        freeSlots.push(slot);
+        return true;
+    }
+
+    private int allocate(long offset) {
+        Integer reused = freeSlots.poll();
+        final int slot;
+        if (reused != null) {
+            slot = reused;
+        } else {
+            if (slotCount == offsetBySlot.length) offsetBySlot = Arrays.copyOf(offsetBySlot, slotCount * 2);
+            slot = slotCount++;
+        }
+        offsetBySlot[slot] = offset;
+        return slot;
+    }
+
+    private void index(int slot, Person p) {
+        posting(slotsByAddress, norm(p.getAddress())).add(slot);
+        posting(slotsByLastName, norm(p.getLastName())).add(slot);
+        posting(slotsByCity, norm(p.getCity())).add(slot);
+    }
+
+    private void unindex(int slot, Person p) {
+        unpost(slotsByAddress, norm(p.getAddress()), slot);
+        unpost(slotsByLastName, norm(p.getLastName()), slot);
+        unpost(slotsByCity, norm(p.getCity()), slot);
+    }
+
+    private static IntPostingList posting(Map<String, IntPostingList> index, String k) {
+        return index.computeIfAbsent(k, kk -> new IntPostingList());
+    }
+
+    private static void unpost(Map<String, IntPostingList> index, String k, int slot) {
+        IntPostingList list = index.get(k);
+        if (list != null && list.remove(slot) && list.isEmpty()) index.remove(k);
+    }
+
+    private void putMapping(String address, String station) {
+        final String a = norm(address);
+        final String s = norm(station);
+        final String previous = stationByAddress.put(a, s);
+        if (previous != null) removeAddress(previous, a);
+        Set<String> set = addressesByStation.computeIfAbsent(s, st -> new LinkedHashSet<>());
+        set.removeIf(x -> norm(x).equals(a));
+        set.add(address); // on conserve la casse d'origine en sortie
+    }
+
+    private boolean removeMapping(String address) {
+        final String a = norm(address);
+        final String previous = stationByAddress.remove(a);
+        if (previous == null) return false;
+        removeAddress(previous, a);
+        return true;
+    }
+
+    private void removeAddress(String station, String normalizedAddress) {
+        Set<String> set = addressesByStation.get(station);
+        if (set == null) return;
+        set.removeIf(x -> norm(x).equals(normalizedAddress));
+        if (set.isEmpty()) addressesByStation.remove(station);
+    }
+
+    // -------------------- Décodage / encodage --------------------
+    @FunctionalInterface
+    private interface Encoder {
+        void write(DataOutput out) throws IOException;
+    }
+
+    private static byte[] encode(Encoder encoder) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            encoder.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeKey(String firstName, String lastName) {
+        return encode(out -> {
+            RecordCodec.writeString(out, firstName);
+            RecordCodec.writeString(out, lastName);
+        });
+    }
+
+    private Person readPerson(long offset) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(store.read(offset).payload()))) {
+            return RecordCodec.readPerson(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MedicalRecord readMedicalRecord(long offset) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(store.read(offset).payload()))) {
+            return RecordCodec.readMedicalRecord(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Person> materialize(IntPostingList slots) {
+        if (slots == null || slots.isEmpty()) return List.of();
+        Person[] out = new Person[slots.size()];
+        for (int i = 0; i < out.length; i++) out[i] = readPerson(offsetBySlot[slots.get(i)]);
+        return List.of(out);
+    }
+
+    // -------------------- Requêtes (lecture) --------------------
+    @Override
+    public Set<String> findAddressesByStation(String stationNumber) {
+        if (stationNumber == null) return Set.of();
+        lock.readLock().lock();
+        try {
+            Set<String> set = addressesByStation.get(norm(stationNumber));
+            return (set == null) ? Set.of() : Set.copyOf(set);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Person> findPersonsByAddress(String address) {
+        if (address == null) return List.of();
+        lock.readLock().lock();
+        try {
+            return materialize(slotsByAddress.get(norm(address)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<String> findStationByAddress(String address) {
+        if (address == null) return Optional.empty();
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(stationByAddress.get(norm(address)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<MedicalRecord> findMedicalRecord(String firstName, String lastName) {
+        lock.readLock().lock();
+        try {
+            Long offset = recordOffsetByKey.get(key(firstName, lastName));
+            return (offset == null) ? Optional.empty() : Optional.of(readMedicalRecord(offset));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Person> findPersonsByLastName(String lastName) {
+        if (lastName == null) return List.of();
+        lock.readLock().lock();
+        try {
+            return materialize(slotsByLastName.get(norm(lastName)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<String> findEmailsByCity(String city) {
+        if (city == null) return Set.of();
+        lock.readLock().lock();
+        try {
+            IntPostingList slots = slotsByCity.get(norm(city));
+            if (slots == null) return Set.of();
+            Set<String> emails = new LinkedHashSet<>();
+            for (int i = 0; i < slots.size(); i++) {
+                String e = readPerson(offsetBySlot[slots.get(i)]).getEmail();
+                if (e != null) emails.add(e);
+            }
+            return Collections.unmodifiableSet(emails);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Person> findAllPersons() {
+        lock.readLock().lock();
+        try {
+            List<Person> all = new ArrayList<>(slotByKey.size());
+            slotByKey.values().forEach(slot -> all.add(readPerson(offsetBySlot[slot])));
+            return Collections.unmodifiableList(all);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Person> findPerson(String firstName, String lastName) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotByKey.get(key(firstName, lastName));
+            return (slot == null) ? Optional.empty() : Optional.of(readPerson(offsetBySlot[slot]));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Person> findPersonsByStation(String stationNumber) {
+        if (stationNumber == null) return List.of();
+        lock.readLock().lock();
+        try {
+            Set<String> addresses = addressesByStation.get(norm(stationNumber));
+            if (addresses == null) return List.of();
+            List<Person> out = new ArrayList<>();
+            for (String a : addresses) {
+                IntPostingList slots = slotsByAddress.get(norm(a));
+                if (slots != null) slots.forEach(slot -> out.add(readPerson(offsetBySlot[slot])));
+            }
+            return Collections.unmodifiableList(out);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public LocalDate today() { return LocalDate.now(clock); }
+
+    // -------------------- Écritures (CRUD) --------------------
+    @Override
+    public void savePerson(Person person) {
+        lock.writeLock().lock();
+        try {
+            writePerson(person);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deletePerson(String firstName, String lastName) {
+        lock.writeLock().lock();
+        try {
+            if (removePerson(key(firstName, lastName))) { // idempotent : pas de pierre tombale inutile
+                store.append(PERSON_DELETED, encodeKey(firstName, lastName));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveMedicalRecord(MedicalRecord mr) {
+        lock.writeLock().lock();
+        try {
+            writeMedicalRecord(mr);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteMedicalRecord(String firstName, String lastName) {
+        lock.writeLock().lock();
+        try {
+            if (recordOffsetByKey.remove(key(firstName, lastName)) != null) {
+                store.append(MEDICAL_RECORD_DELETED, encodeKey(firstName, lastName));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveMapping(String address, String station) {
+        lock.writeLock().lock();
+        try {
+            writeMapping(address, station);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteMapping(String address) {
+        lock.writeLock().lock();
+        try {
+            if (removeMapping(address)) {
+                store.append(MAPPING_DELETED, encode(out -> RecordCodec.writeString(out, address)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.safetynet.alerts.repository;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fichier d'enregistrements en ajout seul, projeté en mémoire ({@link FileChannel#map}) hors du tas Java.
+ * <p>
+ * Le fichier est découpé en segments de taille fixe, chacun projeté par un {@link MappedByteBuffer}
+ * (ce qui lève la limite de 2 Go d'un buffer unique). Un enregistrement ne chevauche jamais deux segments.
+ * <pre>
+ * en-tête (segment 0) : magic(int) | version(int) | fin(long) | tailleSegment(int)
+ * enregistrement       : longueur(int) | type(byte) | charge utile(longueur octets)
+ * fin de segment       : longueur = -1 (ou moins de 4 octets restants)
+ * </pre>
+ * La position de fin est réécrite dans l'en-tête après chaque ajout : à la réouverture, seuls les
+ * enregistrements complets sont relus. Les pages sont écrites sur disque par le système ;
+ * {@link #force()} les y contraint explicitement (arrêt propre).
+ * <p>
+ * Non thread-safe pour les écritures ; les lectures absolues ({@link #read(long)}) peuvent être concurrentes.
+ */
+final class MappedRecordStore implements AutoCloseable {
+
+    static final int MAGIC = 0x534E4D31; // "SNM1"
+    static final int VERSION = 1;
+    static final int HEADER = 24;
+    private static final int RECORD_HEADER = 5;
+    private static final int END_OF_SEGMENT = -1;
+
+    /** Enregistrement relu : type et charge utile. */
+    record Entry(long offset, byte type, byte[] payload) {}
+
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final int segmentSize;
+    private long end;
+    private final boolean reopened;
+
+    MappedRecordStore(Path path, int segmentSize) throws IOException {
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        int size = segmentSize;
+        boolean valid = false;
+        if (channel.size() >= HEADER) {
+            MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            if (head.getInt(0) == MAGIC && head.getInt(4) == VERSION && head.getInt(16) > HEADER) {
+                size = head.getInt(16);
+                valid = true;
+            }
+        }
+        this.segmentSize = size;
+        if (valid) {
+            long segmentsOnDisk = (channel.size() + size - 1) / size;
+            for (long i = 0; i < segmentsOnDisk; i++) segment((int) i);
+            this.end = segments.get(0).getLong(8);
+        } else {
+            writeHeader();
+        }
+        this.reopened = valid && end > HEADER;
+    }
+
+    /** Vrai si le fichier existait déjà et contenait des enregistrements. */
+    boolean reopened() { return reopened; }
+
+    long size() { return end; }
+
+    /** Ajoute un enregistrement et renvoie son offset. */
+    long append(byte type, byte[] payload) {
+        final int total = RECORD_HEADER + payload.length;
+        if (total > segmentSize - (long) HEADER) {
+            throw new IllegalArgumentException("Enregistrement trop grand: " + total + " octets");
+        }
+        int seg = (int) (end / segmentSize);
+        int pos = (int) (end % segmentSize);
+        if (pos + total > segmentSize) {
+            if (segmentSize - pos >= 4) segment(seg).putInt(pos, END_OF_SEGMENT);
+            seg++;
+            pos = 0;
+        }
+        MappedByteBuffer buf = segment(seg);
+        buf.putInt(pos, payload.length);
+        buf.put(pos + 4, type);
+        buf.put(pos + RECORD_HEADER, payload);
+        final long offset = (long) seg * segmentSize + pos;
+        end = offset + total;
+        segments.get(0).putLong(8, end);
+        return offset;
+    }
+
+    /** Relit l'enregistrement situé à {@code offset}. */
+    Entry read(long offset) {
+        MappedByteBuffer buf = segments.get((int) (offset / segmentSize));
+        int pos = (int) (offset % segmentSize);
+        byte[] payload = new byte[buf.getInt(pos)];
+        buf.get(pos + RECORD_HEADER, payload);
+        return new Entry(offset, buf.get(pos + 4), payload);
+    }
+
+    /** Parcourt tous les enregistrements dans l'ordre d'écriture. */
+    void scan(java.util.function.Consumer<Entry> visitor) {
+        long offset = segments.isEmpty() ? end : HEADER;
+        while (offset < end) {
+            int seg = (int) (offset / segmentSize);
+            int pos = (int) (offset % segmentSize);
+            if (segmentSize - pos < 4 || segments.get(seg).getInt(pos) == END_OF_SEGMENT) {
+                offset = (long) (seg + 1) * segmentSize;
+                continue;
+            }
+            Entry e = read(offset);
+            visitor.accept(e);
+            offset += RECORD_HEADER + e.payload().length;
+        }
+    }
+
+    /** Vide logiquement le fichier (les segments déjà projetés sont réutilisés). */
+    void truncate() {
+        writeHeader();
+    }
+
+    void force() {
+        segments.forEach(MappedByteBuffer::force);
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private void writeHeader() {
+        MappedByteBuffer head = segment(0);
+        head.putInt(0, MAGIC);
+        head.putInt(4, VERSION);
+        head.putInt(16, segmentSize);
+        end = HEADER;
+        head.putLong(8, end);
+    }
+
+    private MappedByteBuffer segment(int index) {
+        while (segments.size() <= index) {
+            try {
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) segments.size() * segmentSize, segmentSize));
+            } catch (IOException e) {
+                throw new IllegalStateException("Projection du segment " + segments.size() + " impossible", e);
+            }
+        }
+        return segments.get(index);
+    }
+}
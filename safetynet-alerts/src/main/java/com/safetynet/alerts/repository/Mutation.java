@@ -0,0 +1,116 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+
+import java.io.*;
+
+import static com.safetynet.alerts.repository.RepositoryKeys.key;
+import static com.safetynet.alerts.repository.RepositoryKeys.norm;
+
+/**
+ * Écriture élémentaire sur un {@link DataRepository}, telle qu'enregistrée dans le {@link WriteAheadLog}.
+ * <p>
+ * Toutes les mutations sont des remplacements ou suppressions complets sur une clé : les rejouer plusieurs
+ * fois est sans effet supplémentaire, et deux mutations de clés différentes commutent. Seule la dernière
+ * mutation d'une clé ({@link #compactionKey()}) est donc utile après compaction.
+ */
+sealed interface Mutation {
+
+    byte SAVE_PERSON = 1;
+    byte DELETE_PERSON = 2;
+    byte SAVE_MEDICAL_RECORD = 3;
+    byte DELETE_MEDICAL_RECORD = 4;
+    byte SAVE_MAPPING = 5;
+    byte DELETE_MAPPING = 6;
+
+    /** Applique la mutation au dépôt. */
+    void applyTo(DataRepository repo);
+
+    /** Clé d'entité visée (type d'entité + identité normalisée). */
+    String compactionKey();
+
+    void writeTo(DataOutput out) throws IOException;
+
+    record SavePerson(Person person) implements Mutation {
+        public void applyTo(DataRepository repo) { repo.savePerson(person); }
+        public String compactionKey() { return "p:" + key(person.getFirstName(), person.getLastName()); }
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeByte(SAVE_PERSON);
+            RecordCodec.writePerson(out, person);
+        }
+    }
+
+    record DeletePerson(String firstName, String lastName) implements Mutation {
+        public void applyTo(DataRepository repo) { repo.deletePerson(firstName, lastName); }
+        public String compactionKey() { return "p:" + key(firstName, lastName); }
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeByte(DELETE_PERSON);
+            RecordCodec.writeString(out, firstName);
+            RecordCodec.writeString(out, lastName);
+        }
+    }
+
+    record SaveMedicalRecord(MedicalRecord record) implements Mutation {
+        public void applyTo(DataRepository repo) { repo.saveMedicalRecord(record); }
+        public String compactionKey() { return "m:" + key(record.getFirstName(), record.getLastName()); }
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeByte(SAVE_MEDICAL_RECORD);
+            RecordCodec.writeMedicalRecord(out, record);
+        }
+    }
+
+    record DeleteMedicalRecord(String firstName, String lastName) implements Mutation {
+        public void applyTo(DataRepository repo) { repo.deleteMedicalRecord(firstName, lastName); }
+        public String compactionKey() { return "m:" + key(firstName, lastName); }
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeByte(DELETE_MEDICAL_RECORD);
+            RecordCodec.writeString(out, firstName);
+            RecordCodec.writeString(out, lastName);
+        }
+    }
+
+    record SaveMapping(String address, String station) implements Mutation {
+        public void applyTo(DataRepository repo) { repo.saveMapping(address, station); }
+        public String compactionKey() { return "f:" + norm(address); }
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeByte(SAVE_MAPPING);
+            RecordCodec.writeString(out, address);
+            RecordCodec.writeString(out, station);
+        }
+    }
+
+    record DeleteMapping(String address) implements Mutation {
+        public void applyTo(DataRepository repo) { repo.deleteMapping(address); }
+        public String compactionKey() { return "f:" + norm(address); }
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeByte(DELETE_MAPPING);
+            RecordCodec.writeString(out, address);
+        }
+    }
+
+    /** Encodage binaire (type + champs {@link RecordCodec}). */
+    static byte[] encode(Mutation m) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            m.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Mutation decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        return switch (type) {
+            case SAVE_PERSON -> new SavePerson(RecordCodec.readPerson(in));
+            case DELETE_PERSON -> new DeletePerson(RecordCodec.readString(in), RecordCodec.readString(in));
+            case SAVE_MEDICAL_RECORD -> new SaveMedicalRecord(RecordCodec.readMedicalRecord(in));
+            case DELETE_MEDICAL_RECORD -> new DeleteMedicalRecord(RecordCodec.readString(in), RecordCodec.readString(in));
+            case SAVE_MAPPING -> new SaveMapping(RecordCodec.readString(in), RecordCodec.readString(in));
+            case DELETE_MAPPING -> new DeleteMapping(RecordCodec.readString(in));
+            default -> throw new IOException("Type de mutation inconnu: " + type);
+        };
+    }
+}
@@ -0,0 +1,297 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import jakarta.annotation.PreDestroy;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.safetynet.alerts.repository.RepositoryKeys.key;
+import static com.safetynet.alerts.repository.RepositoryKeys.norm;
+
+/**
+ * Décorateur d'un moteur de {@link DataRepository} qui signale chaque écriture à un {@link Observer}
+ * (versions des données servant au cache des rapports et aux ETags), quel qu'en soit l'auteur : services CRUD,
+ * rechargements complets ou différentiels, rejeu du journal d'écriture, appels directs au dépôt.
+ * <p>
+ * Chaque écriture est signalée deux fois, avant et après son application, sous le verrou de l'entité visée :
+ * dès que l'écriture est visible, les versions ont changé (pas d'ETag inchangé sur une donnée déjà modifiée), et
+ * un résultat calculé entre les deux signaux, sur l'ancienne donnée, est périmé par le second. Un chargement
+ * (init, réconciliation, snapshot binaire) est signalé de même comme un remplacement de tout le jeu de données.
+ * <p>
+ * Placé sous {@link DurableDataRepository} : les mutations rejouées depuis le journal passent par lui.
+ * Instancié par {@link #wrap(DataRepository, Observer)}.
+ */
+public class ObservedDataRepository implements DataRepository, Closeable {
+
+    /** Destinataire des signaux d'écriture ; chaque méthode est appelée avant puis après l'écriture. */
+    public interface Observer {
+
+        /** Création ({@code before} nul), modification ou suppression ({@code after} nul) d'une personne. */
+        void personChanged(Person before, Person after);
+
+        /** Écriture ou suppression d'un dossier médical ; {@code address} : adresse de la personne, si elle est connue. */
+        void medicalRecordChanged(String firstName, String lastName, String address);
+
+        /** Création ({@code stationBefore} nul), changement ou suppression ({@code stationAfter} nul) d'un mapping. */
+        void mappingChanged(String address, String stationBefore, String stationAfter);
+
+        /** Remplacement de tout ou partie du jeu de données (chargement, rechargement, snapshot). */
+        void dataSetReplaced();
+    }
+
+    protected final DataRepository delegate;
+    protected final Observer observer;
+    // Par entité : l'état « avant » relu pour le signal est celui que l'écriture remplace
+    private final StripedLocks keyLocks = StripedLocks.forAvailableProcessors();
+
+    protected ObservedDataRepository(DataRepository delegate, Observer observer) {
+        this.delegate = delegate;
+        this.observer = observer;
+    }
+
+    /** Décore {@code delegate}, en conservant la prise en charge des snapshots binaires s'il l'offre. */
+    public static ObservedDataRepository wrap(DataRepository delegate, Observer observer) {
+        return (delegate instanceof BinarySnapshotCapable)
+                ? new Snapshottable(delegate, observer)
+                : new ObservedDataRepository(delegate, observer);
+    }
+
+    public DataRepository delegate() { return delegate; }
+
+    /** Ferme le moteur décoré s'il détient des ressources (ses propres callbacks d'arrêt ne sont plus appelés). */
+    @PreDestroy
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable c) c.close();
+    }
+
+    // -------------------- Init / rechargement --------------------
+    @Override
+    public void init(DataSet dataSet) {
+        observer.dataSetReplaced();
+        try {
+            delegate.init(dataSet);
+        } finally {
+            observer.dataSetReplaced();
+        }
+    }
+
+    @Override
+    public void initIncremental(DataSetSource source) throws IOException {
+        observer.dataSetReplaced();
+        try {
+            delegate.initIncremental(source);
+        } finally {
+            observer.dataSetReplaced();
+        }
+    }
+
+    @Override
+    public ChangeSummary reconcile(DataSet dataSet) {
+        observer.dataSetReplaced();
+        try {
+            return delegate.reconcile(dataSet);
+        } finally {
+            observer.dataSetReplaced();
+        }
+    }
+
+    @Override
+    public boolean isRestored() { return delegate.isRestored(); }
+
+    // -------------------- Lectures (directes) --------------------
+    @Override
+    public Set<String> findAddressesByStation(String stationNumber) { return delegate.findAddressesByStation(stationNumber); }
+
+    @Override
+    public List<Person> findPersonsByAddress(String address) { return delegate.findPersonsByAddress(address); }
+
+    @Override
+    public Optional<String> findStationByAddress(String address) { return delegate.findStationByAddress(address); }
+
+    @Override
+    public Optional<MedicalRecord> findMedicalRecord(String firstName, String lastName) { return delegate.findMedicalRecord(firstName, lastName); }
+
+    @Override
+    public List<Person> findPersonsByLastName(String lastName) { return delegate.findPersonsByLastName(lastName); }
+
+    @Override
+    public Set<String> findEmailsByCity(String city) { return delegate.findEmailsByCity(city); }
+
+    @Override
+    public Iterator<String> iterateEmailsByCity(String city) { return delegate.iterateEmailsByCity(city); }
+
+    @Override
+    public List<Person> findAllPersons() { return delegate.findAllPersons(); }
+
+    @Override
+    public Optional<Person> findPerson(String firstName, String lastName) { return delegate.findPerson(firstName, lastName); }
+
+    @Override
+    public List<Person> findPersonsByStation(String stationNumber) { return delegate.findPersonsByStation(stationNumber); }
+
+    @Override
+    public Set<String> findPhonesByStation(String stationNumber) { return delegate.findPhonesByStation(stationNumber); }
+
+    @Override
+    public AgeCounts countAgesByStation(String stationNumber) { return delegate.countAgesByStation(stationNumber); }
+
+    @Override
+    public AgeCounts countAgesByAddress(String address) { return delegate.countAgesByAddress(address); }
+
+    @Override
+    public StationCoverage<List<Person>> findCoverageByStation(String stationNumber) { return delegate.findCoverageByStation(stationNumber); }
+
+    @Override
+    public LocalDate today() { return delegate.today(); }
+
+    @Override
+    public List<Resident> findResidentsByAddress(String address) { return delegate.findResidentsByAddress(address); }
+
+    @Override
+    public List<Resident> findResidentsByStation(String stationNumber) { return delegate.findResidentsByStation(stationNumber); }
+
+    @Override
+    public List<Resident> findResidentsByLastName(String lastName) { return delegate.findResidentsByLastName(lastName); }
+
+    @Override
+    public KeyedPage<Resident> pageResidentsByStation(String stationNumber, String after, int limit) {
+        return delegate.pageResidentsByStation(stationNumber, after, limit);
+    }
+
+    @Override
+    public StationCoverage<KeyedPage<Resident>> pageCoverageByStation(String stationNumber, String after, int limit) {
+        return delegate.pageCoverageByStation(stationNumber, after, limit);
+    }
+
+    @Override
+    public KeyedPage<Resident> pageResidentsByLastName(String lastName, String after, int limit) {
+        return delegate.pageResidentsByLastName(lastName, after, limit);
+    }
+
+    @Override
+    public KeyedPage<String> pageEmailsByCity(String city, String after, int limit) { return delegate.pageEmailsByCity(city, after, limit); }
+
+    @Override
+    public int rolloverAges() { return delegate.rolloverAges(); }
+
+    // -------------------- Écritures (signalées avant et après) --------------------
+    @Override
+    public void savePerson(Person person) {
+        try (var held = keyLocks.lock("p:" + key(person.getFirstName(), person.getLastName()))) {
+            final Person before = delegate.findPerson(person.getFirstName(), person.getLastName()).orElse(null);
+            observer.personChanged(before, person);
+            try {
+                delegate.savePerson(person);
+            } finally {
+                observer.personChanged(before, person);
+            }
+        }
+    }
+
+    @Override
+    public void deletePerson(String firstName, String lastName) {
+        try (var held = keyLocks.lock("p:" + key(firstName, lastName))) {
+            final Person before = delegate.findPerson(firstName, lastName).orElse(null);
+            if (before != null) observer.personChanged(before, null);
+            try {
+                delegate.deletePerson(firstName, lastName);
+            } finally {
+                if (before != null) observer.personChanged(before, null);
+            }
+        }
+    }
+
+    @Override
+    public void saveMedicalRecord(MedicalRecord mr) {
+        try (var held = keyLocks.lock("m:" + key(mr.getFirstName(), mr.getLastName()))) {
+            final String address = addressOf(mr.getFirstName(), mr.getLastName());
+            observer.medicalRecordChanged(mr.getFirstName(), mr.getLastName(), address);
+            try {
+                delegate.saveMedicalRecord(mr);
+            } finally {
+                observer.medicalRecordChanged(mr.getFirstName(), mr.getLastName(), address);
+            }
+        }
+    }
+
+    @Override
+    public void deleteMedicalRecord(String firstName, String lastName) {
+        try (var held = keyLocks.lock("m:" + key(firstName, lastName))) {
+            final String address = addressOf(firstName, lastName);
+            observer.medicalRecordChanged(firstName, lastName, address);
+            try {
+                delegate.deleteMedicalRecord(firstName, lastName);
+            } finally {
+                observer.medicalRecordChanged(firstName, lastName, address);
+            }
+        }
+    }
+
+    @Override
+    public void saveMapping(String address, String station) {
+        try (var held = keyLocks.lock("f:" + norm(address))) {
+            final String before = delegate.findStationByAddress(address).orElse(null);
+            observer.mappingChanged(address, before, station);
+            try {
+                delegate.saveMapping(address, station);
+            } finally {
+                observer.mappingChanged(address, before, station);
+            }
+        }
+    }
+
+    @Override
+    public void deleteMapping(String address) {
+        try (var held = keyLocks.lock("f:" + norm(address))) {
+            final String before = delegate.findStationByAddress(address).orElse(null);
+            observer.mappingChanged(address, before, null);
+            try {
+                delegate.deleteMapping(address);
+            } finally {
+                observer.mappingChanged(address, before, null);
+            }
+        }
+    }
+
+    private String addressOf(String firstName, String lastName) {
+        return delegate.findPerson(firstName, lastName).map(Person::getAddress).orElse(null);
+    }
+
+    /** Variante pour un moteur {@link BinarySnapshotCapable} : la relecture d'un snapshot remplace tout. */
+    static final class Snapshottable extends ObservedDataRepository implements BinarySnapshotCapable {
+
+        private Snapshottable(DataRepository delegate, Observer observer) { super(delegate, observer); }
+
+        private BinarySnapshotCapable capable() { return (BinarySnapshotCapable) delegate; }
+
+        @Override
+        public void writeSnapshot(DataOutput out) throws IOException { capable().writeSnapshot(out); }
+
+        @Override
+        public void readSnapshot(DataInput in) throws IOException {
+            observer.dataSetReplaced();
+            try {
+                capable().readSnapshot(in);
+            } finally {
+                observer.dataSetReplaced();
+            }
+        }
+
+        @Override
+        public String snapshotEngine() { return capable().snapshotEngine(); }
+
+        @Override
+        public void snapshotWritten() throws IOException { capable().snapshotWritten(); }
+    }
+}
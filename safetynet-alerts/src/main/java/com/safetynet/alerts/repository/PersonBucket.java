@@ -0,0 +1,66 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.Person;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Seau d'un index de personnes du moteur en mémoire (foyer, nom de famille, caserne) : identité
+ * {@code first|last} -> personne, avec ajout/retrait en O(1).
+ * <p>
+ * Les lectures reçoivent {@link #persons()}, une liste immuable partagée ({@link SharedView}) qui n'est
+ * recopiée qu'après une modification du seau ; de même pour la copie triée par identité des lectures paginées
+ * ({@link #sorted()}). Les écritures d'un même seau sont sérialisées par l'appelant
+ * (verrou du foyer ou du nom, {@code compute()} sur la caserne).
+ */
+final class PersonBucket {
+
+    private final Map<String, Person> members;
+    private final SharedView<List<Person>> view = new SharedView<>();
+    private final SharedView<SortedRun<Person>> sorted = new SharedView<>();
+
+    PersonBucket() { this(16); }
+
+    PersonBucket(int capacity) { this.members = new ConcurrentHashMap<>(capacity); }
+
+    void put(String identity, Person p) {
+        members.put(identity, p);
+        invalidate();
+    }
+
+    void putAll(Map<String, Person> byIdentity) {
+        if (byIdentity.isEmpty()) return;
+        members.putAll(byIdentity);
+        invalidate();
+    }
+
+    void remove(String identity) {
+        if (members.remove(identity) != null) invalidate();
+    }
+
+    void removeAll(Collection<String> identities) {
+        if (members.keySet().removeAll(identities)) invalidate();
+    }
+
+    boolean isEmpty() { return members.isEmpty(); }
+
+    int size() { return members.size(); }
+
+    /** Vue en lecture seule identité -> personne (non figée : suit les écritures). */
+    Map<String, Person> byIdentity() { return Collections.unmodifiableMap(members); }
+
+    /** Personnes du seau, liste immuable partagée entre lecteurs (à ne pas recopier). */
+    List<Person> persons() { return view.get(() -> List.copyOf(members.values())); }
+
+    /** Personnes triées par identité (lectures paginées), copie partagée jusqu'à la prochaine modification. */
+    SortedRun<Person> sorted() { return sorted.get(() -> SortedRun.of(members)); }
+
+    private void invalidate() {
+        view.invalidate();
+        sorted.invalidate();
+    }
+}
@@ -0,0 +1,105 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.Person;
+
+import java.util.Arrays;
+
+/**
+ * Stockage « struct-of-arrays » des personnes : une colonne (tableau) par attribut,
+ * indexée par un identifiant entier dense.
+ * <p>
+ * Les identifiants libérés par {@link #release(int)} sont réutilisés en priorité, ce qui garde
+ * les colonnes compactes malgré les suppressions. Non thread-safe (protégé par le verrou du dépôt).
+ */
+final class PersonColumns {
+
+    private String[] firstName;
+    private String[] lastName;
+    private String[] address;
+    private String[] city;
+    private String[] zip;
+    private String[] phone;
+    private String[] email;
+
+    private int highWater;            // nombre d'identifiants déjà attribués (vivants ou libérés)
+    private int live;                 // nombre de lignes vivantes
+    private int[] free = new int[8];  // pile des identifiants libérés
+    private int freeSize;
+
+    PersonColumns(int capacity) {
+        allocate(Math.max(16, capacity));
+    }
+
+    private void allocate(int capacity) {
+        firstName = new String[capacity];
+        lastName  = new String[capacity];
+        address   = new String[capacity];
+        city      = new String[capacity];
+        zip       = new String[capacity];
+        phone     = new String[capacity];
+        email     = new String[capacity];
+    }
+
+    private void grow() {
+        int capacity = firstName.length * 2;
+        firstName = Arrays.copyOf(firstName, capacity);
+        lastName  = Arrays.copyOf(lastName, capacity);
+        address   = Arrays.copyOf(address, capacity);
+        city      = Arrays.copyOf(city, capacity);
+        zip       = Arrays.copyOf(zip, capacity);
+        phone     = Arrays.copyOf(phone, capacity);
+        email     = Arrays.copyOf(email, capacity);
+    }
+
+    int size() { return live; }
+
+    /** Ajoute une ligne et renvoie son identifiant. */
+    int add(Person p) {
+        int id;
+        if (freeSize > 0) {
+            id = free[--freeSize];
+        } else {
+            if (highWater == firstName.length) grow();
+            id = highWater++;
+        }
+        set(id, p);
+        live++;
+        return id;
+    }
+
+    /** Remplace le contenu d'une ligne existante. */
+    void set(int id, Person p) {
+        firstName[id] = p.getFirstName();
+        lastName[id]  = p.getLastName();
+        address[id]   = p.getAddress();
+        city[id]      = p.getCity();
+        zip[id]       = p.getZip();
+        phone[id]     = p.getPhone();
+        email[id]     = p.getEmail();
+    }
+
+    /** Libère une ligne (les références sont effacées pour le GC) ; l'identifiant sera réutilisé. */
+    void release(int id) {
+        firstName[id] = lastName[id] = address[id] = city[id] = zip[id] = phone[id] = email[id] = null;
+        if (freeSize == free.length) free = Arrays.copyOf(free, free.length * 2);
+        free[freeSize++] = id;
+        live--;
+    }
+
+    void clear() {
+        allocate(16);
+        highWater = live = freeSize = 0;
+    }
+
+    /** Reconstruit un {@link Person} (nouvelle instance, détachée du stockage). */
+    Person materialize(int id) {
+        return new Person(firstName[id], lastName[id], address[id], city[id], zip[id], phone[id], email[id]);
+    }
+
+    String firstName(int id) { return firstName[id]; }
+    String lastName(int id)  { return lastName[id]; }
+    String address(int id)   { return address[id]; }
+    String city(int id)      { return city[id]; }
+    String phone(int id)     { return phone[id]; }
+    String email(int id)     { return email[id]; }
+}
@@ -0,0 +1,91 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.FirestationMapping;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodage binaire compact des entités du modèle, partagé par les formats persistants du dépôt.
+ * <p>
+ * Chaque chaîne est précédée d'un octet de présence (les champs {@code null} sont conservés),
+ * puis écrite en UTF-8 modifié ({@link DataOutput#writeUTF(String)}). Les listes sont précédées
+ * de leur taille ({@code -1} pour une liste nulle).
+ */
+final class RecordCodec {
+
+    private RecordCodec() {}
+
+    static void writePerson(DataOutput out, Person p) throws IOException {
+        writeString(out, p.getFirstName());
+        writeString(out, p.getLastName());
+        writeString(out, p.getAddress());
+        writeString(out, p.getCity());
+        writeString(out, p.getZip());
+        writeString(out, p.getPhone());
+        writeString(out, p.getEmail());
+    }
+
+    static Person readPerson(DataInput in) throws IOException {
+        return new Person(readString(in), readString(in), readString(in), readString(in),
+                readString(in), readString(in), readString(in));
+    }
+
+    static void writeMedicalRecord(DataOutput out, MedicalRecord mr) throws IOException {
+        writeString(out, mr.getFirstName());
+        writeString(out, mr.getLastName());
+        writeString(out, mr.getBirthdate());
+        writeStrings(out, mr.getMedications());
+        writeStrings(out, mr.getAllergies());
+    }
+
+    static MedicalRecord readMedicalRecord(DataInput in) throws IOException {
+        MedicalRecord mr = new MedicalRecord();
+        mr.setFirstName(readString(in));
+        mr.setLastName(readString(in));
+        mr.setBirthdate(readString(in));
+        mr.setMedications(readStrings(in));
+        mr.setAllergies(readStrings(in));
+        return mr;
+    }
+
+    static void writeMapping(DataOutput out, FirestationMapping m) throws IOException {
+        writeString(out, m.getAddress());
+        writeString(out, m.getStation());
+    }
+
+    static FirestationMapping readMapping(DataInput in) throws IOException {
+        return new FirestationMapping(readString(in), readString(in));
+    }
+
+    static void writeString(DataOutput out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    static void writeStrings(DataOutput out, List<String> list) throws IOException {
+        if (list == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(list.size());
+        for (String s : list) writeString(out, s);
+    }
+
+    static List<String> readStrings(DataInput in) throws IOException {
+        int n = in.readInt();
+        if (n < 0) return null;
+        List<String> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) list.add(readString(in));
+        return list;
+    }
+}
@@ -0,0 +1,21 @@
+package com.safetynet.alerts.repository;
+
+import java.util.Locale;
+
+/**
+ * Règles de normalisation des clés d'index partagées par les implémentations de {@link DataRepository}.
+ * <p>
+ * Toutes les recherches sont insensibles à la casse et aux espaces de bord : une adresse, un nom,
+ * une ville ou un numéro de caserne sont indexés sous leur forme {@code trim().toLowerCase(Locale.ROOT)}.
+ * L'identité d'une personne (ou d'un dossier médical) est la clé composite {@code "first|last"}.
+ */
+final class RepositoryKeys {
+
+    private RepositoryKeys() {}
+
+    /** Forme normalisée d'une valeur d'index ({@code ""} pour {@code null}). */
+    static String norm(String s) { return (s == null) ? "" : s.trim().toLowerCase(Locale.ROOT); }
+
+    /** Clé d'identité normalisée {@code "first|last"}. */
+    static String key(String first, String last) { return norm(first) + "|" + norm(last); }
+}
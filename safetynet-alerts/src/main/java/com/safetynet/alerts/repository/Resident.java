@@ -0,0 +1,14 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+
+/**
+ * Habitant déjà joint à son dossier médical (même identité {@code first|last}), tel que renvoyé par les
+ * lectures groupées de {@link DataRepository} ({@code findResidentsBy*}).
+ *
+ * @param person personne, jamais null
+ * @param record dossier médical de la personne, {@code null} si elle n'en a pas
+ */
+public record Resident(Person person, MedicalRecord record) {
+}
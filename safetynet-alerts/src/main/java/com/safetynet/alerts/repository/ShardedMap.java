@@ -0,0 +1,151 @@
+package com.safetynet.alerts.repository;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Table associative immuable à partage structurel : les entrées sont réparties par hachage de la clé entre
+ * un nombre fixe de tranches, et une version dérivée (via {@link #edit()}) ne recopie que les tranches qu'elle
+ * modifie ; les autres restent partagées avec la version de base.
+ * <p>
+ * Une écriture coûte ainsi O(n / tranches) au lieu de la copie complète d'une {@link HashMap} ; {@link #copyOf(Map)}
+ * dimensionne les tranches pour une quinzaine d'entrées chacune.
+ * Une version publiée n'est plus jamais modifiée : lectures sans verrou. Clés et valeurs non null.
+ *
+ * @param <V> type des valeurs (immuables : elles sont partagées entre versions)
+ */
+final class ShardedMap<V> {
+
+    static final int SHARDS = 256;
+    static final int MIN_SHARDS = 16;
+    private static final int MAX_SHARDS = 1 << 16;
+    private static final int ENTRIES_PER_SHARD = 16;
+
+    private static final ShardedMap<?> EMPTY = new ShardedMap<>(emptyShards(SHARDS), 0);
+
+    private final Map<String, V>[] shards;
+    private final int size;
+
+    private ShardedMap(Map<String, V>[] shards, int size) {
+        this.shards = shards;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> ShardedMap<V> empty() { return (ShardedMap<V>) EMPTY; }
+
+    /** @param shards nombre de tranches (puissance de 2, au moins 2) ; moins de tranches pour de nombreuses petites tables */
+    static <V> ShardedMap<V> empty(int shards) {
+        if (shards < 2 || Integer.bitCount(shards) != 1) {
+            throw new IllegalArgumentException("shards must be a power of 2 >= 2: " + shards);
+        }
+        return new ShardedMap<>(emptyShards(shards), 0);
+    }
+
+    /** Copie de {@code source} (construction initiale), en tranches dimensionnées sur sa taille. */
+    static <V> ShardedMap<V> copyOf(Map<String, ? extends V> source) {
+        final int shards = Integer.highestOneBit(Math.clamp(source.size() / ENTRIES_PER_SHARD, MIN_SHARDS, MAX_SHARDS));
+        final Editor<V> e = ShardedMap.<V>empty(shards).edit();
+        source.forEach(e::put);
+        return e.freeze();
+    }
+
+    V get(String key) { return shards[shardOf(shards, key)].get(key); }
+
+    V getOrDefault(String key, V fallback) {
+        final V v = get(key);
+        return (v == null) ? fallback : v;
+    }
+
+    boolean containsKey(String key) { return get(key) != null; }
+
+    int size() { return size; }
+
+    boolean isEmpty() { return size == 0; }
+
+    /** Parcourt toutes les entrées (ordre non spécifié). */
+    void forEach(BiConsumer<String, ? super V> action) {
+        for (Map<String, V> shard : shards) shard.forEach(action);
+    }
+
+    /** Vue non modifiable des clés, sans copie (ordre non spécifié). */
+    Set<String> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public boolean contains(Object o) { return o instanceof String k && containsKey(k); }
+
+            @Override
+            public int size() { return size; }
+
+            @Override
+            public Iterator<String> iterator() {
+                return Arrays.stream(shards).flatMap(shard -> shard.keySet().stream()).iterator();
+            }
+        };
+    }
+
+    /** Ouvre une version dérivée de celle-ci (qui reste inchangée). */
+    Editor<V> edit() { return new Editor<>(shards.clone(), size); }
+
+    // Bits de poids FORT d'un hachage de Fibonacci : les HashMap des tranches indexent par les bits de poids
+    // faible ; choisir la tranche sur ces mêmes bits concentrerait chaque tranche dans quelques alvéoles.
+    private static int shardOf(Map<?, ?>[] shards, String key) {
+        return (key.hashCode() * 0x9E3779B9) >>> (32 - Integer.numberOfTrailingZeros(shards.length));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <V> Map<String, V>[] emptyShards(int count) {
+        final Map<String, V>[] shards = new Map[count];
+        Arrays.fill(shards, Map.of());
+        return shards;
+    }
+
+    /**
+     * Version en cours de construction : une tranche n'est recopiée qu'à sa première modification.
+     * Non thread-safe ; plus utilisable après {@link #freeze()}.
+     */
+    static final class Editor<V> {
+        private final Map<String, V>[] shards;
+        private final boolean[] copied;
+        private int size;
+
+        private Editor(Map<String, V>[] shards, int size) {
+            this.shards = shards;
+            this.copied = new boolean[shards.length];
+            this.size = size;
+        }
+
+        V get(String key) { return shards[shardOf(shards, key)].get(key); }
+
+        V getOrDefault(String key, V fallback) {
+            final V v = get(key);
+            return (v == null) ? fallback : v;
+        }
+
+        /** @return valeur remplacée, ou {@code null} */
+        V put(String key, V value) {
+            Objects.requireNonNull(value, "value");
+            final V previous = writable(shardOf(shards, key)).put(key, value);
+            if (previous == null) size++;
+            return previous;
+        }
+
+        /** @return valeur retirée, ou {@code null} (aucune tranche recopiée si la clé est absente) */
+        V remove(String key) {
+            final int i = shardOf(shards, key);
+            if (!shards[i].containsKey(key)) return null;
+            size--;
+            return writable(i).remove(key);
+        }
+
+        ShardedMap<V> freeze() { return new ShardedMap<>(shards, size); }
+
+        private Map<String, V> writable(int i) {
+            if (!copied[i]) {
+                shards[i] = new HashMap<>(shards[i]);
+                copied[i] = true;
+            }
+            return shards[i];
+        }
+    }
+}
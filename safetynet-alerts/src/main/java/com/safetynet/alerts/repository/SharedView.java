@@ -0,0 +1,40 @@
+package com.safetynet.alerts.repository;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Copie immuable d'une collection concurrente modifiée en place, partagée par tous les lecteurs tant que
+ * la source ne change pas : une lecture ne recopie la source qu'après une écriture.
+ * <p>
+ * Chaque écriture sur la source est suivie de {@link #invalidate()}, qui fait avancer la version. Une copie
+ * n'est conservée que si la version n'a pas bougé pendant sa construction ; une copie construite pendant une
+ * écriture peut donc être servie, au plus, jusqu'à l'{@code invalidate()} de cette écriture (même garantie
+ * faiblement cohérente qu'une copie directe de la source). Thread-safe, sans verrou.
+ *
+ * @param <T> type de la copie (immuable : elle est partagée entre appelants)
+ */
+final class SharedView<T> {
+
+    private record Copy<T>(long version, T value) {}
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Copy<T> copy;
+
+    /** À appeler après chaque modification de la source. */
+    void invalidate() { version.incrementAndGet(); }
+
+    /**
+     * Copie courante, reconstruite par {@code snapshot} si la source a changé depuis la précédente.
+     *
+     * @param snapshot copie immuable de la source (appelée hors verrou, éventuellement par plusieurs lecteurs)
+     */
+    T get(Supplier<? extends T> snapshot) {
+        final long v = version.get();
+        final Copy<T> c = copy;
+        if (c != null && c.version() == v) return c.value();
+        final T fresh = snapshot.get();
+        if (version.get() == v) copy = new Copy<>(v, fresh);
+        return fresh;
+    }
+}
@@ -0,0 +1,551 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.model.FirestationMapping;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static com.safetynet.alerts.repository.RepositoryKeys.key;
+import static com.safetynet.alerts.repository.RepositoryKeys.norm;
+
+/**
+ * Implémentation « copy-on-write » de {@link DataRepository}.
+ * <p>
+ * Tous les index vivent dans un unique {@link Snapshot} immuable publié via une {@link AtomicReference} :
+ * <ul>
+ *   <li>Lectures : aucune synchronisation, un seul {@code get()} de la référence ; les collections
+ *       d'adresses et d'emails renvoyées sont celles du snapshot (déjà immuables), sans copie défensive.</li>
+ *   <li>Écritures : sérialisées entre elles, elles construisent la version suivante en ne recopiant
+ *       que ce qu'elles touchent (tranches de {@link ShardedMap} et groupes par adresse, nom ou ville),
+ *       puis la publient d'un seul coup. Un lecteur voit donc soit l'ancienne version complète, soit la
+ *       nouvelle, jamais un état à moitié appliqué. Une écriture ne coûte plus une copie de la population.</li>
+ * </ul>
+ * Personnes et dossiers médicaux sont stockés sous forme de copies détachées, et toute lecture qui en renvoie
+ * (personne, dossier, listes de personnes, habitants joints) renvoie elle aussi des copies : une modification
+ * en place côté service (ex. {@code mrMapper.update(entity, dto)} avant {@code saveMedicalRecord}) ne peut pas
+ * altérer un snapshot déjà publié, ni être vue d'un lecteur avant la publication de la version suivante.
+ * <p>
+ * Mapping adresse → caserne : mêmes règles que le moteur memory. Au chargement, {@link #findStationByAddress(String)}
+ * retient la première caserne d'une adresse (first-wins) mais chaque couple (caserne, adresse) du jeu de données
+ * est conservé dans {@link #findAddressesByStation(String)} ; une écriture de mapping ne touche que la caserne retenue.
+ * <p>
+ * Activée par {@code safetynet.repository.engine=snapshot}.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(prefix = "safetynet.repository", name = "engine", havingValue = "snapshot")
+public class SnapshotDataRepository implements DataRepository {
+
+    /** Personne stockée et son rang d'insertion (ordre de {@link #findAllPersons()}, conservé au remplacement). */
+    record Stored(Person person, long seq) {}
+
+    /**
+     * Version immuable et complète de tous les index. Les maps et collections ne sont jamais
+     * modifiées après publication ; deux versions successives partagent tout ce que l'écriture n'a pas touché.
+     */
+    static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(ShardedMap.empty(), ShardedMap.empty(), ShardedMap.empty(),
+                ShardedMap.empty(), ShardedMap.empty(), ShardedMap.empty(), ShardedMap.empty(), 0, List.of());
+
+        private final ShardedMap<Stored>               personsByKey;
+        private final ShardedMap<List<Person>>         personsByAddress;
+        private final ShardedMap<List<Person>>         personsByLastName;
+        // ville -> email -> nombre de personnes qui le portent
+        private final ShardedMap<ShardedMap<Integer>>  emailsByCity;
+        private final ShardedMap<Set<String>>          addressesByStation;
+        private final ShardedMap<String>               stationByAddress;
+        private final ShardedMap<MedicalRecord>        medicalRecordByPersonKey;
+        private final long nextSeq;
+        // Toutes les personnes, dérivées à la première lecture de cette version (null tant qu'aucune lecture)
+        private volatile List<Person> persons;
+
+        Snapshot(ShardedMap<Stored> personsByKey, ShardedMap<List<Person>> personsByAddress,
+                 ShardedMap<List<Person>> personsByLastName, ShardedMap<ShardedMap<Integer>> emailsByCity,
+                 ShardedMap<Set<String>> addressesByStation, ShardedMap<String> stationByAddress,
+                 ShardedMap<MedicalRecord> medicalRecordByPersonKey, long nextSeq, List<Person> persons) {
+            this.personsByKey = personsByKey;
+            this.personsByAddress = personsByAddress;
+            this.personsByLastName = personsByLastName;
+            this.emailsByCity = emailsByCity;
+            this.addressesByStation = addressesByStation;
+            this.stationByAddress = stationByAddress;
+            this.medicalRecordByPersonKey = medicalRecordByPersonKey;
+            this.nextSeq = nextSeq;
+            this.persons = persons;
+        }
+
+        ShardedMap<Stored> personsByKey() { return personsByKey; }
+        ShardedMap<List<Person>> personsByAddress() { return personsByAddress; }
+        ShardedMap<List<Person>> personsByLastName() { return personsByLastName; }
+        ShardedMap<ShardedMap<Integer>> emailsByCity() { return emailsByCity; }
+        ShardedMap<Set<String>> addressesByStation() { return addressesByStation; }
+        ShardedMap<String> stationByAddress() { return stationByAddress; }
+        ShardedMap<MedicalRecord> medicalRecordByPersonKey() { return medicalRecordByPersonKey; }
+
+        /** Toutes les personnes dans l'ordre d'insertion ; calcul concurrent possible mais idempotent. */
+        List<Person> persons() {
+            List<Person> all = persons;
+            if (all == null) persons = all = ordered(personsByKey);
+            return all;
+        }
+
+        private static List<Person> ordered(ShardedMap<Stored> byKey) {
+            final Stored[] stored = new Stored[byKey.size()];
+            final int[] n = {0};
+            byKey.forEach((k, st) -> stored[n[0]++] = st);
+            Arrays.sort(stored, Comparator.comparingLong(Stored::seq));
+            final Person[] out = new Person[stored.length];
+            for (int i = 0; i < stored.length; i++) out[i] = stored[i].person();
+            return List.of(out);
+        }
+    }
+
+    private final AtomicReference<Snapshot> state = new AtomicReference<>(Snapshot.EMPTY);
+
+    // Un seul écrivain à la fois : évite de construire puis jeter des versions concurrentes.
+    private final Object writeLock = new Object();
+
+    // Date du jour pour la classification adulte/enfant
+    private final Clock clock;
+
+    public SnapshotDataRepository() { this(Clock.systemDefaultZone()); }
+
+    @Autowired
+    public SnapshotDataRepository(Clock clock) { this.clock = clock; }
+
+    /** Snapshot courant (utile aux tests et au diagnostic). */
+    Snapshot snapshot() { return state.get(); }
+
+    // -------------------- Init --------------------
+    @Override
+    public void init(final DataSet dataSet) {
+        Objects.requireNonNull(dataSet, "dataSet must not be null");
+
+        final Snapshot built = build(
+                Optional.ofNullable(dataSet.getPersons()).orElseGet(List::of),
+                Optional.ofNullable(dataSet.getFirestations()).orElseGet(List::of),
+                Optional.ofNullable(dataSet.getMedicalrecords()).orElseGet(List::of));
+
+        final Snapshot next;
+        synchronized (writeLock) {
+            next = built;
+            state.set(next);
+        }
+        log.info("Repo init (snapshot): persons={}, addresses={}, stations={}, records={}",
+                next.persons().size(), next.personsByAddress().size(),
+                next.addressesByStation().size(), next.medicalRecordByPersonKey().size());
+    }
+
+    // Un snapshot se construit d'un bloc : les lots sont accumulés (simples références) puis indexés en une passe,
+    // plutôt que publiés un par un (chaque publication recopierait les index).
+    @Override
+    public void initIncremental(DataSetSource source) throws IOException {
+        final DataSet ds = new DataSet();
+        source.feed(new DataSetSink() {
+            @Override
+            public void persons(List<Person> batch) { ds.getPersons().addAll(batch); }
+
+            @Override
+            public void firestations(List<FirestationMapping> batch) { ds.getFirestations().addAll(batch); }
+
+            @Override
+            public void medicalRecords(List<MedicalRecord> batch) { ds.getMedicalrecords().addAll(batch); }
+        });
+        init(ds);
+    }
+
+    // -------------------- Requêtes (lecture) --------------------
+    @Override
+    public Set<String> findAddressesByStation(String stationNumber) {
+        if (stationNumber == null) return Set.of();
+        return state.get().addressesByStation().getOrDefault(norm(stationNumber), Set.of());
+    }
+
+    @Override
+    public List<Person> findPersonsByAddress(String address) {
+        if (address == null) return List.of();
+        return copies(state.get().personsByAddress().getOrDefault(norm(address), List.of()));
+    }
+
+    @Override
+    public Optional<String> findStationByAddress(String address) {
+        if (address == null) return Optional.empty();
+        return Optional.ofNullable(state.get().stationByAddress().get(norm(address)));
+    }
+
+    @Override
+    public Optional<MedicalRecord> findMedicalRecord(String firstName, String lastName) {
+        return Optional.ofNullable(state.get().medicalRecordByPersonKey().get(key(firstName, lastName)))
+                .map(SnapshotDataRepository::copyOf);
+    }
+
+    @Override
+    public List<Person> findPersonsByLastName(String lastName) {
+        if (lastName == null) return List.of();
+        return copies(state.get().personsByLastName().getOrDefault(norm(lastName), List.of()));
+    }
+
+    // Adresses et foyers lus sur une seule version du snapshot (et non une version par adresse).
+    @Override
+    public List<Person> findPersonsByStation(String stationNumber) {
+        if (stationNumber == null) return List.of();
+        return copies(personsByStation(state.get(), stationNumber));
+    }
+
+    private static List<Person> personsByStation(Snapshot s, String stationNumber) {
+        final Set<String> addresses = s.addressesByStation().getOrDefault(norm(stationNumber), Set.of());
+        if (addresses.isEmpty()) return List.of();
+        final List<Person> out = new ArrayList<>();
+        for (String address : addresses) {
+            out.addAll(s.personsByAddress().getOrDefault(norm(address), List.of()));
+        }
+        return Collections.unmodifiableList(out);
+    }
+
+    // Jointure sur une seule version du snapshot : un habitant n'est jamais associé au dossier d'une autre version.
+    // findCoverageByStation / pageCoverageByStation (implémentations par défaut) décomptent donc cette même version.
+    @Override
+    public List<Resident> findResidentsByAddress(String address) {
+        if (address == null) return List.of();
+        final Snapshot s = state.get();
+        return join(s, s.personsByAddress().getOrDefault(norm(address), List.of()));
+    }
+
+    @Override
+    public List<Resident> findResidentsByStation(String stationNumber) {
+        if (stationNumber == null) return List.of();
+        final Snapshot s = state.get();
+        return join(s, personsByStation(s, stationNumber));
+    }
+
+    @Override
+    public List<Resident> findResidentsByLastName(String lastName) {
+        if (lastName == null) return List.of();
+        final Snapshot s = state.get();
+        return join(s, s.personsByLastName().getOrDefault(norm(lastName), List.of()));
+    }
+
+    private static List<Resident> join(Snapshot s, List<Person> persons) {
+        if (persons.isEmpty()) return List.of();
+        final List<Resident> out = new ArrayList<>(persons.size());
+        for (Person p : persons) {
+            final MedicalRecord mr = s.medicalRecordByPersonKey().get(key(p.getFirstName(), p.getLastName()));
+            out.add(new Resident(copyOf(p), (mr == null) ? null : copyOf(mr)));
+        }
+        return Collections.unmodifiableList(out);
+    }
+
+    @Override
+    public Set<String> findEmailsByCity(String city) {
+        if (city == null) return Set.of();
+        return state.get().emailsByCity().getOrDefault(norm(city), ShardedMap.empty()).keySet(); // vue, sans copie
+    }
+
+    @Override
+    public List<Person> findAllPersons() {
+        return copies(state.get().persons());
+    }
+
+    @Override
+    public Optional<Person> findPerson(String firstName, String lastName) {
+        return Optional.ofNullable(state.get().personsByKey().get(key(firstName, lastName)))
+                .map(st -> copyOf(st.person()));
+    }
+
+    @Override
+    public LocalDate today() { return LocalDate.now(clock); }
+
+    // -------------------- Écritures (CRUD) --------------------
+    @Override
+    public void savePerson(Person person) {
+        final Person stored = copyOf(person);
+        mutate(d -> d.putPerson(stored));
+    }
+
+    @Override
+    public void deletePerson(String firstName, String lastName) {
+        final String k = key(firstName, lastName);
+        if (!state.get().personsByKey().containsKey(k)) return; // idempotent, pas de nouvelle version
+        mutate(d -> d.removePerson(k));
+    }
+
+    @Override
+    public void saveMedicalRecord(MedicalRecord mr) {
+        final MedicalRecord stored = copyOf(mr);
+        mutate(d -> d.medicalRecords().put(key(stored.getFirstName(), stored.getLastName()), stored));
+    }
+
+    @Override
+    public void deleteMedicalRecord(String firstName, String lastName) {
+        final String k = key(firstName, lastName);
+        if (!state.get().medicalRecordByPersonKey().containsKey(k)) return;
+        mutate(d -> d.medicalRecords().remove(k));
+    }
+
+    @Override
+    public void saveMapping(String address, String station) {
+        mutate(d -> d.putMapping(address, station));
+    }
+
+    @Override
+    public void deleteMapping(String address) {
+        if (address == null || !state.get().stationByAddress().containsKey(norm(address))) return;
+        mutate(d -> d.removeMapping(address));
+    }
+
+    /** Construit un snapshot complet en une passe par index (chargement initial). */
+    static Snapshot build(List<Person> ps, List<FirestationMapping> fs, List<MedicalRecord> mrs) {
+        final Map<String, Stored> byKey = new HashMap<>();
+        long seq = 0;
+        for (Person p : ps) {
+            final String k = key(p.getFirstName(), p.getLastName());
+            final Stored previous = byKey.get(k);
+            byKey.put(k, new Stored(copyOf(p), previous == null ? seq++ : previous.seq())); // last-wins, rang conservé
+        }
+        final ShardedMap<Stored> persons = ShardedMap.copyOf(byKey);
+        final List<Person> all = Snapshot.ordered(persons);
+
+        final Map<String, List<Person>> byAddress = freezeLists(all.stream()
+                .collect(Collectors.groupingBy(p -> norm(p.getAddress()), HashMap::new, Collectors.toList())));
+        final Map<String, List<Person>> byLastName = freezeLists(all.stream()
+                .collect(Collectors.groupingBy(p -> norm(p.getLastName()), HashMap::new, Collectors.toList())));
+        final Map<String, Map<String, Integer>> emailCounts = new HashMap<>();
+        for (Person p : all) {
+            if (p.getEmail() != null) {
+                emailCounts.computeIfAbsent(norm(p.getCity()), c -> new HashMap<>()).merge(p.getEmail(), 1, Integer::sum);
+            }
+        }
+        final Map<String, ShardedMap<Integer>> emailsByCity = new HashMap<>();
+        emailCounts.forEach((c, counts) -> emailsByCity.put(c, ShardedMap.copyOf(counts)));
+
+        // adresse -> station (first-wins) ; station -> adresses garde chaque couple du jeu de données (moteur memory)
+        final Map<String, String> stationByAddress = new HashMap<>();
+        final Map<String, Set<String>> addressesByStation = new HashMap<>();
+        for (FirestationMapping m : fs) {
+            stationByAddress.putIfAbsent(norm(m.getAddress()), norm(m.getStation()));
+            addressesByStation.computeIfAbsent(norm(m.getStation()), s -> new LinkedHashSet<>()).add(m.getAddress());
+        }
+        addressesByStation.replaceAll((st, set) -> Collections.unmodifiableSet(set));
+
+        final Map<String, MedicalRecord> records = new HashMap<>();
+        mrs.forEach(mr -> records.put(key(mr.getFirstName(), mr.getLastName()), copyOf(mr))); // last-wins
+
+        return new Snapshot(
+                persons, ShardedMap.copyOf(byAddress), ShardedMap.copyOf(byLastName),
+                ShardedMap.copyOf(emailsByCity), ShardedMap.copyOf(addressesByStation),
+                ShardedMap.copyOf(stationByAddress), ShardedMap.copyOf(records), seq, all);
+    }
+
+    private static <V> Map<String, List<V>> freezeLists(Map<String, List<V>> m) {
+        m.replaceAll((k, v) -> List.copyOf(v));
+        return m;
+    }
+
+    /** Construit la version suivante à partir de la courante puis la publie atomiquement. */
+    private void mutate(Consumer<Draft> change) {
+        synchronized (writeLock) {
+            Draft d = new Draft(state.get());
+            change.accept(d);
+            state.set(d.freeze());
+        }
+    }
+
+    private static Person copyOf(Person p) {
+        return new Person(p.getFirstName(), p.getLastName(), p.getAddress(), p.getCity(),
+                p.getZip(), p.getPhone(), p.getEmail());
+    }
+
+    // Listes recopiées (modifiables, comme celles d'un dossier désérialisé) : l'appelant peut les modifier en place.
+    private static MedicalRecord copyOf(MedicalRecord mr) {
+        final MedicalRecord c = new MedicalRecord();
+        c.setFirstName(mr.getFirstName());
+        c.setLastName(mr.getLastName());
+        c.setBirthdate(mr.getBirthdate());
+        c.setMedications(mr.getMedications() == null ? null : new ArrayList<>(mr.getMedications()));
+        c.setAllergies(mr.getAllergies() == null ? null : new ArrayList<>(mr.getAllergies()));
+        return c;
+    }
+
+    private static List<Person> copies(List<Person> stored) {
+        if (stored.isEmpty()) return List.of();
+        final Person[] out = new Person[stored.size()];
+        for (int i = 0; i < out.length; i++) out[i] = copyOf(stored.get(i));
+        return List.of(out);
+    }
+
+    // -------------------- Brouillon de la version suivante --------------------
+
+    /**
+     * Version en cours de construction : chaque index n'est dérivé qu'à sa première modification (les autres
+     * sont repris tels quels du snapshot de base), et seules les tranches et les groupes touchés sont recopiés.
+     */
+    private static final class Draft {
+        private final Snapshot base;
+        private long nextSeq;
+        private ShardedMap.Editor<Stored>               personsByKey;
+        private ShardedMap.Editor<List<Person>>         personsByAddress;
+        private ShardedMap.Editor<List<Person>>         personsByLastName;
+        private ShardedMap.Editor<ShardedMap<Integer>>  emailsByCity;
+        private ShardedMap.Editor<Set<String>>          addressesByStation;
+        private ShardedMap.Editor<String>               stationByAddress;
+        private ShardedMap.Editor<MedicalRecord>        medicalRecords;
+        // Emails des villes touchées par ce brouillon, figés dans emailsByCity par freeze()
+        private final Map<String, ShardedMap.Editor<Integer>> emailsOfCity = new HashMap<>(2);
+
+        Draft(Snapshot base) {
+            this.base = base;
+            this.nextSeq = base.nextSeq;
+        }
+
+        ShardedMap.Editor<Stored> personsByKey() {
+            if (personsByKey == null) personsByKey = base.personsByKey().edit();
+            return personsByKey;
+        }
+        ShardedMap.Editor<List<Person>> personsByAddress() {
+            if (personsByAddress == null) personsByAddress = base.personsByAddress().edit();
+            return personsByAddress;
+        }
+        ShardedMap.Editor<List<Person>> personsByLastName() {
+            if (personsByLastName == null) personsByLastName = base.personsByLastName().edit();
+            return personsByLastName;
+        }
+        ShardedMap.Editor<ShardedMap<Integer>> emailsByCity() {
+            if (emailsByCity == null) emailsByCity = base.emailsByCity().edit();
+            return emailsByCity;
+        }
+        ShardedMap.Editor<Set<String>> addressesByStation() {
+            if (addressesByStation == null) addressesByStation = base.addressesByStation().edit();
+            return addressesByStation;
+        }
+        ShardedMap.Editor<String> stationByAddress() {
+            if (stationByAddress == null) stationByAddress = base.stationByAddress().edit();
+            return stationByAddress;
+        }
+        ShardedMap.Editor<MedicalRecord> medicalRecords() {
+            if (medicalRecords == null) medicalRecords = base.medicalRecordByPersonKey().edit();
+            return medicalRecords;
+        }
+
+        void putPerson(Person p) {
+            final String k = key(p.getFirstName(), p.getLastName());
+            final Stored previous = personsByKey().get(k);
+            personsByKey().put(k, new Stored(p, previous == null ? nextSeq++ : previous.seq()));
+            if (previous != null) {
+                final Person old = previous.person();
+                without(personsByAddress(), norm(old.getAddress()), old);
+                without(personsByLastName(), norm(old.getLastName()), old);
+                releaseEmail(old);
+            }
+            with(personsByAddress(), norm(p.getAddress()), p);
+            with(personsByLastName(), norm(p.getLastName()), p);
+            retainEmail(p);
+        }
+
+        void removePerson(String k) {
+            final Stored previous = personsByKey().remove(k);
+            if (previous == null) return;
+            final Person old = previous.person();
+            without(personsByAddress(), norm(old.getAddress()), old);
+            without(personsByLastName(), norm(old.getLastName()), old);
+            releaseEmail(old);
+        }
+
+        void putMapping(String address, String station) {
+            final String a = norm(address);
+            final String s = norm(station);
+            final String previous = stationByAddress().put(a, s);
+            if (previous != null && !previous.equals(s)) {
+                withoutAddress(previous, a);
+            }
+            final Set<String> set = addressesByStation().get(s);
+            final Set<String> next = new LinkedHashSet<>();
+            if (set != null) set.stream().filter(x -> !norm(x).equals(a)).forEach(next::add);
+            next.add(address); // on conserve la casse d'origine en sortie
+            addressesByStation().put(s, Collections.unmodifiableSet(next));
+        }
+
+        void removeMapping(String address) {
+            final String a = norm(address);
+            final String previous = stationByAddress().remove(a);
+            if (previous != null) withoutAddress(previous, a);
+        }
+
+        private void withoutAddress(String station, String normalizedAddress) {
+            final Set<String> set = addressesByStation().get(station);
+            if (set == null) return;
+            final Set<String> next = new LinkedHashSet<>(set);
+            next.removeIf(x -> norm(x).equals(normalizedAddress));
+            if (next.isEmpty()) addressesByStation().remove(station);
+            else addressesByStation().put(station, Collections.unmodifiableSet(next));
+        }
+
+        // Emails à compteurs de références (comme le moteur memory) : seule la tranche de l'email est recopiée.
+        private void retainEmail(Person p) {
+            if (p.getEmail() == null) return;
+            final ShardedMap.Editor<Integer> counts = emailsOf(norm(p.getCity()));
+            final Integer n = counts.get(p.getEmail());
+            counts.put(p.getEmail(), (n == null) ? 1 : n + 1);
+        }
+
+        private void releaseEmail(Person p) {
+            if (p.getEmail() == null) return;
+            final ShardedMap.Editor<Integer> counts = emailsOf(norm(p.getCity()));
+            final Integer n = counts.get(p.getEmail());
+            if (n == null) return;
+            if (n > 1) counts.put(p.getEmail(), n - 1);
+            else counts.remove(p.getEmail());
+        }
+
+        private ShardedMap.Editor<Integer> emailsOf(String city) {
+            return emailsOfCity.computeIfAbsent(city,
+                    c -> base.emailsByCity().getOrDefault(c, ShardedMap.empty(ShardedMap.MIN_SHARDS)).edit());
+        }
+
+        private static void with(ShardedMap.Editor<List<Person>> index, String k, Person p) {
+            final List<Person> list = index.get(k);
+            final List<Person> next = (list == null) ? new ArrayList<>(1) : new ArrayList<>(list);
+            next.add(p);
+            index.put(k, List.copyOf(next));
+        }
+
+        // La personne remplacée est l'instance même rangée dans les groupes : retrait par identité.
+        private static void without(ShardedMap.Editor<List<Person>> index, String k, Person stored) {
+            final List<Person> list = index.get(k);
+            if (list == null) return;
+            final List<Person> next = list.stream().filter(x -> x != stored).toList();
+            if (next.isEmpty()) index.remove(k);
+            else index.put(k, next);
+        }
+
+        Snapshot freeze() {
+            emailsOfCity.forEach((c, counts) -> {
+                final ShardedMap<Integer> next = counts.freeze();
+                if (next.isEmpty()) emailsByCity().remove(c);
+                else emailsByCity().put(c, next);
+            });
+            return new Snapshot(
+                    personsByKey       == null ? base.personsByKey()             : personsByKey.freeze(),
+                    personsByAddress   == null ? base.personsByAddress()         : personsByAddress.freeze(),
+                    personsByLastName  == null ? base.personsByLastName()        : personsByLastName.freeze(),
+                    emailsByCity       == null ? base.emailsByCity()             : emailsByCity.freeze(),
+                    addressesByStation == null ? base.addressesByStation()       : addressesByStation.freeze(),
+                    stationByAddress   == null ? base.stationByAddress()         : stationByAddress.freeze(),
+                    medicalRecords     == null ? base.medicalRecordByPersonKey() : medicalRecords.freeze(),
+                    nextSeq,
+                    personsByKey       == null ? base.persons                    : null); // liste dérivée à la demande
+        }
+    }
+}
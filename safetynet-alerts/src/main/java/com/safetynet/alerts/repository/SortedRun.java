@@ -0,0 +1,72 @@
+package com.safetynet.alerts.repository;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copie triée par clé d'un index, pour les lectures paginées du moteur en mémoire : une page se trouve par
+ * recherche dichotomique de la clé de départ, en O(log n + taille de la page). Immuable ; partagée par
+ * {@link SharedView} jusqu'à la prochaine écriture sur l'index.
+ *
+ * @param <T> type des valeurs
+ */
+final class SortedRun<T> {
+
+    private final String[] keys;
+    private final List<T> values;
+
+    private SortedRun(String[] keys, List<T> values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /** Copie triée de {@code byKey} (clés uniques). */
+    @SuppressWarnings("unchecked")
+    static <T> SortedRun<T> of(Map<String, T> byKey) {
+        final Map.Entry<String, T>[] entries = byKey.entrySet().stream()
+                .map(e -> Map.entry(e.getKey(), e.getValue()))
+                .sorted(Map.Entry.comparingByKey())
+                .toArray(Map.Entry[]::new);
+        final String[] keys = new String[entries.length];
+        final Object[] values = new Object[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            keys[i] = entries[i].getKey();
+            values[i] = entries[i].getValue();
+        }
+        return new SortedRun<>(keys, (List<T>) Collections.unmodifiableList(Arrays.asList(values)));
+    }
+
+    /** Copie triée d'un ensemble de clés servant aussi de valeurs (emails d'une ville). */
+    static SortedRun<String> ofKeys(Collection<String> keys) {
+        final String[] sorted = keys.toArray(String[]::new);
+        Arrays.sort(sorted);
+        return new SortedRun<>(sorted, Collections.unmodifiableList(Arrays.asList(sorted)));
+    }
+
+    int size() { return keys.length; }
+
+    String key(int i) { return keys[i]; }
+
+    T value(int i) { return values.get(i); }
+
+    /** Toutes les valeurs, dans l'ordre des clés (liste immuable partagée). */
+    List<T> values() { return values; }
+
+    /** Position du premier élément dont la clé suit strictement {@code after} ({@code null} : 0). */
+    int indexAfter(String after) {
+        if (after == null) return 0;
+        final int i = Arrays.binarySearch(keys, after);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    /** Page de {@code limit} valeurs au plus après la clé {@code after}. */
+    KeyedPage<T> page(String after, int limit) {
+        KeyedPage.requireLimit(limit);
+        final int from = indexAfter(after);
+        final int to = (int) Math.min((long) from + limit, keys.length);
+        return new KeyedPage<>(values.subList(from, to), to < keys.length ? keys[to - 1] : null);
+    }
+}
@@ -0,0 +1,20 @@
+package com.safetynet.alerts.repository;
+
+import java.util.function.Function;
+
+/**
+ * Habitants d'une caserne et leurs totaux adultes / enfants, lus sur un même état du dépôt
+ * ({@link DataRepository#findCoverageByStation(String)}, {@link DataRepository#pageCoverageByStation(String, String, int)}) :
+ * les totaux décomptent exactement les habitants lus, sans écriture intercalée entre la liste et les compteurs.
+ *
+ * @param residents habitants de la caserne (liste complète ou page)
+ * @param counts    adultes / enfants de TOUTE la caserne (pas seulement de la page), jamais null
+ * @param <T>       forme des habitants (liste, page)
+ */
+public record StationCoverage<T>(T residents, AgeCounts counts) {
+
+    /** Mêmes totaux, habitants transformés par {@code f}. */
+    public <R> StationCoverage<R> map(Function<? super T, ? extends R> f) {
+        return new StationCoverage<>(f.apply(residents), counts);
+    }
+}
@@ -0,0 +1,57 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.model.FirestationMapping;
+import com.safetynet.alerts.model.Person;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Ensemble des dictionnaires de chaînes partagés par le chargement (DataLoader) et le dépôt.
+ * <p>
+ * Un dictionnaire par attribut répété : adresse (un foyer partage son adresse, et le mapping caserne
+ * la répète), ville, code postal et numéro de caserne.
+ */
+@Component
+public class StringDictionaries {
+
+    private final StringDictionary address = new StringDictionary("address");
+    private final StringDictionary city    = new StringDictionary("city");
+    private final StringDictionary zip     = new StringDictionary("zip");
+    private final StringDictionary station = new StringDictionary("station");
+
+    public StringDictionary address() { return address; }
+    public StringDictionary city()    { return city; }
+    public StringDictionary zip()     { return zip; }
+    public StringDictionary station() { return station; }
+
+    /** Remplace en place les attributs répétés d'une personne par leurs instances canoniques. */
+    public Person intern(Person p) {
+        p.setAddress(address.intern(p.getAddress()));
+        p.setCity(city.intern(p.getCity()));
+        p.setZip(zip.intern(p.getZip()));
+        return p;
+    }
+
+    /** Remplace en place les valeurs d'un mapping par leurs instances canoniques. */
+    public FirestationMapping intern(FirestationMapping m) {
+        m.setAddress(address.intern(m.getAddress()));
+        m.setStation(station.intern(m.getStation()));
+        return m;
+    }
+
+    /**
+     * Déduplique tout un jeu de données juste après sa désérialisation : les copies redondantes
+     * produites par le parseur deviennent immédiatement collectables.
+     */
+    public DataSet intern(DataSet ds) {
+        if (ds.getPersons() != null) ds.getPersons().forEach(this::intern);
+        if (ds.getFirestations() != null) ds.getFirestations().forEach(this::intern);
+        return ds;
+    }
+
+    public List<StringDictionary.Stats> stats() {
+        return List.of(address.stats(), city.stats(), zip.stats(), station.stats());
+    }
+}
@@ -0,0 +1,69 @@
+package com.safetynet.alerts.repository;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dictionnaire de chaînes (« interning ») pour un attribut à forte répétition (ville, code postal, adresse, caserne).
+ * <p>
+ * Chaque valeur distincte n'est conservée qu'une fois : {@link #intern(String)} renvoie l'instance canonique,
+ * ce qui permet de libérer les doublons produits par la désérialisation. La forme normalisée
+ * ({@link RepositoryKeys#norm(String)}) est calculée une seule fois et stockée à côté de la valeur,
+ * ce qui évite une allocation {@code toLowerCase} à chaque calcul de clé d'index.
+ * <p>
+ * Les entrées ne sont jamais retirées : la taille est bornée par le nombre de valeurs distinctes rencontrées.
+ * Thread-safe.
+ */
+public final class StringDictionary {
+
+    private record Entry(String value, String normalized) {}
+
+    /** Statistiques d'un dictionnaire (l'économie mémoire est une estimation, chaînes Latin-1 compactes). */
+    public record Stats(String name, int cardinality, long lookups, long savedBytes) {}
+
+    private final String name;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // formes normalisées partagées entre variantes de casse ("Culver" / "CULVER" -> "culver")
+    private final ConcurrentMap<String, String> normalizedForms = new ConcurrentHashMap<>();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    public StringDictionary(String name) { this.name = name; }
+
+    /**
+     * Renvoie l'instance canonique de {@code raw} (l'ajoute au dictionnaire si nécessaire).
+     *
+     * @param raw valeur brute, éventuellement null
+     * @return instance canonique, ou null si {@code raw} est null
+     */
+    public String intern(String raw) {
+        if (raw == null) return null;
+        lookups.increment();
+        Entry e = entries.computeIfAbsent(raw, this::newEntry);
+        if (e.value() != raw) savedBytes.add(estimatedSize(raw));
+        return e.value();
+    }
+
+    /**
+     * Forme normalisée d'une valeur : précalculée si la valeur est connue du dictionnaire,
+     * calculée à la volée sinon (sans l'ajouter, pour qu'une recherche ne fasse pas grossir le dictionnaire).
+     */
+    public String normalized(String raw) {
+        if (raw == null) return "";
+        Entry e = entries.get(raw);
+        return (e != null) ? e.normalized() : RepositoryKeys.norm(raw);
+    }
+
+    public Stats stats() {
+        return new Stats(name, entries.size(), lookups.sum(), savedBytes.sum());
+    }
+
+    private Entry newEntry(String raw) {
+        String n = RepositoryKeys.norm(raw);
+        return new Entry(raw, normalizedForms.computeIfAbsent(n, x -> x));
+    }
+
+    // en-tête String (24) + tableau byte[] (16 + longueur)
+    private static long estimatedSize(String s) { return 40L + s.length(); }
+}
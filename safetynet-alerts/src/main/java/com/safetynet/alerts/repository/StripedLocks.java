@@ -0,0 +1,77 @@
+package com.safetynet.alerts.repository;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Verrous « striés » : un tableau fixe de {@link ReentrantLock} sur lequel chaque clé est projetée par hachage.
+ * <p>
+ * Deux écritures sur des clés différentes tombent le plus souvent sur des verrous différents et
+ * s'exécutent en parallèle ; deux écritures sur la même clé sont toujours sérialisées.
+ * Pour éviter tout interblocage, {@link #lock(String...)} acquiert les verrous dans l'ordre croissant
+ * de leur indice, quel que soit l'ordre des clés demandées, et ne prend qu'une fois un même verrou.
+ */
+final class StripedLocks {
+
+    private final ReentrantLock[] stripes;
+
+    /** @param stripes nombre de verrous, arrondi à la puissance de 2 supérieure */
+    StripedLocks(int stripes) {
+        int n = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) this.stripes[i] = new ReentrantLock();
+    }
+
+    /** Dimensionnement par défaut : 4 verrous par cœur, au moins 16. */
+    static StripedLocks forAvailableProcessors() {
+        return new StripedLocks(Math.max(16, Runtime.getRuntime().availableProcessors() * 4));
+    }
+
+    int size() { return stripes.length; }
+
+    /** Indice du verrou associé à une clé (brassage des bits de poids fort comme dans HashMap). */
+    int stripeOf(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return h & (stripes.length - 1);
+    }
+
+    /**
+     * Acquiert les verrous de toutes les clés données (dans l'ordre des indices).
+     * À utiliser dans un try-with-resources.
+     */
+    Held lock(String... keys) {
+        int[] idx = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) idx[i] = stripeOf(keys[i]);
+        Arrays.sort(idx);
+        int n = 0;
+        for (int i = 0; i < idx.length; i++) {
+            if (i == 0 || idx[i] != idx[i - 1]) idx[n++] = idx[i];
+        }
+        int[] unique = Arrays.copyOf(idx, n);
+        for (int i : unique) stripes[i].lock();
+        return new Held(unique);
+    }
+
+    /** Acquiert tous les verrous (opérations globales, ex. réinitialisation complète). */
+    Held lockAll() {
+        int[] all = new int[stripes.length];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+            stripes[i].lock();
+        }
+        return new Held(all);
+    }
+
+    /** Ensemble de verrous détenus ; {@link #close()} les libère dans l'ordre inverse. */
+    final class Held implements AutoCloseable {
+        private final int[] held;
+
+        private Held(int[] held) { this.held = held; }
+
+        @Override
+        public void close() {
+            for (int i = held.length - 1; i >= 0; i--) stripes[held[i]].unlock();
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package com.safetynet.alerts.repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Journal d'écriture anticipée (WAL) en ajout seul, avec validation groupée (« group commit »).
+ * <p>
+ * Chaque mutation est encodée en une trame {@code longueur(int) | crc32(int) | charge utile}. Les écrivains
+ * déposent leur trame dans une file puis attendent ; un unique thread de vidage draine tout ce qui est en
+ * attente, l'écrit en un seul appel et fait un seul {@code fsync} pour le groupe. Sous charge, N écritures
+ * concurrentes partagent donc un même fsync.
+ * <p>
+ * Le journal est découpé en segments {@code wal-<n>.log}. Quand le segment courant dépasse sa taille cible,
+ * il est scellé et un nouveau est ouvert ; les segments scellés sont compactés en tâche de fond (dernière
+ * mutation par clé). {@link #rotate()} sert au point de reprise : une fois un snapshot durable écrit, les
+ * segments qu'il couvre sont compactés, sans rien perdre de leur contenu : toute base de reprise (data.json ou
+ * snapshot) est complétée par le rejeu du journal entier.
+ * <p>
+ * Base : le journal s'applique à une version donnée de data.json, identifiée par son empreinte et enregistrée
+ * dans {@code wal.base} avec le premier segment qui la suit. {@link #checkpoint(String)} fait d'un nouveau
+ * fichier la base : les segments antérieurs sont écartés, une édition CRUD ne prime donc jamais sur un export
+ * plus récent.
+ * <p>
+ * À la relecture ({@link #replay(Consumer)}), une trame incomplète ou corrompue marque la fin du journal
+ * (écriture interrompue par un arrêt brutal) : le segment est tronqué à cet endroit.
+ */
+@Slf4j
+public final class WriteAheadLog implements Closeable {
+
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+    private static final String BASE = "wal.base";
+    private static final int FRAME_HEADER = 8;
+    private static final int MAX_GROUP = 4096;
+
+    private record Pending(ByteBuffer frame, CompletableFuture<Void> done) {}
+
+    private final Path dir;
+    private final boolean fsync;
+    private final long segmentBytes;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private final ExecutorService maintenance;
+    private final Object segmentLock = new Object(); // segment courant : vidage vs rotation
+    private final Object maintenanceLock = new Object(); // segments scellés : compaction vs point de reprise
+    private volatile boolean closed;
+
+    private FileChannel current;
+    private long currentSegment;
+    // Base du journal et premier segment qui s'y applique (les précédents sont obsolètes) ; sous maintenanceLock
+    private String base;
+    private volatile long firstSegment;
+
+    private final AtomicLong appends = new AtomicLong();
+    private final AtomicLong groups = new AtomicLong();
+
+    /**
+     * @param dir          répertoire du journal (créé si besoin)
+     * @param fsync        {@code true} pour forcer chaque groupe sur disque avant d'acquitter les écrivains
+     * @param segmentBytes taille au-delà de laquelle le segment courant est scellé puis compacté
+     */
+    public WriteAheadLog(Path dir, boolean fsync, long segmentBytes) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.fsync = fsync;
+        this.segmentBytes = segmentBytes;
+        readBase();
+        List<Long> existing = segments();
+        this.currentSegment = existing.isEmpty() ? Math.max(1, firstSegment) : existing.getLast();
+        this.current = open(currentSegment);
+        this.maintenance = Executors.newSingleThreadExecutor(r -> daemon(r, "wal-compaction"));
+        this.flusher = daemon(this::flushLoop, "wal-flusher");
+        this.flusher.start();
+    }
+
+    /** Nombre de mutations journalisées et de groupes écrits depuis l'ouverture. */
+    public long appends() { return appends.get(); }
+
+    public long groups() { return groups.get(); }
+
+    // -------------------- Écriture --------------------
+
+    /** Journalise une mutation ; rend la main une fois le groupe qui la contient écrit (et forcé si fsync). */
+    void append(Mutation m) {
+        final byte[] payload = Mutation.encode(m);
+        final CRC32 crc = new CRC32();
+        crc.update(payload);
+        final ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER + payload.length)
+                .putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        final Pending pending = new Pending(frame, new CompletableFuture<>());
+        if (closed) throw new IllegalStateException("Journal fermé");
+        queue.add(pending);
+        try {
+            pending.done().join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Écriture du journal impossible", e.getCause());
+        }
+    }
+
+    private void flushLoop() {
+        final List<Pending> group = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                group.add(first);
+                queue.drainTo(group, MAX_GROUP - 1);
+                writeGroup(group);
+                group.forEach(p -> p.done().complete(null));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                group.forEach(p -> p.done().completeExceptionally(e));
+            }
+            group.clear();
+        }
+    }
+
+    private void writeGroup(List<Pending> group) throws IOException {
+        final ByteBuffer[] frames = new ByteBuffer[group.size()];
+        for (int i = 0; i < frames.length; i++) frames[i] = group.get(i).frame();
+        boolean sealed = false;
+        synchronized (segmentLock) {
+            while (frames[frames.length - 1].hasRemaining()) current.write(frames);
+            if (fsync) current.force(false);
+            if (current.size() >= segmentBytes) {
+                rotateLocked();
+                sealed = true;
+            }
+        }
+        appends.addAndGet(frames.length);
+        groups.incrementAndGet();
+        if (sealed) compactAsync();
+    }
+
+    // -------------------- Segments --------------------
+
+    /**
+     * Scelle le segment courant et en ouvre un nouveau.
+     *
+     * @return numéro du dernier segment scellé (toutes les mutations déjà acquittées y figurent)
+     */
+    public long rotate() throws IOException {
+        synchronized (segmentLock) {
+            return rotateLocked();
+        }
+    }
+
+    private long rotateLocked() throws IOException {
+        final long sealed = currentSegment;
+        current.force(true);
+        current.close();
+        currentSegment = sealed + 1;
+        current = open(currentSegment);
+        return sealed;
+    }
+
+    /** Lance la compaction des segments scellés en tâche de fond (les lectures du dépôt ne sont pas concernées). */
+    public Future<?> compactAsync() {
+        return maintenance.submit(() -> {
+            try {
+                compactSealed();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Compaction du journal {} interrompue", dir, e);
+            }
+        });
+    }
+
+    /**
+     * Réécrit les segments scellés en un seul, ne conservant que la dernière mutation de chaque clé.
+     * Le résultat remplace atomiquement le plus récent des segments scellés, puis les autres sont supprimés :
+     * un arrêt à n'importe quelle étape laisse un journal rejouable.
+     */
+    void compactSealed() throws IOException {
+        synchronized (maintenanceLock) {
+            final long active;
+            synchronized (segmentLock) {
+                active = currentSegment;
+            }
+            final List<Long> sealed = segments().stream().filter(s -> s < active).toList();
+            if (sealed.isEmpty()) return;
+
+            final Map<String, Mutation> latest = new LinkedHashMap<>();
+            for (long s : sealed) {
+                readSegment(s, m -> {
+                    latest.remove(m.compactionKey()); // réinsertion : ordre de dernière écriture
+                    latest.put(m.compactionKey(), m);
+                });
+            }
+            final long target = sealed.getLast();
+            final Path tmp = dir.resolve(PREFIX + target + SUFFIX + ".compact");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (Mutation m : latest.values()) {
+                    byte[] payload = Mutation.encode(m);
+                    CRC32 crc = new CRC32();
+                    crc.update(payload);
+                    ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER + payload.length)
+                            .putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+                    while (frame.hasRemaining()) out.write(frame);
+                }
+                out.force(true);
+            }
+            DurableFiles.replace(tmp, file(target)); // durable avant de supprimer les segments qu'il remplace
+            for (long s : sealed) {
+                if (s != target) Files.deleteIfExists(file(s));
+            }
+            log.info("Journal compacté: {} segment(s) → {} mutation(s)", sealed.size(), latest.size());
+        }
+    }
+
+    // -------------------- Base --------------------
+
+    /** Empreinte du fichier auquel s'applique le journal, vide pour un journal antérieur à son suivi. */
+    public Optional<String> base() {
+        synchronized (maintenanceLock) {
+            return Optional.ofNullable(base);
+        }
+    }
+
+    /**
+     * Fait de {@code newBase} la base du journal, qui repart vide : le segment courant est scellé, le nouveau
+     * segment est enregistré comme premier de la base, puis les précédents sont supprimés. Un arrêt à n'importe
+     * quelle étape laisse soit l'ancienne base et tout son journal, soit la nouvelle et un journal vide.
+     * <p>
+     * L'appelant suspend les écrivains : une mutation acquittée pendant l'appel pourrait être écartée.
+     */
+    public void checkpoint(String newBase) throws IOException {
+        synchronized (maintenanceLock) {
+            final long first;
+            synchronized (segmentLock) {
+                first = rotateLocked() + 1;
+            }
+            writeBase(newBase, first);
+            for (long s : segments()) {
+                if (s < first) Files.deleteIfExists(file(s));
+            }
+            log.info("Journal {}: nouvelle base {}, segments antérieurs écartés", dir, newBase);
+        }
+    }
+
+    /** Enregistre {@code newBase} comme base du journal existant, sans rien en écarter (journal non suivi). */
+    public void adopt(String newBase) throws IOException {
+        synchronized (maintenanceLock) {
+            writeBase(newBase, firstSegment);
+        }
+    }
+
+    private void readBase() throws IOException {
+        final Path path = dir.resolve(BASE);
+        if (!Files.exists(path)) return;
+        final List<String> lines = Files.readAllLines(path);
+        if (lines.size() < 2) throw new IOException("Base du journal illisible: " + path);
+        base = lines.get(0);
+        firstSegment = Long.parseLong(lines.get(1));
+    }
+
+    private void writeBase(String newBase, long first) throws IOException {
+        final Path tmp = dir.resolve(BASE + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final ByteBuffer content = ByteBuffer.wrap((newBase + "\n" + first + "\n").getBytes(StandardCharsets.UTF_8));
+            while (content.hasRemaining()) out.write(content);
+            out.force(true);
+        }
+        DurableFiles.replace(tmp, dir.resolve(BASE));
+        base = newBase;
+        firstSegment = first;
+    }
+
+    // -------------------- Relecture --------------------
+
+    /** Rejoue toutes les mutations journalisées, dans l'ordre d'écriture. */
+    public void replay(Consumer<Mutation> target) throws IOException {
+        synchronized (maintenanceLock) {
+            for (long s : segments()) readSegment(s, target);
+        }
+    }
+
+    private void readSegment(long segment, Consumer<Mutation> target) throws IOException {
+        final Path path = file(segment);
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            while (true) {
+                final int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException eof) {
+                    return; // fin propre
+                }
+                final int expected;
+                final byte[] payload;
+                try {
+                    expected = in.readInt();
+                    if (length < 0) throw new EOFException();
+                    payload = in.readNBytes(length);
+                    if (payload.length < length) throw new EOFException();
+                } catch (EOFException torn) {
+                    break;
+                }
+                final CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != expected) break;
+                target.accept(Mutation.decode(payload));
+                valid += FRAME_HEADER + length;
+            }
+        }
+        log.warn("Journal {}: fin de segment incomplète ou corrompue à l'octet {}, troncature", path, valid);
+        synchronized (segmentLock) {
+            if (segment == currentSegment) {
+                current.truncate(valid);
+                current.position(valid);
+                return;
+            }
+        }
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ch.truncate(valid);
+        }
+    }
+
+    // -------------------- Fermeture --------------------
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Pending late; (late = queue.poll()) != null; ) {
+            late.done().completeExceptionally(new IllegalStateException("Journal fermé"));
+        }
+        maintenance.shutdown();
+        try {
+            maintenance.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (segmentLock) {
+            current.force(true);
+            current.close();
+        }
+        final long g = groups.get();
+        log.info("Journal {} fermé: mutations={}, groupes={}, mutations/groupe≈{}",
+                dir, appends.get(), g, g == 0 ? 0 : appends.get() / g);
+    }
+
+    // -------------------- Utilitaires --------------------
+
+    private FileChannel open(long segment) throws IOException {
+        FileChannel ch = FileChannel.open(file(segment), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ch.position(ch.size());
+        return ch;
+    }
+
+    private Path file(long segment) { return dir.resolve(PREFIX + segment + SUFFIX); }
+
+    /** Numéros des segments de la base courante, triés (les segments d'une base écartée sont ignorés). */
+    List<Long> segments() throws IOException {
+        final long first = firstSegment;
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith(PREFIX) && n.endsWith(SUFFIX))
+                    .map(n -> n.substring(PREFIX.length(), n.length() - SUFFIX.length()))
+                    .filter(n -> !n.isEmpty() && n.chars().allMatch(Character::isDigit))
+                    .map(Long::parseLong)
+                    .filter(s -> s >= first)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+}
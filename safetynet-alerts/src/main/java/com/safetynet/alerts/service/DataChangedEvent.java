@@ -0,0 +1,26 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.model.Person;
+
+/**
+ * Événement applicatif publié après chaque écriture réussie sur le dépôt (services CRUD, rechargement).
+ * <p>
+ * Il décrit ce qui a changé, valeurs d'avant et d'après comprises, pour les abonnés applicatifs. Publié de façon
+ * synchrone, après l'écriture : quand {@code publishEvent} rend la main, les abonnés ont vu le changement.
+ * Les versions du cache des rapports et des ETags n'en dépendent pas : elles sont tenues par le dépôt, sous le
+ * verrou de l'écriture ({@code ObservedDataRepository}), y compris pour les écritures hors services.
+ */
+public sealed interface DataChangedEvent {
+
+    /** Création ({@code before} nul), modification ou suppression ({@code after} nul) d'une personne. */
+    record PersonChanged(Person before, Person after) implements DataChangedEvent {}
+
+    /** Écriture ou suppression du dossier médical d'une personne ; {@code address} : son adresse, si elle est connue. */
+    record MedicalRecordChanged(String firstName, String lastName, String address) implements DataChangedEvent {}
+
+    /** Création ({@code stationBefore} nul), changement ou suppression ({@code stationAfter} nul) d'un mapping. */
+    record MappingChanged(String address, String stationBefore, String stationAfter) implements DataChangedEvent {}
+
+    /** Remplacement de tout ou partie du jeu de données (rechargement à chaud). */
+    record Reloaded() implements DataChangedEvent {}
+}
@@ -4,11 +4,15 @@ import com.safetynet.alerts.dto.reporting.ChildAlertDto;
 import com.safetynet.alerts.dto.reporting.FireAddressDto;
 import com.safetynet.alerts.dto.reporting.FirestationCoverageDto;
 import com.safetynet.alerts.dto.reporting.PersonInfoDto;
+import com.safetynet.alerts.dto.reporting.PersonSummaryDto;
 import com.safetynet.alerts.dto.reporting.ResidentMedicalDto;
+import com.safetynet.alerts.repository.KeyedPage;
+import com.safetynet.alerts.repository.StationCoverage;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public interface ReportingService {
     FirestationCoverageDto getPersonsByStation(String stationNumber);                 // /firestation
@@ -16,6 +20,16 @@ public interface ReportingService {
     Set<String> getPhonesByFirestation(String stationNumber);                         // /phoneAlert
     FireAddressDto getFireInfo(String address);                                       // /fire
     Map<String, List<ResidentMedicalDto>> getFloodByStations(Set<String> stations);   // /flood/stations
+    Stream<Map.Entry<String, List<ResidentMedicalDto>>> streamFloodByStations(Set<String> stations); // /flood/stations (flux paresseux, une adresse par élément)
+    Set<String> floodAddresses(Set<String> stations);                                 // /flood/stations (adresses uniques, ordre stable)
+    List<ResidentMedicalDto> floodHousehold(String address);                          // /flood/stations (un foyer)
     List<PersonInfoDto> getPersonInfoByLastName(String lastName);                     // /personInfo
     Set<String> getCommunityEmails(String city);                                      // /communityEmail
+    Stream<String> streamCommunityEmails(String city);                                // /communityEmail (flux paresseux, un email par élément)
+
+    // Pages ordonnées par clé (identité first|last, adresse ou email) : after = KeyedPage.next() de la page précédente
+    StationCoverage<KeyedPage<PersonSummaryDto>> pagePersonsByStation(String stationNumber, String after, int limit);       // /firestation?limit= (page + totaux de la caserne)
+    KeyedPage<Map.Entry<String, List<ResidentMedicalDto>>> pageFloodByStations(Set<String> stations, String after, int limit); // /flood/stations?limit=
+    KeyedPage<PersonInfoDto> pagePersonInfoByLastName(String lastName, String after, int limit);                             // /personInfo?limit=
+    KeyedPage<String> pageCommunityEmails(String city, String after, int limit);                                             // /communityEmail?limit=
 }
@@ -0,0 +1,12 @@
+package com.safetynet.alerts.service;
+
+import com.safetynet.alerts.cache.JsonBody;
+
+/**
+ * Rapports servis sous forme déjà sérialisée : le contrôleur écrit ces octets tels quels, sans graphe d'objets
+ * ni passage par Jackson. Même contenu que les méthodes correspondantes de {@link ReportingService}.
+ */
+public interface SerializedReportingService {
+    JsonBody getFireInfoJson(String address);     // /fire
+    JsonBody getChildAlertJson(String address);   // /childAlert
+}
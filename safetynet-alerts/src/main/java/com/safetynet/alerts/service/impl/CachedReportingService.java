@@ -0,0 +1,287 @@
+package com.safetynet.alerts.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.cache.BoundedCache;
+import com.safetynet.alerts.cache.DataVersions;
+import com.safetynet.alerts.cache.JsonBody;
+import com.safetynet.alerts.dto.reporting.ChildAlertDto;
+import com.safetynet.alerts.dto.reporting.FireAddressDto;
+import com.safetynet.alerts.dto.reporting.FirestationCoverageDto;
+import com.safetynet.alerts.dto.reporting.PersonInfoDto;
+import com.safetynet.alerts.dto.reporting.PersonSummaryDto;
+import com.safetynet.alerts.dto.reporting.ResidentMedicalDto;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.DataRepository;
+import com.safetynet.alerts.repository.KeyedPage;
+import com.safetynet.alerts.repository.StationCoverage;
+import com.safetynet.alerts.service.ReportingService;
+import com.safetynet.alerts.service.SerializedReportingService;
+import com.safetynet.alerts.time.AgeCalculator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Cache des rapports devant {@link ReportingServiceImpl} (bean {@link Primary} : c'est lui que reçoivent les contrôleurs).
+ * <p>
+ * Clé : endpoint + paramètres. Chaque résultat est conservé avec l'empreinte ({@link DataVersions.Stamp}) des
+ * données dont il dépend, relevée avant le calcul :
+ * <ul>
+ *   <li>/firestation, /phoneAlert, /flood/stations : les casernes demandées et chacune de leurs adresses ;</li>
+ *   <li>/childAlert, /fire : l'adresse ;</li>
+ *   <li>/personInfo : le nom de famille ; /communityEmail : la ville.</li>
+ * </ul>
+ * Un résultat dont une étiquette a changé depuis (écriture CRUD, rechargement) est recalculé ; les autres restent
+ * servis. Les rapports qui contiennent des âges sont aussi liés au jour courant ({@link AgeCalculator#today()}).
+ * <p>
+ * Capacité bornée (safetynet.cache.maximum-size) avec admission W-TinyLFU ({@link BoundedCache}) ; compteurs exposés
+ * par GET /admin/cache. Préchauffage au démarrage (safetynet.cache.warm-up) : /firestation et /phoneAlert de chaque
+ * caserne desservant au moins un habitant. Les résultats servis sont partagés : à traiter en lecture seule.
+ * <p>
+ * /flood/stations en flux ({@link #streamFloodByStations}) ou paginé est mis en cache par adresse (étiquette de l'adresse
+ * + jour). Les autres rapports paginés ne sont pas mis en cache : ils sont lus dans les index triés du dépôt.
+ * <p>
+ * /fire et /childAlert existent aussi sous forme déjà sérialisée ({@link #getFireInfoJson}, {@link #getChildAlertJson}) :
+ * le contrôleur écrit ces octets directement, sans graphe d'objets ni passage par Jackson. Mêmes règles
+ * d'invalidation (adresse + jour), entrées distinctes des DTO.
+ * <p>
+ * Calcul unique par clé (single-flight) : pendant qu'un rapport est en cours de calcul, les appels concurrents
+ * pour la même clé attendent ce calcul et partagent son résultat (ou son exception) au lieu de le relancer.
+ * Un appel n'attend que si l'empreinte du calcul en cours est encore à jour : arrivé après une écriture, il lance
+ * son propre calcul. Nombre d'appels ainsi regroupés : {@link #coalesced()}, exposé par GET /admin/cache.
+ * Désactivable (safetynet.cache.enabled=false) : les contrôleurs reçoivent alors directement ReportingServiceImpl.
+ */
+@Slf4j
+@Service
+@Primary
+@ConditionalOnProperty(prefix = "safetynet.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CachedReportingService implements ReportingService, SerializedReportingService {
+
+    private static final long NO_DAY = Long.MIN_VALUE;
+
+    /** Résultat en cache, avec les versions relevées avant son calcul. */
+    private record Entry(Object value, DataVersions.Stamp stamp, long day) {}
+
+    /** Calcul en cours pour une clé, avec l'empreinte relevée avant lui. */
+    private record Flight(DataVersions.Stamp stamp, long day, CompletableFuture<Object> result) {}
+
+    private final ReportingService delegate;
+    private final DataRepository repo;
+    private final DataVersions versions;
+    private final AgeCalculator ages;
+    private final ObjectMapper om;
+    private final boolean warmUp;
+    private final BoundedCache<String, Entry> cache;
+    private final ConcurrentMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    // Délégué reçu par son interface : le qualificatif écarte ce bean @Primary lui-même
+    public CachedReportingService(@Qualifier("reportingServiceImpl") ReportingService delegate,
+                                  DataRepository repo, DataVersions versions, AgeCalculator ages, ObjectMapper om,
+                                  @Value("${safetynet.cache.maximum-size:10000}") int maximumSize,
+                                  @Value("${safetynet.cache.warm-up:true}") boolean warmUp) {
+        this.delegate = delegate;
+        this.repo = repo;
+        this.versions = versions;
+        this.ages = ages;
+        this.om = om;
+        this.warmUp = warmUp;
+        this.cache = new BoundedCache<>(maximumSize);
+    }
+
+    public BoundedCache.Stats stats() { return cache.stats(); }
+
+    /** Appels servis par le calcul en cours d'un autre appelant depuis le démarrage. */
+    public long coalesced() { return coalesced.sum(); }
+
+    @Override
+    public FirestationCoverageDto getPersonsByStation(String stationNumber) {
+        return cached("firestation|" + stationNumber, () -> stationStamp(Set.of(stationNumber)), true,
+                () -> delegate.getPersonsByStation(stationNumber));
+    }
+
+    @Override
+    public List<ChildAlertDto> getChildAlert(String address) {
+        return cached("childAlert|" + address, () -> versions.stamp(List.of(DataVersions.address(address))), true,
+                () -> delegate.getChildAlert(address));
+    }
+
+    @Override
+    public Set<String> getPhonesByFirestation(String stationNumber) {
+        return cached("phoneAlert|" + stationNumber, () -> stationStamp(Set.of(stationNumber)), false,
+                () -> delegate.getPhonesByFirestation(stationNumber));
+    }
+
+    @Override
+    public FireAddressDto getFireInfo(String address) {
+        return cached("fire|" + address, () -> versions.stamp(List.of(DataVersions.address(address))), true,
+                () -> delegate.getFireInfo(address));
+    }
+
+    /** /fire sérialisé : même contenu que {@link #getFireInfo(String)}. */
+    @Override
+    public JsonBody getFireInfoJson(String address) {
+        return cached("fire.json|" + address, () -> versions.stamp(List.of(DataVersions.address(address))), true,
+                () -> JsonBody.of(om, delegate.getFireInfo(address)));
+    }
+
+    /** /childAlert sérialisé : même contenu que {@link #getChildAlert(String)}. */
+    @Override
+    public JsonBody getChildAlertJson(String address) {
+        return cached("childAlert.json|" + address, () -> versions.stamp(List.of(DataVersions.address(address))), true,
+                () -> JsonBody.of(om, delegate.getChildAlert(address)));
+    }
+
+    @Override
+    public Map<String, List<ResidentMedicalDto>> getFloodByStations(Set<String> stations) {
+        final Set<String> sorted = new TreeSet<>(stations); // même clé quel que soit l'ordre des paramètres
+        return cached("flood|" + String.join(",", sorted), () -> stationStamp(sorted), true,
+                () -> delegate.getFloodByStations(stations));
+    }
+
+    // Réponse en flux : blocs mis en cache par adresse (pas la réponse entière), réutilisables d'une
+    // combinaison de casernes à l'autre ; un gros /flood ne garde donc jamais toute sa réponse en mémoire.
+    @Override
+    public Stream<Map.Entry<String, List<ResidentMedicalDto>>> streamFloodByStations(Set<String> stations) {
+        return delegate.floodAddresses(stations).stream()
+                .map(addr -> Map.entry(addr, floodHousehold(addr)));
+    }
+
+    @Override
+    public Set<String> floodAddresses(Set<String> stations) {
+        return delegate.floodAddresses(stations);
+    }
+
+    @Override
+    public List<ResidentMedicalDto> floodHousehold(String address) {
+        return cached("flood.address|" + address, () -> versions.stamp(List.of(DataVersions.address(address))), true,
+                () -> delegate.floodHousehold(address));
+    }
+
+    @Override
+    public List<PersonInfoDto> getPersonInfoByLastName(String lastName) {
+        return cached("personInfo|" + lastName, () -> versions.stamp(List.of(DataVersions.lastName(lastName))), true,
+                () -> delegate.getPersonInfoByLastName(lastName));
+    }
+
+    @Override
+    public Set<String> getCommunityEmails(String city) {
+        return cached("communityEmail|" + city, () -> versions.stamp(List.of(DataVersions.city(city))), false,
+                () -> delegate.getCommunityEmails(city));
+    }
+
+    // Réponse en flux : lue dans l'index du dépôt, jamais rassemblée ni mise en cache
+    @Override
+    public Stream<String> streamCommunityEmails(String city) {
+        return delegate.streamCommunityEmails(city);
+    }
+
+    // Pages : seuls les foyers de /flood/stations passent par le cache (mêmes entrées que le flux) ; les autres
+    // pages sont lues directement dans les index triés du dépôt, sans multiplier les entrées par curseur.
+    @Override
+    public StationCoverage<KeyedPage<PersonSummaryDto>> pagePersonsByStation(String stationNumber, String after, int limit) {
+        return delegate.pagePersonsByStation(stationNumber, after, limit);
+    }
+
+    @Override
+    public KeyedPage<Map.Entry<String, List<ResidentMedicalDto>>> pageFloodByStations(Set<String> stations, String after, int limit) {
+        return KeyedPage.sorted(delegate.floodAddresses(stations), a -> a, after, limit)
+                .map(addr -> Map.entry(addr, floodHousehold(addr)));
+    }
+
+    @Override
+    public KeyedPage<PersonInfoDto> pagePersonInfoByLastName(String lastName, String after, int limit) {
+        return delegate.pagePersonInfoByLastName(lastName, after, limit);
+    }
+
+    @Override
+    public KeyedPage<String> pageCommunityEmails(String city, String after, int limit) {
+        return delegate.pageCommunityEmails(city, after, limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!warmUp) return;
+        final long start = System.nanoTime();
+        final Set<String> stations = new TreeSet<>();
+        for (Person p : repo.findAllPersons()) {
+            repo.findStationByAddress(p.getAddress()).ifPresent(stations::add);
+        }
+        for (String station : stations) {
+            getPersonsByStation(station);
+            getPhonesByFirestation(station);
+        }
+        log.info("Cache des rapports préchauffé : {} caserne(s) en {} ms", stations.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Empreinte relevée AVANT le calcul : une écriture concurrente la périme
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String key, Supplier<DataVersions.Stamp> stamper, boolean ageDependent, Supplier<T> compute) {
+        final long day = ageDependent ? ages.today() : NO_DAY;
+        final Entry hit = cache.get(key);
+        if (hit != null) {
+            if (hit.day == day && versions.isCurrent(hit.stamp)) return (T) hit.value;
+            cache.invalidate(key);
+        }
+        while (true) {
+            final Flight running = inFlight.get(key);
+            if (running != null && running.day == day && versions.isCurrent(running.stamp)) {
+                coalesced.increment();
+                return (T) await(running.result);
+            }
+            // Aucun calcul, ou calcul périmé par une écriture : on le remplace par le nôtre
+            final Flight mine = new Flight(stamper.get(), day, new CompletableFuture<>());
+            final boolean leader = running == null
+                    ? inFlight.putIfAbsent(key, mine) == null
+                    : inFlight.replace(key, running, mine);
+            if (leader) return (T) compute(key, mine, compute);
+        }
+    }
+
+    private Object compute(String key, Flight flight, Supplier<?> compute) {
+        try {
+            final Object value = compute.get();
+            // Périmé pendant le calcul : inutile en cache (et ne doit pas écraser le résultat d'un calcul plus récent)
+            if (versions.isCurrent(flight.stamp)) cache.put(key, new Entry(value, flight.stamp, flight.day));
+            flight.result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    // L'exception du calcul partagé est relancée telle quelle (404, etc.)
+    private static Object await(CompletableFuture<Object> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error err) throw err;
+            throw e;
+        }
+    }
+
+    private DataVersions.Stamp stationStamp(Set<String> stations) {
+        return versions.stampStations(stations, repo::findAddressesByStation);
+    }
+}
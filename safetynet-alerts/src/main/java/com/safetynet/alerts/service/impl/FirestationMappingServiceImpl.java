@@ -7,9 +7,11 @@ import com.safetynet.alerts.exception.ConflictExeption;
 import com.safetynet.alerts.exception.NotFoundExeption;
 import com.safetynet.alerts.mapper.crud.firestation.FirestationCrudMapper;
 import com.safetynet.alerts.repository.DataRepository;
+import com.safetynet.alerts.service.DataChangedEvent;
 import com.safetynet.alerts.service.FirestationMappingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 
@@ -20,6 +22,7 @@ public class FirestationMappingServiceImpl implements FirestationMappingService
 
     private final DataRepository repository;
     private final FirestationCrudMapper mapper;
+    private final ApplicationEventPublisher events; // DataChangedEvent après chaque écriture (abonnés applicatifs)
 
     @Override
     public FirestationResponseDto create(FirestationCreateDto dto) {
@@ -29,27 +32,28 @@ public class FirestationMappingServiceImpl implements FirestationMappingService
 
         ensureAddressNotMapped(address);
 
-        var out = saveAndRespond(address, station, "create");
+        var out = saveAndRespond(address, null, station, "create");
         return out;
     }
 
     @Override
     public FirestationResponseDto update(String address, FirestationUpdateDto dto) {
         log.debug("[service] FS.update IN address={} dto={}", address, dto);
-        ensureAddressExists(address);
+        final String before = ensureAddressExists(address);
 
         final String station = dto.station();
 
-        var out = saveAndRespond(address, station, "update");
+        var out = saveAndRespond(address, before, station, "update");
         return out;
     }
     // ... existing code ...
     @Override
     public void delete(String address) {
         log.debug("[service] FS.delete IN address={}", address);
-        ensureAddressExists(address);
+        final String before = ensureAddressExists(address);
 
         repository.deleteMapping(address);
+        events.publishEvent(new DataChangedEvent.MappingChanged(address, before, null));
         log.info("[service] FS.delete OUT address={}", address);
     }
 
@@ -59,14 +63,15 @@ public class FirestationMappingServiceImpl implements FirestationMappingService
         }
     }
 
-    private void ensureAddressExists(String address) {
-        if (repository.findStationByAddress(address).isEmpty()) {
-            throw new NotFoundExeption("Mapping not found for address: " + address);
-        }
+    /** @return la caserne actuellement associée à l'adresse */
+    private String ensureAddressExists(String address) {
+        return repository.findStationByAddress(address)
+                .orElseThrow(() -> new NotFoundExeption("Mapping not found for address: " + address));
     }
 
-    private FirestationResponseDto saveAndRespond(String address, String station, String action) {
+    private FirestationResponseDto saveAndRespond(String address, String before, String station, String action) {
         repository.saveMapping(address, station);
+        events.publishEvent(new DataChangedEvent.MappingChanged(address, before, station));
         var out = mapper.toResponse(address, station);
         log.info("[service] FS.{} OUT address={} station={}", action, address, station);
         return out;
@@ -7,10 +7,13 @@ import com.safetynet.alerts.exception.ConflictExeption;
 import com.safetynet.alerts.exception.NotFoundExeption;
 import com.safetynet.alerts.mapper.crud.medicalrecord.MedicalRecordMapper;
 import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.repository.DataRepository;
+import com.safetynet.alerts.service.DataChangedEvent;
 import com.safetynet.alerts.service.MedicalRecordService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 
@@ -22,6 +25,7 @@ public class MedicalRecordServiceImpl implements MedicalRecordService {
 
     private final DataRepository repo;
     private final MedicalRecordMapper mrMapper;
+    private final ApplicationEventPublisher events; // DataChangedEvent après chaque écriture (abonnés applicatifs)
 
     @Override
     public MedicalRecordResponseDto create(MedicalRecordCreateDto dto) {
@@ -32,6 +36,7 @@ public class MedicalRecordServiceImpl implements MedicalRecordService {
 
         MedicalRecord entity = mrMapper.toEntity(dto);
         repo.saveMedicalRecord(entity);
+        changed(dto.firstName(), dto.lastName());
 
         var out = mrMapper.toResponse(entity);
         log.info("[service] MR.create OUT id={}-{}", dto.firstName(), dto.lastName());
@@ -46,6 +51,7 @@ public class MedicalRecordServiceImpl implements MedicalRecordService {
 
         mrMapper.update(entity, dto);   // identité ignorée par le mapper
         repo.saveMedicalRecord(entity);
+        changed(firstName, lastName);
 
         var out = mrMapper.toResponse(entity);
         log.info("[service] MR.update OUT id={}-{}", firstName, lastName);
@@ -59,6 +65,13 @@ public class MedicalRecordServiceImpl implements MedicalRecordService {
             throw new NotFoundExeption("MedicalRecord not found: " + firstName + " " + lastName);
         }
         repo.deleteMedicalRecord(firstName, lastName);
+        changed(firstName, lastName);
         log.info("[service] MR.delete OUT id={}-{}", firstName, lastName);
     }
+
+    // Le dossier pèse sur les rapports du foyer de la personne : on joint son adresse à l'événement
+    private void changed(String firstName, String lastName) {
+        String address = repo.findPerson(firstName, lastName).map(Person::getAddress).orElse(null);
+        events.publishEvent(new DataChangedEvent.MedicalRecordChanged(firstName, lastName, address));
+    }
 }
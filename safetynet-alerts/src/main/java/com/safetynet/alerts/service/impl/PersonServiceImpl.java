@@ -8,9 +8,11 @@ import com.safetynet.alerts.exception.NotFoundExeption;
 import com.safetynet.alerts.mapper.crud.person.PersonMapper;
 import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.repository.DataRepository;
+import com.safetynet.alerts.service.DataChangedEvent;
 import com.safetynet.alerts.service.PersonService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 @Slf4j
@@ -23,6 +25,8 @@ public class PersonServiceImpl implements PersonService {
 
     private final PersonMapper personMapper;
 
+    private final ApplicationEventPublisher events; // DataChangedEvent après chaque écriture (abonnés applicatifs)
+
     @Override
     public PersonResponseDto create(PersonCreateDto dto) {
         log.debug("[service] Person.create IN dto={}", dto);
@@ -36,6 +40,7 @@ public class PersonServiceImpl implements PersonService {
 
         // Persistance : càd que l’objet métier (l’entité) est écrit dans un support durable
         repo.savePerson(entity);
+        events.publishEvent(new DataChangedEvent.PersonChanged(null, entity));
         log.info("[service] Person.create OUT id={} {}", dto.firstName(), dto.lastName());
 
         // Mapping compile-time Entity -> DTO de réponse. - transforme l’entité métier Person en DTO de réponse PersonResponseDto, prêt à être renvoyé par l’API
@@ -49,10 +54,12 @@ public class PersonServiceImpl implements PersonService {
         log.debug("[service] Person.update IN id={}-{} dto={}", firstName, lastName, dto);
         // Orchestration règle métier #2 : existence préalable
         Person entity = loadExistingPerson(firstName, lastName);
+        Person before = copyOf(entity); // l'entité est modifiée sur place : on garde l'ancienne adresse/ville
 
         // Orchestration règle métier #3 : identité immuable (garantie par le mapper qui ignore first/last)
         personMapper.update(entity, dto);   // identité ignorée par le mapper
         repo.savePerson(entity);
+        events.publishEvent(new DataChangedEvent.PersonChanged(before, entity));
         log.info("[service] Person.update OUT id={}-{}", firstName, lastName);
 
         PersonResponseDto out = personMapper.toResponse(entity);
@@ -64,9 +71,10 @@ public class PersonServiceImpl implements PersonService {
     public void delete(String firstName, String lastName) {
         log.debug("[service] Person.delete IN id={}-{}", firstName, lastName);
         // Orchestration règle métier #2 (variante) : vérifier l'existence avant suppression
-        ensurePersonExists(firstName, lastName);
+        Person before = loadExistingPerson(firstName, lastName);
 
         repo.deletePerson(firstName, lastName);
+        events.publishEvent(new DataChangedEvent.PersonChanged(before, null));
         log.info("[service] Person.delete OUT id={}-{}", firstName, lastName);
     }
 
@@ -82,19 +90,15 @@ public class PersonServiceImpl implements PersonService {
     }
 
     /**
-     * Règle d'existence : lève 404 si la personne est absente.
-     */
-    private void ensurePersonExists(String firstName, String lastName) {
-        if (repo.findPerson(firstName, lastName).isEmpty()) {
-            throw new NotFoundExeption("Person not found: " + firstName + " " + lastName);
-        }
-    }
-
-    /**
-     * Charge l'entité existante ou lève 404 (utile pour update).
+     * Charge l'entité existante ou lève 404 (utile pour update et delete).
      */
     private Person loadExistingPerson(String firstName, String lastName) {
         return repo.findPerson(firstName, lastName)
                 .orElseThrow(() -> new NotFoundExeption("Person not found: " + firstName + " " + lastName));
     }
+
+    /** Copie de l'état d'une personne avant modification. */
+    private static Person copyOf(Person p) {
+        return new Person(p.getFirstName(), p.getLastName(), p.getAddress(), p.getCity(), p.getZip(), p.getPhone(), p.getEmail());
+    }
 }
@@ -9,9 +9,12 @@ import com.safetynet.alerts.dto.reporting.ResidentMedicalDto;
 import com.safetynet.alerts.mapper.reporting.PersonInfoMapper;
 import com.safetynet.alerts.mapper.reporting.ResidentMapper;
 import com.safetynet.alerts.mapper.reporting.SummaryMapper;
-import com.safetynet.alerts.model.MedicalRecord;
 import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.AgeCounts;
 import com.safetynet.alerts.repository.DataRepository;
+import com.safetynet.alerts.repository.KeyedPage;
+import com.safetynet.alerts.repository.Resident;
+import com.safetynet.alerts.repository.StationCoverage;
 import com.safetynet.alerts.service.ReportingService;
 import com.safetynet.alerts.time.AgeCalculator;
 import lombok.RequiredArgsConstructor;
@@ -20,6 +23,8 @@ import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Slf4j
 @Service
@@ -33,11 +38,8 @@ public class ReportingServiceImpl implements ReportingService {
     private final ResidentMapper residentMapper;
     private final PersonInfoMapper personInfoMapper;
 
-    // ------------------------ Helper non-mapping (accès repo) ------------------------
-    /** Snapshot du dossier médical d'une personne ou null. */
-    private MedicalRecord recordOf(Person p) {
-        return repo.findMedicalRecord(p.getFirstName(), p.getLastName()).orElse(null);
-    }
+    // Calcul d'âge (horloge injectée, âges mémorisés pour la journée)
+    private final AgeCalculator ages;
 
     // ============================ Endpoints GET ===============================
 
@@ -45,24 +47,18 @@ public class ReportingServiceImpl implements ReportingService {
     public FirestationCoverageDto getPersonsByStation(String stationNumber) {
         log.debug("[service] /firestation IN station={}", stationNumber);
 
-        Set<String> addresses = repo.findAddressesByStation(stationNumber);
-        List<Person> persons = addresses.stream()
-                .flatMap(addr -> repo.findPersonsByAddress(addr).stream())
-                .toList();
+        StationCoverage<List<Person>> coverage = repo.findCoverageByStation(stationNumber); // liste et totaux d'un même état
+        List<Person> persons = coverage.residents();
+        AgeCounts counts = coverage.counts();
 
-        int adults = 0, children = 0;
         List<PersonSummaryDto> summaries = new ArrayList<>(persons.size());
-
         for (Person p : persons) {
             summaries.add(summaryMapper.toSummary(p));
-            String birthdate = Optional.ofNullable(recordOf(p)).map(MedicalRecord::getBirthdate).orElse(null);
-            int age = AgeCalculator.computeAge(birthdate);
-            if (AgeCalculator.isChild(birthdate)) children++; else adults++;
         }
 
-        FirestationCoverageDto out = new FirestationCoverageDto(summaries, adults, children);
+        FirestationCoverageDto out = new FirestationCoverageDto(summaries, counts.adults(), counts.children());
         log.info("[service] /firestation station={} -> persons={} (adults={}, children={})",
-                stationNumber, summaries.size(), adults, children);
+                stationNumber, summaries.size(), counts.adults(), counts.children());
         return out;
     }
 
@@ -70,23 +66,24 @@ public class ReportingServiceImpl implements ReportingService {
     public List<ChildAlertDto> getChildAlert(String address) {
         log.debug("[service] /childAlert IN address={}", address);
 
-        List<Person> residents = repo.findPersonsByAddress(address);
+        List<Resident> residents = repo.findResidentsByAddress(address); // habitants déjà joints à leur dossier
         if (residents.isEmpty()) return Collections.emptyList();
 
         List<PersonSummaryDto> household = residents.stream()
-                .map(summaryMapper::toSummary)
+                .map(r -> summaryMapper.toSummary(r.person()))
                 .toList();
 
+        long today = ages.today(); // même jour pour tout le foyer
         List<ChildAlertDto> children = new ArrayList<>();
-        for (Person p : residents) {
-            String birthdate = Optional.ofNullable(recordOf(p)).map(MedicalRecord::getBirthdate).orElse(null);
-            int age = AgeCalculator.computeAge(birthdate);
-            if (AgeCalculator.isChild(birthdate)) {
+        for (Resident r : residents) {
+            Person p = r.person();
+            long birthEpochDay = (r.record() == null) ? AgeCalculator.NO_DATE : r.record().getBirthEpochDay();
+            if (AgeCalculator.isChildAt(birthEpochDay, today)) { // règle enfant d'AgeCalculator, non recopiée ici
                 List<PersonSummaryDto> others = household.stream()
                         .filter(ps -> !(ps.firstName().equals(p.getFirstName())
                                 && ps.lastName().equals(p.getLastName())))
                         .collect(Collectors.toList());
-                children.add(new ChildAlertDto(p.getFirstName(), p.getLastName(), age, others));
+                children.add(new ChildAlertDto(p.getFirstName(), p.getLastName(), AgeCalculator.ageAt(birthEpochDay, today), others));
             }
         }
         log.info("[service] /childAlert address={} -> children={}", address, children.size());
@@ -97,11 +94,7 @@ public class ReportingServiceImpl implements ReportingService {
     public Set<String> getPhonesByFirestation(String stationNumber) {
         log.debug("[service] /phoneAlert IN station={}", stationNumber);
 
-        Set<String> phones = repo.findAddressesByStation(stationNumber).stream()
-                .flatMap(addr -> repo.findPersonsByAddress(addr).stream())
-                .map(Person::getPhone)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toCollection(LinkedHashSet::new)); // dédoublonné + ordre stable
+        Set<String> phones = repo.findPhonesByStation(stationNumber); // dédoublonné + ordre stable
 
         log.info("[service] /phoneAlert station={} -> phones={}", stationNumber, phones.size());
         return phones;
@@ -112,8 +105,8 @@ public class ReportingServiceImpl implements ReportingService {
         log.debug("[service] /fire IN address={}", address);
 
         String station = repo.findStationByAddress(address).orElse("");
-        List<ResidentMedicalDto> list = repo.findPersonsByAddress(address).stream()
-                .map(p -> residentMapper.toResident(p, recordOf(p)))
+        List<ResidentMedicalDto> list = repo.findResidentsByAddress(address).stream()
+                .map(r -> residentMapper.toResident(r.person(), r.record(), ages))
                 .collect(Collectors.toList());
 
         FireAddressDto out = new FireAddressDto(station, list);
@@ -126,33 +119,46 @@ public class ReportingServiceImpl implements ReportingService {
         log.debug("[service] /flood/stations IN stations={}", stations);
         if (stations == null || stations.isEmpty()) return Map.of();
 
-        // 1) Adresses uniques (ordre stable) sur l'ensemble des stations demandées
-        Set<String> uniqueAddresses = stations.stream()
+        Map<String, List<ResidentMedicalDto>> result = new LinkedHashMap<>();
+        streamFloodByStations(stations).forEach(block -> result.put(block.getKey(), block.getValue()));
+
+        log.info("[service] /flood/stations -> addresses={}", result.size());
+        return result;
+    }
+
+    // Seules les adresses sont résolues d'avance : chaque foyer est construit au moment où le flux le consomme
+    @Override
+    public Stream<Map.Entry<String, List<ResidentMedicalDto>>> streamFloodByStations(Set<String> stations) {
+        return floodAddresses(stations).stream()
+                .map(addr -> Map.entry(addr, floodHousehold(addr)));
+    }
+
+    /** Adresses uniques (ordre stable) sur l'ensemble des casernes demandées (/flood/stations). */
+    @Override
+    public Set<String> floodAddresses(Set<String> stations) {
+        if (stations == null || stations.isEmpty()) return Set.of();
+        return stations.stream()
                 .filter(Objects::nonNull)
                 .map(String::trim)
                 .filter(s -> !s.isEmpty())
                 .flatMap(st -> repo.findAddressesByStation(st).stream())
                 .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
 
-        // 2) Construction du résultat une seule fois par adresse
-        Map<String, List<ResidentMedicalDto>> result = new LinkedHashMap<>();
-        for (String addr : uniqueAddresses) {
-            List<ResidentMedicalDto> residents = repo.findPersonsByAddress(addr).stream()
-                    .map(p -> residentMapper.toResident(p, recordOf(p)))
-                    .toList();
-            result.put(addr, residents);
-        }
-
-        log.info("[service] /flood/stations -> addresses={}", result.size());
-        return result;
+    /** Habitants d'un foyer avec leurs informations médicales (un bloc de /flood/stations). */
+    @Override
+    public List<ResidentMedicalDto> floodHousehold(String address) {
+        return repo.findResidentsByAddress(address).stream()
+                .map(r -> residentMapper.toResident(r.person(), r.record(), ages))
+                .toList();
     }
 
     @Override
     public List<PersonInfoDto> getPersonInfoByLastName(String lastName) {
         log.debug("[service] /personInfo IN lastName={}", lastName);
 
-        List<PersonInfoDto> out = repo.findPersonsByLastName(lastName).stream()
-                .map(p -> personInfoMapper.toInfo(p, recordOf(p)))
+        List<PersonInfoDto> out = repo.findResidentsByLastName(lastName).stream()
+                .map(r -> personInfoMapper.toInfo(r.person(), r.record(), ages))
                 .collect(Collectors.toList());
 
         log.info("[service] /personInfo lastName={} -> results={}", lastName, out.size());
@@ -166,4 +172,51 @@ public class ReportingServiceImpl implements ReportingService {
         log.info("[service] /communityEmail city={} -> emails={}", city, emails.size());
         return emails;
     }
+
+    // Emails lus dans l'index du dépôt au fil de la consommation du flux, sans ensemble intermédiaire
+    @Override
+    public Stream<String> streamCommunityEmails(String city) {
+        log.debug("[service] /communityEmail IN city={} (flux)", city);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(repo.iterateEmailsByCity(city),
+                Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    // ============================ Pages (?limit=) =============================
+
+    @Override
+    public StationCoverage<KeyedPage<PersonSummaryDto>> pagePersonsByStation(String stationNumber, String after, int limit) {
+        log.debug("[service] /firestation IN station={} after={} limit={}", stationNumber, after, limit);
+        StationCoverage<KeyedPage<PersonSummaryDto>> out = repo.pageCoverageByStation(stationNumber, after, limit)
+                .map(page -> page.map(r -> summaryMapper.toSummary(r.person())));
+        log.info("[service] /firestation station={} -> page persons={} hasNext={} (adults={}, children={})", stationNumber,
+                out.residents().items().size(), out.residents().hasNext(), out.counts().adults(), out.counts().children());
+        return out;
+    }
+
+    // Adresses triées à chaque page (quelques centaines par caserne) ; seuls les foyers de la page sont construits
+    @Override
+    public KeyedPage<Map.Entry<String, List<ResidentMedicalDto>>> pageFloodByStations(Set<String> stations, String after, int limit) {
+        log.debug("[service] /flood/stations IN stations={} after={} limit={}", stations, after, limit);
+        KeyedPage<Map.Entry<String, List<ResidentMedicalDto>>> page = KeyedPage.sorted(floodAddresses(stations), a -> a, after, limit)
+                .map(addr -> Map.entry(addr, floodHousehold(addr)));
+        log.info("[service] /flood/stations -> page addresses={} hasNext={}", page.items().size(), page.hasNext());
+        return page;
+    }
+
+    @Override
+    public KeyedPage<PersonInfoDto> pagePersonInfoByLastName(String lastName, String after, int limit) {
+        log.debug("[service] /personInfo IN lastName={} after={} limit={}", lastName, after, limit);
+        KeyedPage<PersonInfoDto> page = repo.pageResidentsByLastName(lastName, after, limit)
+                .map(r -> personInfoMapper.toInfo(r.person(), r.record(), ages));
+        log.info("[service] /personInfo lastName={} -> page results={} hasNext={}", lastName, page.items().size(), page.hasNext());
+        return page;
+    }
+
+    @Override
+    public KeyedPage<String> pageCommunityEmails(String city, String after, int limit) {
+        log.debug("[service] /communityEmail IN city={} after={} limit={}", city, after, limit);
+        KeyedPage<String> page = repo.pageEmailsByCity(city, after, limit);
+        log.info("[service] /communityEmail city={} -> page emails={} hasNext={}", city, page.items().size(), page.hasNext());
+        return page;
+    }
 }
@@ -1,65 +1,78 @@
 package com.safetynet.alerts.time;
 
-import java.time.DateTimeException;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
 import java.time.LocalDate;
-import java.time.Period;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
+import java.time.ZoneId;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 
 /**
- * Utilitaire de calcul d'âge à partir d'une date de naissance fournie sous forme de chaîne.
+ * Composant de calcul d'âge à partir d'une date de naissance fournie sous forme de chaîne.
  *
  * <p>Format accepté (strict) {@code M/d/uuuu}
  * <ul>
- *   <li>M et: mois et jour sur 1 ou 2 chiffres (ex. {@code 1/5/2010} ou {@code 01/05/2010})</li>
- *   <li>uuuu: année en calendrier proleptique ISO (ex. {@code 2010})</li>
+ *   <li>M et d : mois et jour sur 1 ou 2 chiffres (ex. {@code 1/5/2010} ou {@code 01/05/2010})</li>
+ *   <li>uuuu : année sur 4 chiffres, sans signe, en calendrier proleptique ISO (ex. {@code 2010})</li>
+ *   <li>espaces de bord ignorés (sémantique de {@link String#trim()})</li>
  * </ul>
  *
  * <p>Règles de parsing:
  * <ul>
  *   <li>Mode strict: les dates impossibles sont refusées (ex. {@code 02/30/2012}).</li>
  *   <li>Gestion des années bissextiles (ex. {@code 02/29/2012} accepté, {@code 02/29/2011} refusé).</li>
- *   <li>Insensible à la casse (sans incidence ici, le format est numérique).</li>
  * </ul>
  *
- * <p>Convention d'erreur: lorsque l'entrée est nulle, vide, invalide, impossible ou future,
- * le calcul d'âge retourne {@code -1}.</p>
+ * <p>Performance: l'analyse est écrite à la main ({@link #parseEpochDay(CharSequence)}) et ne fait aucune
+ * allocation ni ne lève d'exception sur une entrée invalide ; la date est ramenée à un numéro de jour
+ * ({@link LocalDate#toEpochDay()}). L'âge devient alors de l'arithmétique entière contre le jour courant,
+ * mis en cache et recalculé une fois par jour.
+ * {@link com.safetynet.alerts.model.MedicalRecord} conserve ce numéro de jour à l'affectation de la date.</p>
  *
- * <p>Thread-safety: le formatter {@link #FMT} est immuable et thread-safe.</p>
+ * <p>Jour courant: fourni par la {@link Clock} injectée (bean de {@code ClockConfig}, fuseau
+ * {@code safetynet.time.zone}) ; une horloge fixe rend les tests d'âge déterministes. Les âges calculés
+ * à partir d'une chaîne sont mémorisés pour la journée et oubliés au premier appel après minuit.</p>
  *
- * <p>Remarques:
- * <ul>
- *   <li>Le calcul utilise {@link LocalDate#now()} (fuseau par défaut de la JVM). Pour des tests déterministes,
- *       envisager une surcharge avec {@link java.time.Clock}.</li>
- *   <li>{@code uuuu} est utilisé à la place de {@code yyyy} pour une cohérence avec le calendrier ISO proleptique.</li>
- * </ul>
+ * <p>Convention d'erreur: lorsque l'entrée est nulle, vide, invalide, impossible ou future,
+ * le calcul d'âge retourne {@code -1} ; l'analyse retourne {@link #NO_DATE}.</p>
+ *
+ * <p>Thread-safety: le seul état mutable est le jour courant et ses âges mémorisés, publiés ensemble
+ * (champ volatile, {@link ConcurrentHashMap}). Les méthodes statiques sont pures.</p>
  *
  * <p>Exemples:
  * <pre>
- * computeAge("1/5/2010")     // OK
- * computeAge("01/05/2010")   // OK
- * computeAge("2/29/2012")    // OK (bissextile)
- * computeAge("2/29/2011")    // -1 (date impossible)
- * computeAge("  ")           // -1
- * computeAge(null)           // -1
+ * ages.computeAge("1/5/2010")     // OK
+ * ages.computeAge("01/05/2010")   // OK
+ * ages.computeAge("2/29/2012")    // OK (bissextile)
+ * ages.computeAge("2/29/2011")    // -1 (date impossible)
+ * ages.computeAge("  ")           // -1
+ * ages.computeAge(null)           // -1
  * </pre>
  */
-public final class AgeCalculator {
-
-    // Parser STRICT et immuable :
-    // - parseCaseInsensitive : sans effet ici (format purement numérique), mais inoffensif.
-    // - parseStrict          : refuse les dates invalides (ex. 02/30) et respecte les règles de longueur liées au motif.
-    // - appendPattern        : "M/d/uuuu" permet 1 ou 2 chiffres pour mois et jour ; "uuuu" cible l'année ISO proleptique.
-    // - toFormatter()        : construit un DateTimeFormatter thread-safe.
-    private static final DateTimeFormatter FMT = new DateTimeFormatterBuilder()
-            .parseCaseInsensitive()
-            .parseStrict()
-            .appendPattern("M/d/uuuu")
-            .toFormatter();
-
-    // Constructeur privé : classe utilitaire non-instanciable.
-    private AgeCalculator() {}
+@Component
+public class AgeCalculator {
+
+    /** Numéro de jour « absent » : date nulle, vide, mal formée ou impossible. */
+    public static final long NO_DATE = Long.MIN_VALUE;
+
+    // Jours du 0000-01-01 au 1970-01-01 (même constante que LocalDate)
+    private static final long DAYS_0000_TO_1970 = (146097 * 5L) - (30L * 365L + 7L);
+
+    // Au-delà, les âges ne sont plus mémorisés (protection contre un flux de dates toutes différentes)
+    private static final int MEMO_LIMIT = 1 << 16;
+
+    /** Jour courant, valable jusqu'au prochain minuit, avec les âges déjà calculés ce jour-là. */
+    private record Day(long epochDay, int civil, long expiresAtMillis, ConcurrentMap<String, Integer> ages) {}
+
+    private final Clock clock;
+    private volatile Day day = new Day(0, 0, Long.MIN_VALUE, new ConcurrentHashMap<>());
+
+    /** @param clock horloge de référence ; son fuseau fixe le minuit de changement de jour */
+    public AgeCalculator(Clock clock) {
+        this.clock = clock;
+    }
 
     /**
      * Calcule l'âge en années révolues à partir d'une date de naissance au format {@code M/d/uuuu}.
@@ -72,33 +85,33 @@ public final class AgeCalculator {
      *   <li>la date est future par rapport à la date du jour.</li>
      * </ul>
      *
-     * <p>Le calcul utilise {@link Period#between(LocalDate, LocalDate)} pour gérer correctement le passage
-     * d'anniversaire (l'âge n'est incrémenté que lorsque l'anniversaire de l'année en cours est atteint).
+     * <p>L'âge n'est incrémenté que lorsque l'anniversaire de l'année en cours est atteint
+     * (un 29 février fête son anniversaire le 1er mars les années non bissextiles).
+     * Le résultat est mémorisé par chaîne jusqu'à minuit : une même date n'est analysée qu'une fois par jour.
      *
      * @param birthdate chaîne représentant la date de naissance, format {@code M/d/uuuu}.
      * @return l'âge en années, ou {@code -1} en cas d'entrée invalide/impossible/future.
      */
-    public static int computeAge(String birthdate) {
-        // Cas d'entrée null -> convention d'erreur
+    public int computeAge(String birthdate) {
         if (birthdate == null) return -1;
-        // Normalisation basique de l'entrée
-        String s = birthdate.trim();
-        if (s.isEmpty()) return -1;
-
-        try {
-            // Parsing strict selon le motif et les règles ISO
-            LocalDate dob = LocalDate.parse(s, FMT);
-            // Date courante (ZoneId par défaut de la JVM)
-            LocalDate today = LocalDate.now();
-            // Si la date de naissance est dans le futur, l'entrée est rejetée
-            if (dob.isAfter(today)) return -1;
-
-            // Calcul d'âge : Period#between gère correctement le passage d'anniversaire
-            return Period.between(dob, today).getYears();
-        } catch (DateTimeException e) {
-            // Toute erreur de parsing ou de construction de date conduit à la convention d'erreur
-            return -1;
+        final Day d = currentDay();
+        Integer age = d.ages.get(birthdate);
+        if (age == null) {
+            age = ageAt(parseEpochDay(birthdate), d.epochDay, d.civil);
+            if (d.ages.size() < MEMO_LIMIT) d.ages.putIfAbsent(birthdate, age);
         }
+        return age;
+    }
+
+    /**
+     * Âge en années révolues au jour courant, à partir d'un numéro de jour déjà analysé
+     * (ex. {@code MedicalRecord#getBirthEpochDay()}).
+     *
+     * @return l'âge, ou {@code -1} pour {@link #NO_DATE} ou une date future
+     */
+    public int computeAge(long birthEpochDay) {
+        final Day d = currentDay();
+        return ageAt(birthEpochDay, d.epochDay, d.civil);
     }
 
     /**
@@ -109,8 +122,167 @@ public final class AgeCalculator {
      * @param birthdate chaîne représentant la date de naissance, format {@code M/d/uuuu}.
      * @return {@code true} si l'âge est compris entre 0 et 18 inclus; {@code false} sinon.
      */
-    public static boolean isChild(String birthdate) {
-        int age = computeAge(birthdate);
+    public boolean isChild(String birthdate) {
+        return isChildAge(computeAge(birthdate));
+    }
+
+    /** Règle enfant appliquée à un numéro de jour déjà analysé, au jour courant. */
+    public boolean isChild(long birthEpochDay) {
+        return isChildAt(birthEpochDay, today());
+    }
+
+    /** Numéro du jour courant dans le fuseau de l'horloge, recalculé une fois par jour. */
+    public long today() {
+        return currentDay().epochDay;
+    }
+
+    private Day currentDay() {
+        Day d = day;
+        if (clock.millis() >= d.expiresAtMillis) {
+            // Une fois par jour : le nouveau jour arrive avec un cache vide (course bénigne entre threads)
+            final ZoneId zone = clock.getZone();
+            final LocalDate now = LocalDate.now(clock);
+            final long midnight = now.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            day = d = new Day(now.toEpochDay(), civil(now.toEpochDay()), midnight, new ConcurrentHashMap<>());
+        }
+        return d;
+    }
+
+    /** Âge en années révolues au jour {@code todayEpochDay} ({@code -1} si absent ou futur). */
+    public static int ageAt(long birthEpochDay, long todayEpochDay) {
+        return ageAt(birthEpochDay, todayEpochDay, civil(todayEpochDay));
+    }
+
+    /** Règle enfant (0 à 18 ans révolus) au jour {@code todayEpochDay}. */
+    public static boolean isChildAt(long birthEpochDay, long todayEpochDay) {
+        return isChildAge(ageAt(birthEpochDay, todayEpochDay));
+    }
+
+    // Seul endroit où la règle enfant est écrite (-1 : date absente ou future)
+    private static boolean isChildAge(int age) {
         return age >= 0 && age <= 18;
     }
+
+    private static int ageAt(long birthEpochDay, long todayEpochDay, int todayCivil) {
+        if (birthEpochDay == NO_DATE || birthEpochDay > todayEpochDay) return -1;
+        final int birth = civil(birthEpochDay);
+        // Années d'écart, moins une si l'anniversaire (mois, jour) n'est pas encore atteint
+        final int age = (todayCivil >> 9) - (birth >> 9);
+        return ((todayCivil & 0x1FF) < (birth & 0x1FF)) ? age - 1 : age;
+    }
+
+    /**
+     * Analyse stricte et sans allocation d'une date {@code M/d/uuuu}.
+     *
+     * @param s date de naissance (peut être {@code null})
+     * @return le numéro de jour ({@link LocalDate#toEpochDay()}), ou {@link #NO_DATE} si l'entrée est nulle,
+     *         vide, mal formée ou impossible
+     */
+    public static long parseEpochDay(CharSequence s) {
+        if (s == null) return NO_DATE;
+        int i = 0, end = s.length();
+        // Trim sans copie
+        while (i < end && s.charAt(i) <= ' ') i++;
+        while (end > i && s.charAt(end - 1) <= ' ') end--;
+
+        int month = 0, day = 0, year = 0, n;
+        for (n = 0; i < end && n < 2 && isDigit(s.charAt(i)); n++) month = month * 10 + (s.charAt(i++) - '0');
+        if (n == 0 || i >= end || s.charAt(i++) != '/') return NO_DATE;
+        for (n = 0; i < end && n < 2 && isDigit(s.charAt(i)); n++) day = day * 10 + (s.charAt(i++) - '0');
+        if (n == 0 || i >= end || s.charAt(i++) != '/') return NO_DATE;
+        for (n = 0; i < end && n < 4 && isDigit(s.charAt(i)); n++) year = year * 10 + (s.charAt(i++) - '0');
+        if (n != 4 || i != end) return NO_DATE;
+
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) return NO_DATE;
+        return toEpochDay(year, month, day);
+    }
+
+    /**
+     * Analyse une date de naissance au format {@code M/d/uuuu}.
+     *
+     * @param birthdate chaîne représentant la date de naissance
+     * @return la date, ou {@code null} si l'entrée est nulle, vide, invalide ou impossible
+     */
+    public static LocalDate parseBirthdate(String birthdate) {
+        final long epochDay = parseEpochDay(birthdate);
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * Âge en années révolues à une date donnée.
+     *
+     * @param dob   date de naissance (peut être {@code null})
+     * @param today date de référence
+     * @return l'âge, ou {@code -1} si {@code dob} est {@code null} ou postérieure à {@code today}
+     */
+    public static int computeAge(LocalDate dob, LocalDate today) {
+        return ageAt(dob == null ? NO_DATE : dob.toEpochDay(), today.toEpochDay());
+    }
+
+    /** Règle enfant (0 à 18 ans révolus) appliquée à une date de naissance déjà analysée. */
+    public static boolean isChild(LocalDate dob, LocalDate today) {
+        return isChildAge(computeAge(dob, today));
+    }
+
+    /**
+     * Prochaine date, strictement après {@code today}, à laquelle {@link #isChild(LocalDate, LocalDate)} change
+     * de valeur : la naissance pour une date future, le 19e anniversaire pour un enfant (le lendemain du 28 février
+     * pour un 29 février).
+     *
+     * @return la date du changement, ou {@code null} s'il n'y en aura plus (adulte ou date inconnue)
+     */
+    public static LocalDate nextChildStatusChange(LocalDate dob, LocalDate today) {
+        if (dob == null) return null;
+        if (dob.isAfter(today)) return dob;
+        if (!isChild(dob, today)) return null;
+        LocalDate adult = dob.plusYears(19);
+        while (computeAge(dob, adult) < 19) adult = adult.plusDays(1);
+        return adult;
+    }
+
+    private static boolean isDigit(char c) { return c >= '0' && c <= '9'; }
+
+    private static boolean isLeap(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeap(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    // Même calcul que LocalDate#toEpochDay, restreint aux années 0 à 9999
+    private static long toEpochDay(int year, int month, int day) {
+        long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12 + day - 1;
+        if (month > 2) total -= isLeap(year) ? 1 : 2;
+        return total - DAYS_0000_TO_1970;
+    }
+
+    // Date civile compacte (année << 9 | mois << 5 | jour) d'un numéro de jour : calcul de LocalDate#ofEpochDay
+    private static int civil(long epochDay) {
+        long zeroDay = epochDay + DAYS_0000_TO_1970 - 60; // ajustement au 0000-03-01
+        long adjust = 0;
+        if (zeroDay < 0) {
+            long adjustCycles = (zeroDay + 1) / 146097 - 1;
+            adjust = adjustCycles * 400;
+            zeroDay += -adjustCycles * 146097;
+        }
+        long yearEst = (400 * zeroDay + 591) / 146097;
+        long doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        if (doyEst < 0) {
+            yearEst--;
+            doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        }
+        yearEst += adjust;
+        final int marchDoy0 = (int) doyEst;
+        final int marchMonth0 = (marchDoy0 * 5 + 2) / 153;
+        final int month = (marchMonth0 + 2) % 12 + 1;
+        final int dom = marchDoy0 - (marchMonth0 * 306 + 5) / 10 + 1;
+        yearEst += marchMonth0 / 10;
+        return (int) yearEst << 9 | month << 5 | dom;
+    }
 }
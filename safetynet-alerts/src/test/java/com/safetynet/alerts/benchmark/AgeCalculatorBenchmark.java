@@ -0,0 +1,102 @@
+package com.safetynet.alerts.benchmark;
+
+import com.safetynet.alerts.time.AgeCalculator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût du calcul d'âge d'un lot de dates de naissance, un appel par habitant comme dans les rapports.
+ * <ul>
+ *   <li>{@code legacy} : ancienne implémentation ({@link LocalDate#parse} avec formatter strict puis
+ *       {@link Period#between}, exception attrapée sur une date invalide) ;</li>
+ *   <li>{@code parse} : {@link AgeCalculator#parseEpochDay(CharSequence)}, analyse manuelle sans allocation,
+ *       puis {@link AgeCalculator#ageAt(long, long)} ;</li>
+ *   <li>{@code memo} : {@link AgeCalculator#computeAge(String)}, âges mémorisés par date pour la journée ;</li>
+ *   <li>{@code cached} : {@link AgeCalculator#computeAge(long)} sur le numéro de jour déjà porté par le dossier.</li>
+ * </ul>
+ * {@code invalidPercent} règle la part de dates mal formées (chemin exceptionnel de l'ancienne version).
+ * Profil d'allocation : ajouter {@code -prof gc} aux arguments.
+ * <p>
+ * Lancement : {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="AgeCalculator -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AgeCalculatorBenchmark {
+
+    private static final int BATCH = 1024;
+
+    private static final DateTimeFormatter LEGACY_FMT = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive()
+            .parseStrict()
+            .appendPattern("M/d/uuuu")
+            .toFormatter();
+
+    @Param({"0", "10"})
+    int invalidPercent;
+
+    private final AgeCalculator ages = new AgeCalculator(Clock.systemDefaultZone());
+    private String[] birthdates;
+    private long[] epochDays;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random rnd = new Random(42);
+        birthdates = new String[BATCH];
+        epochDays = new long[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            birthdates[i] = rnd.nextInt(100) < invalidPercent
+                    ? "13/" + (1 + rnd.nextInt(28)) + "/19" + (10 + rnd.nextInt(90))
+                    : String.format("%02d/%02d/%d", 1 + rnd.nextInt(12), 1 + rnd.nextInt(28), 1930 + rnd.nextInt(95));
+            epochDays[i] = AgeCalculator.parseEpochDay(birthdates[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void legacy(Blackhole bh) {
+        for (String s : birthdates) bh.consume(legacyAge(s));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void parse(Blackhole bh) {
+        final long today = ages.today();
+        for (String s : birthdates) bh.consume(AgeCalculator.ageAt(AgeCalculator.parseEpochDay(s), today));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void memo(Blackhole bh) {
+        for (String s : birthdates) bh.consume(ages.computeAge(s));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void cached(Blackhole bh) {
+        for (long d : epochDays) bh.consume(ages.computeAge(d));
+    }
+
+    private static int legacyAge(String birthdate) {
+        if (birthdate == null || birthdate.trim().isEmpty()) return -1;
+        try {
+            LocalDate dob = LocalDate.parse(birthdate.trim(), LEGACY_FMT);
+            LocalDate today = LocalDate.now();
+            return dob.isAfter(today) ? -1 : Period.between(dob, today).getYears();
+        } catch (DateTimeException e) {
+            return -1;
+        }
+    }
+}
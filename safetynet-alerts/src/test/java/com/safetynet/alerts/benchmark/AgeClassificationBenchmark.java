@@ -0,0 +1,59 @@
+package com.safetynet.alerts.benchmark;
+
+import com.safetynet.alerts.time.AgeCalculator;
+import com.safetynet.alerts.time.BulkAgeClassifier;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Décompte des enfants d'un lot de dates de naissance (numéros de jour), comme pour une caserne entière.
+ * <ul>
+ *   <li>{@code perPerson} : règle appliquée habitant par habitant ({@link AgeCalculator#isChildAt}, calcul de l'âge
+ *       en années puis comparaison, branche imprévisible) ;</li>
+ *   <li>{@code bulk} : {@link BulkAgeClassifier#countChildren}, test d'intervalle sans branche vectorisé par C2.</li>
+ * </ul>
+ * Environ un quart d'enfants et 5 % de dates inconnues, dans un ordre aléatoire.
+ * <p>
+ * Lancement : {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="AgeClassification"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AgeClassificationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int residents;
+
+    private long[] birthEpochDays;
+    private long today;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random rnd = new Random(42);
+        today = LocalDate.now().toEpochDay();
+        birthEpochDays = new long[residents];
+        for (int i = 0; i < residents; i++) {
+            birthEpochDays[i] = rnd.nextInt(20) == 0 ? AgeCalculator.NO_DATE : today - rnd.nextInt(80 * 365);
+        }
+    }
+
+    @Benchmark
+    public int perPerson() {
+        int children = 0;
+        for (long d : birthEpochDays) {
+            if (AgeCalculator.isChildAt(d, today)) children++;
+        }
+        return children;
+    }
+
+    @Benchmark
+    public int bulk() {
+        return BulkAgeClassifier.countChildren(birthEpochDays, birthEpochDays.length, today);
+    }
+}
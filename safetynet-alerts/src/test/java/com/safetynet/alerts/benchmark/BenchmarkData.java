@@ -0,0 +1,67 @@
+package com.safetynet.alerts.benchmark;
+
+import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.model.FirestationMapping;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Générateur de jeux de données synthétiques (déterministes) pour les benchmarks.
+ * <p>
+ * Forme des données, calquée sur data.json mais à l'échelle d'un comté :
+ * <ul>
+ *   <li>foyers de {@value #HOUSEHOLD} personnes partageant adresse, ville et nom de famille ;</li>
+ *   <li>{@value #CITIES} villes et {@value #STATIONS} casernes ;</li>
+ *   <li>un dossier médical par personne, environ un quart d'enfants.</li>
+ * </ul>
+ */
+public final class BenchmarkData {
+
+    public static final int HOUSEHOLD = 4;
+    public static final int CITIES = 20;
+    public static final int STATIONS = 10;
+
+    private BenchmarkData() {}
+
+    public static String address(int household) { return household + " Benchmark St"; }
+    public static String city(int household) { return "City" + (household % CITIES); }
+    public static String station(int household) { return String.valueOf(1 + household % STATIONS); }
+    public static String lastName(int household) { return "Family" + household; }
+    public static String firstName(int member) { return "Member" + member; }
+
+    /** Jeu de données de {@code persons} personnes (arrondi au foyer supérieur). */
+    public static DataSet dataSet(int persons) {
+        final int households = (persons + HOUSEHOLD - 1) / HOUSEHOLD;
+        final Random rnd = new Random(42);
+        final List<Person> ps = new ArrayList<>(households * HOUSEHOLD);
+        final List<MedicalRecord> mrs = new ArrayList<>(households * HOUSEHOLD);
+        final List<FirestationMapping> fs = new ArrayList<>(households);
+
+        for (int h = 0; h < households; h++) {
+            fs.add(new FirestationMapping(address(h), station(h)));
+            for (int m = 0; m < HOUSEHOLD; m++) {
+                ps.add(new Person(firstName(m), lastName(h), address(h), city(h), "9" + (h % 10000),
+                        "841-" + h + "-" + m, "m" + m + ".f" + h + "@bench.org"));
+
+                MedicalRecord mr = new MedicalRecord();
+                mr.setFirstName(firstName(m));
+                mr.setLastName(lastName(h));
+                int year = (m < 3) ? 1950 + rnd.nextInt(50) : 2010 + rnd.nextInt(14); // dernier membre: enfant
+                mr.setBirthdate((1 + rnd.nextInt(12)) + "/" + (1 + rnd.nextInt(28)) + "/" + year);
+                mr.setMedications(List.of("aznol:350mg"));
+                mr.setAllergies(List.of("nillacilan"));
+                mrs.add(mr);
+            }
+        }
+
+        DataSet ds = new DataSet();
+        ds.setPersons(ps);
+        ds.setFirestations(fs);
+        ds.setMedicalrecords(mrs);
+        return ds;
+    }
+}
@@ -0,0 +1,61 @@
+package com.safetynet.alerts.benchmark;
+
+import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.InMemoryDataRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latence d'une mise à jour de personne (changement d'email) en fonction de la population de sa ville.
+ * <p>
+ * Tout le jeu de données est dans une seule ville : avec l'index emails par ville à compteurs de références,
+ * la latence doit rester plate quand {@code cityPopulation} croît (ajout/retrait en O(1)), là où un recalcul
+ * de l'ensemble des emails de la ville serait proportionnel à la population.
+ * <p>
+ * Lancement : {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="EmailIndex"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailIndexBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int cityPopulation;
+
+    private InMemoryDataRepository repo;
+    private Person[] versions;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Person> persons = new ArrayList<>(cityPopulation);
+        for (int i = 0; i < cityPopulation; i++) {
+            int h = i / BenchmarkData.HOUSEHOLD;
+            persons.add(new Person(BenchmarkData.firstName(i % BenchmarkData.HOUSEHOLD), BenchmarkData.lastName(h),
+                    BenchmarkData.address(h), "Culver", "97451", "841-874-" + i, "p" + i + "@bench.org"));
+        }
+        DataSet ds = new DataSet();
+        ds.setPersons(persons);
+        repo = new InMemoryDataRepository();
+        repo.init(ds);
+
+        // Deux versions alternées d'une même personne : seul l'email change
+        versions = new Person[2];
+        for (int v = 0; v < 2; v++) {
+            versions[v] = new Person(BenchmarkData.firstName(0), BenchmarkData.lastName(0), BenchmarkData.address(0),
+                    "Culver", "97451", "841-874-0", "v" + v + "@bench.org");
+        }
+    }
+
+    @Benchmark
+    public void updateEmail() {
+        repo.savePerson(versions[next ^= 1]);
+    }
+}
@@ -0,0 +1,84 @@
+package com.safetynet.alerts.benchmark;
+
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.DataRepository;
+import com.safetynet.alerts.repository.InMemoryDataRepository;
+import com.safetynet.alerts.repository.SnapshotDataRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit des écritures concurrentes (savePerson) en fonction du nombre d'écrivains.
+ * <p>
+ * Chaque invocation exécute {@value #BATCH} mises à jour réparties sur {@code writers} threads,
+ * chaque thread travaillant sur ses propres foyers (cas nominal : foyers indépendants).
+ * Le score (ops/s) doit croître avec {@code writers} pour le moteur "memory" (verrous striés) ;
+ * le moteur "snapshot" (écrivain unique) sert de référence.
+ * <p>
+ * Lancement : {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="RepositoryWrite"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryWriteBenchmark {
+
+    static final int BATCH = 16_384;
+
+    @Param({"memory", "snapshot"})
+    String engine;
+
+    @Param({"1", "2", "4", "8", "16"})
+    int writers;
+
+    @Param({"10000"})
+    int persons;
+
+    private DataRepository repo;
+    private ExecutorService pool;
+    private int households;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repo = "snapshot".equals(engine) ? new SnapshotDataRepository() : new InMemoryDataRepository();
+        repo.init(BenchmarkData.dataSet(persons));
+        households = persons / BenchmarkData.HOUSEHOLD;
+        pool = Executors.newFixedThreadPool(writers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void savePerson() throws Exception {
+        final int perWriter = BATCH / writers;
+        final int slice = households / writers;
+        List<Future<?>> futures = new ArrayList<>(writers);
+        for (int w = 0; w < writers; w++) {
+            final int base = w * slice;
+            futures.add(pool.submit(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                for (int i = 0; i < perWriter; i++) {
+                    int h = base + rnd.nextInt(slice);
+                    int m = rnd.nextInt(BenchmarkData.HOUSEHOLD);
+                    repo.savePerson(new Person(BenchmarkData.firstName(m), BenchmarkData.lastName(h),
+                            BenchmarkData.address(h), BenchmarkData.city(h), "97451",
+                            "841-" + rnd.nextInt(10_000), "m" + m + ".f" + h + "@bench.org"));
+                }
+            }));
+        }
+        for (Future<?> f : futures) f.get();
+    }
+}
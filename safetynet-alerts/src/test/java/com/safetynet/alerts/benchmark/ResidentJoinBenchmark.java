@@ -0,0 +1,56 @@
+package com.safetynet.alerts.benchmark;
+
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.InMemoryDataRepository;
+import com.safetynet.alerts.repository.Resident;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Habitants d'une caserne avec leur dossier médical, comme pour /flood/stations ou /fire à l'échelle d'une caserne.
+ * <ul>
+ *   <li>{@code perPerson} : ancien chemin du service, liste des personnes puis
+ *       {@link InMemoryDataRepository#findMedicalRecord} par habitant (normalisation et concaténation de la clé
+ *       {@code first|last}, {@code Optional} alloué) ;</li>
+ *   <li>{@code joined} : {@link InMemoryDataRepository#findResidentsByStation}, jointure sur la clé d'identité déjà
+ *       portée par l'index.</li>
+ * </ul>
+ * Une caserne couvre un dixième de la population ({@value BenchmarkData#STATIONS} casernes).
+ * <p>
+ * Lancement : {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="ResidentJoin -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResidentJoinBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int persons;
+
+    private InMemoryDataRepository repo;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repo = new InMemoryDataRepository();
+        repo.init(BenchmarkData.dataSet(persons));
+    }
+
+    @Benchmark
+    public void perPerson(Blackhole bh) {
+        for (Person p : repo.findPersonsByStation("1")) {
+            bh.consume(repo.findMedicalRecord(p.getFirstName(), p.getLastName()).orElse(null));
+        }
+    }
+
+    @Benchmark
+    public void joined(Blackhole bh) {
+        for (Resident r : repo.findResidentsByStation("1")) {
+            bh.consume(r.record());
+        }
+    }
+}
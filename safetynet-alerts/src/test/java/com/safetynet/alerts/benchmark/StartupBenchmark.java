@@ -0,0 +1,79 @@
+package com.safetynet.alerts.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.repository.BinarySnapshotStore;
+import com.safetynet.alerts.repository.InMemoryDataRepository;
+import com.safetynet.alerts.repository.StringDictionaries;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Temps de démarrage du dépôt par défaut : parsing de data.json + init, contre rechargement du snapshot binaire.
+ * <p>
+ * Chaque mesure part d'un dépôt vide et reproduit le chemin de {@code DataLoader} : lecture JSON, déduplication
+ * des chaînes puis {@code init} (source "json"), ou {@link BinarySnapshotStore#restore()} (source "snapshot").
+ * Les deux fichiers sont écrits une fois par essai à partir du même jeu synthétique.
+ * <p>
+ * Lancement : {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="Startup"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StartupBenchmark {
+
+    @Param({"json", "snapshot"})
+    String source;
+
+    @Param({"10000", "100000", "1000000"})
+    int persons;
+
+    private final ObjectMapper om = new ObjectMapper();
+    private Path dir;
+    private File json;
+    private Path snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("startup-bench");
+        json = dir.resolve("data.json").toFile();
+        snapshot = dir.resolve("data.snap");
+
+        DataSet ds = BenchmarkData.dataSet(persons);
+        om.writeValue(json, ds);
+        InMemoryDataRepository repo = new InMemoryDataRepository();
+        repo.init(ds);
+        new BinarySnapshotStore(repo, snapshot.toString(), true).write();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(json.toPath());
+        Files.deleteIfExists(snapshot);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public InMemoryDataRepository load() throws IOException {
+        StringDictionaries dictionaries = new StringDictionaries();
+        InMemoryDataRepository repo = new InMemoryDataRepository(dictionaries);
+        if ("snapshot".equals(source)) {
+            if (!new BinarySnapshotStore(repo, snapshot.toString(), true).restore()) {
+                throw new IllegalStateException("Snapshot non rechargé");
+            }
+        } else {
+            DataSet ds = om.readValue(json, DataSet.class);
+            dictionaries.intern(ds);
+            repo.init(ds);
+        }
+        return repo;
+    }
+}
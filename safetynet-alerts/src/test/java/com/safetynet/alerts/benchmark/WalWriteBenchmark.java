@@ -0,0 +1,95 @@
+package com.safetynet.alerts.benchmark;
+
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.DurableDataRepository;
+import com.safetynet.alerts.repository.InMemoryDataRepository;
+import com.safetynet.alerts.repository.WriteAheadLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Débit des écritures durables (savePerson journalisé) en fonction du nombre d'écrivains, avec et sans fsync.
+ * <p>
+ * Avec {@code fsync=true}, le débit mono-écrivain est borné par la latence d'un fsync du disque ; la validation
+ * groupée doit le faire croître avec {@code writers} (plusieurs mutations par fsync). Le ratio
+ * mutations/groupe est journalisé à la fermeture du journal. Le journal est écrit dans le répertoire
+ * temporaire : le lancer sur le disque cible pour dimensionner le matériel ({@code -Djava.io.tmpdir=...}).
+ * <p>
+ * Lancement : {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="WalWrite"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WalWriteBenchmark {
+
+    static final int BATCH = 4_096;
+
+    @Param({"true", "false"})
+    boolean fsync;
+
+    @Param({"1", "4", "16", "64"})
+    int writers;
+
+    @Param({"10000"})
+    int persons;
+
+    private Path dir;
+    private WriteAheadLog wal;
+    private DurableDataRepository repo;
+    private ExecutorService pool;
+    private int households;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("wal-bench");
+        wal = new WriteAheadLog(dir, fsync, 64L << 20);
+        repo = DurableDataRepository.wrap(new InMemoryDataRepository(), wal);
+        repo.init(BenchmarkData.dataSet(persons));
+        households = persons / BenchmarkData.HOUSEHOLD;
+        pool = Executors.newFixedThreadPool(writers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdownNow();
+        wal.close();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void savePerson() throws Exception {
+        final int perWriter = BATCH / writers;
+        List<Future<?>> futures = new ArrayList<>(writers);
+        for (int w = 0; w < writers; w++) {
+            futures.add(pool.submit(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                for (int i = 0; i < perWriter; i++) {
+                    int h = rnd.nextInt(households);
+                    int m = rnd.nextInt(BenchmarkData.HOUSEHOLD);
+                    repo.savePerson(new Person(BenchmarkData.firstName(m), BenchmarkData.lastName(h),
+                            BenchmarkData.address(h), BenchmarkData.city(h), "97451",
+                            "841-" + rnd.nextInt(10_000), "m" + m + ".f" + h + "@bench.org"));
+                }
+            }));
+        }
+        for (Future<?> f : futures) f.get();
+    }
+}
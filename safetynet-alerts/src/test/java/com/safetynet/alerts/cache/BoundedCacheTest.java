@@ -0,0 +1,147 @@
+package com.safetynet.alerts.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CyclicBarrier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheTest {
+
+    @Test
+    void size_never_exceeds_maximum() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(100);
+
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, "v" + i);
+            cache.get(i % 37);
+        }
+
+        assertTrue(cache.size() <= 100, () -> "taille : " + cache.size());
+        BoundedCache.Stats stats = cache.stats();
+        assertEquals(100, stats.maximumSize());
+        assertTrue(stats.evictions() + stats.rejections() > 0);
+    }
+
+    @Test
+    void frequent_keys_survive_a_scan_of_one_shot_keys() {
+        // Arrange: 50 clés populaires, lues plusieurs fois
+        BoundedCache<String, String> cache = new BoundedCache<>(200);
+        for (int i = 0; i < 50; i++) cache.put("hot" + i, "h");
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) cache.get("hot" + i);
+        }
+
+        // Act: balayage de 5 000 clés vues une seule fois ; les clés populaires restent lues toutes les
+        // 500 clés du balayage (un LRU de 200 entrées les aurait perdues entre deux lectures)
+        for (int i = 0; i < 5_000; i++) {
+            cache.get("scan" + i);
+            cache.put("scan" + i, "s");
+            if (i % 500 == 499) {
+                for (int h = 0; h < 50; h++) assertEquals("h", cache.get("hot" + h), "hot" + h);
+            }
+        }
+
+        // Assert
+        assertTrue(cache.stats().rejections() > 0);
+    }
+
+    @Test
+    void put_replaces_value_and_invalidate_removes_entry() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10);
+        cache.put("k", "v1");
+        cache.put("k", "v2");
+
+        assertEquals("v2", cache.get("k"));
+        assertEquals(1, cache.size());
+
+        cache.invalidate("k");
+        cache.invalidate("absent");
+
+        assertNull(cache.get("k"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.stats().invalidations());
+    }
+
+    @Test
+    void stats_count_hits_and_misses() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10);
+        assertEquals(0.0, cache.stats().hitRate());
+
+        cache.get("k");
+        cache.put("k", "v");
+        cache.get("k");
+        cache.get("k");
+        cache.get("k");
+
+        BoundedCache.Stats stats = cache.stats();
+        assertEquals(3, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.75, stats.hitRate());
+    }
+
+    @Test
+    void buffered_reads_still_protect_entries_from_a_scan() {
+        // Arrange: cache plein de clés lues une fois, puis une clé relue assez pour remplir son tampon
+        BoundedCache<String, String> cache = new BoundedCache<>(100);
+        for (int i = 0; i < 100; i++) cache.put("k" + i, "v");
+        for (int r = 0; r < ReadBuffer.SIZE * 2; r++) cache.get("k50");
+
+        // Act: balayage qui pousse des candidats contre le cache principal
+        for (int i = 0; i < 1_000; i++) cache.put("scan" + i, "s");
+
+        // Assert: la clé relue a été promue et a survécu
+        assertEquals("v", cache.get("k50"));
+    }
+
+    @Test
+    void concurrent_readers_and_writers_keep_size_and_counters_consistent() throws Exception {
+        // Arrange
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(64);
+        int threads = 4;
+        int ops = 20_000;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        Thread[] workers = new Thread[threads];
+        Throwable[] failure = new Throwable[1];
+        for (int t = 0; t < threads; t++) {
+            final int seed = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < ops; i++) {
+                        int k = (i * 31 + seed) % 200;
+                        Integer v = cache.get(k);
+                        if (v != null && v != k) throw new AssertionError("valeur " + v + " pour la clé " + k);
+                        if (i % 3 == 0) cache.put(k, k);
+                        if (i % 97 == 0) cache.invalidate(k);
+                    }
+                } catch (Throwable e) {
+                    failure[0] = e;
+                }
+            });
+            workers[t].start();
+        }
+
+        // Act
+        for (Thread w : workers) w.join();
+
+        // Assert
+        assertNull(failure[0]);
+        assertTrue(cache.size() <= 64, () -> "taille : " + cache.size());
+        BoundedCache.Stats stats = cache.stats();
+        assertEquals((long) threads * ops, stats.hits() + stats.misses());
+        cache.put(-1, -1);
+        assertEquals(Integer.valueOf(-1), cache.get(-1));
+    }
+
+    @Test
+    void capacity_of_one_keeps_the_last_entry() {
+        BoundedCache<String, String> cache = new BoundedCache<>(1);
+        cache.put("a", "1");
+        cache.put("b", "2");
+
+        assertEquals(1, cache.size());
+        assertEquals("2", cache.get("b"));
+        assertThrows(IllegalArgumentException.class, () -> new BoundedCache<>(0));
+    }
+}
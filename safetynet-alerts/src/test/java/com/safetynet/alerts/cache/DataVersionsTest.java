@@ -0,0 +1,119 @@
+package com.safetynet.alerts.cache;
+
+import com.safetynet.alerts.model.Person;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataVersionsTest {
+
+    private final DataVersions versions = new DataVersions();
+
+    private static Person person(String last, String address, String city) {
+        Person p = new Person();
+        p.setFirstName("John");
+        p.setLastName(last);
+        p.setAddress(address);
+        p.setCity(city);
+        return p;
+    }
+
+    @Test
+    void person_move_stales_both_addresses_only() {
+        // Arrange
+        DataVersions.Stamp oldHome = versions.stamp(List.of(DataVersions.address("1509 Culver St")));
+        DataVersions.Stamp newHome = versions.stamp(List.of(DataVersions.address("29 15th St")));
+        DataVersions.Stamp other = versions.stamp(List.of(DataVersions.address("834 Binoc Ave")));
+
+        // Act
+        versions.personChanged(
+                person("Boyd", "1509 Culver St", "Culver"), person("Boyd", "29 15th St", "Culver"));
+
+        // Assert
+        assertFalse(versions.isCurrent(oldHome));
+        assertFalse(versions.isCurrent(newHome));
+        assertTrue(versions.isCurrent(other));
+        assertEquals(2, versions.version(DataVersions.lastName("boyd")));
+    }
+
+    @Test
+    void tags_are_normalized() {
+        versions.medicalRecordChanged("John", "Boyd", " 1509 Culver St ");
+
+        assertEquals(1, versions.version(DataVersions.address("1509 CULVER ST")));
+        assertEquals(1, versions.version(DataVersions.lastName("BOYD")));
+        assertEquals(0, versions.version(DataVersions.city("Culver")));
+    }
+
+    @Test
+    void mapping_change_stales_address_and_both_stations() {
+        DataVersions.Stamp s1 = versions.stamp(List.of(DataVersions.station("1")));
+        DataVersions.Stamp s2 = versions.stamp(List.of(DataVersions.station("2")));
+        DataVersions.Stamp s3 = versions.stamp(List.of(DataVersions.station("3")));
+
+        versions.mappingChanged("1509 Culver St", "1", "2");
+
+        assertFalse(versions.isCurrent(s1));
+        assertFalse(versions.isCurrent(s2));
+        assertTrue(versions.isCurrent(s3));
+        assertEquals(1, versions.version(DataVersions.address("1509 Culver St")));
+    }
+
+    @Test
+    void extend_keeps_versions_taken_before() {
+        // Arrange: version de la caserne relevée, puis changement avant le relevé des adresses
+        DataVersions.Stamp head = versions.stamp(List.of(DataVersions.station("3")));
+        versions.mappingChanged("1509 Culver St", null, "3");
+
+        // Act
+        DataVersions.Stamp stamp = versions.extend(head, List.of(DataVersions.address("1509 Culver St")));
+
+        // Assert
+        assertEquals(2, stamp.tags().length);
+        assertFalse(versions.isCurrent(stamp));
+    }
+
+    @Test
+    void reload_stales_every_stamp() {
+        DataVersions.Stamp stamp = versions.stamp(List.of());
+        assertTrue(versions.isCurrent(stamp));
+
+        versions.dataSetReplaced();
+
+        assertFalse(versions.isCurrent(stamp));
+        assertEquals(1, versions.global());
+    }
+
+    @Test
+    void etag_is_stable_until_a_tag_or_the_day_changes() {
+        // Arrange
+        List<String> tags = List.of(DataVersions.station("1"), DataVersions.address("1509 Culver St"));
+        String etag = versions.etag(versions.stamp(tags), 100);
+
+        // Assert: même état, ordre indifférent ; jour suivant ou écriture => autre ETag
+        assertEquals(etag, versions.etag(versions.stamp(tags.reversed()), 100));
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertNotEquals(etag, versions.etag(versions.stamp(tags), 101));
+        versions.medicalRecordChanged("John", "Boyd", "1509 Culver St");
+        assertNotEquals(etag, versions.etag(versions.stamp(tags), 100));
+    }
+
+    @Test
+    void etag_differs_between_instances() {
+        // Les versions repartent de 0 au redémarrage : l'identifiant de démarrage distingue les ETags
+        DataVersions other = new DataVersions();
+
+        assertNotEquals(versions.etag(versions.stamp(List.of()), 0), other.etag(other.stamp(List.of()), 0));
+    }
+
+    @Test
+    void stampStations_covers_stations_then_their_addresses() {
+        DataVersions.Stamp stamp = versions.stampStations(List.of("1"), s -> List.of("A1", "A2"));
+
+        assertArrayEquals(new String[]{"s:1", "a:a1", "a:a2"}, stamp.tags());
+        versions.personChanged(null, person("Doe", "A2", "Culver"));
+        assertFalse(versions.isCurrent(stamp));
+    }
+}
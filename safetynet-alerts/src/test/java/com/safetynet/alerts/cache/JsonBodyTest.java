@@ -0,0 +1,52 @@
+package com.safetynet.alerts.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonBodyTest {
+
+    private final ObjectMapper om = new ObjectMapper();
+
+    @Test
+    void utf8_matches_object_mapper_output() throws Exception {
+        Map<String, Object> value = Map.of("station", "3", "residents", List.of("Élodie"));
+
+        JsonBody body = JsonBody.of(om, value);
+
+        assertArrayEquals(om.writeValueAsBytes(value), body.utf8());
+        assertTrue(new String(body.utf8(), StandardCharsets.UTF_8).contains("Élodie"));
+    }
+
+    @Test
+    void small_bodies_are_not_compressible() {
+        assertFalse(JsonBody.of(om, List.of("a", "b")).compressible());
+    }
+
+    @Test
+    void gzip_round_trips_and_is_computed_once() throws Exception {
+        // Arrange: corps au-dessus du seuil
+        String[] items = new String[200];
+        Arrays.fill(items, "841-874-6512");
+        JsonBody body = JsonBody.of(om, items);
+        assertTrue(body.compressible());
+
+        // Act
+        byte[] gzip = body.gzip();
+
+        // Assert
+        assertSame(gzip, body.gzip());
+        assertTrue(gzip.length < body.utf8().length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            assertArrayEquals(body.utf8(), in.readAllBytes());
+        }
+    }
+}
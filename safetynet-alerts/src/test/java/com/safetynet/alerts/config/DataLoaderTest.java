@@ -2,7 +2,10 @@ package com.safetynet.alerts.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.repository.BinarySnapshotStore;
+import com.safetynet.alerts.repository.ChangeSummary;
 import com.safetynet.alerts.repository.DataRepository;
+import com.safetynet.alerts.repository.StringDictionaries;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -14,6 +17,7 @@ import java.io.InputStream;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -22,7 +26,11 @@ import static org.mockito.Mockito.*;
  * Stratégie:
  * - On instancie DataLoader manuellement avec ses dépendances (repo mocké, ObjectMapper réel ou mocké).
  * - On valide le scénario nominal (chargement et désérialisation du JSON → appel repo.init(DataSet)).
- * - On valide le scénario d'erreur (IOException Jackson → IllegalStateException, aucune interaction dépôt).
+ * - On valide le scénario d'erreur (IOException Jackson → IllegalStateException, aucun init du dépôt).
+ * - On valide la reprise d'un dépôt persistant (isRestored() → data.json ignoré).
+ * - On valide la priorité au snapshot binaire plus récent, et le retour à data.json s'il est illisible.
+ * - On valide le rechargement à chaud (reload) : relecture forcée de la source et bilan des volumes chargés.
+ * - On valide le rechargement différentiel : repo.reconcile(...) au lieu de init, le démarrage restant complet.
  */
 class DataLoaderTest {
 
@@ -91,7 +99,104 @@ class DataLoaderTest {
 
         // - En cas d’échec de parsing, aucune interaction ne doit survenir avec le dépôt
         //   (on ne veut surtout pas d’init partiel)
-        verifyNoInteractions(repo);
-        // Variante plus ciblée si besoin: verify(repo, never()).init(any());
+        //   (seule la question isRestored() est posée avant le parsing)
+        verify(repo).isRestored();
+        verify(repo, never()).init(any());
+        verifyNoMoreInteractions(repo);
+    }
+
+    @Test
+    @DisplayName("Dépôt restauré depuis son stockage: data.json n'est pas relu")
+    void load_skips_json_when_repository_is_restored() throws Exception {
+        // Arrange
+        DataRepository repo = mock(DataRepository.class);
+        ObjectMapper om = mock(ObjectMapper.class);
+        when(repo.isRestored()).thenReturn(true);
+
+        // Act
+        new DataLoader(repo, om).load();
+
+        // Assert
+        verify(repo, never()).init(any());
+        verifyNoInteractions(om);
+    }
+
+    @Test
+    @DisplayName("Snapshot binaire plus récent et relu: data.json n'est pas parsé")
+    void load_prefers_newer_binary_snapshot() throws Exception {
+        // Arrange
+        DataRepository repo = mock(DataRepository.class);
+        ObjectMapper om = mock(ObjectMapper.class);
+        BinarySnapshotStore snapshots = mock(BinarySnapshotStore.class);
+        when(snapshots.isNewerThan(anyLong())).thenReturn(true);
+        when(snapshots.restore()).thenReturn(true);
+
+        // Act
+        new DataLoader(repo, om, new StringDictionaries(), snapshots).load();
+
+        // Assert
+        verify(snapshots).restore();
+        verify(repo, never()).init(any());
+        verifyNoInteractions(om);
+    }
+
+    @Test
+    @DisplayName("Snapshot binaire illisible: retour au chargement de data.json")
+    void load_falls_back_to_json_when_snapshot_cannot_be_restored() {
+        // Arrange
+        DataRepository repo = mock(DataRepository.class);
+        BinarySnapshotStore snapshots = mock(BinarySnapshotStore.class);
+        when(snapshots.isNewerThan(anyLong())).thenReturn(true);
+        when(snapshots.restore()).thenReturn(false);
+        assertTestDataResourcePresent();
+
+        // Act
+        new DataLoader(repo, new ObjectMapper(), new StringDictionaries(), snapshots).load();
+
+        // Assert
+        verify(repo, times(1)).init(any(DataSet.class));
+    }
+
+    @Test
+    @DisplayName("Rechargement à chaud: relit data.json même si le dépôt est restauré et renvoie les volumes chargés")
+    void reload_reads_source_and_reports_counts() throws Exception {
+        // Arrange
+        DataRepository repo = mock(DataRepository.class);
+        when(repo.isRestored()).thenReturn(true);
+        assertTestDataResourcePresent();
+        DataSet expected;
+        try (InputStream is = DataLoaderTest.class.getResourceAsStream(DATA_PATH)) {
+            expected = new ObjectMapper().readValue(is, DataSet.class);
+        }
+
+        // Act
+        DataLoader.Loaded loaded = new DataLoader(repo, new ObjectMapper()).reload();
+
+        // Assert
+        verify(repo, times(1)).init(any(DataSet.class));
+        verify(repo, never()).isRestored();
+        assertThat(loaded.source()).isEqualTo(DATA_PATH);
+        assertThat(loaded.persons()).isEqualTo(expected.getPersons().size());
+        assertThat(loaded.firestations()).isEqualTo(expected.getFirestations().size());
+        assertThat(loaded.medicalRecords()).isEqualTo(expected.getMedicalrecords().size());
+    }
+
+    @Test
+    @DisplayName("Rechargement différentiel: reconcile(...) au rechargement, init(...) au démarrage")
+    void reload_in_diff_mode_reconciles_instead_of_init() {
+        // Arrange
+        DataRepository repo = mock(DataRepository.class);
+        ChangeSummary changes = new ChangeSummary(new ChangeSummary.Counts(0, 1, 0), ChangeSummary.Counts.NONE, ChangeSummary.Counts.NONE, true);
+        when(repo.reconcile(any(DataSet.class))).thenReturn(changes);
+        DataLoader loader = new DataLoader(repo, new ObjectMapper(), new StringDictionaries(), null, "", false, 1, "diff");
+
+        // Act
+        loader.load();
+        DataLoader.Loaded loaded = loader.reload();
+
+        // Assert
+        verify(repo, times(1)).init(any(DataSet.class));
+        verify(repo, times(1)).reconcile(any(DataSet.class));
+        assertThat(loaded.changes()).isSameAs(changes);
     }
 }
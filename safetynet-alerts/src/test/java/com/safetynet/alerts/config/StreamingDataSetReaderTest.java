@@ -0,0 +1,123 @@
+package com.safetynet.alerts.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.model.FirestationMapping;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.DataSetSink;
+import com.safetynet.alerts.repository.InMemoryDataRepository;
+import com.safetynet.alerts.repository.StringDictionaries;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires du chargement en flux (StreamingDataSetReader + DataLoader en mode streaming).
+ * Stratégie:
+ * - On lit un petit JSON en mémoire et on observe les lots remis au DataSetSink (taille, ordre, champs inconnus ignorés).
+ * - On charge un vrai dépôt depuis un fichier externe gzip, via DataLoader, pour valider le chemin complet.
+ */
+class StreamingDataSetReaderTest {
+
+    private static final String JSON = """
+            {
+              "persons": [
+                {"firstName":"John","lastName":"Doe","address":"1509 Culver St","city":"Culver","zip":"97451","phone":"111","email":"john@acme.org"},
+                {"firstName":"Jane","lastName":"Doe","address":"1509 Culver St","city":"Culver","zip":"97451","phone":"222","email":"jane@acme.org"},
+                {"firstName":"Alice","lastName":"Smith","address":"1 Main St","city":"Spring","zip":"11111","phone":"333","email":"alice@acme.org"}
+              ],
+              "comment": {"ignored": [1, 2, 3]},
+              "firestations": [
+                {"address":"1509 Culver St","station":"1"},
+                {"address":"1509 Culver St","station":"9"},
+                {"address":"1 Main St","station":"2"}
+              ],
+              "medicalrecords": [
+                {"firstName":"John","lastName":"Doe","birthdate":"03/06/1984","medications":["aznol:350mg"],"allergies":[]}
+              ]
+            }
+            """;
+
+    /** Sink qui mémorise la taille de chaque lot reçu. */
+    private static final class RecordingSink implements DataSetSink {
+        final List<Integer> personBatches = new ArrayList<>();
+        final List<Integer> stationBatches = new ArrayList<>();
+        final List<Integer> recordBatches = new ArrayList<>();
+        final List<Person> persons = new ArrayList<>();
+
+        @Override public void persons(List<Person> batch) { personBatches.add(batch.size()); persons.addAll(batch); }
+        @Override public void firestations(List<FirestationMapping> batch) { stationBatches.add(batch.size()); }
+        @Override public void medicalRecords(List<MedicalRecord> batch) { recordBatches.add(batch.size()); }
+    }
+
+    @Test
+    @DisplayName("Les éléments sont livrés par lots de batchSize, champs inconnus ignorés")
+    void feed_delivers_batches() throws IOException {
+        // Arrange
+        StringDictionaries dictionaries = new StringDictionaries();
+        StreamingDataSetReader reader = new StreamingDataSetReader(new ObjectMapper(),
+                new ByteArrayInputStream(JSON.getBytes(StandardCharsets.UTF_8)), 2, dictionaries);
+        RecordingSink sink = new RecordingSink();
+
+        // Act
+        reader.feed(sink);
+
+        // Assert
+        assertEquals(List.of(2, 1), sink.personBatches);
+        assertEquals(List.of(2, 1), sink.stationBatches);
+        assertEquals(List.of(1), sink.recordBatches);
+        assertEquals(3, reader.persons());
+        assertEquals(3, reader.firestations());
+        assertEquals(1, reader.medicalRecords());
+        // dédupliqués au fil de l'eau : une seule instance par adresse
+        assertSame(sink.persons.get(0).getAddress(), sink.persons.get(1).getAddress());
+    }
+
+    @Test
+    @DisplayName("Racine non objet: IOException")
+    void feed_rejects_non_object_root() {
+        StreamingDataSetReader reader = new StreamingDataSetReader(new ObjectMapper(),
+                new ByteArrayInputStream("[1,2]".getBytes(StandardCharsets.UTF_8)), 10, new StringDictionaries());
+
+        assertThrows(IOException.class, () -> reader.feed(new RecordingSink()));
+    }
+
+    @Test
+    @DisplayName("DataLoader en flux: fichier externe gzip chargé dans le dépôt avec les règles d'init")
+    void loader_streams_external_gzip_file() throws IOException {
+        // Arrange: data.json compressé hors classpath
+        Path dir = Files.createTempDirectory("stream-load");
+        Path gz = dir.resolve("data.json.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gz))) {
+            out.write(JSON.getBytes(StandardCharsets.UTF_8));
+        }
+        InMemoryDataRepository repo = new InMemoryDataRepository();
+        StringDictionaries dictionaries = new StringDictionaries();
+
+        // Act
+        new DataLoader(repo, new ObjectMapper(), dictionaries, null, gz.toString(), true, 2, "full").load();
+
+        // Assert
+        assertEquals(3, repo.findAllPersons().size());
+        assertEquals(Set.of("john@acme.org", "jane@acme.org"), repo.findEmailsByCity("culver"));
+        assertEquals(Optional.of("1"), repo.findStationByAddress("1509 Culver St")); // first-wins
+        assertEquals(Optional.of("2"), repo.findStationByAddress("1 Main St"));
+        assertTrue(repo.findMedicalRecord("john", "doe").isPresent());
+
+        Files.delete(gz);
+        Files.delete(dir);
+    }
+}
@@ -0,0 +1,98 @@
+package com.safetynet.alerts.controller.admin;
+
+import com.safetynet.alerts.config.DataLoader;
+import com.safetynet.alerts.repository.BinarySnapshotStore;
+import com.safetynet.alerts.repository.ChangeSummary;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests d’intégration du contrôleur AdminController à l’aide de MockMvc dans un contexte Spring Boot.
+ * BinarySnapshotStore et DataLoader sont mockés : aucun fichier n’est écrit ni relu.
+
+ * Cas de test :
+ * - snapshot : écriture à la demande ; contrôle le statut et le payload JSON (path, bytes).
+ * - snapshot_unsupported : moteur sans snapshot binaire → 409 Conflict.
+ * - reload : rechargement à la demande ; contrôle le statut et les volumes chargés.
+ * - reload_diff_reports_changes : rechargement différentiel ; contrôle les compteurs de changements.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class AdminControllerTest {
+    @Autowired MockMvc mockMvc;
+    @MockitoBean
+    BinarySnapshotStore snapshots;
+    @MockitoBean
+    DataLoader loader;
+
+    @Test
+    void snapshot() throws Exception {
+        // Arrange — moteur compatible, écriture simulée
+        Mockito.when(snapshots.supported()).thenReturn(true);
+        Mockito.when(snapshots.write())
+                .thenReturn(new BinarySnapshotStore.Written(Path.of("data/safetynet.snap"), 1234L, Instant.EPOCH));
+
+        // Act + Assert — 200 OK et description du fichier écrit
+        mockMvc.perform(post("/admin/snapshot").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.path").value(Path.of("data/safetynet.snap").toString()))
+                .andExpect(jsonPath("$.bytes").value(1234));
+    }
+
+    @Test
+    void snapshot_unsupported() throws Exception {
+        // Arrange — moteur sans snapshot binaire
+        Mockito.when(snapshots.supported()).thenReturn(false);
+
+        // Act + Assert — 409 Conflict, aucune écriture
+        mockMvc.perform(post("/admin/snapshot"))
+                .andExpect(status().isConflict());
+        Mockito.verify(snapshots, Mockito.never()).write();
+    }
+
+    @Test
+    void reload() throws Exception {
+        // Arrange — rechargement simulé
+        Mockito.when(loader.reload()).thenReturn(new DataLoader.Loaded("/data.json", 23, 13, 23, 42L, null));
+
+        // Act + Assert — 200 OK et bilan du rechargement
+        mockMvc.perform(post("/admin/reload").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.source").value("/data.json"))
+                .andExpect(jsonPath("$.persons").value(23))
+                .andExpect(jsonPath("$.firestations").value(13))
+                .andExpect(jsonPath("$.durationMs").value(42))
+                .andExpect(jsonPath("$.personChanges").doesNotExist());
+        Mockito.verify(loader).reload();
+    }
+
+    @Test
+    void reload_diff_reports_changes() throws Exception {
+        // Arrange — rechargement différentiel simulé
+        ChangeSummary changes = new ChangeSummary(new ChangeSummary.Counts(1, 2, 3), ChangeSummary.Counts.NONE,
+                new ChangeSummary.Counts(0, 1, 0), true);
+        Mockito.when(loader.reload()).thenReturn(new DataLoader.Loaded("/data.json", 23, 13, 23, 5L, changes));
+
+        // Act + Assert — 200 OK et compteurs par section
+        mockMvc.perform(post("/admin/reload").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.personChanges.inserted").value(1))
+                .andExpect(jsonPath("$.personChanges.updated").value(2))
+                .andExpect(jsonPath("$.personChanges.deleted").value(3))
+                .andExpect(jsonPath("$.firestationChanges.updated").value(1))
+                .andExpect(jsonPath("$.medicalRecordChanges.inserted").value(0));
+    }
+}
@@ -0,0 +1,50 @@
+package com.safetynet.alerts.controller.admin;
+
+import com.safetynet.alerts.cache.BoundedCache;
+import com.safetynet.alerts.service.impl.CachedReportingService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests d’intégration du contrôleur CacheController à l’aide de MockMvc dans un contexte Spring Boot.
+ * CachedReportingService est mocké : les compteurs renvoyés sont fixés par le test.
+
+ * Cas de test :
+ * - stats : contrôle le statut et le payload JSON (taille, succès, échecs, taux de succès, évictions, regroupements).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CacheControllerTest {
+    @Autowired MockMvc mockMvc;
+    @MockitoBean
+    CachedReportingService cache;
+
+    @Test
+    void stats() throws Exception {
+        // Arrange — compteurs simulés
+        Mockito.when(cache.stats()).thenReturn(new BoundedCache.Stats(12, 10000, 30, 10, 0, 2, 1));
+        Mockito.when(cache.coalesced()).thenReturn(5L);
+
+        // Act + Assert — 200 OK et compteurs du cache
+        mockMvc.perform(get("/admin/cache").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.size").value(12))
+                .andExpect(jsonPath("$.maximumSize").value(10000))
+                .andExpect(jsonPath("$.hits").value(30))
+                .andExpect(jsonPath("$.misses").value(10))
+                .andExpect(jsonPath("$.hitRate").value(0.75))
+                .andExpect(jsonPath("$.rejections").value(2))
+                .andExpect(jsonPath("$.invalidations").value(1))
+                .andExpect(jsonPath("$.coalesced").value(5));
+    }
+}
@@ -1,5 +1,13 @@
 package com.safetynet.alerts.controller.reporting;
 
+import com.jayway.jsonpath.JsonPath;
+import com.safetynet.alerts.cache.ReportETags;
+import com.safetynet.alerts.dto.reporting.FirestationCoverageDto;
+import com.safetynet.alerts.dto.reporting.PersonSummaryDto;
+import com.safetynet.alerts.dto.reporting.ResidentMedicalDto;
+import com.safetynet.alerts.repository.AgeCounts;
+import com.safetynet.alerts.repository.KeyedPage;
+import com.safetynet.alerts.repository.StationCoverage;
 import com.safetynet.alerts.service.ReportingService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,9 +16,17 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean; // Remplace le bean par un mock Mockito (Spring Boot 3.2+)
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -50,6 +66,12 @@ class ReportingControllerTest {
     @MockitoBean
     private ReportingService reporting;
 
+    /**
+     * ETags mockés : {@code null} par défaut (pas d'en-tête ETag), valeur fixée par les tests conditionnels.
+     */
+    @MockitoBean
+    private ReportETags etags;
+
     @Test
     void firestation() throws Exception {
         // Arrange: aucun (paramètre requis non fourni)
@@ -135,7 +157,7 @@ class ReportingControllerTest {
     void communityEmail() throws Exception {
         // Arrange
         // On prépare le mock pour renvoyer deux emails pour la ville "Paris".
-        when(reporting.getCommunityEmails("Paris")).thenReturn(Set.of("a@ex.com", "b@ex.com"));
+        when(reporting.streamCommunityEmails("Paris")).thenReturn(Stream.of("a@ex.com", "b@ex.com"));
 
         // Act
         mvc.perform(get("/communityEmail").param("city", "Paris"))
@@ -148,7 +170,145 @@ class ReportingControllerTest {
            .andExpect(jsonPath("$[?(@=='a@ex.com')]").exists())
            .andExpect(jsonPath("$[?(@=='b@ex.com')]").exists());
 
-        // Assert (interaction): vérifie la délégation.
-        verify(reporting).getCommunityEmails("Paris");
+        // Assert (interaction): vérifie la délégation au flux, sans ensemble construit d'avance.
+        verify(reporting).streamCommunityEmails("Paris");
+        verify(reporting, never()).getCommunityEmails(any());
+    }
+
+    @Test
+    void acceptsGzip_honours_quality_values() {
+        // Corps pré-sérialisés : gzip seulement si le client l'accepte explicitement (ou via "*") avec q > 0
+        assertTrue(ReportingController.acceptsGzip("gzip, deflate, br"));
+        assertTrue(ReportingController.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(ReportingController.acceptsGzip("*"));
+        assertFalse(ReportingController.acceptsGzip(null));
+        assertFalse(ReportingController.acceptsGzip("identity"));
+        assertFalse(ReportingController.acceptsGzip("gzip;q=0"));
+        assertFalse(ReportingController.acceptsGzip("*;q=1, gzip;q=0.0"));
+    }
+
+    @Test
+    void firestation_sends_etag_then_304_without_running_the_report() throws Exception {
+        // Arrange
+        when(etags.firestation("1")).thenReturn("\"v1\"");
+        when(reporting.getPersonsByStation("1")).thenReturn(new FirestationCoverageDto(List.of(), 1, 0));
+
+        // Act + Assert: premier appel => 200 + ETag
+        mvc.perform(get("/firestation").param("stationNumber", "1"))
+           .andExpect(status().isOk())
+           .andExpect(header().string("ETag", "\"v1\""))
+           .andExpect(jsonPath("$.adults").value(1));
+
+        // Act + Assert: rappel avec If-None-Match => 304, corps vide, service non appelé
+        mvc.perform(get("/firestation").param("stationNumber", "1").header("If-None-Match", "\"v1\""))
+           .andExpect(status().isNotModified())
+           .andExpect(content().string(""));
+        verify(reporting).getPersonsByStation("1");
+    }
+
+    @Test
+    void flood_answers_304_when_etag_matches() throws Exception {
+        // Arrange
+        when(etags.flood(Set.of("1", "2"))).thenReturn("\"v7\"");
+
+        // Act
+        mvc.perform(get("/flood/stations").param("stations", "1,2").header("If-None-Match", "\"v6\", \"v7\""))
+           // Assert
+           .andExpect(status().isNotModified());
+        verify(reporting, never()).streamFloodByStations(any());
+    }
+
+    @Test
+    void flood_streams_one_block_per_household() throws Exception {
+        // Arrange
+        when(etags.flood(Set.of("1", "2"))).thenReturn("\"v7\"");
+        ResidentMedicalDto tenley = new ResidentMedicalDto("Tenley", "Boyd", "841-874-6512", 14, List.of(), List.of("peanut"));
+        List<ResidentMedicalDto> nobody = List.of();
+        when(reporting.streamFloodByStations(Set.of("1", "2"))).thenReturn(Stream.of(
+                Map.entry("1509 Culver St", List.of(tenley)),
+                Map.entry("29 15th St", nobody)));
+
+        // Act
+        mvc.perform(get("/flood/stations").param("stations", "1,2"))
+           // Assert: même JSON que l'ancienne Map sérialisée par Spring, ETag posé
+           .andExpect(status().isOk())
+           .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+           .andExpect(header().string("ETag", "\"v7\""))
+           .andExpect(jsonPath("$['1509 Culver St'][0].firstName").value("Tenley"))
+           .andExpect(jsonPath("$['1509 Culver St'][0].allergies[0]").value("peanut"))
+           .andExpect(jsonPath("$['29 15th St']").isEmpty());
+        verify(reporting, never()).getFloodByStations(any());
+    }
+
+    @Test
+    void firestation_page_returns_cursor_that_resumes_after_last_person() throws Exception {
+        // Arrange
+        when(etags.firestation("1")).thenReturn("\"v1\"");
+        PersonSummaryDto jane = new PersonSummaryDto("Jane", "Doe", "29 15th St", "222");
+        PersonSummaryDto john = new PersonSummaryDto("John", "Doe", "1509 Culver St", "111");
+        when(reporting.pagePersonsByStation("1", null, 1))
+                .thenReturn(new StationCoverage<>(new KeyedPage<>(List.of(jane), "jane|doe"), new AgeCounts(1, 1)));
+        when(reporting.pagePersonsByStation("1", "jane|doe", 1))
+                .thenReturn(new StationCoverage<>(new KeyedPage<>(List.of(john), null), new AgeCounts(1, 1)));
+
+        // Act: première page
+        MvcResult first = mvc.perform(get("/firestation").param("stationNumber", "1").param("limit", "1"))
+           // Assert: une personne, totaux de la caserne, curseur de la suite
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$.persons[0].firstName").value("Jane"))
+           .andExpect(jsonPath("$.adults").value(1))
+           .andExpect(jsonPath("$.children").value(1))
+           .andExpect(jsonPath("$.nextCursor").isString())
+           .andReturn();
+        String cursor = JsonPath.read(first.getResponse().getContentAsString(), "$.nextCursor");
+
+        // Act + Assert: page suivante reprise après la clé, dernière page sans curseur
+        mvc.perform(get("/firestation").param("stationNumber", "1").param("limit", "1").param("cursor", cursor))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$.persons[0].firstName").value("John"))
+           .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        verify(reporting, never()).getPersonsByStation(any());
+
+        // Act + Assert: données modifiées depuis la première page -> 409 ; curseur d'une autre requête -> 400
+        when(etags.firestation("1")).thenReturn("\"v2\"");
+        mvc.perform(get("/firestation").param("stationNumber", "1").param("limit", "1").param("cursor", cursor))
+           .andExpect(status().isConflict());
+        mvc.perform(get("/personInfo").param("lastName", "Doe").param("limit", "1").param("cursor", cursor))
+           .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void communityEmail_page_bounds_limit() throws Exception {
+        // Arrange
+        when(etags.communityEmail("Culver")).thenReturn("\"c1\"");
+        when(reporting.pageCommunityEmails("Culver", null, ReportingController.MAX_PAGE_SIZE))
+                .thenReturn(new KeyedPage<>(List.of("a@ex.com"), null));
+
+        // Act + Assert: limite ramenée au maximum, limite nulle refusée
+        mvc.perform(get("/communityEmail").param("city", "Culver").param("limit", "100000"))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$.items[0]").value("a@ex.com"))
+           .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        mvc.perform(get("/communityEmail").param("city", "Culver").param("limit", "0"))
+           .andExpect(status().isBadRequest());
+        mvc.perform(get("/communityEmail").param("city", "Culver").param("limit", "1").param("cursor", "%%%"))
+           .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void flood_page_returns_households_of_the_page() throws Exception {
+        // Arrange
+        when(etags.flood(Set.of("1"))).thenReturn("\"v7\"");
+        ResidentMedicalDto tenley = new ResidentMedicalDto("Tenley", "Boyd", "841-874-6512", 14, List.of(), List.of("peanut"));
+        when(reporting.pageFloodByStations(Set.of("1"), null, 1))
+                .thenReturn(new KeyedPage<>(List.of(Map.entry("1509 Culver St", List.of(tenley))), "1509 Culver St"));
+
+        // Act
+        mvc.perform(get("/flood/stations").param("stations", "1").param("limit", "1"))
+           // Assert: même forme de foyer que la réponse complète, sous "households"
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$.households['1509 Culver St'][0].firstName").value("Tenley"))
+           .andExpect(jsonPath("$.nextCursor").isString());
+        verify(reporting, never()).streamFloodByStations(any());
     }
 }
@@ -0,0 +1,65 @@
+package com.safetynet.alerts.controller.reporting;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test d'intégration des réponses pré-sérialisées de /fire et /childAlert (cache des rapports actif) et des ETags.
+ *
+ * Scénario :
+ * 1. /fire et /childAlert sur une adresse du jeu de données : corps JSON attendu, en-têtes Vary et ETag.
+ * 2. /fire avec If-None-Match : 304 sans corps.
+ * 3. Changement de caserne de l'adresse via PUT /firestation/{address}.
+ * 4. /fire avec l'ancien ETag : 200 et nouvelle caserne (entrée pré-sérialisée invalidée, nouvel ETag).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext // le mapping de l'adresse est modifié
+class SerializedReportFlowIT {
+
+    @Autowired MockMvc mvc;
+
+    @Test
+    void serialized_fire_follows_mapping_update() throws Exception {
+        // --- 1) Lecture (mise en cache) ---
+        String etag = mvc.perform(get("/fire").param("address", "1509 Culver St"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(jsonPath("$.stationNumber").value("3"))
+                .andExpect(jsonPath("$.residents[?(@.firstName=='Tenley')]").exists())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/childAlert").param("address", "1509 Culver St"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.firstName=='Roger')]").exists());
+
+        // --- 2) Relecture conditionnelle ---
+        mvc.perform(get("/fire").param("address", "1509 Culver St").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // --- 3) Écriture ---
+        mvc.perform(put("/firestation/{address}", "1509 Culver St")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"station\":\"9\"}"))
+                .andExpect(status().isOk());
+
+        // --- 4) Relecture avec l'ancien ETag ---
+        mvc.perform(get("/fire").param("address", "1509 Culver St").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$.stationNumber").value("9"));
+    }
+}
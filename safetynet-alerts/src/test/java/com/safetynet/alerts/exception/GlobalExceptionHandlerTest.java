@@ -80,6 +80,28 @@ class GlobalExceptionHandlerTest {
         assertEquals("/test/path", body.get("path"));
     }
 
+    /**
+     * Vérifie le mapping d'une {@link BadRequestExeption} vers:
+     * - HTTP 400 Bad Request
+     * - Corps JSON avec "error" = "Bad Request" et le message de l'exception.
+     */
+    @Test
+    void handleBadRequest() {
+        // Arrange: paramètre invalide (ex. curseur de pagination illisible)
+        BadRequestExeption ex = new BadRequestExeption("Invalid cursor");
+
+        // Act
+        ResponseEntity<Map<String, Object>> resp = handler.handleBadRequest(ex, request);
+
+        // Assert
+        assertEquals(400, resp.getStatusCode().value());
+        Map<String, Object> body = resp.getBody();
+        assertNotNull(body);
+        assertEquals("Bad Request", body.get("error"));
+        assertEquals("Invalid cursor", body.get("message"));
+        assertEquals("/test/path", body.get("path"));
+    }
+
     /**
      * Vérifie le mapping d'une {@link NotFoundExeption} vers:
      * - HTTP 404 Not Found
@@ -0,0 +1,174 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.model.FirestationMapping;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires de {@link BinarySnapshotStore} avec le moteur par défaut {@link InMemoryDataRepository}.
+ * <p>
+ * On vérifie l'aller-retour complet (enregistrements + index), puis les garde-fous : un fichier corrompu,
+ * un moteur non compatible ou un snapshot désactivé ne modifient jamais le dépôt.
+ */
+class BinarySnapshotStoreTest {
+
+    private Path dir;
+    private Path file;
+    private InMemoryDataRepository source;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Arrange: même jeu de données minimal que pour InMemoryDataRepositoryTest
+        dir = Files.createTempDirectory("binary-snapshot");
+        file = dir.resolve("repo.snap");
+        source = new InMemoryDataRepository();
+        DataSet ds = new DataSet();
+        ds.setPersons(List.of(
+                new Person("John", "Doe", "1509 Culver St", "Culver", "97451", "111-111", "john@acme.org"),
+                new Person("Jane", "Doe", "29 15th St", "Culver", "97451", "222-222", null),
+                new Person("Alice", "Smith", "1 Main St", "Spring", "11111", "333-333", "alice@acme.org")));
+        ds.setFirestations(List.of(
+                new FirestationMapping("1509 Culver St", "1"),
+                new FirestationMapping("29 15th St", "1"),
+                new FirestationMapping("1 Main St", "2")));
+        MedicalRecord mrJohn = new MedicalRecord();
+        mrJohn.setFirstName("John");
+        mrJohn.setLastName("Doe");
+        mrJohn.setBirthdate("03/06/1984");
+        mrJohn.setMedications(List.of("aznol:350mg"));
+        ds.setMedicalrecords(List.of(mrJohn));
+        source.init(ds);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void write_then_restore_rebuilds_records_and_indexes() {
+        // Arrange
+        BinarySnapshotStore.Written written = new BinarySnapshotStore(source, file.toString(), true).write();
+        InMemoryDataRepository target = new InMemoryDataRepository();
+
+        // Act
+        boolean restored = new BinarySnapshotStore(target, file.toString(), true).restore();
+
+        // Assert
+        assertTrue(restored);
+        assertEquals(file, written.path());
+        assertTrue(written.bytes() > 0);
+        assertEquals(3, target.findAllPersons().size());
+        assertEquals(Set.of("1509 Culver St", "29 15th St"), target.findAddressesByStation("1"));
+        assertEquals(Optional.of("2"), target.findStationByAddress("1 main st"));
+        assertEquals(2, target.findPersonsByLastName("DOE").size());
+        assertEquals(Set.of("john@acme.org"), target.findEmailsByCity("culver"));
+        assertEquals(List.of("aznol:350mg"), target.findMedicalRecord("john", "doe").orElseThrow().getMedications());
+        assertTrue(target.findMedicalRecord("john", "doe").orElseThrow().getAllergies().isEmpty());
+        assertNull(target.findPerson("jane", "doe").orElseThrow().getEmail());
+    }
+
+    @Test
+    void restored_repository_accepts_writes() {
+        // Arrange
+        new BinarySnapshotStore(source, file.toString(), true).write();
+        InMemoryDataRepository target = new InMemoryDataRepository();
+        new BinarySnapshotStore(target, file.toString(), true).restore();
+
+        // Act: John déménage à Spring
+        target.savePerson(new Person("John", "Doe", "1 Main St", "Spring", "11111", "111-111", "john@acme.org"));
+
+        // Assert: les index rechargés sont maintenus comme après un init
+        assertTrue(target.findPersonsByAddress("1509 Culver St").isEmpty());
+        assertEquals(2, target.findPersonsByStation("2").size());
+        assertEquals(Set.of("alice@acme.org", "john@acme.org"), target.findEmailsByCity("Spring"));
+        assertTrue(target.findEmailsByCity("Culver").isEmpty());
+
+        // Act + Assert: les compteurs d'emails rechargés restent exacts (Alice adopte l'email de John puis part)
+        target.savePerson(new Person("Alice", "Smith", "1 Main St", "Spring", "11111", "333-333", "john@acme.org"));
+        target.deletePerson("Alice", "Smith");
+        assertEquals(Set.of("john@acme.org"), target.findEmailsByCity("Spring"));
+    }
+
+    @Test
+    void rewrite_replaces_previous_snapshot_without_leaving_temp_file() throws IOException {
+        // Arrange
+        BinarySnapshotStore store = new BinarySnapshotStore(source, file.toString(), true);
+        store.write();
+        source.deletePerson("Jane", "Doe");
+
+        // Act
+        store.write();
+
+        // Assert
+        InMemoryDataRepository target = new InMemoryDataRepository();
+        assertTrue(new BinarySnapshotStore(target, file.toString(), true).restore());
+        assertEquals(2, target.findAllPersons().size());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(file.getFileName()), files.map(Path::getFileName).toList());
+        }
+    }
+
+    @Test
+    void corrupted_file_is_ignored_and_repository_untouched() throws IOException {
+        // Arrange: un octet du corps est altéré
+        new BinarySnapshotStore(source, file.toString(), true).write();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(file, bytes);
+        InMemoryDataRepository target = new InMemoryDataRepository();
+        target.savePerson(new Person("Bob", "Stay", "2 Main St", "Spring", "11111", "444-444", "bob@acme.org"));
+
+        // Act
+        boolean restored = new BinarySnapshotStore(target, file.toString(), true).restore();
+
+        // Assert
+        assertFalse(restored);
+        assertEquals(1, target.findAllPersons().size());
+    }
+
+    @Test
+    void other_engine_is_not_supported() {
+        // Arrange
+        new BinarySnapshotStore(source, file.toString(), true).write();
+        BinarySnapshotStore store = new BinarySnapshotStore(new SnapshotDataRepository(), file.toString(), true);
+
+        // Act + Assert
+        assertFalse(store.supported());
+        assertFalse(store.isNewerThan(0L));
+        assertFalse(store.restore());
+        assertThrows(IllegalStateException.class, store::write);
+    }
+
+    @Test
+    void isNewerThan_compares_modification_time_and_honours_enabled_flag() throws IOException {
+        // Arrange
+        BinarySnapshotStore store = new BinarySnapshotStore(source, file.toString(), true);
+        assertFalse(store.isNewerThan(0L)); // absent
+        store.write();
+        Files.setLastModifiedTime(file, FileTime.fromMillis(10_000L));
+
+        // Assert
+        assertTrue(store.isNewerThan(9_999L));
+        assertFalse(store.isNewerThan(10_000L));
+        assertFalse(new BinarySnapshotStore(source, file.toString(), false).isNewerThan(0L));
+    }
+}
@@ -0,0 +1,133 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.model.FirestationMapping;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires du moteur colonnaire {@link ColumnarDataRepository}.
+ * <p>
+ * On vérifie le contrat commun de {@link DataRepository} ainsi que les spécificités du moteur :
+ * requêtes par caserne parcourant directement les colonnes, réutilisation des identifiants
+ * libérés et copies détachées en lecture.
+ */
+class ColumnarDataRepositoryTest {
+
+    private ColumnarDataRepository repo;
+
+    @BeforeEach
+    void setUp() {
+        // Arrange: deux foyers sur la caserne 1, un sur la caserne 2
+        repo = new ColumnarDataRepository();
+        DataSet ds = new DataSet();
+        ds.setPersons(List.of(
+                new Person("John", "Doe", "1509 Culver St", "Culver", "97451", "111-111", "john@acme.org"),
+                new Person("Jane", "Doe", "1509 Culver St", "Culver", "97451", "111-111", "jane@acme.org"),
+                new Person("Bob", "Roe", "29 15th St", "Culver", "97451", "222-222", "bob@acme.org"),
+                new Person("Alice", "Smith", "1 Main St", "Spring", "11111", "333-333", "alice@acme.org")));
+        ds.setFirestations(List.of(
+                new FirestationMapping("1509 Culver St", "1"),
+                new FirestationMapping("29 15th St", "1"),
+                new FirestationMapping("1 Main St", "2")));
+        MedicalRecord mrJohn = new MedicalRecord();
+        mrJohn.setFirstName("John");
+        mrJohn.setLastName("Doe");
+        ds.setMedicalrecords(List.of(mrJohn));
+
+        repo.init(ds);
+    }
+
+    @Test
+    void init_and_lookups() {
+        assertEquals(4, repo.findAllPersons().size());
+        assertEquals(2, repo.findPersonsByAddress("1509 CULVER ST").size());
+        assertEquals(2, repo.findPersonsByLastName("doe").size());
+        assertEquals(Set.of("john@acme.org", "jane@acme.org", "bob@acme.org"), repo.findEmailsByCity("culver"));
+        assertEquals(Optional.of("2"), repo.findStationByAddress("1 main st"));
+        assertTrue(repo.findMedicalRecord("JOHN", "doe").isPresent());
+        assertTrue(repo.findPersonsByAddress(null).isEmpty());
+        assertTrue(repo.findEmailsByCity("unknown").isEmpty());
+    }
+
+    @Test
+    void resident_reads_use_default_join() {
+        // Act: moteur sans surcharge, jointure par recherche de dossier par habitant
+        List<Resident> covered = repo.findResidentsByStation("1");
+
+        // Assert
+        assertEquals(3, covered.size());
+        assertEquals(1, covered.stream().filter(r -> r.record() != null).count());
+        assertEquals("John", repo.findResidentsByLastName("doe").stream()
+                .filter(r -> r.record() != null).findFirst().orElseThrow().person().getFirstName());
+        assertTrue(repo.findResidentsByAddress("unknown").isEmpty());
+    }
+
+    @Test
+    void station_queries_scan_columns() {
+        // Act
+        List<Person> covered = repo.findPersonsByStation("1");
+        Set<String> phones = repo.findPhonesByStation(" 1 ");
+
+        // Assert: 3 habitants, 2 téléphones distincts
+        assertEquals(3, covered.size());
+        assertEquals(Set.of("111-111", "222-222"), phones);
+        assertTrue(repo.findPersonsByStation("99").isEmpty());
+        assertTrue(repo.findPhonesByStation(null).isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> phones.add("x"));
+    }
+
+    @Test
+    void savePerson_updates_columns_and_posting_lists() {
+        // Act: Bob déménage sur la caserne 2
+        repo.savePerson(new Person("Bob", "Roe", "1 Main St", "Spring", "11111", "444-444", "bob@acme.org"));
+
+        // Assert
+        assertTrue(repo.findPersonsByAddress("29 15th St").isEmpty());
+        assertEquals(2, repo.findPersonsByStation("2").size());
+        assertEquals(Set.of("333-333", "444-444"), repo.findPhonesByStation("2"));
+        assertEquals(Set.of("john@acme.org", "jane@acme.org"), repo.findEmailsByCity("Culver"));
+        assertEquals(4, repo.findAllPersons().size());
+    }
+
+    @Test
+    void deletePerson_releases_row_for_reuse() {
+        // Act
+        repo.deletePerson("Alice", "Smith");
+        repo.deletePerson("Alice", "Smith"); // idempotent
+        repo.savePerson(new Person("Eve", "Smith", "1 Main St", "Spring", "11111", "555-555", "eve@acme.org"));
+
+        // Assert
+        assertTrue(repo.findPerson("alice", "smith").isEmpty());
+        assertEquals("Eve", repo.findPersonsByAddress("1 Main St").getFirst().getFirstName());
+        assertEquals(4, repo.findAllPersons().size());
+    }
+
+    @Test
+    void reads_are_detached_copies() {
+        // Act: modification d'une instance lue, sans savePerson
+        repo.findPerson("John", "Doe").orElseThrow().setPhone("999");
+
+        // Assert: le stockage n'est pas affecté
+        assertEquals("111-111", repo.findPerson("John", "Doe").orElseThrow().getPhone());
+    }
+
+    @Test
+    void mappings_crud() {
+        repo.saveMapping("1 Main St", "1");
+        assertEquals(4, repo.findPersonsByStation("1").size());
+        assertTrue(repo.findAddressesByStation("2").isEmpty());
+
+        repo.deleteMapping("1509 culver st");
+        assertTrue(repo.findStationByAddress("1509 Culver St").isEmpty());
+        assertEquals(Set.of("29 15th St", "1 Main St"), repo.findAddressesByStation("1"));
+    }
+}
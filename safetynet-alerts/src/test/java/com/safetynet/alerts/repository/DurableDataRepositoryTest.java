@@ -0,0 +1,353 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.model.FirestationMapping;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires du journal {@link WriteAheadLog} et du décorateur {@link DurableDataRepository}.
+ * <p>
+ * Un « redémarrage » est simulé en fermant le journal puis en recréant moteur et journal sur le même
+ * répertoire : les écritures CRUD doivent être rejouées par-dessus data.json (ici un {@link DataSet})
+ * ou par-dessus le dernier snapshot binaire.
+ */
+class DurableDataRepositoryTest {
+
+    private Path dir;
+    private WriteAheadLog wal;
+    private DurableDataRepository repo;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("wal");
+        restart();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        wal.close();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    // Même jeu de données minimal que pour InMemoryDataRepositoryTest
+    private static DataSet dataSet() {
+        DataSet ds = new DataSet();
+        ds.setPersons(List.of(
+                new Person("John", "Doe", "1509 Culver St", "Culver", "97451", "111-111", "john@acme.org"),
+                new Person("Alice", "Smith", "1 Main St", "Spring", "11111", "333-333", "alice@acme.org")));
+        ds.setFirestations(List.of(
+                new FirestationMapping("1509 Culver St", "1"),
+                new FirestationMapping("1 Main St", "2")));
+        ds.setMedicalrecords(List.of());
+        return ds;
+    }
+
+    // Nouvel export de data.json : Alice n'y figure plus, John a changé de téléphone
+    private static DataSet newerExport() {
+        DataSet ds = new DataSet();
+        ds.setPersons(List.of(
+                new Person("John", "Doe", "1509 Culver St", "Culver", "97451", "999-999", "john@acme.org")));
+        ds.setFirestations(List.of(new FirestationMapping("1509 Culver St", "1")));
+        ds.setMedicalrecords(List.of());
+        return ds;
+    }
+
+    // Ferme le journal courant puis rouvre moteur + journal sur le même répertoire, et recharge data.json
+    private void restart() throws IOException {
+        restart(dataSet());
+    }
+
+    private void restart(DataSet file) throws IOException {
+        if (wal != null) wal.close();
+        wal = new WriteAheadLog(dir.resolve("wal"), true, 1 << 20);
+        repo = DurableDataRepository.wrap(new InMemoryDataRepository(), wal);
+        repo.init(file);
+    }
+
+    @Test
+    void crud_mutations_survive_restart() throws IOException {
+        // Arrange
+        MedicalRecord mr = new MedicalRecord();
+        mr.setFirstName("Jane");
+        mr.setLastName("Doe");
+        mr.setBirthdate("01/01/2015");
+        repo.savePerson(new Person("Jane", "Doe", "1509 Culver St", "Culver", "97451", "222-222", "jane@acme.org"));
+        repo.saveMedicalRecord(mr);
+        repo.deletePerson("Alice", "Smith");
+        repo.saveMapping("1 Main St", "3");
+
+        // Act
+        restart();
+
+        // Assert: data.json rechargé, puis journal rejoué par-dessus
+        assertEquals(2, repo.findPersonsByAddress("1509 Culver St").size());
+        assertTrue(repo.findPerson("alice", "smith").isEmpty());
+        assertEquals("01/01/2015", repo.findMedicalRecord("jane", "doe").orElseThrow().getBirthdate());
+        assertEquals(Optional.of("3"), repo.findStationByAddress("1 Main St"));
+        assertEquals(Set.of("john@acme.org", "jane@acme.org"), repo.findEmailsByCity("Culver"));
+    }
+
+    @Test
+    void concurrent_writers_share_group_commits() throws Exception {
+        // Act: 8 écrivains, 50 mises à jour chacun
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < 8; w++) {
+            final int writer = w;
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    repo.savePerson(new Person("W" + writer, "Load", "1 Main St", "Spring", "11111", "p" + i, null));
+                }
+            }));
+        }
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+
+        // Assert: toutes les mutations sont journalisées, en moins de groupes que de mutations
+        assertEquals(400, wal.appends());
+        assertTrue(wal.groups() <= wal.appends());
+        restart();
+        assertEquals(8, repo.findPersonsByLastName("load").size());
+        assertEquals("p49", repo.findPerson("W3", "Load").orElseThrow().getPhone());
+    }
+
+    @Test
+    void concurrent_writes_to_one_key_replay_to_the_state_in_memory() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 20; round++) {
+                // Act: 8 écrivains lâchés ensemble sur la même personne et la même adresse (même groupe de validation)
+                final int r = round;
+                CyclicBarrier start = new CyclicBarrier(8);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int w = 0; w < 8; w++) {
+                    final String value = r + "-" + w;
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        repo.savePerson(new Person("John", "Doe", "1509 Culver St", "Culver", "97451", value, "john@acme.org"));
+                        repo.saveMapping("1 Main St", value);
+                        return null;
+                    }));
+                }
+                for (Future<?> f : futures) f.get();
+
+                // Assert: le rejeu du journal (ordre d'écriture) reconstruit exactement l'état servi
+                InMemoryDataRepository replayed = new InMemoryDataRepository();
+                replayed.init(dataSet());
+                wal.replay(m -> m.applyTo(replayed));
+                assertEquals(repo.findPerson("John", "Doe").orElseThrow().getPhone(),
+                        replayed.findPerson("John", "Doe").orElseThrow().getPhone(), "tour " + r);
+                assertEquals(repo.findStationByAddress("1 Main St"), replayed.findStationByAddress("1 Main St"), "tour " + r);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void torn_tail_is_ignored_on_replay() throws IOException {
+        // Arrange: une mutation complète puis une trame tronquée (arrêt brutal pendant l'écriture)
+        repo.saveMapping("1 Main St", "3");
+        wal.close();
+        Path segment;
+        try (Stream<Path> files = Files.list(dir.resolve("wal"))) {
+            segment = files.filter(p -> p.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        Files.write(segment, new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+        wal = null;
+
+        // Act
+        restart();
+        repo.deleteMapping("1509 Culver St");
+        restart();
+
+        // Assert: la mutation valide est rejouée, la trame tronquée écartée, le journal reste utilisable
+        assertEquals(Optional.of("3"), repo.findStationByAddress("1 Main St"));
+        assertTrue(repo.findStationByAddress("1509 Culver St").isEmpty());
+    }
+
+    @Test
+    void compaction_keeps_last_mutation_per_key() throws Exception {
+        // Arrange: plusieurs versions de la même personne, réparties sur deux segments scellés
+        for (int i = 0; i < 10; i++) {
+            repo.savePerson(new Person("John", "Doe", "1509 Culver St", "Culver", "97451", "v" + i, "john@acme.org"));
+        }
+        wal.rotate();
+        repo.deletePerson("Alice", "Smith");
+        wal.rotate();
+
+        // Act
+        wal.compactAsync().get();
+        restart();
+
+        // Assert: un seul segment scellé subsiste (plus le courant), état identique
+        assertEquals(2, wal.segments().size());
+        assertEquals("v9", repo.findPerson("john", "doe").orElseThrow().getPhone());
+        assertTrue(repo.findPerson("alice", "smith").isEmpty());
+    }
+
+    @Test
+    void binary_snapshot_is_a_checkpoint_for_the_log() throws IOException {
+        // Arrange
+        repo.savePerson(new Person("Jane", "Doe", "1509 Culver St", "Culver", "97451", "222-222", "jane@acme.org"));
+        BinarySnapshotStore snapshots = new BinarySnapshotStore(repo, dir.resolve("repo.snap").toString(), true);
+        assertTrue(snapshots.supported());
+
+        // Act: snapshot (compaction du journal couvert), puis une écriture postérieure
+        snapshots.write();
+        repo.deletePerson("John", "Doe");
+        wal.close();
+        wal = new WriteAheadLog(dir.resolve("wal"), true, 1 << 20);
+        repo = DurableDataRepository.wrap(new InMemoryDataRepository(), wal);
+        boolean restored = new BinarySnapshotStore(repo, dir.resolve("repo.snap").toString(), true).restore();
+
+        // Assert: snapshot + journal résiduel
+        assertTrue(restored);
+        assertTrue(repo.findPerson("jane", "doe").isPresent());
+        assertTrue(repo.findPerson("john", "doe").isEmpty());
+        assertEquals(2, repo.findAllPersons().size());
+    }
+
+    @Test
+    void writes_survive_a_snapshot_that_is_not_the_recovery_base() throws IOException {
+        // Arrange: écriture puis snapshot à la demande, snapshots désactivés au démarrage
+        repo.savePerson(new Person("Jane", "Doe", "1509 Culver St", "Culver", "97451", "222-222", "jane@acme.org"));
+        new BinarySnapshotStore(repo, dir.resolve("repo.snap").toString(), false).write();
+
+        // Act: redémarrage depuis data.json (le snapshot n'est pas relu)
+        restart();
+
+        // Assert: l'écriture acquittée est rejouée depuis le journal
+        assertTrue(repo.findPerson("jane", "doe").isPresent());
+    }
+
+    @Test
+    void diff_reload_summary_matches_the_state_it_leaves() throws IOException {
+        // Arrange: écritures CRUD journalisées (dont une couverte par un snapshot)
+        repo.savePerson(new Person("Jane", "Doe", "1509 Culver St", "Culver", "97451", "222-222", "jane@acme.org"));
+        new BinarySnapshotStore(repo, dir.resolve("repo.snap").toString(), true).write();
+        repo.saveMapping("1 Main St", "3");
+
+        // Act: rechargement différentiel de data.json, puis redémarrage sur ce fichier
+        ChangeSummary changes = repo.reconcile(dataSet());
+        boolean janeAfterReload = repo.findPerson("jane", "doe").isPresent();
+        Optional<String> stationAfterReload = repo.findStationByAddress("1 Main St");
+        restart();
+
+        // Assert: le bilan annonce ce que le rechargement a réellement laissé, sans rejeu pour le démentir
+        assertEquals(new ChangeSummary.Counts(0, 0, 1), changes.persons());
+        assertEquals(new ChangeSummary.Counts(0, 1, 0), changes.mappings());
+        assertFalse(janeAfterReload);
+        assertEquals(Optional.of("2"), stationAfterReload);
+        assertTrue(repo.findPerson("jane", "doe").isEmpty());
+        assertEquals(Optional.of("2"), repo.findStationByAddress("1 Main St"));
+    }
+
+    @Test
+    void newer_export_found_at_restart_supersedes_the_log() throws IOException {
+        // Arrange: éditions CRUD sur l'ancien fichier
+        repo.savePerson(new Person("Alice", "Smith", "1 Main St", "Spring", "11111", "444-444", "alice@acme.org"));
+        repo.savePerson(new Person("John", "Doe", "1509 Culver St", "Culver", "97451", "555-555", "john@acme.org"));
+
+        // Act: redémarrage sur un nouvel export, puis écriture et nouveau redémarrage sur ce même export
+        restart(newerExport());
+        repo.savePerson(new Person("Jane", "Doe", "1509 Culver St", "Culver", "97451", "222-222", "jane@acme.org"));
+        restart(newerExport());
+
+        // Assert: l'export fait foi (Alice ne revient pas), seules les écritures postérieures sont rejouées
+        assertTrue(repo.findPerson("alice", "smith").isEmpty());
+        assertEquals("999-999", repo.findPerson("john", "doe").orElseThrow().getPhone());
+        assertTrue(repo.findPerson("jane", "doe").isPresent());
+        assertEquals(Optional.of(DataSetFingerprint.of(newerExport())), wal.base());
+    }
+
+    @Test
+    void hot_reload_makes_the_file_the_new_base() throws IOException {
+        // Arrange
+        repo.savePerson(new Person("Alice", "Smith", "1 Main St", "Spring", "11111", "444-444", "alice@acme.org"));
+
+        // Act: rechargement à chaud en flux, puis redémarrage sur le fichier rechargé
+        DataSet file = newerExport();
+        repo.initIncremental(sink -> {
+            sink.persons(file.getPersons());
+            sink.firestations(file.getFirestations());
+            sink.medicalRecords(file.getMedicalrecords());
+        });
+        boolean aliceAfterReload = repo.findPerson("alice", "smith").isPresent();
+        restart(newerExport());
+
+        // Assert: ni le rechargement ni le redémarrage ne font revenir l'édition antérieure
+        assertFalse(aliceAfterReload);
+        assertTrue(repo.findPerson("alice", "smith").isEmpty());
+        assertEquals("999-999", repo.findPerson("john", "doe").orElseThrow().getPhone());
+    }
+
+    @Test
+    void write_during_a_reload_waits_for_it_and_survives_restart() throws Exception {
+        // Arrange: rechargement en flux suspendu après le premier lot
+        DataSet file = newerExport();
+        CountDownLatch feeding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> reload = pool.submit(() -> {
+                repo.initIncremental(sink -> {
+                    sink.persons(file.getPersons());
+                    feeding.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    sink.firestations(file.getFirestations());
+                    sink.medicalRecords(file.getMedicalrecords());
+                });
+                return null;
+            });
+            feeding.await();
+
+            // Act: écriture CRUD concurrente du rechargement
+            Future<?> write = pool.submit(() -> repo.savePerson(
+                    new Person("Jane", "Doe", "1509 Culver St", "Culver", "97451", "222-222", "jane@acme.org")));
+            assertThrows(TimeoutException.class, () -> write.get(200, TimeUnit.MILLISECONDS));
+            release.countDown();
+            reload.get();
+            write.get();
+        } finally {
+            pool.shutdown();
+        }
+        boolean janeAfterReload = repo.findPerson("jane", "doe").isPresent();
+        restart(newerExport());
+
+        // Assert: l'écriture a attendu le nouvel état, s'y applique et reste dans le journal de la nouvelle base
+        assertTrue(janeAfterReload);
+        assertTrue(repo.findPerson("jane", "doe").isPresent());
+        assertTrue(repo.findPerson("alice", "smith").isEmpty());
+    }
+}
@@ -7,6 +7,8 @@ import com.safetynet.alerts.model.Person;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -167,6 +169,41 @@ class InMemoryDataRepositoryTest {
         assertTrue(repo.findMedicalRecord("john", null).isEmpty());
     }
 
+    /**
+     * Vérifie les lectures jointes : chaque habitant est accompagné de son propre dossier (null sinon),
+     * y compris après écritures, et les listes renvoyées sont non modifiables.
+     */
+    @Test
+    void findResidents_joinsEachPersonToItsRecord() {
+        // Act
+        List<Resident> doe = repo.findResidentsByLastName("DOE");
+        List<Resident> station1 = repo.findResidentsByStation(" 1 ");
+
+        // Assert
+        assertEquals(2, doe.size());
+        for (Resident r : doe) {
+            assertEquals(r.person().getFirstName().equals("John"), r.record() != null);
+        }
+        assertEquals(2, station1.size());
+        Resident john = repo.findResidentsByAddress("1509 culver st").getFirst();
+        assertSame(repo.findMedicalRecord("John", "Doe").orElseThrow(), john.record());
+        assertThrows(UnsupportedOperationException.class, () -> station1.add(john));
+        assertTrue(repo.findResidentsByAddress(null).isEmpty());
+        assertTrue(repo.findResidentsByStation("99").isEmpty());
+        assertTrue(repo.findResidentsByLastName("unknown").isEmpty());
+
+        // Act: un dossier créé puis supprimé est vu par la jointure suivante
+        MedicalRecord mrJane = new MedicalRecord();
+        mrJane.setFirstName("jane");
+        mrJane.setLastName("doe");
+        repo.saveMedicalRecord(mrJane);
+        repo.deleteMedicalRecord("John", "Doe");
+
+        // Assert
+        assertSame(mrJane, repo.findResidentsByAddress("29 15th St").getFirst().record());
+        assertNull(repo.findResidentsByAddress("1509 Culver St").getFirst().record());
+    }
+
     /**
      * Vérifie la recherche par nom de famille:
      * - insensibilité à la casse,
@@ -213,6 +250,22 @@ class InMemoryDataRepositoryTest {
         assertThrows(UnsupportedOperationException.class, () -> culverEmails.add("x@y.z"));
     }
 
+    @Test
+    void iterateEmailsByCity_walks_the_city_index() {
+        // Act
+        Set<String> culver = new HashSet<>();
+        Iterator<String> it = repo.iterateEmailsByCity("CULVER");
+        it.forEachRemaining(culver::add);
+
+        // Assert: mêmes emails que findEmailsByCity, index non modifiable par l'itérateur
+        assertEquals(Set.of("john@acme.org", "jane@acme.org"), culver);
+        assertFalse(repo.iterateEmailsByCity("unknown").hasNext());
+        assertFalse(repo.iterateEmailsByCity(null).hasNext());
+        Iterator<String> spring = repo.iterateEmailsByCity("spring");
+        spring.next();
+        assertThrows(UnsupportedOperationException.class, spring::remove);
+    }
+
     /**
      * Vérifie que findAllPersons() retourne un « snapshot » immuable de toutes les personnes,
      * contenant bien les 3 personnes initialisées.
@@ -231,6 +284,92 @@ class InMemoryDataRepositoryTest {
         assertThrows(UnsupportedOperationException.class, all::clear);
     }
 
+    /**
+     * Vérifie que les lectures de personnes partagent une même liste immuable tant qu'aucune écriture ne touche
+     * l'index, et qu'une écriture publie une nouvelle version sans altérer celle déjà remise à un appelant.
+     */
+    @Test
+    void personReads_shareImmutableViewsUntilNextWrite() {
+        // Arrange
+        List<Person> all = repo.findAllPersons();
+        List<Person> household = repo.findPersonsByAddress("1509 Culver St");
+        List<Person> station = repo.findPersonsByStation("1");
+
+        // Assert: aucune copie entre deux lectures sans écriture
+        assertSame(all, repo.findAllPersons());
+        assertSame(household, repo.findPersonsByAddress("1509 CULVER ST"));
+        assertSame(station, repo.findPersonsByStation("1"));
+        assertSame(repo.findPersonsByLastName("doe"), repo.findPersonsByLastName("Doe"));
+
+        // Act
+        Person bob = new Person("Bob", "Doe", "1509 Culver St", "Culver", "97451", "444-444", "bob@acme.org");
+        repo.savePerson(bob);
+
+        // Assert: nouvelles versions, anciennes intactes ; la caserne 2 n'a pas été recopiée
+        List<Person> station2 = repo.findPersonsByStation("2");
+        assertEquals(3, all.size());
+        assertEquals(1, household.size());
+        assertEquals(4, repo.findAllPersons().size());
+        assertTrue(repo.findPersonsByAddress("1509 Culver St").contains(bob));
+        assertEquals(3, repo.findPersonsByStation("1").size());
+        assertSame(station2, repo.findPersonsByStation("2"));
+
+        // Act + Assert: suppression
+        repo.deletePerson("Bob", "Doe");
+        assertFalse(repo.findPersonsByStation("1").contains(bob));
+        assertEquals(3, repo.findAllPersons().size());
+    }
+
+    /**
+     * Vérifie les pages d'habitants : ordre des identités {@code first|last}, reprise après la clé de la page
+     * précédente (même absente de l'index) et prise en compte des écritures par l'index trié.
+     */
+    @Test
+    void pageResidentsByStation_walksIdentityOrderFromKey() {
+        // Act
+        KeyedPage<Resident> first = repo.pageResidentsByStation("1", null, 1);
+        KeyedPage<Resident> second = repo.pageResidentsByStation("1", first.next(), 1);
+
+        // Assert: jane|doe < john|doe, dossier joint, dernière page sans suite
+        assertEquals(janeDoe, first.items().getFirst().person());
+        assertEquals("jane|doe", first.next());
+        assertEquals(johnDoe, second.items().getFirst().person());
+        assertNotNull(second.items().getFirst().record());
+        assertFalse(second.hasNext());
+        assertNull(repo.pageResidentsByStation("1", null, 10).next());
+        assertEquals(johnDoe, repo.pageResidentsByStation("1", "jb", 10).items().getFirst().person());
+        assertEquals(List.of(janeDoe, johnDoe), repo.pageResidentsByLastName("DOE", null, 5).items().stream().map(Resident::person).toList());
+
+        // Act + Assert: une écriture est visible dès la page suivante, les clés déjà remises restent valables
+        repo.savePerson(new Person("Bob", "Doe", "1509 Culver St", "Culver", "97451", "444-444", "bob@acme.org"));
+        assertEquals("Bob", repo.pageResidentsByStation("1", null, 1).items().getFirst().person().getFirstName());
+        assertEquals(List.of(johnDoe), repo.pageResidentsByStation("1", "jane|doe", 5).items().stream().map(Resident::person).toList());
+
+        assertTrue(repo.pageResidentsByStation("9", null, 5).items().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> repo.pageResidentsByStation("1", null, 0));
+    }
+
+    /**
+     * Vérifie les pages d'emails d'une ville : ordre croissant, reprise après l'email de la page précédente,
+     * index trié recalculé après ajout ou suppression d'un habitant.
+     */
+    @Test
+    void pageEmailsByCity_sortedAndRefreshedAfterWrite() {
+        // Act
+        KeyedPage<String> first = repo.pageEmailsByCity("CULVER", null, 1);
+
+        // Assert
+        assertEquals(List.of("jane@acme.org"), first.items());
+        assertEquals(List.of("john@acme.org"), repo.pageEmailsByCity("culver", first.next(), 1).items());
+
+        // Act + Assert: écritures
+        repo.savePerson(new Person("Bob", "Doe", "1509 Culver St", "Culver", "97451", "444-444", "bob@acme.org"));
+        assertEquals(List.of("bob@acme.org", "jane@acme.org", "john@acme.org"), repo.pageEmailsByCity("Culver", null, 10).items());
+        repo.deletePerson("Jane", "Doe");
+        assertEquals(List.of("bob@acme.org", "john@acme.org"), repo.pageEmailsByCity("Culver", null, 10).items());
+        assertTrue(repo.pageEmailsByCity("unknown", null, 10).items().isEmpty());
+    }
+
     /**
      * Vérifie la recherche d’une personne par identité (prénom/nom),
      * insensible à la casse, et Optional.empty() pour identité inconnue.
@@ -327,4 +466,406 @@ class InMemoryDataRepositoryTest {
         assertTrue(repo.findStationByAddress("1509 Culver St").isEmpty());
         assertFalse(repo.findAddressesByStation("1").contains("1509 Culver St"));
     }
-}
\ No newline at end of file
+
+    /**
+     * Vérifie qu'une mise à jour faite « en place » sur l'instance renvoyée par findPerson()
+     * (comme le fait le service) déplace bien la personne d'un foyer à l'autre:
+     * l'ancien foyer et l'ancienne ville ne la référencent plus.
+     */
+    @Test
+    void savePerson_in_place_update_moves_household() {
+        // Arrange: instance partagée, modifiée avant savePerson
+        Person john = repo.findPerson("John", "Doe").orElseThrow();
+        john.setAddress("1 Main St");
+        john.setCity("Spring");
+
+        // Act
+        repo.savePerson(john);
+
+        // Assert
+        assertTrue(repo.findPersonsByAddress("1509 Culver St").isEmpty());
+        assertEquals(2, repo.findPersonsByAddress("1 Main St").size());
+        assertEquals(Set.of("jane@acme.org"), repo.findEmailsByCity("Culver"));
+        assertTrue(repo.findEmailsByCity("Spring").contains("john@acme.org"));
+    }
+
+    /**
+     * Vérifie que des écritures concurrentes sur des foyers différents et sur un même foyer
+     * laissent tous les index alignés (aucune personne perdue ni dupliquée).
+     */
+    @Test
+    void savePerson_concurrent_writes_keep_indexes_aligned() throws Exception {
+        // Arrange: 8 threads, chacun écrit 200 personnes, moitié dans un foyer commun
+        int threads = 8;
+        int perThread = 200;
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(threads);
+        java.util.concurrent.CountDownLatch start = new java.util.concurrent.CountDownLatch(1);
+        List<java.util.concurrent.Future<?>> futures = new java.util.ArrayList<>();
+
+        // Act
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    String address = (i % 2 == 0) ? "Shared St" : "House " + id;
+                    repo.savePerson(new Person("P" + id + "_" + i, "Load", address, "Culver", "97451", "000", "p" + id + "_" + i + "@acme.org"));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (java.util.concurrent.Future<?> f : futures) f.get();
+        pool.shutdown();
+
+        // Assert
+        assertEquals(3 + threads * perThread, repo.findAllPersons().size());
+        assertEquals(threads * perThread / 2, repo.findPersonsByAddress("shared st").size());
+        assertEquals(threads * perThread, repo.findPersonsByLastName("load").size());
+        assertEquals(2 + threads * perThread, repo.findEmailsByCity("culver").size());
+    }
+
+    @Test
+    void init_parallel_build_keeps_first_and_last_wins_rules() {
+        // Arrange: volume au-dessus du seuil parallèle, avec doublons d'identité et de mapping
+        int n = InMemoryDataRepository.PARALLEL_THRESHOLD + 2_000;
+        List<Person> ps = new java.util.ArrayList<>();
+        List<FirestationMapping> fs = new java.util.ArrayList<>();
+        List<MedicalRecord> mrs = new java.util.ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ps.add(new Person("P" + i, "Fam" + (i % 100), (i % 500) + " Big St", "City" + (i % 7), "1", "old", "p" + i + "@x.org"));
+            fs.add(new FirestationMapping((i % 500) + " Big St", String.valueOf(1 + i % 3)));
+            MedicalRecord mr = new MedicalRecord();
+            mr.setFirstName("P" + i);
+            mr.setLastName("Fam" + (i % 100));
+            mr.setBirthdate("old");
+            mrs.add(mr);
+        }
+        // dernières versions (last-wins) en fin de liste
+        ps.add(new Person("P0", "Fam0", "0 Big St", "City0", "1", "new", "p0@x.org"));
+        MedicalRecord last = new MedicalRecord();
+        last.setFirstName("P0");
+        last.setLastName("Fam0");
+        last.setBirthdate("new");
+        mrs.add(last);
+        DataSet big = new DataSet();
+        big.setPersons(ps);
+        big.setFirestations(fs);
+        big.setMedicalrecords(mrs);
+
+        // Act
+        repo.init(big);
+
+        // Assert
+        assertEquals(n, repo.findAllPersons().size());
+        assertEquals("new", repo.findPerson("P0", "Fam0").orElseThrow().getPhone());
+        assertEquals("new", repo.findPersonsByAddress("0 Big St").stream()
+                .filter(p -> p.getFirstName().equals("P0")).findFirst().orElseThrow().getPhone());
+        assertEquals("new", repo.findMedicalRecord("p0", "fam0").orElseThrow().getBirthdate());
+        assertEquals(Optional.of("1"), repo.findStationByAddress("0 Big St")); // first-wins (i=0 → station 1)
+        assertEquals(n / 100, repo.findPersonsByLastName("fam42").size());
+        assertEquals((n + 6) / 7, repo.findEmailsByCity("city0").size());
+    }
+
+    /**
+     * Réinitialisation pendant des lectures : le nouvel état est construit à l'écart puis publié d'un bloc,
+     * un lecteur voit donc l'ancien jeu complet ou le nouveau, jamais un dépôt vidé ou partiellement rempli.
+     */
+    @Test
+    void init_publishes_new_state_atomically_while_reading() throws Exception {
+        // Arrange: un jeu de données volumineux (construction non instantanée)
+        int n = InMemoryDataRepository.PARALLEL_THRESHOLD + 5_000;
+        List<Person> ps = new java.util.ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ps.add(new Person("P" + i, "Fam" + (i % 100), (i % 500) + " Big St", "Culver", "1", "000", "p" + i + "@x.org"));
+        }
+        DataSet big = new DataSet();
+        big.setPersons(ps);
+        java.util.concurrent.atomic.AtomicBoolean reloading = new java.util.concurrent.atomic.AtomicBoolean(true);
+        Set<Integer> seen = java.util.concurrent.ConcurrentHashMap.newKeySet();
+        Thread reader = new Thread(() -> {
+            while (reloading.get()) seen.add(repo.findAllPersons().size());
+        });
+
+        // Act: alternance petit / gros jeu pendant qu'un lecteur interroge le dépôt
+        reader.start();
+        for (int round = 0; round < 5; round++) {
+            repo.init(big);
+            repo.init(ds);
+        }
+        reloading.set(false);
+        reader.join();
+
+        // Assert: seules les tailles complètes ont été observées
+        assertTrue(Set.of(3, n).containsAll(seen), () -> "tailles observées: " + seen);
+        assertEquals(3, repo.findAllPersons().size());
+    }
+
+    @Test
+    void initIncremental_failure_keeps_previous_state() {
+        // Act: la source livre un premier lot puis échoue
+        java.io.IOException error = assertThrows(java.io.IOException.class, () -> repo.initIncremental(sink -> {
+            sink.persons(List.of(new Person("Only", "One", "9 Other St", "Culver", "1", "000", "only@x.org")));
+            throw new java.io.IOException("source tronquée");
+        }));
+
+        // Assert: l'état publié est toujours le jeu initial complet
+        assertEquals("source tronquée", error.getMessage());
+        assertEquals(3, repo.findAllPersons().size());
+        assertTrue(repo.findPerson("Only", "One").isEmpty());
+        assertEquals(Optional.of("2"), repo.findStationByAddress("1 Main St"));
+    }
+
+    @Test
+    void initIncremental_replaces_state_with_first_and_last_wins_rules() throws Exception {
+        // Act
+        repo.initIncremental(sink -> {
+            sink.persons(List.of(new Person("Bob", "Ray", "5 New St", "Culver", "1", "old", "bob@x.org")));
+            sink.firestations(List.of(new FirestationMapping("5 New St", "4"), new FirestationMapping("5 NEW ST", "9")));
+            sink.persons(List.of(new Person("Bob", "Ray", "6 New St", "Culver", "1", "new", "bob@x.org")));
+        });
+
+        // Assert
+        assertEquals(1, repo.findAllPersons().size());
+        assertEquals("new", repo.findPerson("bob", "ray").orElseThrow().getPhone());
+        assertTrue(repo.findPersonsByAddress("5 New St").isEmpty());
+        assertEquals(Optional.of("4"), repo.findStationByAddress("5 new st"));
+        assertEquals(Set.of("5 New St"), repo.findAddressesByStation("4"));
+        assertTrue(repo.findAddressesByStation("9").isEmpty());
+        assertTrue(repo.findMedicalRecord("John", "Doe").isEmpty());
+    }
+
+    @Test
+    void reconcile_applies_only_changed_records() {
+        // Arrange: nouvel export — Jane déménage, Alice disparaît, Bob arrive, John inchangé (autre instance)
+        DataSet next = new DataSet();
+        next.setPersons(List.of(
+                new Person("John", "Doe", "1509 Culver St", "Culver", "97451", "111-111", "john@acme.org"),
+                new Person("Jane", "Doe", "1 Main St", "Spring", "11111", "222-222", "jane@acme.org"),
+                new Person("Bob", "Ray", "1 Main St", "Spring", "11111", "444-444", "bob@acme.org")));
+        next.setFirestations(List.of(
+                new FirestationMapping("1509 Culver St", "1"),
+                new FirestationMapping("1 MAIN ST", "3")));
+        MedicalRecord mrJohn = new MedicalRecord();
+        mrJohn.setFirstName("John");
+        mrJohn.setLastName("Doe");
+        mrJohn.setBirthdate("01/01/1980");
+        next.setMedicalrecords(List.of(mrJohn));
+        Person johnBefore = repo.findPerson("John", "Doe").orElseThrow();
+
+        // Act
+        ChangeSummary changes = repo.reconcile(next);
+
+        // Assert: bilan
+        assertTrue(changes.incremental());
+        assertEquals(new ChangeSummary.Counts(1, 1, 1), changes.persons());
+        assertEquals(new ChangeSummary.Counts(0, 1, 1), changes.mappings()); // 29 15th St supprimé, 1 Main St 2 → 3
+        assertEquals(new ChangeSummary.Counts(0, 1, 1), changes.medicalRecords());
+        assertEquals(7, changes.total());
+
+        // Assert: personne inchangée non réécrite, index alignés
+        assertSame(johnBefore, repo.findPerson("John", "Doe").orElseThrow());
+        assertEquals(3, repo.findAllPersons().size());
+        assertTrue(repo.findPerson("Alice", "Smith").isEmpty());
+        assertEquals(2, repo.findPersonsByAddress("1 main st").size());
+        assertEquals(Set.of("john@acme.org"), repo.findEmailsByCity("Culver"));
+        assertEquals(Set.of("jane@acme.org", "bob@acme.org"), repo.findEmailsByCity("Spring"));
+        assertEquals(Optional.of("3"), repo.findStationByAddress("1 Main St"));
+        assertTrue(repo.findStationByAddress("29 15th St").isEmpty());
+        assertTrue(repo.findAddressesByStation("2").isEmpty());
+
+        // Act + Assert: un second passage identique n'écrit rien
+        assertEquals(0, repo.reconcile(next).total());
+    }
+
+    /**
+     * Emails par ville à compteurs : un email partagé par plusieurs personnes d'une ville reste listé
+     * (une seule fois) tant qu'au moins l'une d'elles y habite.
+     */
+    @Test
+    void emailsByCity_counts_shared_emails() {
+        // Arrange: un email de famille partagé par John et un doublon d'identité de Bob (last-wins)
+        DataSet shared = new DataSet();
+        shared.setPersons(List.of(
+                new Person("John", "Doe", "1509 Culver St", "Culver", "97451", "111-111", "family@acme.org"),
+                new Person("Bob", "Doe", "1509 Culver St", "Culver", "97451", "111-112", "bob@acme.org"),
+                new Person("Bob", "Doe", "1509 Culver St", "Culver", "97451", "111-112", "family@acme.org"),
+                new Person("Jane", "Doe", "29 15th St", "Culver", "97451", "222-222", "family@acme.org")));
+        repo.init(shared);
+        assertEquals(Set.of("family@acme.org"), repo.findEmailsByCity("culver"));
+
+        // Act + Assert: deux références retirées sur trois, l'email reste
+        repo.deletePerson("John", "Doe");
+        repo.savePerson(new Person("Bob", "Doe", "1 Main St", "Spring", "11111", "111-112", "family@acme.org"));
+        assertEquals(Set.of("family@acme.org"), repo.findEmailsByCity("Culver"));
+        assertEquals(Set.of("family@acme.org"), repo.findEmailsByCity("Spring"));
+
+        // Act + Assert: dernière référence retirée (changement d'email), l'email disparaît de la ville
+        repo.savePerson(new Person("Jane", "Doe", "29 15th St", "Culver", "97451", "222-222", "jane@acme.org"));
+        assertEquals(Set.of("jane@acme.org"), repo.findEmailsByCity("Culver"));
+        repo.deletePerson("Jane", "Doe");
+        assertTrue(repo.findEmailsByCity("Culver").isEmpty());
+    }
+
+    /**
+     * Vue caserne -> habitants : tenue à jour par les écritures personne et mapping, y compris quand une
+     * adresse change de caserne ou qu'elle figure sous deux casernes dans le jeu initial.
+     */
+    @Test
+    void residentsByStation_follows_person_and_mapping_writes() {
+        // Assert: état initial (station 1 = John + Jane, station 2 = Alice)
+        assertEquals(2, repo.findPersonsByStation("1").size());
+        assertEquals(Set.of("111-111", "222-222"), repo.findPhonesByStation(" 1 "));
+        assertEquals(Set.of("333-333"), repo.findPhonesByStation("2"));
+
+        // Act: Bob emménage chez Alice, puis l'adresse passe de la caserne 2 à la 3
+        repo.savePerson(new Person("Bob", "Ray", "1 MAIN ST", "Spring", "11111", "444-444", "bob@acme.org"));
+        repo.saveMapping("1 Main St", "3");
+
+        // Assert
+        assertTrue(repo.findPersonsByStation("2").isEmpty());
+        assertEquals(Set.of("333-333", "444-444"), repo.findPhonesByStation("3"));
+
+        // Act: Jane déménage vers l'adresse remappée, John est supprimé, l'adresse de Jane perd sa caserne
+        repo.savePerson(new Person("Jane", "Doe", "1 Main St", "Spring", "11111", "222-222", "jane@acme.org"));
+        repo.deletePerson("John", "Doe");
+
+        // Assert
+        assertTrue(repo.findPersonsByStation("1").isEmpty());
+        assertEquals(3, repo.findPersonsByStation("3").size());
+        repo.deleteMapping("1 main st");
+        assertTrue(repo.findPersonsByStation("3").isEmpty());
+        assertTrue(repo.findPhonesByStation("3").isEmpty());
+    }
+
+    @Test
+    void residentsByStation_keeps_addresses_listed_under_two_stations() {
+        // Arrange: une adresse présente sous deux casernes (comme 112 Steppes Pl dans data.json)
+        DataSet dup = new DataSet();
+        dup.setPersons(List.of(new Person("Ron", "Peters", "112 Steppes Pl", "Culver", "97451", "555-555", "ron@acme.org")));
+        dup.setFirestations(List.of(new FirestationMapping("112 Steppes Pl", "3"), new FirestationMapping("112 Steppes Pl", "4")));
+        repo.init(dup);
+
+        // Assert: mêmes résultats que le parcours adresse par adresse
+        assertEquals(1, repo.findPersonsByStation("3").size());
+        assertEquals(1, repo.findPersonsByStation("4").size());
+
+        // Act: remappage explicite vers 4 (l'adresse quitte la station first-wins 3)
+        repo.saveMapping("112 Steppes Pl", "4");
+
+        // Assert
+        assertTrue(repo.findPersonsByStation("3").isEmpty());
+        assertEquals(Set.of("555-555"), repo.findPhonesByStation("4"));
+    }
+
+    /** Horloge réglable pour simuler le passage des jours. */
+    private static final class TestClock extends java.time.Clock {
+        private java.time.LocalDate today;
+
+        TestClock(java.time.LocalDate today) { this.today = today; }
+
+        void advanceDays(int days) { today = today.plusDays(days); }
+
+        @Override public java.time.ZoneId getZone() { return java.time.ZoneOffset.UTC; }
+        @Override public java.time.Clock withZone(java.time.ZoneId zone) { return this; }
+        @Override public java.time.Instant instant() { return today.atStartOfDay(java.time.ZoneOffset.UTC).toInstant(); }
+    }
+
+    private static MedicalRecord record(String first, String last, String birthdate) {
+        MedicalRecord mr = new MedicalRecord();
+        mr.setFirstName(first);
+        mr.setLastName(last);
+        mr.setBirthdate(birthdate);
+        return mr;
+    }
+
+    /**
+     * Compteurs adultes/enfants par caserne et par foyer : alignés sur le décompte à la volée après
+     * déménagement, modification de dossier et remappage d'adresse.
+     */
+    @Test
+    void ageCounters_follow_person_record_and_mapping_writes() {
+        // Arrange: John adulte, Jane enfant, Alice sans date exploitable (adulte)
+        repo = new InMemoryDataRepository(new StringDictionaries(), new TestClock(java.time.LocalDate.of(2026, 6, 1)));
+        ds.setMedicalrecords(List.of(record("John", "Doe", "03/06/1984"), record("Jane", "Doe", "09/06/2015")));
+        repo.init(ds);
+
+        // Assert
+        assertEquals(new AgeCounts(1, 1), repo.countAgesByStation("1"));
+        assertEquals(new AgeCounts(0, 1), repo.countAgesByAddress("29 15TH ST"));
+        assertEquals(new AgeCounts(1, 0), repo.countAgesByStation("2"));
+
+        // Act: Jane rejoint Alice, le dossier d'Alice la rend enfant, puis l'adresse passe à la caserne 3
+        repo.savePerson(new Person("Jane", "Doe", "1 Main St", "Spring", "11111", "222-222", "jane@acme.org"));
+        repo.saveMedicalRecord(record("Alice", "Smith", "01/01/2010"));
+        repo.saveMapping("1 Main St", "3");
+
+        // Assert
+        assertEquals(new AgeCounts(1, 0), repo.countAgesByStation("1"));
+        assertEquals(AgeCounts.NONE, repo.countAgesByStation("2"));
+        assertEquals(new AgeCounts(0, 2), repo.countAgesByStation("3"));
+        assertEquals(AgeCounts.tally(repo.findPersonsByStation("3"), repo, repo.today().toEpochDay()), repo.countAgesByStation("3"));
+
+        // Act: suppressions
+        repo.deleteMedicalRecord("Jane", "Doe");
+        repo.deletePerson("Alice", "Smith");
+
+        // Assert: Jane sans dossier compte comme adulte
+        assertEquals(new AgeCounts(1, 0), repo.countAgesByStation("3"));
+        repo.deleteMapping("1 Main St");
+        assertEquals(AgeCounts.NONE, repo.countAgesByStation("3"));
+    }
+
+    @Test
+    void coverageByStation_returns_residents_and_counts_of_the_same_read() {
+        // Arrange: caserne 1 = John adulte + Jane enfant
+        repo = new InMemoryDataRepository(new StringDictionaries(), new TestClock(java.time.LocalDate.of(2026, 6, 1)));
+        ds.setMedicalrecords(List.of(record("John", "Doe", "03/06/1984"), record("Jane", "Doe", "09/06/2015")));
+        repo.init(ds);
+
+        // Act
+        StationCoverage<List<Person>> all = repo.findCoverageByStation("1");
+        StationCoverage<KeyedPage<Resident>> first = repo.pageCoverageByStation("1", null, 1);
+
+        // Assert: liste complète, page de 1 avec les totaux de TOUTE la caserne
+        assertEquals(2, all.residents().size());
+        assertEquals(new AgeCounts(1, 1), all.counts());
+        assertEquals("Jane", first.residents().items().getFirst().person().getFirstName());
+        assertEquals("jane|doe", first.residents().next());
+        assertEquals(new AgeCounts(1, 1), first.counts());
+
+        // Act + Assert: Jane déménage (caserne 2) -> liste et totaux bougent ensemble
+        repo.savePerson(new Person("Jane", "Doe", "1 Main St", "Spring", "11111", "222-222", "jane@acme.org"));
+        StationCoverage<List<Person>> after = repo.findCoverageByStation("1");
+        assertEquals(after.residents().size(), after.counts().total());
+        assertEquals(new AgeCounts(1, 0), after.counts());
+        assertEquals(new AgeCounts(1, 1), repo.pageCoverageByStation("2", null, 5).counts());
+        assertEquals(AgeCounts.NONE, repo.findCoverageByStation("9").counts());
+        assertThrows(IllegalArgumentException.class, () -> repo.pageCoverageByStation("1", null, 0));
+    }
+
+    @Test
+    void rolloverAges_moves_children_to_adults_on_their_19th_birthday() {
+        // Arrange: Jane a 19 ans le 09/06/2026 ; un nouveau-né attendu le 06/06/2026
+        TestClock clock = new TestClock(java.time.LocalDate.of(2026, 6, 5));
+        repo = new InMemoryDataRepository(new StringDictionaries(), clock);
+        ds.setMedicalrecords(List.of(record("John", "Doe", "03/06/1984"), record("Jane", "Doe", "06/09/2007")));
+        repo.init(ds);
+        repo.savePerson(new Person("Baby", "Doe", "1509 Culver St", "Culver", "97451", "111-111", "john@acme.org"));
+        repo.saveMedicalRecord(record("Baby", "Doe", "06/06/2026"));
+        assertEquals(new AgeCounts(2, 1), repo.countAgesByStation("1"));
+
+        // Act + Assert: naissance (lecture paresseuse, sans appel explicite)
+        clock.advanceDays(1);
+        assertEquals(new AgeCounts(1, 2), repo.countAgesByStation("1"));
+
+        // Act + Assert: veille de l'anniversaire, rien ne bouge ; le jour J, Jane devient adulte
+        clock.advanceDays(2);
+        assertEquals(0, repo.rolloverAges());
+        clock.advanceDays(1);
+        assertEquals(1, repo.rolloverAges());
+        assertEquals(0, repo.rolloverAges());
+        assertEquals(new AgeCounts(2, 1), repo.countAgesByStation("1"));
+        assertEquals(new AgeCounts(1, 0), repo.countAgesByAddress("29 15th St"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.model.FirestationMapping;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires du dépôt hors tas {@link MappedDataRepository}.
+ * <p>
+ * Outre le contrat commun de {@link DataRepository}, on vérifie la propriété propre à ce moteur :
+ * après fermeture, un nouveau dépôt ouvert sur le même fichier retrouve exactement le même état
+ * (écritures et suppressions comprises) sans repasser par un {@link DataSet}.
+ * Les segments sont volontairement petits pour exercer le passage d'un segment à l'autre.
+ */
+class MappedDataRepositoryTest {
+
+    private static final int SMALL_SEGMENT = 256;
+
+    private Path dir;
+    private Path file;
+    private MappedDataRepository repo;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Arrange: même jeu de données minimal que pour InMemoryDataRepositoryTest
+        dir = Files.createTempDirectory("mapped-repo");
+        file = dir.resolve("store.bin");
+        repo = new MappedDataRepository(file, SMALL_SEGMENT);
+        DataSet ds = new DataSet();
+        ds.setPersons(List.of(
+                new Person("John", "Doe", "1509 Culver St", "Culver", "97451", "111-111", "john@acme.org"),
+                new Person("Jane", "Doe", "29 15th St", "Culver", "97451", "222-222", "jane@acme.org"),
+                new Person("Alice", "Smith", "1 Main St", "Spring", "11111", "333-333", "alice@acme.org")));
+        ds.setFirestations(List.of(
+                new FirestationMapping("1509 Culver St", "1"),
+                new FirestationMapping("29 15th St", "1"),
+                new FirestationMapping("1 Main St", "2")));
+        MedicalRecord mrJohn = new MedicalRecord();
+        mrJohn.setFirstName("John");
+        mrJohn.setLastName("Doe");
+        mrJohn.setBirthdate("03/06/1984");
+        mrJohn.setMedications(List.of("aznol:350mg"));
+        mrJohn.setAllergies(List.of());
+        ds.setMedicalrecords(List.of(mrJohn));
+
+        repo.init(ds);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        repo.close();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void init_builds_all_indexes() {
+        assertFalse(repo.isRestored());
+        assertEquals(3, repo.findAllPersons().size());
+        assertEquals(Set.of("1509 Culver St", "29 15th St"), repo.findAddressesByStation(" 1 "));
+        assertEquals(Optional.of("2"), repo.findStationByAddress("1 MAIN ST"));
+        assertEquals(2, repo.findPersonsByLastName("doe").size());
+        assertEquals(Set.of("john@acme.org", "jane@acme.org"), repo.findEmailsByCity("culver"));
+        assertEquals(List.of("aznol:350mg"), repo.findMedicalRecord("john", "doe").orElseThrow().getMedications());
+        assertTrue(repo.findAddressesByStation(null).isEmpty());
+        assertTrue(repo.findPersonsByAddress("unknown").isEmpty());
+    }
+
+    @Test
+    void savePerson_moves_person_across_all_indexes() {
+        // Act: John déménage à Spring
+        repo.savePerson(new Person("John", "Doe", "1 Main St", "Spring", "11111", "111-111", "john@acme.org"));
+
+        // Assert
+        assertTrue(repo.findPersonsByAddress("1509 Culver St").isEmpty());
+        assertEquals(2, repo.findPersonsByAddress("1 main st").size());
+        assertEquals(Set.of("jane@acme.org"), repo.findEmailsByCity("Culver"));
+        assertEquals(Set.of("alice@acme.org", "john@acme.org"), repo.findEmailsByCity("Spring"));
+        assertEquals(2, repo.findPersonsByStation("2").size());
+        assertEquals(3, repo.findAllPersons().size());
+    }
+
+    @Test
+    void findPerson_returns_detached_copy() {
+        // Act: modification en place de l'instance renvoyée, sans savePerson
+        Person john = repo.findPerson("john", "doe").orElseThrow();
+        john.setAddress("Elsewhere");
+
+        // Assert: le fichier n'est pas altéré
+        assertEquals("1509 Culver St", repo.findPerson("John", "Doe").orElseThrow().getAddress());
+    }
+
+    @Test
+    void reopen_restores_state_without_dataset() throws IOException {
+        // Arrange: écritures après init (mise à jour, suppressions, remappage)
+        repo.savePerson(new Person("Jane", "Doe", "1 Main St", "Spring", "11111", "222-999", "jane@acme.org"));
+        repo.deletePerson("Alice", "Smith");
+        repo.deleteMedicalRecord("John", "Doe");
+        repo.saveMapping("1 Main St", "3");
+        repo.deleteMapping("29 15th St");
+        repo.close();
+
+        // Act: réouverture du même fichier
+        repo = new MappedDataRepository(file, SMALL_SEGMENT);
+
+        // Assert
+        assertTrue(repo.isRestored());
+        assertEquals(2, repo.findAllPersons().size());
+        assertTrue(repo.findPerson("alice", "smith").isEmpty());
+        assertEquals("222-999", repo.findPerson("jane", "doe").orElseThrow().getPhone());
+        assertEquals(Set.of("jane@acme.org"), repo.findEmailsByCity("Spring"));
+        assertTrue(repo.findMedicalRecord("john", "doe").isEmpty());
+        assertEquals(Set.of("1 Main St"), repo.findAddressesByStation("3"));
+        assertEquals(Set.of("1509 Culver St"), repo.findAddressesByStation("1"));
+        assertTrue(repo.findAddressesByStation("2").isEmpty());
+    }
+
+    @Test
+    void init_discards_previous_file_content() throws IOException {
+        // Arrange
+        repo.init(new DataSet());
+        repo.close();
+
+        // Act
+        repo = new MappedDataRepository(file, SMALL_SEGMENT);
+
+        // Assert: fichier vide → rien à restaurer
+        assertFalse(repo.isRestored());
+        assertTrue(repo.findAllPersons().isEmpty());
+    }
+
+    @Test
+    void deletes_are_idempotent() {
+        repo.deletePerson("Nobody", "Here");
+        repo.deleteMedicalRecord("Nobody", "Here");
+        repo.deleteMapping("Nowhere");
+
+        assertEquals(3, repo.findAllPersons().size());
+    }
+}
@@ -0,0 +1,140 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.cache.DataVersions;
+import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.model.FirestationMapping;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires du décorateur {@link ObservedDataRepository} : chaque écriture est signalée avant d'être visible
+ * puis après, quel qu'en soit le chemin (appel direct, chargement, rejeu du journal d'écriture).
+ */
+class ObservedDataRepositoryTest {
+
+    private InMemoryDataRepository engine;
+    private DataVersions versions;
+    private ObservedDataRepository repo;
+
+    @BeforeEach
+    void setUp() {
+        engine = new InMemoryDataRepository();
+        versions = new DataVersions();
+        repo = ObservedDataRepository.wrap(engine, versions);
+        repo.init(dataSet());
+    }
+
+    private static DataSet dataSet() {
+        DataSet ds = new DataSet();
+        ds.setPersons(List.of(
+                new Person("John", "Doe", "1509 Culver St", "Culver", "97451", "111-111", "john@acme.org")));
+        ds.setFirestations(List.of(new FirestationMapping("1509 Culver St", "1")));
+        ds.setMedicalrecords(List.of());
+        return ds;
+    }
+
+    @Test
+    void each_write_is_signalled_before_it_is_visible_and_after() {
+        // Arrange: observateur qui relève, à chaque signal, si l'écriture est déjà visible
+        List<Boolean> visible = new ArrayList<>();
+        ObservedDataRepository observed = ObservedDataRepository.wrap(engine, new ObservedDataRepository.Observer() {
+            @Override
+            public void personChanged(Person before, Person after) {
+                visible.add(engine.findPerson("Jane", "Doe").isPresent());
+            }
+            @Override
+            public void medicalRecordChanged(String firstName, String lastName, String address) {
+                visible.add(engine.findMedicalRecord(firstName, lastName).isPresent());
+                assertEquals("1509 Culver St", address);
+            }
+            @Override
+            public void mappingChanged(String address, String stationBefore, String stationAfter) {
+                visible.add("2".equals(engine.findStationByAddress(address).orElse(null)));
+                assertEquals("1", stationBefore);
+            }
+            @Override
+            public void dataSetReplaced() { }
+        });
+        MedicalRecord mr = new MedicalRecord();
+        mr.setFirstName("John");
+        mr.setLastName("Doe");
+        mr.setBirthdate("01/01/1980");
+
+        // Act
+        observed.savePerson(new Person("Jane", "Doe", "1509 Culver St", "Culver", "97451", "222-222", "jane@acme.org"));
+        observed.saveMedicalRecord(mr);
+        observed.saveMapping("1509 Culver St", "2");
+
+        // Assert: pour chaque écriture, un signal avant (invisible) puis un après (visible)
+        assertEquals(List.of(false, true, false, true, false, true), visible);
+    }
+
+    @Test
+    void direct_repository_write_changes_the_etag() {
+        // Arrange
+        DataVersions.Stamp stamp = versions.stamp(List.of(DataVersions.address("1509 Culver St"), DataVersions.station("2")));
+        String etag = versions.etag(stamp, 0);
+
+        // Act: écriture hors services (aucun événement applicatif publié)
+        repo.saveMapping("1509 Culver St", "2");
+
+        // Assert
+        assertFalse(versions.isCurrent(stamp));
+        assertNotEquals(etag, versions.etag(versions.stamp(List.of(DataVersions.address("1509 Culver St"), DataVersions.station("2"))), 0));
+    }
+
+    @Test
+    void moving_a_person_stales_both_addresses() {
+        // Arrange
+        DataVersions.Stamp oldHome = versions.stamp(List.of(DataVersions.address("1509 Culver St")));
+        DataVersions.Stamp newHome = versions.stamp(List.of(DataVersions.address("29 15th St")));
+
+        // Act: l'adresse d'avant est relue dans le dépôt
+        repo.savePerson(new Person("John", "Doe", "29 15th St", "Culver", "97451", "111-111", "john@acme.org"));
+
+        // Assert
+        assertFalse(versions.isCurrent(oldHome));
+        assertFalse(versions.isCurrent(newHome));
+    }
+
+    @Test
+    void mutations_replayed_from_the_log_stale_the_versions() throws IOException {
+        // Arrange: une écriture journalisée, puis redémarrage sur le même fichier
+        Path dir = Files.createTempDirectory("wal");
+        try (WriteAheadLog wal = new WriteAheadLog(dir, false, 1 << 20)) {
+            DurableDataRepository durable = DurableDataRepository.wrap(ObservedDataRepository.wrap(new InMemoryDataRepository(), new DataVersions()), wal);
+            durable.init(dataSet());
+            durable.saveMapping("1509 Culver St", "2");
+        }
+        DataVersions restarted = new DataVersions();
+        DataVersions.Stamp beforeLoad = restarted.stamp(List.of(DataVersions.station("2")));
+
+        // Act
+        try (WriteAheadLog wal = new WriteAheadLog(dir, false, 1 << 20)) {
+            DurableDataRepository durable = DurableDataRepository.wrap(ObservedDataRepository.wrap(new InMemoryDataRepository(), restarted), wal);
+            durable.init(dataSet());
+
+            // Assert: chargement (version globale) et mutation rejouée (caserne 2) signalés
+            assertEquals(Optional.of("2"), durable.findStationByAddress("1509 Culver St"));
+        } finally {
+            try (var files = Files.list(dir)) {
+                files.forEach(p -> p.toFile().delete());
+            }
+            Files.deleteIfExists(dir);
+        }
+        assertFalse(restarted.isCurrent(beforeLoad));
+        assertEquals(2, restarted.global());
+        assertEquals(2, restarted.version(DataVersions.station("2")));
+    }
+}
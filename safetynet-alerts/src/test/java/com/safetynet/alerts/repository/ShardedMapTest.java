@@ -0,0 +1,58 @@
+package com.safetynet.alerts.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedMapTest {
+
+    @Test
+    void edit_derives_a_new_version_and_leaves_the_base_unchanged() {
+        // Arrange
+        Map<String, String> source = new HashMap<>();
+        for (int i = 0; i < 1000; i++) source.put("k" + i, "v" + i);
+        ShardedMap<String> base = ShardedMap.copyOf(source);
+
+        // Act
+        ShardedMap.Editor<String> e = base.edit();
+        e.put("k1", "changed");
+        e.put("new", "added");
+        e.remove("k2");
+        ShardedMap<String> next = e.freeze();
+
+        // Assert: nouvelle version
+        assertEquals(1000, next.size());
+        assertEquals("changed", next.get("k1"));
+        assertEquals("added", next.get("new"));
+        assertFalse(next.containsKey("k2"));
+        assertEquals("v3", next.get("k3"));
+
+        // Assert: base intacte
+        assertEquals(1000, base.size());
+        assertEquals("v1", base.get("k1"));
+        assertNull(base.get("new"));
+        assertEquals("v2", base.get("k2"));
+    }
+
+    @Test
+    void remove_of_absent_key_and_forEach() {
+        // Arrange
+        ShardedMap<String> base = ShardedMap.copyOf(Map.of("a", "1", "b", "2"));
+
+        // Act
+        ShardedMap.Editor<String> e = base.edit();
+        assertNull(e.remove("missing"));
+        ShardedMap<String> same = e.freeze();
+        Map<String, String> seen = new HashMap<>();
+        same.forEach(seen::put);
+
+        // Assert
+        assertEquals(2, same.size());
+        assertEquals(Map.of("a", "1", "b", "2"), seen);
+        assertEquals("none", same.getOrDefault("c", "none"));
+        assertTrue(ShardedMap.empty().isEmpty());
+    }
+}
@@ -0,0 +1,65 @@
+package com.safetynet.alerts.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedViewTest {
+
+    @Test
+    void copy_is_reused_until_invalidated() {
+        // Arrange
+        SharedView<List<Integer>> view = new SharedView<>();
+        AtomicInteger copies = new AtomicInteger();
+        List<Integer> source = new ArrayList<>(List.of(1, 2));
+
+        // Act
+        List<Integer> first = view.get(() -> { copies.incrementAndGet(); return List.copyOf(source); });
+        List<Integer> again = view.get(() -> { copies.incrementAndGet(); return List.copyOf(source); });
+        source.add(3);
+        view.invalidate();
+        List<Integer> next = view.get(() -> { copies.incrementAndGet(); return List.copyOf(source); });
+
+        // Assert
+        assertSame(first, again);
+        assertEquals(List.of(1, 2), first);
+        assertEquals(List.of(1, 2, 3), next);
+        assertEquals(2, copies.get());
+    }
+
+    @Test
+    void concurrent_readers_never_keep_a_stale_copy_after_writes_stop() throws Exception {
+        // Arrange: un écrivain modifie la source pendant que des lecteurs recopient
+        Map<Integer, Integer> source = new ConcurrentHashMap<>();
+        SharedView<List<Integer>> view = new SharedView<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                while (writing.get()) view.get(() -> List.copyOf(source.values()));
+            });
+            readers[r].start();
+        }
+
+        // Act
+        for (int i = 0; i < 20_000; i++) {
+            source.put(i % 500, i);
+            if (i % 3 == 0) source.remove((i * 7) % 500);
+            view.invalidate();
+        }
+        writing.set(false);
+        for (Thread t : readers) t.join();
+
+        // Assert: la copie servie correspond à l'état final de la source
+        List<Integer> last = view.get(() -> List.copyOf(source.values()));
+        assertEquals(source.size(), last.size());
+        assertTrue(last.containsAll(source.values()));
+    }
+}
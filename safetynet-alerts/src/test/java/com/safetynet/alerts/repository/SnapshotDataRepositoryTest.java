@@ -0,0 +1,305 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.model.FirestationMapping;
+import com.safetynet.alerts.model.MedicalRecord;
+import com.safetynet.alerts.model.Person;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires du dépôt copy-on-write {@link SnapshotDataRepository}.
+ * <p>
+ * En plus du contrat commun de {@link DataRepository} (recherches insensibles à la casse, collections
+ * non modifiables), on vérifie ici la propriété propre à ce moteur : chaque écriture publie une
+ * nouvelle version complète, et une version déjà lue n'est jamais modifiée a posteriori.
+ */
+class SnapshotDataRepositoryTest {
+
+    private SnapshotDataRepository repo;
+
+    @BeforeEach
+    void setUp() {
+        // Arrange: même jeu de données minimal que pour InMemoryDataRepositoryTest
+        repo = new SnapshotDataRepository();
+        DataSet ds = new DataSet();
+        ds.setPersons(List.of(
+                new Person("John", "Doe", "1509 Culver St", "Culver", "97451", "111-111", "john@acme.org"),
+                new Person("Jane", "Doe", "29 15th St", "Culver", "97451", "222-222", "jane@acme.org"),
+                new Person("Alice", "Smith", "1 Main St", "Spring", "11111", "333-333", "alice@acme.org")));
+        ds.setFirestations(List.of(
+                new FirestationMapping("1509 Culver St", "1"),
+                new FirestationMapping("29 15th St", "1"),
+                new FirestationMapping("1 Main St", "2")));
+        MedicalRecord mrJohn = new MedicalRecord();
+        mrJohn.setFirstName("John");
+        mrJohn.setLastName("Doe");
+        ds.setMedicalrecords(List.of(mrJohn));
+
+        repo.init(ds);
+    }
+
+    @Test
+    void init_builds_all_indexes() {
+        assertEquals(3, repo.findAllPersons().size());
+        assertEquals(Set.of("1509 Culver St", "29 15th St"), repo.findAddressesByStation(" 1 "));
+        assertEquals(Optional.of("2"), repo.findStationByAddress("1 MAIN ST"));
+        assertEquals(2, repo.findPersonsByLastName("doe").size());
+        assertEquals(Set.of("john@acme.org", "jane@acme.org"), repo.findEmailsByCity("culver"));
+        assertTrue(repo.findMedicalRecord("john", "doe").isPresent());
+        assertTrue(repo.findAddressesByStation(null).isEmpty());
+        assertTrue(repo.findPersonsByAddress("unknown").isEmpty());
+    }
+
+    @Test
+    void resident_reads_join_records_of_the_same_version() {
+        // Act
+        List<Resident> doe = repo.findResidentsByLastName("doe");
+        MedicalRecord mrJane = new MedicalRecord();
+        mrJane.setFirstName("Jane");
+        mrJane.setLastName("Doe");
+        repo.saveMedicalRecord(mrJane);
+
+        // Assert: la lecture déjà faite garde la version d'origine, la suivante voit le nouveau dossier
+        assertEquals(List.of("John"), doe.stream().filter(r -> r.record() != null).map(r -> r.person().getFirstName()).toList());
+        MedicalRecord joined = repo.findResidentsByAddress("29 15TH ST").getFirst().record();
+        assertEquals("Jane", joined.getFirstName());
+        assertNotSame(mrJane, joined); // copie détachée de la version stockée
+        assertEquals(2, repo.findResidentsByStation("1").size()); // implémentation par défaut du contrat
+        assertTrue(repo.findResidentsByAddress(null).isEmpty());
+    }
+
+    @Test
+    void pages_use_default_sorted_implementation() {
+        // Act: implémentation par défaut du contrat (tri puis reprise après la clé)
+        KeyedPage<Resident> first = repo.pageResidentsByLastName("doe", null, 1);
+        KeyedPage<Resident> second = repo.pageResidentsByLastName("doe", first.next(), 1);
+
+        // Assert
+        assertEquals("Jane", first.items().getFirst().person().getFirstName());
+        assertEquals("jane|doe", first.next());
+        assertEquals("John", second.items().getFirst().person().getFirstName());
+        assertFalse(second.hasNext());
+        assertEquals(List.of("jane@acme.org", "john@acme.org"), repo.pageEmailsByCity("Culver", null, 5).items());
+        assertEquals(2, repo.pageResidentsByStation("1", null, 5).items().size());
+    }
+
+    @Test
+    void age_counts_use_the_day_of_the_injected_clock() {
+        // Arrange: 2 h UTC le 1er janvier 2020, encore le 31 décembre 2019 à Los Angeles
+        Clock clock = Clock.fixed(Instant.parse("2020-01-01T02:00:00Z"), ZoneId.of("America/Los_Angeles"));
+        repo = new SnapshotDataRepository(clock);
+        DataSet ds = new DataSet();
+        ds.setPersons(List.of(new Person("Jane", "Doe", "29 15th St", "Culver", "97451", "222-222", null)));
+        ds.setFirestations(List.of(new FirestationMapping("29 15th St", "1")));
+        MedicalRecord mrJane = new MedicalRecord();
+        mrJane.setFirstName("Jane");
+        mrJane.setLastName("Doe");
+        mrJane.setBirthdate("01/01/2001");
+        ds.setMedicalrecords(List.of(mrJane));
+        repo.init(ds);
+
+        // Act + Assert: Jane n'a 19 ans que le lendemain dans le fuseau de l'horloge
+        assertEquals(new AgeCounts(0, 1), repo.countAgesByStation("1"));
+        assertEquals(new AgeCounts(0, 1), repo.countAgesByAddress("29 15th St"));
+    }
+
+    @Test
+    void reads_are_unmodifiable() {
+        List<Person> all = repo.findAllPersons();
+        Set<String> addresses = repo.findAddressesByStation("1");
+        List<Person> household = repo.findPersonsByAddress("1509 Culver St");
+
+        assertThrows(UnsupportedOperationException.class, all::clear);
+        assertThrows(UnsupportedOperationException.class, () -> addresses.add("X"));
+        assertThrows(UnsupportedOperationException.class, () -> household.add(all.getFirst()));
+    }
+
+    @Test
+    void savePerson_moves_person_across_all_indexes() {
+        // Arrange: lecture avant écriture (ancienne version)
+        List<Person> oldHousehold = repo.findPersonsByAddress("1509 Culver St");
+
+        // Act: John déménage à Spring
+        repo.savePerson(new Person("John", "Doe", "1 Main St", "Spring", "11111", "111-111", "john@acme.org"));
+
+        // Assert: nouvelle version cohérente sur tous les index
+        assertTrue(repo.findPersonsByAddress("1509 Culver St").isEmpty());
+        assertEquals(2, repo.findPersonsByAddress("1 main st").size());
+        assertEquals(Set.of("jane@acme.org"), repo.findEmailsByCity("Culver"));
+        assertEquals(Set.of("alice@acme.org", "john@acme.org"), repo.findEmailsByCity("Spring"));
+        assertEquals(2, repo.findPersonsByLastName("Doe").size());
+        assertEquals(3, repo.findAllPersons().size());
+
+        // Assert: la version lue auparavant est intacte
+        assertEquals(1, oldHousehold.size());
+        assertEquals("1509 Culver St", oldHousehold.getFirst().getAddress());
+    }
+
+    @Test
+    void write_shares_untouched_indexes_and_groups_with_previous_version() {
+        // Arrange
+        SnapshotDataRepository.Snapshot before = repo.snapshot();
+
+        // Act: Jane change de téléphone (même adresse, même nom, même ville)
+        repo.savePerson(new Person("Jane", "Doe", "29 15th St", "Culver", "97451", "999-999", "jane@acme.org"));
+        SnapshotDataRepository.Snapshot after = repo.snapshot();
+
+        // Assert: index non touchés repris tels quels, groupes des autres adresses / villes partagés
+        assertSame(before.stationByAddress(), after.stationByAddress());
+        assertSame(before.medicalRecordByPersonKey(), after.medicalRecordByPersonKey());
+        assertSame(before.personsByAddress().get("1 main st"), after.personsByAddress().get("1 main st"));
+        assertSame(before.emailsByCity().get("spring"), after.emailsByCity().get("spring"));
+        assertEquals("999-999", repo.findPersonsByAddress("29 15th St").getFirst().getPhone());
+    }
+
+    @Test
+    void findAllPersons_keeps_insertion_order_across_replacements() {
+        // Act: remplacement (rang conservé), suppression puis ajout (en fin de liste)
+        repo.savePerson(new Person("John", "Doe", "1 Main St", "Spring", "11111", "111-111", "john@acme.org"));
+        repo.deletePerson("Jane", "Doe");
+        repo.savePerson(new Person("Jane", "Doe", "29 15th St", "Culver", "97451", "222-222", "jane@acme.org"));
+        repo.saveMapping("9 Elm St", "4"); // écriture sans personne : liste reprise de la version précédente
+
+        // Assert
+        assertEquals(List.of("John", "Alice", "Jane"), repo.findAllPersons().stream().map(Person::getFirstName).toList());
+        assertEquals("Spring", repo.findAllPersons().getFirst().getCity());
+    }
+
+    @Test
+    void shared_email_stays_listed_until_its_last_holder_leaves() {
+        // Arrange: Bob partage l'email de John
+        repo.savePerson(new Person("Bob", "Doe", "29 15th St", "Culver", "97451", "444-444", "john@acme.org"));
+
+        // Act + Assert
+        repo.deletePerson("John", "Doe");
+        assertEquals(Set.of("jane@acme.org", "john@acme.org"), repo.findEmailsByCity("culver"));
+        repo.savePerson(new Person("Bob", "Doe", "29 15th St", "Culver", "97451", "444-444", "bob@acme.org"));
+        assertEquals(Set.of("jane@acme.org", "bob@acme.org"), repo.findEmailsByCity("culver"));
+    }
+
+    @Test
+    void findPerson_returns_detached_copy() {
+        // Act: modification en place de l'instance renvoyée, sans savePerson
+        Person john = repo.findPerson("john", "doe").orElseThrow();
+        john.setAddress("Elsewhere");
+
+        // Assert: le snapshot publié n'est pas altéré
+        assertEquals("1509 Culver St", repo.findPerson("John", "Doe").orElseThrow().getAddress());
+        assertEquals(1, repo.findPersonsByAddress("1509 Culver St").size());
+    }
+
+    @Test
+    void medicalRecord_updated_in_place_leaves_published_snapshot_unchanged() {
+        // Arrange: version publiée et dossier lu comme le fait MedicalRecordServiceImpl.update
+        SnapshotDataRepository.Snapshot before = repo.snapshot();
+        MedicalRecord entity = repo.findMedicalRecord("John", "Doe").orElseThrow();
+
+        // Act: modification en place (mapper) avant saveMedicalRecord
+        entity.setBirthdate("01/01/2015");
+        entity.getMedications().add("aznol:350mg");
+
+        // Assert: ni la version publiée ni les lectures ne voient la modification avant l'écriture
+        MedicalRecord published = before.medicalRecordByPersonKey().get("john|doe");
+        assertNull(published.getBirthdate());
+        assertTrue(published.getMedications().isEmpty());
+        assertTrue(repo.findMedicalRecord("john", "doe").orElseThrow().getMedications().isEmpty());
+        assertSame(before, repo.snapshot());
+
+        // Act + Assert: l'écriture publie une nouvelle version, l'ancienne reste intacte
+        repo.saveMedicalRecord(entity);
+        entity.getAllergies().add("nillacilan"); // après écriture : sans effet sur la version stockée
+        assertEquals(List.of("aznol:350mg"), repo.findMedicalRecord("john", "doe").orElseThrow().getMedications());
+        assertTrue(repo.findMedicalRecord("john", "doe").orElseThrow().getAllergies().isEmpty());
+        assertNull(before.medicalRecordByPersonKey().get("john|doe").getBirthdate());
+    }
+
+    @Test
+    void person_list_reads_return_detached_copies() {
+        // Act: modification en place des personnes renvoyées par les lectures groupées
+        repo.findPersonsByLastName("doe").forEach(p -> p.setPhone("000"));
+        repo.findPersonsByStation("1").forEach(p -> p.setAddress("Elsewhere"));
+        repo.findResidentsByAddress("1509 Culver St").forEach(r -> r.person().setCity("Elsewhere"));
+
+        // Assert
+        assertEquals(Set.of("111-111", "222-222"),
+                Set.copyOf(repo.findPersonsByLastName("Doe").stream().map(Person::getPhone).toList()));
+        assertEquals(1, repo.findPersonsByAddress("1509 Culver St").size());
+        assertEquals("Culver", repo.findAllPersons().getFirst().getCity());
+    }
+
+    @Test
+    void duplicate_mapping_of_an_address_follows_memory_engine_rules() {
+        // Arrange: même adresse sous deux casernes (doublon de data.json)
+        DataSet ds = new DataSet();
+        ds.setPersons(List.of(new Person("John", "Doe", "1509 Culver St", "Culver", "97451", "111-111", null)));
+        ds.setFirestations(List.of(new FirestationMapping("1509 Culver St", "3"), new FirestationMapping("1509 Culver St", "1")));
+        SnapshotDataRepository snapshot = new SnapshotDataRepository();
+        InMemoryDataRepository memory = new InMemoryDataRepository();
+
+        // Act
+        snapshot.init(ds);
+        memory.init(ds);
+
+        // Assert: caserne retenue first-wins, adresse listée sous chacune de ses casernes
+        for (DataRepository r : List.of(snapshot, memory)) {
+            assertEquals(Optional.of("3"), r.findStationByAddress("1509 Culver St"));
+            assertEquals(Set.of("1509 Culver St"), r.findAddressesByStation("3"));
+            assertEquals(Set.of("1509 Culver St"), r.findAddressesByStation("1"));
+            assertEquals(1, r.findPersonsByStation("1").size());
+        }
+    }
+
+    @Test
+    void deletePerson_is_idempotent_and_publishes_nothing_when_absent() {
+        SnapshotDataRepository.Snapshot before = repo.snapshot();
+
+        repo.deletePerson("Nobody", "Here");
+        assertSame(before, repo.snapshot());
+
+        repo.deletePerson("Alice", "Smith");
+        assertTrue(repo.findPerson("alice", "smith").isEmpty());
+        assertTrue(repo.findPersonsByAddress("1 Main St").isEmpty());
+        assertTrue(repo.findEmailsByCity("Spring").isEmpty());
+    }
+
+    @Test
+    void saveMapping_and_deleteMapping_keep_inverse_index_aligned() {
+        // Act: remappage de station
+        repo.saveMapping("1 Main St", "3");
+
+        // Assert
+        assertEquals(Optional.of("3"), repo.findStationByAddress("1 Main St"));
+        assertTrue(repo.findAddressesByStation("2").isEmpty());
+        assertEquals(Set.of("1 Main St"), repo.findAddressesByStation("3"));
+
+        // Act: suppression
+        repo.deleteMapping("1 main st");
+
+        // Assert
+        assertTrue(repo.findStationByAddress("1 Main St").isEmpty());
+        assertTrue(repo.findAddressesByStation("3").isEmpty());
+    }
+
+    @Test
+    void medicalRecord_crud() {
+        MedicalRecord mrJane = new MedicalRecord();
+        mrJane.setFirstName("Jane");
+        mrJane.setLastName("Doe");
+
+        repo.saveMedicalRecord(mrJane);
+        assertTrue(repo.findMedicalRecord("JANE", "DOE").isPresent());
+
+        repo.deleteMedicalRecord("Jane", "Doe");
+        assertTrue(repo.findMedicalRecord("jane", "doe").isEmpty());
+    }
+}
@@ -0,0 +1,76 @@
+package com.safetynet.alerts.repository;
+
+import com.safetynet.alerts.model.DataSet;
+import com.safetynet.alerts.model.FirestationMapping;
+import com.safetynet.alerts.model.Person;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires de {@link StringDictionary} et {@link StringDictionaries}:
+ * instance canonique unique, forme normalisée précalculée et statistiques.
+ */
+class StringDictionaryTest {
+
+    @Test
+    void intern_returns_single_canonical_instance() {
+        // Arrange: deux chaînes égales mais distinctes en mémoire
+        StringDictionary dict = new StringDictionary("city");
+        String a = new String("Culver");
+        String b = new String("Culver");
+
+        // Act
+        String ca = dict.intern(a);
+        String cb = dict.intern(b);
+
+        // Assert
+        assertSame(ca, cb);
+        assertNull(dict.intern(null));
+        StringDictionary.Stats st = dict.stats();
+        assertEquals(1, st.cardinality());
+        assertEquals(2, st.lookups());
+        assertTrue(st.savedBytes() > 0, "le doublon doit être compté comme économisé");
+    }
+
+    @Test
+    void normalized_is_precomputed_and_shared_between_case_variants() {
+        // Arrange
+        StringDictionary dict = new StringDictionary("address");
+        dict.intern("1509 Culver St");
+        dict.intern("1509 CULVER ST ");
+
+        // Act + Assert: même instance normalisée pour les deux variantes
+        assertEquals("1509 culver st", dict.normalized("1509 Culver St"));
+        assertSame(dict.normalized("1509 Culver St"), dict.normalized("1509 CULVER ST "));
+
+        // Valeur inconnue: calculée à la volée sans être ajoutée
+        assertEquals("unknown", dict.normalized(" UNKNOWN"));
+        assertEquals("", dict.normalized(null));
+        assertEquals(2, dict.stats().cardinality());
+    }
+
+    @Test
+    void dataSet_is_deduplicated_in_place() {
+        // Arrange
+        StringDictionaries dictionaries = new StringDictionaries();
+        DataSet ds = new DataSet();
+        Person john = new Person("John", "Boyd", new String("1509 Culver St"), new String("Culver"), new String("97451"), "1", "j@x");
+        Person jacob = new Person("Jacob", "Boyd", new String("1509 Culver St"), new String("Culver"), new String("97451"), "2", "b@x");
+        FirestationMapping m = new FirestationMapping(new String("1509 Culver St"), "3");
+        ds.setPersons(List.of(john, jacob));
+        ds.setFirestations(List.of(m));
+
+        // Act
+        dictionaries.intern(ds);
+
+        // Assert
+        assertSame(john.getAddress(), jacob.getAddress());
+        assertSame(john.getAddress(), m.getAddress());
+        assertSame(john.getCity(), jacob.getCity());
+        assertSame(john.getZip(), jacob.getZip());
+        assertEquals(4, dictionaries.stats().size());
+    }
+}
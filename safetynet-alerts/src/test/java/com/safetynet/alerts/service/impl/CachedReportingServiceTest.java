@@ -0,0 +1,299 @@
+package com.safetynet.alerts.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safetynet.alerts.cache.DataVersions;
+import com.safetynet.alerts.cache.JsonBody;
+import com.safetynet.alerts.dto.reporting.FireAddressDto;
+import com.safetynet.alerts.dto.reporting.FirestationCoverageDto;
+import com.safetynet.alerts.model.Person;
+import com.safetynet.alerts.repository.DataRepository;
+import com.safetynet.alerts.service.ReportingService;
+import com.safetynet.alerts.time.AgeCalculator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachedReportingServiceTest {
+
+    private ReportingService delegate;
+    private DataRepository repo;
+    private DataVersions versions;
+    private MutableClock clock;
+    private CachedReportingService service;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(ReportingService.class);
+        repo = mock(DataRepository.class);
+        versions = new DataVersions();
+        clock = new MutableClock(Instant.parse("2026-06-01T12:00:00Z"));
+        service = new CachedReportingService(delegate, repo, versions, new AgeCalculator(clock), new ObjectMapper(), 100, true);
+
+        when(repo.findAddressesByStation("1")).thenReturn(Set.of("A1", "A2"));
+        when(delegate.getPersonsByStation("1")).thenReturn(new FirestationCoverageDto(List.of(), 2, 1));
+    }
+
+    @Test
+    void second_call_is_served_from_cache() {
+        var first = service.getPersonsByStation("1");
+        var second = service.getPersonsByStation("1");
+
+        assertSame(first, second);
+        verify(delegate, times(1)).getPersonsByStation("1");
+        assertEquals(1, service.stats().hits());
+        assertEquals(1, service.stats().misses());
+    }
+
+    @Test
+    void write_at_a_covered_address_recomputes_the_report() {
+        service.getPersonsByStation("1");
+
+        versions.medicalRecordChanged("John", "Boyd", "A2");
+        service.getPersonsByStation("1");
+
+        verify(delegate, times(2)).getPersonsByStation("1");
+        assertEquals(1, service.stats().invalidations());
+    }
+
+    @Test
+    void unrelated_write_keeps_the_entry() {
+        service.getPersonsByStation("1");
+
+        versions.mappingChanged("B9", "2", "3");
+        versions.medicalRecordChanged("Jane", "Doe", "B9");
+        service.getPersonsByStation("1");
+
+        verify(delegate, times(1)).getPersonsByStation("1");
+    }
+
+    @Test
+    void new_mapping_to_the_station_recomputes_the_report() {
+        service.getPersonsByStation("1");
+
+        versions.mappingChanged("A3", null, "1");
+        service.getPersonsByStation("1");
+
+        verify(delegate, times(2)).getPersonsByStation("1");
+    }
+
+    @Test
+    void age_dependent_reports_are_recomputed_the_next_day() {
+        when(delegate.getFireInfo("A1")).thenReturn(new FireAddressDto("1", List.of()));
+        when(delegate.getPhonesByFirestation("1")).thenReturn(Set.of("841-874-6512"));
+        service.getFireInfo("A1");
+        service.getPhonesByFirestation("1");
+
+        clock.now = clock.now.plusSeconds(24 * 3600);
+        service.getFireInfo("A1");
+        service.getPhonesByFirestation("1");
+
+        verify(delegate, times(2)).getFireInfo("A1");
+        verify(delegate, times(1)).getPhonesByFirestation("1");
+    }
+
+    @Test
+    void fire_json_is_serialized_once_and_dropped_on_household_change() throws Exception {
+        // Arrange
+        var dto = new FireAddressDto("1", List.of());
+        when(delegate.getFireInfo("A1")).thenReturn(dto);
+
+        // Act
+        JsonBody first = service.getFireInfoJson("A1");
+        JsonBody second = service.getFireInfoJson("A1");
+        versions.mappingChanged("A1", "1", "2");
+        JsonBody third = service.getFireInfoJson("A1");
+
+        // Assert
+        assertArrayEquals(new ObjectMapper().writeValueAsBytes(dto), first.utf8());
+        assertSame(first, second);
+        assertNotSame(first, third);
+        verify(delegate, times(2)).getFireInfo("A1");
+    }
+
+    @Test
+    void childAlert_json_and_dto_are_cached_separately() {
+        when(delegate.getChildAlert("A1")).thenReturn(List.of());
+
+        service.getChildAlert("A1");
+        JsonBody json = service.getChildAlertJson("A1");
+        service.getChildAlertJson("A1");
+
+        assertEquals("[]", new String(json.utf8(), StandardCharsets.UTF_8));
+        verify(delegate, times(2)).getChildAlert("A1");
+    }
+
+    @Test
+    void flood_key_ignores_station_order() {
+        when(repo.findAddressesByStation("2")).thenReturn(Set.of("B1"));
+        when(delegate.getFloodByStations(anySet())).thenReturn(Map.of());
+
+        service.getFloodByStations(Set.of("1", "2"));
+        service.getFloodByStations(new LinkedHashSet<>(List.of("2", "1")));
+
+        verify(delegate, times(1)).getFloodByStations(anySet());
+    }
+
+    @Test
+    void streamed_flood_caches_each_household_and_shares_it_across_station_sets() {
+        // Arrange
+        when(delegate.floodAddresses(anySet())).thenAnswer(inv -> {
+            Set<String> out = new LinkedHashSet<>();
+            for (Object st : inv.getArgument(0, Set.class)) out.addAll(st.equals("1") ? List.of("A1", "A2") : List.of("A2", "B1"));
+            return out;
+        });
+        when(delegate.floodHousehold(anyString())).thenAnswer(inv -> List.of());
+
+        // Act
+        List<String> first = service.streamFloodByStations(Set.of("1")).map(Map.Entry::getKey).toList();
+        List<String> second = service.streamFloodByStations(Set.of("2")).map(Map.Entry::getKey).toList();
+        versions.medicalRecordChanged("John", "Boyd", "A2");
+        service.streamFloodByStations(Set.of("2")).forEach(block -> { });
+
+        // Assert: A2 calculé une fois pour les deux casernes, puis recalculé après l'écriture
+        assertEquals(List.of("A1", "A2"), first);
+        assertEquals(List.of("A2", "B1"), second);
+        verify(delegate, times(2)).floodHousehold("A2");
+        verify(delegate, times(1)).floodHousehold("B1");
+        verify(delegate, never()).getFloodByStations(anySet());
+    }
+
+    @Test
+    void concurrent_identical_queries_share_one_computation() throws Exception {
+        // Arrange: le premier calcul reste bloqué jusqu'à release
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        var dto = new FireAddressDto("1", List.of());
+        when(delegate.getFireInfo("A1")).thenAnswer(inv -> {
+            started.countDown();
+            release.await();
+            return dto;
+        });
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        try {
+            Future<FireAddressDto> leader = pool.submit(() -> service.getFireInfo("A1"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // Act: 5 appels identiques pendant le calcul
+            List<Future<FireAddressDto>> followers = new ArrayList<>();
+            for (int i = 0; i < 5; i++) followers.add(pool.submit(() -> service.getFireInfo("A1")));
+            while (service.coalesced() < 5) Thread.onSpinWait();
+            release.countDown();
+
+            // Assert
+            assertSame(dto, leader.get(5, TimeUnit.SECONDS));
+            for (Future<FireAddressDto> f : followers) assertSame(dto, f.get(5, TimeUnit.SECONDS));
+            verify(delegate, times(1)).getFireInfo("A1");
+            assertEquals(5, service.coalesced());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void caller_arriving_after_a_write_does_not_join_the_running_computation() throws Exception {
+        // Arrange: premier calcul bloqué, puis écriture à l'adresse
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        var before = new FireAddressDto("1", List.of());
+        var after = new FireAddressDto("2", List.of());
+        when(delegate.getFireInfo("A1")).thenAnswer(inv -> {
+            started.countDown();
+            release.await();
+            return before;
+        }).thenReturn(after);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<FireAddressDto> stale = pool.submit(() -> service.getFireInfo("A1"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            versions.mappingChanged("A1", "1", "2");
+
+            // Act
+            FireAddressDto fresh = service.getFireInfo("A1");
+            release.countDown();
+            stale.get(5, TimeUnit.SECONDS);
+
+            // Assert: calcul propre, le résultat périmé n'écrase pas l'entrée récente
+            assertSame(after, fresh);
+            assertSame(after, service.getFireInfo("A1"));
+            assertEquals(0, service.coalesced());
+            verify(delegate, times(2)).getFireInfo("A1");
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void shared_computation_failure_is_rethrown_to_every_caller() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.getFireInfo("A1")).thenAnswer(inv -> {
+            started.countDown();
+            release.await();
+            throw new IllegalStateException("boom");
+        });
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<FireAddressDto> leader = pool.submit(() -> service.getFireInfo("A1"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<FireAddressDto> follower = pool.submit(() -> service.getFireInfo("A1"));
+            while (service.coalesced() < 1) Thread.onSpinWait();
+            release.countDown();
+
+            var e = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+            assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+            assertEquals(0, service.stats().size());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void warmUp_precomputes_station_reports() {
+        Person p = new Person();
+        p.setAddress("A1");
+        when(repo.findAllPersons()).thenReturn(List.of(p));
+        when(repo.findStationByAddress("A1")).thenReturn(Optional.of("1"));
+
+        service.warmUp();
+        service.getPersonsByStation("1");
+
+        verify(delegate, times(1)).getPersonsByStation("1");
+        verify(delegate, times(1)).getPhonesByFirestation("1");
+        assertEquals(1, service.stats().hits());
+    }
+
+    /** Horloge réglable (passage au jour suivant). */
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) { this.now = now; }
+
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+}
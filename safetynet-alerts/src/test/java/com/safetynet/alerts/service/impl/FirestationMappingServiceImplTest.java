@@ -7,8 +7,10 @@ import com.safetynet.alerts.exception.ConflictExeption;
 import com.safetynet.alerts.exception.NotFoundExeption;
 import com.safetynet.alerts.mapper.crud.firestation.FirestationCrudMapper;
 import com.safetynet.alerts.repository.DataRepository;
+import com.safetynet.alerts.service.DataChangedEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Optional;
 
@@ -19,13 +21,15 @@ class FirestationMappingServiceImplTest {
 
     private DataRepository repository;
     private FirestationCrudMapper mapper;
+    private ApplicationEventPublisher events;
     private FirestationMappingServiceImpl service;
 
     @BeforeEach
     void setUp() {
         repository = mock(DataRepository.class);
         mapper = mock(FirestationCrudMapper.class);
-        service = new FirestationMappingServiceImpl(repository, mapper);
+        events = mock(ApplicationEventPublisher.class);
+        service = new FirestationMappingServiceImpl(repository, mapper, events);
     }
 
     @Test
@@ -38,6 +42,7 @@ class FirestationMappingServiceImplTest {
         var result = service.create(dto);
 
         verify(repository).saveMapping("10 Downing St", "1");
+        verify(events).publishEvent(new DataChangedEvent.MappingChanged("10 Downing St", null, "1"));
         assertEquals("10 Downing St", result.address());
         assertEquals("1", result.station());
     }
@@ -61,6 +66,7 @@ class FirestationMappingServiceImplTest {
         var result = service.update("10 Downing St", dto);
 
         verify(repository).saveMapping("10 Downing St", "2");
+        verify(events).publishEvent(new DataChangedEvent.MappingChanged("10 Downing St", "1", "2"));
         assertEquals("2", result.station());
     }
 
@@ -71,6 +77,7 @@ class FirestationMappingServiceImplTest {
         assertThrows(NotFoundExeption.class,
                 () -> service.update("unknown", new FirestationUpdateDto("9")));
         verify(repository, never()).saveMapping(any(), any());
+        verifyNoInteractions(events);
     }
 
     @Test
@@ -80,6 +87,7 @@ class FirestationMappingServiceImplTest {
         service.delete("10 Downing St");
 
         verify(repository).deleteMapping("10 Downing St");
+        verify(events).publishEvent(new DataChangedEvent.MappingChanged("10 Downing St", "1", null));
     }
 
     @Test
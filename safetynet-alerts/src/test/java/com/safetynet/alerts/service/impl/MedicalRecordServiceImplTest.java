@@ -8,8 +8,10 @@ import com.safetynet.alerts.exception.NotFoundExeption;
 import com.safetynet.alerts.mapper.crud.medicalrecord.MedicalRecordMapper;
 import com.safetynet.alerts.model.MedicalRecord;
 import com.safetynet.alerts.repository.DataRepository;
+import com.safetynet.alerts.service.DataChangedEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Optional;
 
@@ -20,13 +22,15 @@ class MedicalRecordServiceImplTest {
 
     private DataRepository repository;
     private MedicalRecordMapper mapper;
+    private ApplicationEventPublisher events;
     private MedicalRecordServiceImpl service;
 
     @BeforeEach
     void setUp() {
         repository = mock(DataRepository.class);
         mapper = mock(MedicalRecordMapper.class);
-        service = new MedicalRecordServiceImpl(repository, mapper);
+        events = mock(ApplicationEventPublisher.class);
+        service = new MedicalRecordServiceImpl(repository, mapper, events);
     }
 
     @Test
@@ -103,6 +107,7 @@ class MedicalRecordServiceImplTest {
         service.delete("John", "Doe");
 
         verify(repository).deleteMedicalRecord("John", "Doe");
+        verify(events).publishEvent(new DataChangedEvent.MedicalRecordChanged("John", "Doe", null));
     }
 
     @Test
@@ -112,5 +117,6 @@ class MedicalRecordServiceImplTest {
         assertThrows(NotFoundExeption.class, () -> service.delete("Jane", "Unknown"));
 
         verify(repository, never()).deleteMedicalRecord(anyString(), anyString());
+        verifyNoInteractions(events);
     }
 }
\ No newline at end of file
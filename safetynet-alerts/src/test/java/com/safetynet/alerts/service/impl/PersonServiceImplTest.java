@@ -8,8 +8,11 @@ import com.safetynet.alerts.exception.NotFoundExeption;
 import com.safetynet.alerts.mapper.crud.person.PersonMapper;
 import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.repository.DataRepository;
+import com.safetynet.alerts.service.DataChangedEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Optional;
 
@@ -20,6 +23,7 @@ class PersonServiceImplTest {
 
     private DataRepository repository;
     private PersonMapper mapper;
+    private ApplicationEventPublisher events;
     private PersonServiceImpl service;
 
     @BeforeEach
@@ -28,7 +32,9 @@ class PersonServiceImplTest {
 
         mapper = mock(PersonMapper.class);// Ils remplacent les dépendances réelles
 
-        service = new PersonServiceImpl(repository, mapper); // objet reel testé
+        events = mock(ApplicationEventPublisher.class);
+
+        service = new PersonServiceImpl(repository, mapper, events); // objet reel testé
     }
 
     @Test
@@ -84,6 +90,21 @@ class PersonServiceImplTest {
         assertSame(response, result);
     }
 
+    @Test
+    void update_shouldPublishPreviousAndNewState() {
+        var entity = new Person("John", "Doe", "1 Old St", "Culver", "97451", "841-874-0000", "jd@mail.com");
+        when(repository.findPerson("John", "Doe")).thenReturn(Optional.of(entity));
+        var dto = mock(PersonUpdateDto.class);
+        doAnswer(inv -> { entity.setAddress("2 New St"); return null; }).when(mapper).update(entity, dto);
+
+        service.update("John", "Doe", dto);
+
+        var captor = ArgumentCaptor.forClass(DataChangedEvent.PersonChanged.class);
+        verify(events).publishEvent(captor.capture());
+        assertEquals("1 Old St", captor.getValue().before().getAddress());
+        assertSame(entity, captor.getValue().after());
+    }
+
     @Test
     void update_shouldThrowNotFound_whenPersonMissing() {
         when(repository.findPerson("Jane", "Unknown")).thenReturn(Optional.empty());
@@ -103,6 +124,7 @@ class PersonServiceImplTest {
         service.delete("John", "Doe");
 
         verify(repository).deletePerson("John", "Doe");
+        verify(events).publishEvent(any(DataChangedEvent.PersonChanged.class));
     }
 
     @Test
@@ -112,5 +134,6 @@ class PersonServiceImplTest {
         assertThrows(NotFoundExeption.class, () -> service.delete("Jane", "Unknown"));
 
         verify(repository, never()).deletePerson(anyString(), anyString());
+        verifyNoInteractions(events);
     }
 }
\ No newline at end of file
@@ -12,10 +12,17 @@ import com.safetynet.alerts.mapper.reporting.SummaryMapper;
 import com.safetynet.alerts.model.MedicalRecord;
 import com.safetynet.alerts.model.Person;
 import com.safetynet.alerts.repository.DataRepository;
+import com.safetynet.alerts.repository.KeyedPage;
+import com.safetynet.alerts.repository.Resident;
+import com.safetynet.alerts.time.AgeCalculator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,6 +35,7 @@ class ReportingServiceImplTest {
     private SummaryMapper summaryMapper;
     private ResidentMapper residentMapper;
     private PersonInfoMapper personInfoMapper;
+    private AgeCalculator ages;
     private ReportingServiceImpl service;
 
     @BeforeEach
@@ -36,13 +44,18 @@ class ReportingServiceImplTest {
         summaryMapper = mock(SummaryMapper.class);
         residentMapper  = mock(ResidentMapper.class);
         personInfoMapper = mock(PersonInfoMapper.class);
-        service = new ReportingServiceImpl(repo, summaryMapper, residentMapper, personInfoMapper);
+        ages = new AgeCalculator(Clock.fixed(Instant.parse("2026-06-01T12:00:00Z"), ZoneOffset.UTC));
+        service = new ReportingServiceImpl(repo, summaryMapper, residentMapper, personInfoMapper, ages);
     }
 
 
 
     @Test
     void getPersonsByStation() {
+        when(repo.findCoverageByStation("2")).thenCallRealMethod(); // implémentation par défaut du contrat
+        when(repo.findResidentsByStation("2")).thenCallRealMethod();
+        when(repo.findPersonsByStation("2")).thenCallRealMethod();
+        when(repo.today()).thenReturn(LocalDate.of(2026, 6, 1));
         when(repo.findAddressesByStation("2")).thenReturn(Set.of("A1"));
         Person pAdult = mock(Person.class);
         when(pAdult.getFirstName()).thenReturn("John");
@@ -53,9 +66,9 @@ class ReportingServiceImplTest {
         when(repo.findPersonsByAddress("A1")).thenReturn(List.of(pAdult, pChild));
 
         MedicalRecord rAdult = mock(MedicalRecord.class);
-        when(rAdult.getBirthdate()).thenReturn("01/01/1980"); // adulte
+        when(rAdult.getBirthEpochDay()).thenReturn(AgeCalculator.parseEpochDay("01/01/1980")); // adulte
         MedicalRecord rChild = mock(MedicalRecord.class);
-        when(rChild.getBirthdate()).thenReturn("01/01/2015"); // enfant
+        when(rChild.getBirthEpochDay()).thenReturn(AgeCalculator.parseEpochDay("01/01/2015")); // enfant
         when(repo.findMedicalRecord("John", "Doe")).thenReturn(Optional.of(rAdult));
         when(repo.findMedicalRecord("Jane", "Doe")).thenReturn(Optional.of(rChild));
 
@@ -81,14 +94,12 @@ class ReportingServiceImplTest {
         Person pAdult = mock(Person.class);
         when(pAdult.getFirstName()).thenReturn("John");
         when(pAdult.getLastName()).thenReturn("Boyd");
-        when(repo.findPersonsByAddress(address)).thenReturn(List.of(pChild, pAdult));
 
         MedicalRecord rChild = mock(MedicalRecord.class);
-        when(rChild.getBirthdate()).thenReturn("01/01/2015"); // enfant
+        when(rChild.getBirthEpochDay()).thenReturn(AgeCalculator.parseEpochDay("01/01/2015")); // enfant
         MedicalRecord rAdult = mock(MedicalRecord.class);
-        when(rAdult.getBirthdate()).thenReturn("01/01/1980"); // adulte
-        when(repo.findMedicalRecord("Tenley", "Boyd")).thenReturn(Optional.of(rChild));
-        when(repo.findMedicalRecord("John", "Boyd")).thenReturn(Optional.of(rAdult));
+        when(rAdult.getBirthEpochDay()).thenReturn(AgeCalculator.parseEpochDay("01/01/1980")); // adulte
+        when(repo.findResidentsByAddress(address)).thenReturn(List.of(new Resident(pChild, rChild), new Resident(pAdult, rAdult)));
 
         PersonSummaryDto sChild = new PersonSummaryDto("Tenley", "Boyd", address, "111");
         PersonSummaryDto sAdult = new PersonSummaryDto("John", "Boyd", address, "222");
@@ -101,12 +112,14 @@ class ReportingServiceImplTest {
         ChildAlertDto dto = out.getFirst();
         assertEquals("Tenley", dto.firstName());
         assertEquals("Boyd", dto.lastName());
-        assertTrue(dto.age() >= 0 && dto.age() <= 18);
+        assertEquals(11, dto.age()); // 01/01/2015 au 01/06/2026
         assertEquals(List.of(sAdult),dto.householdMembers()); // les autres membres du foyer
     }
 
     @Test
     void getPhonesByFirestation() {
+        when(repo.findPhonesByStation("3")).thenCallRealMethod(); // implémentation par défaut du contrat
+        when(repo.findPersonsByStation("3")).thenCallRealMethod();
         when(repo.findAddressesByStation("3")).thenReturn(Set.of("A1", "A2"));
 
         Person p1 = mock(Person.class); when(p1.getPhone()).thenReturn("841-000-0001");
@@ -129,16 +142,12 @@ class ReportingServiceImplTest {
 
         Person p1 = mock(Person.class);
         Person p2 = mock(Person.class);
-        when(repo.findPersonsByAddress(address)).thenReturn(List.of(p1, p2));
-
-        MedicalRecord r1 = mock(MedicalRecord.class);
-        MedicalRecord r2 = mock(MedicalRecord.class);
-        when(repo.findMedicalRecord(anyString(), anyString())).thenReturn(Optional.empty()); // recordOf appelle repo, mais le mapper recevra null ici
+        when(repo.findResidentsByAddress(address)).thenReturn(List.of(new Resident(p1, null), new Resident(p2, null))); // sans dossier
 
         ResidentMedicalDto rm1 = mock(ResidentMedicalDto.class);
         ResidentMedicalDto rm2 = mock(ResidentMedicalDto.class);
-        when(residentMapper.toResident(eq(p1), isNull())).thenReturn(rm1);
-        when(residentMapper.toResident(eq(p2), isNull())).thenReturn(rm2);
+        when(residentMapper.toResident(eq(p1), isNull(), same(ages))).thenReturn(rm1);
+        when(residentMapper.toResident(eq(p2), isNull(), same(ages))).thenReturn(rm2);
 
         FireAddressDto out = service.getFireInfo(address);
 
@@ -155,12 +164,12 @@ class ReportingServiceImplTest {
         Person pA1_2 = mock(Person.class);
         Person pA2_1 = mock(Person.class);
 
-        when(repo.findPersonsByAddress("A1")).thenReturn(List.of(pA1_1, pA1_2));
-        when(repo.findPersonsByAddress("A2")).thenReturn(List.of(pA2_1));
+        when(repo.findResidentsByAddress("A1")).thenReturn(List.of(new Resident(pA1_1, null), new Resident(pA1_2, null)));
+        when(repo.findResidentsByAddress("A2")).thenReturn(List.of(new Resident(pA2_1, null)));
 
-        when(residentMapper.toResident(eq(pA1_1), any())).thenReturn(mock(ResidentMedicalDto.class));
-        when(residentMapper.toResident(eq(pA1_2), any())).thenReturn(mock(ResidentMedicalDto.class));
-        when(residentMapper.toResident(eq(pA2_1), any())).thenReturn(mock(ResidentMedicalDto.class));
+        when(residentMapper.toResident(eq(pA1_1), any(), same(ages))).thenReturn(mock(ResidentMedicalDto.class));
+        when(residentMapper.toResident(eq(pA1_2), any(), same(ages))).thenReturn(mock(ResidentMedicalDto.class));
+        when(residentMapper.toResident(eq(pA2_1), any(), same(ages))).thenReturn(mock(ResidentMedicalDto.class));
 
         Map<String, List<ResidentMedicalDto>> out = service.getFloodByStations(Set.of("1", "2"));
 
@@ -170,21 +179,74 @@ class ReportingServiceImplTest {
         assertEquals(1, out.get("A2").size());
     }
 
+    @Test
+    void streamFloodByStations_buildsEachHouseholdOnlyWhenConsumed() {
+        when(repo.findAddressesByStation("1")).thenReturn(Set.of("A1"));
+        when(repo.findAddressesByStation("2")).thenReturn(Set.of("A1", "A2"));
+        Person p = mock(Person.class);
+        ResidentMedicalDto dto = mock(ResidentMedicalDto.class);
+        when(repo.findResidentsByAddress("A1")).thenReturn(List.of(new Resident(p, null)));
+        when(residentMapper.toResident(eq(p), isNull(), same(ages))).thenReturn(dto);
+
+        // Act: flux créé, rien consommé
+        Iterator<Map.Entry<String, List<ResidentMedicalDto>>> blocks = service.streamFloodByStations(Set.of(" 1 ")).iterator();
+
+        // Assert: aucune lecture de foyer avant consommation
+        verify(repo, never()).findResidentsByAddress(anyString());
+        Map.Entry<String, List<ResidentMedicalDto>> first = blocks.next();
+        assertEquals("A1", first.getKey());
+        assertEquals(List.of(dto), first.getValue());
+        assertFalse(blocks.hasNext());
+        assertEquals(0, service.streamFloodByStations(Set.of()).count());
+    }
+
+    @Test
+    void pageFloodByStations_buildsOnlyHouseholdsOfThePage() {
+        when(repo.findAddressesByStation("1")).thenReturn(Set.of("B2", "A1", "C3"));
+        Person p = mock(Person.class);
+        ResidentMedicalDto dto = mock(ResidentMedicalDto.class);
+        when(repo.findResidentsByAddress("B2")).thenReturn(List.of(new Resident(p, null)));
+        when(residentMapper.toResident(eq(p), isNull(), same(ages))).thenReturn(dto);
+
+        // Act: deuxième page de taille 1 (après A1)
+        KeyedPage<Map.Entry<String, List<ResidentMedicalDto>>> page = service.pageFloodByStations(Set.of("1"), "A1", 1);
+
+        // Assert: adresses triées, seul le foyer de la page est lu
+        assertEquals(List.of(Map.entry("B2", List.of(dto))), page.items());
+        assertEquals("B2", page.next());
+        verify(repo, times(1)).findResidentsByAddress(anyString());
+    }
+
+    @Test
+    void pagePersonInfoByLastName_mapsRepositoryPage() {
+        Person p1 = mock(Person.class);
+        MedicalRecord r1 = mock(MedicalRecord.class);
+        when(repo.pageResidentsByLastName("Boyd", "a|boyd", 1)).thenReturn(new KeyedPage<>(List.of(new Resident(p1, r1)), "b|boyd"));
+        PersonInfoDto i1 = mock(PersonInfoDto.class);
+        when(personInfoMapper.toInfo(eq(p1), same(r1), same(ages))).thenReturn(i1);
+
+        KeyedPage<PersonInfoDto> out = service.pagePersonInfoByLastName("Boyd", "a|boyd", 1);
+
+        assertEquals(List.of(i1), out.items());
+        assertEquals("b|boyd", out.next());
+    }
+
     @Test
     void getPersonInfoByLastName() {
         Person p1 = mock(Person.class);
         Person p2 = mock(Person.class);
-        when(repo.findPersonsByLastName("Boyd")).thenReturn(List.of(p1, p2));
+        MedicalRecord r1 = mock(MedicalRecord.class);
+        when(repo.findResidentsByLastName("Boyd")).thenReturn(List.of(new Resident(p1, r1), new Resident(p2, null)));
 
         PersonInfoDto i1 = mock(PersonInfoDto.class);
         PersonInfoDto i2 = mock(PersonInfoDto.class);
-        when(personInfoMapper.toInfo(eq(p1), any())).thenReturn(i1);
-        when(personInfoMapper.toInfo(eq(p2), any())).thenReturn(i2);
+        when(personInfoMapper.toInfo(eq(p1), same(r1), same(ages))).thenReturn(i1);
+        when(personInfoMapper.toInfo(eq(p2), isNull(), same(ages))).thenReturn(i2);
 
         List<PersonInfoDto> out = service.getPersonInfoByLastName("Boyd");
 
         assertEquals(List.of(i1, i2), out);
-        verify(personInfoMapper, times(2)).toInfo(any(), any());
+        verify(personInfoMapper, times(2)).toInfo(any(), any(), same(ages));
     }
 
     @Test
@@ -197,4 +259,14 @@ class ReportingServiceImplTest {
         assertEquals(Set.of("a@mail.com", "b@mail.com"), out);
         verify(repo).findEmailsByCity("Culver");
     }
+
+    @Test
+    void streamCommunityEmails_reads_the_repository_iterator() {
+        when(repo.iterateEmailsByCity("Culver")).thenReturn(List.of("a@mail.com", "b@mail.com").iterator());
+
+        List<String> out = service.streamCommunityEmails("Culver").toList();
+
+        assertEquals(List.of("a@mail.com", "b@mail.com"), out);
+        verify(repo, never()).findEmailsByCity(any());
+    }
 }
\ No newline at end of file
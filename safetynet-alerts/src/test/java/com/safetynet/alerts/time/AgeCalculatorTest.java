@@ -0,0 +1,96 @@
+package com.safetynet.alerts.time;
+
+import com.safetynet.alerts.model.MedicalRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgeCalculatorTest {
+
+    private static long day(int y, int m, int d) { return LocalDate.of(y, m, d).toEpochDay(); }
+
+    @Test
+    void parseEpochDay_accepts_one_or_two_digit_month_and_day() {
+        assertEquals(day(2010, 1, 5), AgeCalculator.parseEpochDay("1/5/2010"));
+        assertEquals(day(2010, 1, 5), AgeCalculator.parseEpochDay("01/05/2010"));
+        assertEquals(day(1984, 12, 31), AgeCalculator.parseEpochDay("  12/31/1984 "));
+        assertEquals(day(1, 3, 1), AgeCalculator.parseEpochDay("3/1/0001"));
+    }
+
+    @Test
+    void parseEpochDay_rejects_malformed_and_impossible_dates() {
+        for (String s : new String[]{null, "", "   ", "1/5/10", "1/5/20100", "001/5/2010", "1-5-2010",
+                "/5/2010", "1//2010", "1/5/", "a/5/2010", "1/5/2010x", "13/1/2010", "0/1/2010", "1/0/2010",
+                "4/31/2010", "2/30/2012", "2/29/2011", "2/29/1900", "1/5/+2010"}) {
+            assertEquals(AgeCalculator.NO_DATE, AgeCalculator.parseEpochDay(s), () -> "accepté : " + s);
+        }
+        assertEquals(day(2000, 2, 29), AgeCalculator.parseEpochDay("2/29/2000"));
+    }
+
+    @Test
+    void ageAt_counts_completed_years_and_leap_day_birthdays() {
+        long dob = day(2012, 2, 29);
+
+        assertEquals(0, AgeCalculator.ageAt(dob, dob));
+        assertEquals(0, AgeCalculator.ageAt(dob, day(2013, 2, 28)));
+        assertEquals(1, AgeCalculator.ageAt(dob, day(2013, 3, 1)));
+        assertEquals(4, AgeCalculator.ageAt(dob, day(2016, 2, 29)));
+        assertEquals(-1, AgeCalculator.ageAt(dob, day(2012, 2, 28)));
+        assertEquals(-1, AgeCalculator.ageAt(AgeCalculator.NO_DATE, dob));
+        assertEquals(41, AgeCalculator.ageAt(day(1984, 3, 6), day(2026, 3, 5)));
+        assertEquals(42, AgeCalculator.ageAt(day(1984, 3, 6), day(2026, 3, 6)));
+    }
+
+    @Test
+    void computeAge_from_string_matches_cached_epoch_day_on_record() {
+        AgeCalculator ages = new AgeCalculator(new TestClock(LocalDate.of(2026, 3, 6)));
+        MedicalRecord mr = new MedicalRecord();
+        mr.setBirthdate("03/06/1984");
+
+        assertEquals(day(1984, 3, 6), mr.getBirthEpochDay());
+        assertEquals(42, ages.computeAge("03/06/1984"));
+        assertEquals(42, ages.computeAge(mr.getBirthEpochDay()));
+        assertEquals(day(2026, 3, 6), ages.today());
+
+        mr.setBirthdate("not a date");
+        assertEquals(AgeCalculator.NO_DATE, mr.getBirthEpochDay());
+        assertEquals(-1, ages.computeAge(mr.getBirthEpochDay()));
+        assertEquals(-1, ages.computeAge((String) null));
+        assertFalse(ages.isChild(mr.getBirthEpochDay()));
+    }
+
+    @Test
+    void memoized_ages_are_dropped_at_midnight_in_clock_zone() {
+        // Arrange: 23:59 à Los Angeles, veille du 19e anniversaire
+        TestClock clock = new TestClock(LocalDate.of(2026, 6, 8));
+        clock.now = clock.now.plusSeconds(23 * 3600 + 59 * 60);
+        AgeCalculator ages = new AgeCalculator(clock);
+        assertEquals(18, ages.computeAge("6/9/2007"));
+        assertTrue(ages.isChild("6/9/2007"));
+
+        // Act: une minute plus tard, le jour change dans le fuseau de l'horloge
+        clock.now = clock.now.plusSeconds(60);
+
+        // Assert
+        assertEquals(19, ages.computeAge("6/9/2007"));
+        assertFalse(ages.isChild("6/9/2007"));
+        assertEquals(day(2026, 6, 9), ages.today());
+    }
+
+    /** Horloge réglable dans un fuseau autre qu'UTC. */
+    private static final class TestClock extends Clock {
+        private static final ZoneId ZONE = ZoneId.of("America/Los_Angeles");
+        private Instant now;
+
+        TestClock(LocalDate today) { this.now = today.atStartOfDay(ZONE).toInstant(); }
+
+        @Override public ZoneId getZone() { return ZONE; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return now; }
+    }
+}
@@ -0,0 +1,48 @@
+package com.safetynet.alerts.time;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkAgeClassifierTest {
+
+    private static long day(int y, int m, int d) { return LocalDate.of(y, m, d).toEpochDay(); }
+
+    @Test
+    void countChildren_uses_19th_birthday_and_leap_day_boundaries() {
+        // Arrange: 2031-02-28, année non bissextile
+        long today = day(2031, 2, 28);
+        long[] days = {
+                day(2012, 2, 28),       // 19 ans aujourd'hui : adulte
+                day(2012, 2, 29),       // 29 février : 19 ans le 1er mars, encore enfant
+                day(2031, 2, 28),       // né aujourd'hui : enfant
+                day(2031, 3, 1),        // date future : ni l'un ni l'autre, compté adulte
+                AgeCalculator.NO_DATE,  // inconnue : adulte
+                day(1980, 1, 1),
+                day(2020, 6, 1)         // hors de la longueur utile
+        };
+
+        // Act + Assert
+        assertEquals(2, BulkAgeClassifier.countChildren(days, 6, today));
+        assertEquals(3, BulkAgeClassifier.countChildren(days, days.length, today));
+        assertEquals(0, BulkAgeClassifier.countChildren(days, 0, today));
+    }
+
+    @Test
+    void countChildren_matches_per_person_rule() {
+        Random rnd = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            long today = day(1990, 1, 1) + rnd.nextInt(20_000);
+            long[] days = new long[257];
+            int expected = 0;
+            for (int i = 0; i < days.length; i++) {
+                days[i] = rnd.nextInt(50) == 0 ? AgeCalculator.NO_DATE : today - 8_000 + rnd.nextInt(8_100);
+                if (AgeCalculator.isChildAt(days[i], today)) expected++;
+            }
+            assertEquals(expected, BulkAgeClassifier.countChildren(days, days.length, today));
+        }
+    }
+}